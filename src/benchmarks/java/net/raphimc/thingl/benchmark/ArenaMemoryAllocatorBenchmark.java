@@ -0,0 +1,84 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.benchmark;
+
+import net.raphimc.thingl.util.ArenaMemoryAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaMemoryAllocatorBenchmark {
+
+    private static final long ARENA_SIZE = 1024L * 1024L * 1024L;
+    private static final int SIZE_COUNT = 4096;
+
+    @Param({"100", "1000", "10000"})
+    public int liveAllocations;
+
+    private ArenaMemoryAllocator allocator;
+    private long[] addresses;
+    private long[] sizes;
+    private int index;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final Random random = new Random(1337);
+        this.sizes = new long[SIZE_COUNT];
+        for (int i = 0; i < this.sizes.length; i++) {
+            this.sizes[i] = 256L + random.nextInt(64 * 1024);
+        }
+
+        // Fill the arena and free every other allocation to simulate a fragmented arena of retained meshes
+        this.allocator = new ArenaMemoryAllocator(0, ARENA_SIZE);
+        this.addresses = new long[this.liveAllocations];
+        final long[] spacers = new long[this.liveAllocations];
+        for (int i = 0; i < this.liveAllocations; i++) {
+            this.addresses[i] = this.allocator.alloc(this.sizes[i % SIZE_COUNT]);
+            spacers[i] = this.allocator.alloc(this.sizes[(i * 31) % SIZE_COUNT]);
+        }
+        for (long spacer : spacers) {
+            this.allocator.free(spacer);
+        }
+        this.index = 0;
+    }
+
+    @Benchmark
+    public long allocFree() {
+        final int slot = this.index++ % this.addresses.length;
+        this.allocator.free(this.addresses[slot]);
+        return this.addresses[slot] = this.allocator.alloc(this.sizes[this.index % SIZE_COUNT]);
+    }
+
+    @Benchmark
+    public long getUsedMemory() {
+        return this.allocator.getUsedMemory();
+    }
+
+    @Benchmark
+    public long getFreeMemory() {
+        return this.allocator.getFreeMemory();
+    }
+
+}
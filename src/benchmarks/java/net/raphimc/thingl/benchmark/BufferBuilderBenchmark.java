@@ -0,0 +1,89 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.benchmark;
+
+import net.raphimc.thingl.drawbuilder.builder.BufferBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(BufferBuilderBenchmark.VERTEX_COUNT)
+public class BufferBuilderBenchmark {
+
+    static final int VERTEX_COUNT = 4096;
+
+    private BufferBuilder bufferBuilder;
+
+    @Setup
+    public void setup() {
+        this.bufferBuilder = new BufferBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.bufferBuilder.free();
+    }
+
+    @Benchmark
+    public int putPositionColor() {
+        final BufferBuilder bufferBuilder = this.bufferBuilder;
+        bufferBuilder.reset();
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            bufferBuilder.putVector3f(i, i + 1F, i + 2F).putInt(0xFF00FF00);
+        }
+        return bufferBuilder.getPosition();
+    }
+
+    @Benchmark
+    public int putPositionColorTexture() {
+        final BufferBuilder bufferBuilder = this.bufferBuilder;
+        bufferBuilder.reset();
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            bufferBuilder.putVector3f(i, i + 1F, i + 2F).putInt(0xFF00FF00).putVector2f(0.25F, 0.75F);
+        }
+        return bufferBuilder.getPosition();
+    }
+
+    @Benchmark
+    public int putScalars() {
+        final BufferBuilder bufferBuilder = this.bufferBuilder;
+        bufferBuilder.reset();
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            bufferBuilder.putFloat(i).putFloat(i + 1F).putFloat(i + 2F).putInt(0xFF00FF00);
+        }
+        return bufferBuilder.getPosition();
+    }
+
+    @Benchmark
+    public int putPositionColorGrowing() {
+        final BufferBuilder bufferBuilder = new BufferBuilder(1024);
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            bufferBuilder.putVector3f(i, i + 1F, i + 2F).putInt(0xFF00FF00);
+        }
+        final int position = bufferBuilder.getPosition();
+        bufferBuilder.free();
+        return position;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.benchmark;
+
+import net.raphimc.thingl.drawbuilder.builder.BufferBuilder;
+import net.raphimc.thingl.drawbuilder.databuilder.holder.VertexDataHolder;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(BufferDataWriterBenchmark.VERTEX_COUNT)
+public class BufferDataWriterBenchmark {
+
+    static final int VERTEX_COUNT = 4096;
+
+    @Param({"identity", "translation", "affine"})
+    public String matrixType;
+
+    private BufferBuilder bufferBuilder;
+    private VertexDataHolder vertexDataHolder;
+    private Matrix4f positionMatrix;
+
+    @Setup
+    public void setup() {
+        this.bufferBuilder = new BufferBuilder();
+        this.vertexDataHolder = new VertexDataHolder(this.bufferBuilder);
+        this.positionMatrix = switch (this.matrixType) {
+            case "identity" -> new Matrix4f();
+            case "translation" -> new Matrix4f().translation(10F, 20F, 30F);
+            case "affine" -> new Matrix4f().translation(10F, 20F, 30F).rotateZ(0.5F).scale(2F);
+            default -> throw new IllegalArgumentException("Unknown matrix type: " + this.matrixType);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.bufferBuilder.free();
+    }
+
+    @Benchmark
+    public int putTransformedPositionColor() {
+        final VertexDataHolder vertexDataHolder = this.vertexDataHolder;
+        final Matrix4f positionMatrix = this.positionMatrix;
+        this.bufferBuilder.reset();
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            vertexDataHolder.putVector3f(positionMatrix, i, i + 1F, i + 2F).putColor(0xFF00FF00).endVertex();
+        }
+        return this.bufferBuilder.getPosition();
+    }
+
+}
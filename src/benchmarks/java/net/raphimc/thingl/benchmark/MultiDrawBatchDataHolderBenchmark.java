@@ -0,0 +1,120 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.benchmark;
+
+import net.raphimc.thingl.drawbuilder.BuiltinDrawBatches;
+import net.raphimc.thingl.drawbuilder.DrawBatch;
+import net.raphimc.thingl.drawbuilder.builder.BufferBuilder;
+import net.raphimc.thingl.drawbuilder.databuilder.holder.VertexDataHolder;
+import net.raphimc.thingl.drawbuilder.drawbatchdataholder.DrawBatchDataHolder;
+import net.raphimc.thingl.drawbuilder.drawbatchdataholder.MultiDrawBatchDataHolder;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(MultiDrawBatchDataHolderBenchmark.QUAD_COUNT)
+public class MultiDrawBatchDataHolderBenchmark {
+
+    static final int QUAD_COUNT = 1024;
+
+    private PooledMultiDrawBatchDataHolder multiDrawBatchDataHolder;
+
+    @Setup
+    public void setup() {
+        this.multiDrawBatchDataHolder = new PooledMultiDrawBatchDataHolder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.multiDrawBatchDataHolder.freeFully();
+    }
+
+    @Benchmark
+    public void singleDrawBatch() {
+        for (int i = 0; i < QUAD_COUNT; i++) {
+            this.putQuad(BuiltinDrawBatches.COLORED_QUAD, i);
+        }
+        this.multiDrawBatchDataHolder.free();
+    }
+
+    @Benchmark
+    public void interleavedDrawBatches() {
+        for (int i = 0; i < QUAD_COUNT; i++) {
+            this.putQuad((i & 1) == 0 ? BuiltinDrawBatches.COLORED_QUAD : BuiltinDrawBatches.INSTANCED_COLORED_QUAD, i);
+        }
+        this.multiDrawBatchDataHolder.free();
+    }
+
+    private void putQuad(final DrawBatch drawBatch, final float x) {
+        final VertexDataHolder vertexDataHolder = this.multiDrawBatchDataHolder.getVertexDataHolder(drawBatch);
+        vertexDataHolder.putVector3f(x, 10F, 0F).putColor(0xFF00FF00).endVertex();
+        vertexDataHolder.putVector3f(x + 10F, 10F, 0F).putColor(0xFF00FF00).endVertex();
+        vertexDataHolder.putVector3f(x + 10F, 0F, 0F).putColor(0xFF00FF00).endVertex();
+        vertexDataHolder.putVector3f(x, 0F, 0F).putColor(0xFF00FF00).endVertex();
+    }
+
+    /**
+     * Mirrors the immediate mode data holder, but pools the buffer builders locally instead of going through the render thread bound pool.
+     */
+    private static class PooledMultiDrawBatchDataHolder extends MultiDrawBatchDataHolder {
+
+        private final Deque<BufferBuilder> freeBufferBuilders = new ArrayDeque<>();
+
+        @Override
+        public void draw(final Matrix4f modelMatrix) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void draw(final DrawBatch drawBatch, final Matrix4f modelMatrix) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected DrawBatchDataHolder createDrawBatchDataHolder(final DrawBatch drawBatch) {
+            return new DrawBatchDataHolder(this::borrowBufferBuilder, this::returnBufferBuilder);
+        }
+
+        private BufferBuilder borrowBufferBuilder() {
+            final BufferBuilder bufferBuilder = this.freeBufferBuilders.poll();
+            return bufferBuilder != null ? bufferBuilder : new BufferBuilder();
+        }
+
+        private void returnBufferBuilder(final BufferBuilder bufferBuilder) {
+            bufferBuilder.reset();
+            this.freeBufferBuilders.push(bufferBuilder);
+        }
+
+        private void freeFully() {
+            this.free();
+            this.freeBufferBuilders.forEach(BufferBuilder::free);
+            this.freeBufferBuilders.clear();
+        }
+
+    }
+
+}
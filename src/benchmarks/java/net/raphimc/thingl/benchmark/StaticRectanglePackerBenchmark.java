@@ -0,0 +1,65 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.benchmark;
+
+import net.raphimc.thingl.util.rectpack.Slot;
+import net.raphimc.thingl.util.rectpack.StaticRectanglePacker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(StaticRectanglePackerBenchmark.RECT_COUNT)
+public class StaticRectanglePackerBenchmark {
+
+    static final int RECT_COUNT = 512;
+    private static final int ATLAS_SIZE = 1024;
+
+    private int[] widths;
+    private int[] heights;
+
+    @Setup
+    public void setup() {
+        // Glyph sized rectangles, similar to what the text renderers put into their atlases
+        final Random random = new Random(1337);
+        this.widths = new int[RECT_COUNT];
+        this.heights = new int[RECT_COUNT];
+        for (int i = 0; i < RECT_COUNT; i++) {
+            this.widths[i] = 8 + random.nextInt(32);
+            this.heights[i] = 12 + random.nextInt(32);
+        }
+    }
+
+    @Benchmark
+    public void pack(final Blackhole blackhole) {
+        final StaticRectanglePacker packer = new StaticRectanglePacker(ATLAS_SIZE, ATLAS_SIZE);
+        for (int i = 0; i < RECT_COUNT; i++) {
+            final Slot slot = packer.pack(this.widths[i], this.heights[i]);
+            blackhole.consume(slot);
+        }
+        packer.free();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.benchmark;
+
+import net.raphimc.thingl.text.FreeTypeLibrary;
+import net.raphimc.thingl.text.TextRun;
+import net.raphimc.thingl.text.font.Font;
+import net.raphimc.thingl.text.shaper.ShapedTextRun;
+import net.raphimc.thingl.text.shaper.ShapingCache;
+import net.raphimc.thingl.text.shaper.impl.BasicTextShaper;
+import org.joml.Vector2f;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextShaperBenchmark {
+
+    @Param({"Label", "The quick brown fox jumps over the lazy dog. 0123456789 !?#&"})
+    public String text;
+
+    private FreeTypeLibrary freeTypeLibrary;
+    private Font font;
+    private TextRun textRun;
+    private final ShapingCache shapingCache = new ShapingCache();
+
+    @Setup
+    public void setup() throws IOException {
+        final byte[] fontData;
+        try (InputStream inputStream = TextShaperBenchmark.class.getResourceAsStream("/fonts/Roboto-Regular.ttf")) {
+            if (inputStream == null) {
+                throw new IOException("Font not found");
+            }
+            fontData = inputStream.readAllBytes();
+        }
+        this.freeTypeLibrary = new FreeTypeLibrary();
+        this.font = new Font(this.freeTypeLibrary, fontData, 32, new Vector2f());
+        this.textRun = TextRun.fromString(this.font, this.text);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.font.free();
+        this.freeTypeLibrary.free();
+    }
+
+    @Benchmark
+    public ShapedTextRun basicShape() {
+        return BasicTextShaper.INSTANCE.shape(this.textRun);
+    }
+
+    @Benchmark
+    public ShapedTextRun basicShapeCached() {
+        return this.shapingCache.shape(BasicTextShaper.INSTANCE, this.textRun);
+    }
+
+}
@@ -31,11 +31,15 @@ import net.raphimc.thingl.renderer.impl.Renderer3D;
 import net.raphimc.thingl.renderer.impl.RendererText;
 import net.raphimc.thingl.text.FreeTypeLibrary;
 import net.raphimc.thingl.text.renderer.BSDFTextRenderer;
+import net.raphimc.thingl.text.shaper.ShapingCache;
+import net.raphimc.thingl.text.shaper.impl.HarfBuzzTextShaper;
 import net.raphimc.thingl.util.SyncManager;
 import net.raphimc.thingl.util.pool.BufferBuilderPool;
 import net.raphimc.thingl.util.pool.FramebufferPool;
 import net.raphimc.thingl.util.pool.GpuBufferPool;
 import net.raphimc.thingl.util.pool.ImmediateVertexArrays;
+import net.raphimc.thingl.util.pool.PixelBufferPool;
+import net.raphimc.thingl.util.pool.StreamingBuffer;
 import net.raphimc.thingl.wrapper.*;
 import org.lwjgl.opengl.GL11C;
 import org.lwjgl.system.Configuration;
@@ -139,10 +143,18 @@ public class ThinGL {
         return get().getFramebufferPool();
     }
 
+    public static PixelBufferPool pixelBufferPool() {
+        return get().getPixelBufferPool();
+    }
+
     public static ImmediateVertexArrays immediateVertexArrays() {
         return get().getImmediateVertexArrays();
     }
 
+    public static StreamingBuffer streamingBuffer() {
+        return get().getStreamingBuffer();
+    }
+
     public static QuadIndexBuffer quadIndexBuffer() {
         return get().getQuadIndexBuffer();
     }
@@ -155,6 +167,10 @@ public class ThinGL {
         return get().getFreeTypeLibrary();
     }
 
+    public static ShapingCache shapingCache() {
+        return get().getShapingCache();
+    }
+
     private final Thread renderThread;
     private final WindowInterface windowInterface;
     private final ApplicationInterface applicationInterface;
@@ -174,16 +190,20 @@ public class ThinGL {
     private final BufferBuilderPool bufferBuilderPool;
     private final GpuBufferPool gpuBufferPool;
     private final FramebufferPool framebufferPool;
+    private final PixelBufferPool pixelBufferPool;
     private final ImmediateVertexArrays immediateVertexArrays;
+    private final StreamingBuffer streamingBuffer;
     private final QuadIndexBuffer quadIndexBuffer;
     private final SyncManager syncManager;
 
     private final FreeTypeLibrary freeTypeLibrary;
+    private final ShapingCache shapingCache;
 
     private final List<Runnable> finishFrameCallbacks = new ArrayList<>();
     private final List<Runnable> finishFrameActions = new ArrayList<>();
 
     private long frameStartTime = System.nanoTime();
+    private long frameCount = 0;
     private float frameTime = 0F;
     private float fullFrameTime = 0F;
     private long lastFpsUpdateTime = System.nanoTime();
@@ -212,7 +232,9 @@ public class ThinGL {
         this.bufferBuilderPool = new BufferBuilderPool(this);
         this.gpuBufferPool = new GpuBufferPool(this);
         this.framebufferPool = new FramebufferPool(this);
+        this.pixelBufferPool = new PixelBufferPool(this);
         this.immediateVertexArrays = new ImmediateVertexArrays(this);
+        this.streamingBuffer = new StreamingBuffer(this);
         this.quadIndexBuffer = new QuadIndexBuffer(this);
         this.syncManager = new SyncManager(this);
         if (this.capabilities.isFreeTypePresent()) {
@@ -223,6 +245,7 @@ public class ThinGL {
         } else {
             this.freeTypeLibrary = null;
         }
+        this.shapingCache = new ShapingCache();
 
         this.addFinishFrameCallback(() -> {
             if (this.globalDrawBatch.hasDrawBatches()) {
@@ -239,6 +262,7 @@ public class ThinGL {
 
     public synchronized void onStartFrame() {
         this.frameStartTime = System.nanoTime();
+        this.glStateManager.onStartFrame();
     }
 
     public synchronized void onFinishFrame() {
@@ -260,6 +284,7 @@ public class ThinGL {
 
         final long currentTime = System.nanoTime();
         this.frameTime = (currentTime - this.frameStartTime) / 1_000_000F;
+        this.frameCount++;
         this.fpsCounter++;
         if (currentTime - this.lastFpsUpdateTime >= 1_000_000_000L) {
             this.lastFpsUpdateTime = currentTime;
@@ -317,6 +342,13 @@ public class ThinGL {
         return this.fps;
     }
 
+    /**
+     * @return The number of frames which have been finished so far
+     */
+    public long getFrameCount() {
+        return this.frameCount;
+    }
+
     public void free() {
         this.assertOnRenderThread();
         this.windowInterface.free();
@@ -328,8 +360,12 @@ public class ThinGL {
         this.bufferBuilderPool.free();
         this.gpuBufferPool.free();
         this.framebufferPool.free();
+        this.pixelBufferPool.free();
         this.immediateVertexArrays.free();
+        this.streamingBuffer.free();
         this.quadIndexBuffer.free();
+        this.shapingCache.clear();
+        HarfBuzzTextShaper.INSTANCE.free();
         if (this.freeTypeLibrary != null) {
             this.freeTypeLibrary.free();
         }
@@ -406,10 +442,18 @@ public class ThinGL {
         return this.framebufferPool;
     }
 
+    public PixelBufferPool getPixelBufferPool() {
+        return this.pixelBufferPool;
+    }
+
     public ImmediateVertexArrays getImmediateVertexArrays() {
         return this.immediateVertexArrays;
     }
 
+    public StreamingBuffer getStreamingBuffer() {
+        return this.streamingBuffer;
+    }
+
     public QuadIndexBuffer getQuadIndexBuffer() {
         return this.quadIndexBuffer;
     }
@@ -422,4 +466,8 @@ public class ThinGL {
         return this.freeTypeLibrary;
     }
 
+    public ShapingCache getShapingCache() {
+        return this.shapingCache;
+    }
+
 }
@@ -39,6 +39,7 @@ public class BuiltinDrawBatches {
     public static final VertexDataLayoutElement POSITION_ELEMENT = new VertexDataLayoutElement(DataType.FLOAT, 3);
     public static final VertexDataLayoutElement COLOR_ELEMENT = new VertexDataLayoutElement(DataType.UNSIGNED_BYTE, 4, TargetDataType.FLOAT_NORMALIZED);
     public static final VertexDataLayoutElement TEXTURE_ELEMENT = new VertexDataLayoutElement(DataType.FLOAT, 2);
+    public static final VertexDataLayoutElement TEXTURE_REFERENCE_ELEMENT = new VertexDataLayoutElement(DataType.UNSIGNED_INT, 2);
 
     // === Vertex Data Layouts ===
 
@@ -46,6 +47,9 @@ public class BuiltinDrawBatches {
     public static final VertexDataLayout POSITION_TEXTURE_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, TEXTURE_ELEMENT);
     public static final VertexDataLayout POSITION_TEXTURE_ARRAY_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, TEXTURE_ELEMENT, new VertexDataLayoutElement(DataType.SHORT, 1));
     public static final VertexDataLayout POSITION_COLOR_TEXTURE_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, COLOR_ELEMENT, TEXTURE_ELEMENT);
+    public static final VertexDataLayout BATCHED_POSITION_TEXTURE_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, TEXTURE_ELEMENT, TEXTURE_REFERENCE_ELEMENT);
+    public static final VertexDataLayout BATCHED_POSITION_TEXTURE_ARRAY_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, TEXTURE_ELEMENT, new VertexDataLayoutElement(DataType.SHORT, 1), TEXTURE_REFERENCE_ELEMENT);
+    public static final VertexDataLayout BATCHED_POSITION_COLOR_TEXTURE_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, COLOR_ELEMENT, TEXTURE_ELEMENT, TEXTURE_REFERENCE_ELEMENT);
     public static final VertexDataLayout LINE_LAYOUT = new VertexDataLayout(POSITION_ELEMENT, COLOR_ELEMENT, new VertexDataLayoutElement(DataType.FLOAT, 1));
 
     // === Draw Batches ===
@@ -34,6 +34,7 @@ import net.raphimc.thingl.drawbuilder.databuilder.holder.VertexDataHolder;
 import net.raphimc.thingl.drawbuilder.drawbatchdataholder.DrawBatchDataHolder;
 import net.raphimc.thingl.drawbuilder.index.IndexByteBuffer;
 import net.raphimc.thingl.drawbuilder.index.QuadIndexBuffer;
+import net.raphimc.thingl.drawbuilder.vertex.DataType;
 import net.raphimc.thingl.program.RegularProgram;
 import net.raphimc.thingl.resource.buffer.AbstractBuffer;
 import net.raphimc.thingl.resource.buffer.Buffer;
@@ -41,6 +42,7 @@ import net.raphimc.thingl.resource.buffer.ImmutableBuffer;
 import net.raphimc.thingl.resource.program.Program;
 import net.raphimc.thingl.resource.vertexarray.VertexArray;
 import net.raphimc.thingl.util.BufferUtil;
+import net.raphimc.thingl.util.pool.StreamingBuffer;
 import org.joml.Matrix4f;
 import org.joml.Matrix4fc;
 import org.lwjgl.opengl.GL11C;
@@ -196,6 +198,13 @@ public class BufferRenderer {
     }
 
     public static BuiltBuffer buildTemporaryBuffer(final PreparedBuffer preparedBuffer) {
+        if (ThinGL.streamingBuffer().isEnabled()) {
+            final BuiltBuffer builtBuffer = buildStreamedBuffer(preparedBuffer);
+            if (builtBuffer != null) {
+                return builtBuffer;
+            }
+        }
+
         final DrawBatch drawBatch = preparedBuffer.drawBatch();
         final VertexArray vertexArray = ThinGL.immediateVertexArrays().getVertexArray(drawBatch.vertexDataLayout());
 
@@ -264,15 +273,18 @@ public class BufferRenderer {
 
     public static void freeTemporaryBuffer(final BuiltBuffer builtBuffer) {
         final VertexArray vertexArray = builtBuffer.vertexArray();
+        final AbstractBuffer streamingBuffer = ThinGL.streamingBuffer().getBuffer();
         if (vertexArray.getIndexBuffer() != null) {
-            if (vertexArray.getIndexBuffer() != ThinGL.quadIndexBuffer().getSharedBuffer()) {
+            if (vertexArray.getIndexBuffer() != ThinGL.quadIndexBuffer().getSharedBuffer() && vertexArray.getIndexBuffer() != streamingBuffer) {
                 ThinGL.gpuBufferPool().returnBuffer((Buffer) vertexArray.getIndexBuffer());
             }
             vertexArray.setIndexBuffer(0, null);
         }
 
         if (vertexArray.getVertexBuffers().containsKey(1)) {
-            ThinGL.gpuBufferPool().returnBuffer((Buffer) vertexArray.getVertexBuffers().get(1));
+            if (vertexArray.getVertexBuffers().get(1) != streamingBuffer) {
+                ThinGL.gpuBufferPool().returnBuffer((Buffer) vertexArray.getVertexBuffers().get(1));
+            }
             vertexArray.setVertexBuffer(1, null, 0, 0);
             int vertexAttribIndex = builtBuffer.drawBatch().vertexDataLayout().getElements().length;
             // FlorianMichael - add macOS support
@@ -296,6 +308,70 @@ public class BufferRenderer {
         }
     }
 
+    private static BuiltBuffer buildStreamedBuffer(final PreparedBuffer preparedBuffer) {
+        final DrawBatch drawBatch = preparedBuffer.drawBatch();
+        final StreamingBuffer streamingBuffer = ThinGL.streamingBuffer();
+        final List<DrawCommand> drawCommands = new ArrayList<>(preparedBuffer.drawCommands());
+
+        final IndexByteBuffer indexBuffer = preparedBuffer.indexBuffer();
+        final ByteBuffer indexData = indexBuffer != null && indexBuffer.buffer() != ThinGL.quadIndexBuffer().getSharedData() ? indexBuffer.buffer() : null;
+        final long[] offsets = streamingBuffer.write(preparedBuffer.vertexBuffer(), preparedBuffer.instanceVertexBuffer(), indexData);
+        if (offsets == null) {
+            return null;
+        }
+        final long vertexOffset = offsets[0];
+        final long instanceVertexOffset = offsets[1];
+        if (indexData != null) {
+            final int firstIndex = (int) (offsets[2] / DataType.fromGlType(indexBuffer.type()).getSize());
+            drawCommands.replaceAll(drawCommand -> ((DrawElementsCommand) drawCommand).withIndexOffset(firstIndex));
+        }
+
+        final VertexArray vertexArray = streamingBuffer.getVertexArray(drawBatch.vertexDataLayout());
+        vertexArray.setVertexBuffer(0, streamingBuffer.getBuffer(), vertexOffset, drawBatch.vertexDataLayout().getSize());
+        if (indexBuffer != null) {
+            if (indexBuffer.buffer() == ThinGL.quadIndexBuffer().getSharedData()) {
+                vertexArray.setIndexBuffer(indexBuffer.type(), ThinGL.quadIndexBuffer().getSharedBuffer());
+            } else {
+                vertexArray.setIndexBuffer(indexBuffer.type(), streamingBuffer.getBuffer());
+            }
+        }
+        if (instanceVertexOffset != -1) {
+            vertexArray.setVertexBuffer(1, streamingBuffer.getBuffer(), instanceVertexOffset, drawBatch.instanceVertexDataLayout().getSize());
+            vertexArray.configureVertexDataLayout(1, drawBatch.vertexDataLayout().getElements().length, drawBatch.instanceVertexDataLayout(), 1);
+        }
+
+        // Shader data and indirect commands are bound without an offset, so they still go through the buffer pool
+        final Object2ObjectMap<String, AbstractBuffer> shaderDataBuffers = new Object2ObjectOpenHashMap<>();
+        for (Map.Entry<String, ByteBuffer> entry : preparedBuffer.shaderDataBuffers().entrySet()) {
+            final ByteBuffer ssboData = entry.getValue();
+            final Buffer ssboBuffer = ThinGL.gpuBufferPool().borrowBuffer();
+            if (ssboBuffer.getSize() < ssboData.remaining()) {
+                ssboBuffer.setSize(ssboData.remaining());
+            }
+            ssboBuffer.upload(0, ssboData);
+            shaderDataBuffers.put(entry.getKey(), ssboBuffer);
+        }
+
+        Buffer commandBuffer = null;
+        if (drawCommands.size() > 1) {
+            final BufferBuilder commandBufferBuilder = ThinGL.bufferBuilderPool().borrowBufferBuilder();
+            commandBufferBuilder.ensureHasEnoughSpace(drawCommands.size() * DrawCommand.BYTES);
+            for (DrawCommand drawCommand : drawCommands) {
+                drawCommand.write(commandBufferBuilder);
+            }
+            final ByteBuffer commandData = commandBufferBuilder.finish();
+            commandBuffer = ThinGL.gpuBufferPool().borrowBuffer();
+            if (commandBuffer.getSize() < commandData.remaining()) {
+                commandBuffer.setSize(commandData.remaining());
+            }
+            commandBuffer.upload(0, commandData);
+            ThinGL.bufferBuilderPool().returnBufferBuilder(commandBufferBuilder);
+        }
+
+        preparedBuffer.free();
+        return new BuiltBuffer(drawBatch, vertexArray, shaderDataBuffers, commandBuffer, drawCommands);
+    }
+
     public static BuiltBuffer buildPersistentBuffer(final PreparedBuffer preparedBuffer) {
         final DrawBatch drawBatch = preparedBuffer.drawBatch();
         final VertexArray vertexArray = new VertexArray();
@@ -341,6 +417,17 @@ public class BufferRenderer {
     }
 
     public static void render(final BuiltBuffer builtBuffer, final Matrix4f modelMatrix) {
+        render(builtBuffer, modelMatrix, null);
+    }
+
+    /**
+     * Renders the given buffer.
+     *
+     * @param builtBuffer The buffer to render
+     * @param modelMatrix The model matrix
+     * @param parameterBuffer A buffer containing the draw count of the command buffer, or null to draw all draw commands. Requires ARB_indirect_parameters.
+     */
+    public static void render(final BuiltBuffer builtBuffer, final Matrix4f modelMatrix, final AbstractBuffer parameterBuffer) {
         final DrawBatch drawBatch = builtBuffer.drawBatch();
         final DrawMode drawMode = drawBatch.drawMode();
         final VertexArray vertexArray = builtBuffer.vertexArray();
@@ -358,9 +445,6 @@ public class BufferRenderer {
                 if ((modelMatrix.properties() & Matrix4fc.PROPERTY_IDENTITY) == 0) {
                     program.setUniformMatrix4f("u_ModelMatrix", modelMatrix);
                 }
-                if (COLOR_MODIFIER != null) {
-                    program.setUniformVector4f("u_ColorModifier", COLOR_MODIFIER);
-                }
                 for (Map.Entry<String, AbstractBuffer> entry : builtBuffer.shaderDataBuffers().entrySet()) {
                     program.setShaderStorageBuffer(entry.getKey(), entry.getValue());
                 }
@@ -375,10 +459,17 @@ public class BufferRenderer {
             if (drawCommands.size() == 1) {
                 final DrawCommand drawCommand = drawCommands.get(0);
                 if (drawCommand instanceof DrawElementsCommand drawElementsCommand) {
-                    vertexArray.drawElements(drawMode, drawElementsCommand.vertexCount(), drawElementsCommand.firstIndex(), drawElementsCommand.instanceCount(), drawElementsCommand.baseVertex(), drawElementsCommand.baseInstance());
+                    final int indexOffset = drawElementsCommand.firstIndex() != 0 ? drawElementsCommand.firstIndex() * DataType.fromGlType(vertexArray.getIndexType()).getSize() : 0;
+                    vertexArray.drawElements(drawMode, drawElementsCommand.vertexCount(), indexOffset, drawElementsCommand.instanceCount(), drawElementsCommand.baseVertex(), drawElementsCommand.baseInstance());
                 } else if (drawCommand instanceof DrawArraysCommand drawArraysCommand) {
                     vertexArray.drawArrays(drawMode, drawArraysCommand.vertexCount(), drawArraysCommand.firstVertex(), drawArraysCommand.instanceCount(), drawArraysCommand.baseInstance());
                 }
+            } else if (builtBuffer.commandBuffer() != null && parameterBuffer != null) {
+                if (vertexArray.getIndexBuffer() != null) {
+                    vertexArray.drawElementsIndirectCount(drawMode, builtBuffer.commandBuffer(), 0, parameterBuffer, 0, drawCommands.size());
+                } else {
+                    vertexArray.drawArraysIndirectCount(drawMode, builtBuffer.commandBuffer(), 0, parameterBuffer, 0, drawCommands.size());
+                }
             } else if (builtBuffer.commandBuffer() != null) {
                 if (vertexArray.getIndexBuffer() != null) {
                     vertexArray.drawElementsIndirect(drawMode, builtBuffer.commandBuffer(), 0, drawCommands.size());
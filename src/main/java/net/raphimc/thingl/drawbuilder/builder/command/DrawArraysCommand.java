@@ -33,6 +33,11 @@ public record DrawArraysCommand(int vertexCount, int instanceCount, int firstVer
         return new DrawArraysCommand(this.vertexCount, this.instanceCount, this.firstVertex + vertexOffset, this.baseInstance);
     }
 
+    @Override
+    public DrawCommand withBaseInstance(final int baseInstance) {
+        return new DrawArraysCommand(this.vertexCount, this.instanceCount, this.firstVertex, baseInstance);
+    }
+
     @Override
     public void write(final BufferBuilder bufferBuilder) {
         bufferBuilder.putInt(this.vertexCount).putInt(this.instanceCount).putInt(this.firstVertex).putInt(this.baseInstance);
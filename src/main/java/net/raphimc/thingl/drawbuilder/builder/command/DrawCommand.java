@@ -26,6 +26,8 @@ public interface DrawCommand {
 
     DrawCommand withVertexOffset(final int vertexOffset);
 
+    DrawCommand withBaseInstance(final int baseInstance);
+
     void write(final BufferBuilder bufferBuilder);
 
     int vertexCount();
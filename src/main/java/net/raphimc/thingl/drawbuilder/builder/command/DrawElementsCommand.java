@@ -33,6 +33,11 @@ public record DrawElementsCommand(int vertexCount, int instanceCount, int firstI
         return new DrawElementsCommand(this.vertexCount, this.instanceCount, this.firstIndex, this.baseVertex + vertexOffset, this.baseInstance);
     }
 
+    @Override
+    public DrawCommand withBaseInstance(final int baseInstance) {
+        return new DrawElementsCommand(this.vertexCount, this.instanceCount, this.firstIndex, this.baseVertex, baseInstance);
+    }
+
     public DrawCommand withIndexOffset(final int indexOffset) {
         return new DrawElementsCommand(this.vertexCount, this.instanceCount, this.firstIndex + indexOffset, this.baseVertex, this.baseInstance);
     }
@@ -26,14 +26,20 @@ import net.raphimc.thingl.drawbuilder.builder.BufferBuilder;
 import net.raphimc.thingl.drawbuilder.builder.BufferRenderer;
 import net.raphimc.thingl.drawbuilder.builder.BuiltBuffer;
 import net.raphimc.thingl.drawbuilder.builder.PreparedBuffer;
+import net.raphimc.thingl.drawbuilder.vertex.DataType;
+import net.raphimc.thingl.drawbuilder.vertex.VertexDataLayout;
+import net.raphimc.thingl.drawbuilder.vertex.VertexDataLayoutElement;
 import org.joml.Matrix4f;
+import org.joml.primitives.AABBf;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public class PersistentMultiDrawBatchDataHolder extends MultiDrawBatchDataHolder {
 
     private final Reference2ObjectMap<DrawBatch, PreparedBuffer> preparedDrawBatches = new Reference2ObjectLinkedOpenHashMap<>();
     private final Reference2ObjectMap<DrawBatch, BuiltBuffer> builtDrawBatches = new Reference2ObjectLinkedOpenHashMap<>();
+    private final Reference2ObjectMap<DrawBatch, AABBf> drawBatchBounds = new Reference2ObjectLinkedOpenHashMap<>();
 
     public PersistentMultiDrawBatchDataHolder() {
     }
@@ -58,6 +64,10 @@ public class PersistentMultiDrawBatchDataHolder extends MultiDrawBatchDataHolder
             } else {
                 preparedBuffer = BufferRenderer.prepareBuffer(entry.getKey(), entry.getValue(), false);
             }
+            final AABBf bounds = computeBounds(preparedBuffer);
+            if (bounds != null) {
+                this.drawBatchBounds.put(entry.getKey(), bounds);
+            }
             this.builtDrawBatches.put(entry.getKey(), BufferRenderer.buildPersistentBuffer(preparedBuffer));
         }
         this.drawBatches.clear();
@@ -97,6 +107,14 @@ public class PersistentMultiDrawBatchDataHolder extends MultiDrawBatchDataHolder
         return this.builtDrawBatches;
     }
 
+    /**
+     * @param drawBatch The draw batch
+     * @return The object space bounds of the built vertex data, or null if the vertex data layout doesn't start with a float position
+     */
+    public AABBf getBounds(final DrawBatch drawBatch) {
+        return this.drawBatchBounds.get(drawBatch);
+    }
+
     public void free() {
         super.free();
         this.freePreparedBatches();
@@ -121,6 +139,26 @@ public class PersistentMultiDrawBatchDataHolder extends MultiDrawBatchDataHolder
     private void freeBuiltBatches() {
         this.builtDrawBatches.values().forEach(BuiltBuffer::free);
         this.builtDrawBatches.clear();
+        this.drawBatchBounds.clear();
+    }
+
+    private static AABBf computeBounds(final PreparedBuffer preparedBuffer) {
+        final VertexDataLayout vertexDataLayout = preparedBuffer.drawBatch().vertexDataLayout();
+        if (vertexDataLayout.getElements().length == 0) {
+            return null;
+        }
+        final VertexDataLayoutElement positionElement = vertexDataLayout.getElements()[0];
+        if (positionElement.dataType() != DataType.FLOAT || positionElement.count() != 3) {
+            return null;
+        }
+
+        final ByteBuffer vertexData = preparedBuffer.vertexBuffer();
+        final int vertexSize = vertexDataLayout.getSize();
+        final AABBf bounds = new AABBf();
+        for (int i = vertexData.position(); i + vertexSize <= vertexData.limit(); i += vertexSize) {
+            bounds.union(vertexData.getFloat(i), vertexData.getFloat(i + Float.BYTES), vertexData.getFloat(i + Float.BYTES * 2));
+        }
+        return bounds.isValid() ? bounds : null;
     }
 
 }
@@ -19,26 +19,30 @@
 package net.raphimc.thingl.drawbuilder.multidraw;
 
 import it.unimi.dsi.fastutil.ints.*;
+import it.unimi.dsi.fastutil.longs.*;
 import net.raphimc.thingl.ThinGL;
 import net.raphimc.thingl.drawbuilder.DrawBatch;
 import net.raphimc.thingl.drawbuilder.builder.BufferBuilder;
 import net.raphimc.thingl.drawbuilder.builder.BuiltBuffer;
+import net.raphimc.thingl.drawbuilder.builder.command.DrawArraysCommand;
 import net.raphimc.thingl.drawbuilder.builder.command.DrawCommand;
 import net.raphimc.thingl.drawbuilder.builder.command.DrawElementsCommand;
 import net.raphimc.thingl.resource.buffer.AbstractBuffer;
 import net.raphimc.thingl.resource.buffer.Buffer;
 import net.raphimc.thingl.resource.buffer.ImmutableBuffer;
+import net.raphimc.thingl.resource.framebuffer.Framebuffer;
+import net.raphimc.thingl.resource.program.Program;
 import net.raphimc.thingl.resource.vertexarray.VertexArray;
 import net.raphimc.thingl.util.ArenaMemoryAllocator;
 import net.raphimc.thingl.util.BufferUtil;
 import net.raphimc.thingl.util.MathUtil;
-import org.lwjgl.opengl.GL11C;
-import org.lwjgl.opengl.GL15C;
-import org.lwjgl.opengl.GL42C;
-import org.lwjgl.opengl.GL45C;
+import org.joml.Matrix4f;
+import org.joml.primitives.AABBf;
+import org.lwjgl.opengl.*;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,20 +51,36 @@ public class MultiDrawBuilder {
 
     private static final long MAX_BUFFER_SIZE = 1024 * 1024 * 1024;
     private static final long MIN_RESIZE_AMOUNT = 10 * 1024 * 1024;
+    private static final int BOUNDS_SIZE = Float.BYTES * 8;
 
     private final DrawBatch drawBatch;
     private final ArenaMemoryAllocator vertexAllocator;
     private AbstractBuffer vertexBuffer;
     private final ArenaMemoryAllocator indexAllocator;
     private AbstractBuffer indexBuffer;
-    private final Buffer commandBuffer;
+    private final int commandSize;
+    private AbstractBuffer commandBuffer;
     private final VertexArray vertexArray;
     private final AtomicInteger idGenerator = new AtomicInteger();
     private final Int2LongMap storedVertexBuffers = new Int2LongOpenHashMap(); // id -> vertex address
     private final Int2LongMap storedIndexBuffers = new Int2LongOpenHashMap(); // id -> index address
+    private final Long2IntSortedMap vertexBufferIds = new Long2IntRBTreeMap(); // vertex address -> id
+    private final Long2IntSortedMap indexBufferIds = new Long2IntRBTreeMap(); // index address -> id
     private final Int2ObjectMap<List<DrawCommand>> bufferDrawCommands = new Int2ObjectOpenHashMap<>(); // id -> draw commands
-    private final IntSet renderBuffers = new IntLinkedOpenHashSet();
+    private final Int2ObjectMap<AABBf> bufferBounds = new Int2ObjectOpenHashMap<>(); // id -> bounds
+    private final List<DrawCommand> drawCommands = new ArrayList<>(); // slot -> draw command
+    private final List<DrawCommand> uploadedDrawCommands = new ArrayList<>(); // slot -> draw command in the command buffer
+    private final IntList slotIds = new IntArrayList(); // slot -> id
+    private final Int2ObjectMap<IntList> bufferSlots = new Int2ObjectOpenHashMap<>(); // id -> slots (in the same order as the draw commands of the buffer)
+    private final IntSet dirtySlots = new IntOpenHashSet();
+    private boolean fullRebuild = true;
+    private long patchedCommandCount;
+    private long rebuiltCommandCount;
     private BuiltBuffer builtBuffer;
+    private AbstractBuffer boundsBuffer;
+    private final Buffer culledCommandBuffer;
+    private final ImmutableBuffer parameterBuffer;
+    private BuiltBuffer culledBuiltBuffer;
 
     public MultiDrawBuilder(final DrawBatch drawBatch) {
         this.drawBatch = drawBatch;
@@ -72,7 +92,11 @@ public class MultiDrawBuilder {
         } else {
             this.indexAllocator = null;
         }
+        this.commandSize = drawBatch.drawMode().isIndexed() ? DrawElementsCommand.BYTES : DrawArraysCommand.BYTES;
         this.commandBuffer = new Buffer(DrawCommand.BYTES * 512L, GL15C.GL_DYNAMIC_DRAW);
+        this.boundsBuffer = new Buffer(BOUNDS_SIZE * 512L, GL15C.GL_DYNAMIC_DRAW);
+        this.culledCommandBuffer = new Buffer(DrawCommand.BYTES * 512L, GL15C.GL_DYNAMIC_COPY);
+        this.parameterBuffer = new ImmutableBuffer(Integer.BYTES, 0);
         this.vertexArray = new VertexArray();
         this.vertexArray.setVertexBuffer(0, this.vertexBuffer, 0, drawBatch.vertexDataLayout().getSize());
         this.vertexArray.configureVertexDataLayout(0, 0, drawBatch.vertexDataLayout(), 0);
@@ -83,6 +107,17 @@ public class MultiDrawBuilder {
     }
 
     public int uploadBuffer(final BuiltBuffer builtBuffer) {
+        return this.uploadBuffer(builtBuffer, null);
+    }
+
+    /**
+     * Uploads the given buffer into the shared vertex and index buffers.
+     *
+     * @param builtBuffer The buffer to upload
+     * @param bounds The object space bounds of the vertex data used for culling, or null if the buffer should never be culled
+     * @return The id of the uploaded buffer
+     */
+    public int uploadBuffer(final BuiltBuffer builtBuffer, final AABBf bounds) {
         final List<DrawCommand> drawCommands = new ArrayList<>(builtBuffer.drawCommands());
         if (builtBuffer.drawBatch() != this.drawBatch) {
             throw new IllegalArgumentException("BuiltBuffer is not compatible");
@@ -132,6 +167,7 @@ public class MultiDrawBuilder {
             GL45C.glCopyNamedBufferSubData(indexBuffer.getGlId(), this.indexBuffer.getGlId(), 0, address, indexBufferSize);
             drawCommands.replaceAll(drawCommand -> ((DrawElementsCommand) drawCommand).withIndexOffset(indexAddress));
             this.storedIndexBuffers.put(id, address);
+            this.indexBufferIds.put(address, id);
         }
 
         final long alignedSize = MathUtil.align(vertexBuffer.getSize(), this.drawBatch.vertexDataLayout().getSize());
@@ -151,8 +187,12 @@ public class MultiDrawBuilder {
         GL45C.glCopyNamedBufferSubData(vertexBuffer.getGlId(), this.vertexArray.getVertexBuffers().get(0).getGlId(), 0, address, vertexBuffer.getSize());
         drawCommands.replaceAll(drawCommand -> drawCommand.withVertexOffset(vertexAddress));
         this.storedVertexBuffers.put(id, address);
+        this.vertexBufferIds.put(address, id);
 
         this.bufferDrawCommands.put(id, drawCommands);
+        if (bounds != null) {
+            this.bufferBounds.put(id, new AABBf(bounds));
+        }
         GL42C.glMemoryBarrier(GL42C.GL_BUFFER_UPDATE_BARRIER_BIT);
         return id;
     }
@@ -164,11 +204,14 @@ public class MultiDrawBuilder {
         this.removeFromRenderList(id);
         final long vertexAddress = this.storedVertexBuffers.remove(id);
         this.vertexAllocator.free(vertexAddress);
+        this.vertexBufferIds.remove(vertexAddress);
         if (this.storedIndexBuffers.containsKey(id)) {
             final long indexAddress = this.storedIndexBuffers.remove(id);
             this.indexAllocator.free(indexAddress);
+            this.indexBufferIds.remove(indexAddress);
         }
         this.bufferDrawCommands.remove(id);
+        this.bufferBounds.remove(id);
     }
 
     public void clearBuffers() {
@@ -182,41 +225,306 @@ public class MultiDrawBuilder {
         if (!this.storedVertexBuffers.containsKey(id)) {
             throw new IllegalArgumentException("BuiltBuffer is not uploaded");
         }
-        this.renderBuffers.add(id);
+        if (this.bufferSlots.containsKey(id)) {
+            return;
+        }
+        final List<DrawCommand> bufferDrawCommands = this.bufferDrawCommands.get(id);
+        final IntList slots = new IntArrayList(bufferDrawCommands.size());
+        for (DrawCommand drawCommand : bufferDrawCommands) {
+            final int slot = this.drawCommands.size();
+            // The base instance carries the slot index, because gl_DrawIDARB no longer matches it after culling compacted the commands
+            this.drawCommands.add(drawCommand.withBaseInstance(slot));
+            this.slotIds.add(id);
+            slots.add(slot);
+            this.markDirty(slot);
+        }
+        this.bufferSlots.put(id, slots);
     }
 
     public void removeFromRenderList(final int id) {
         if (!this.storedVertexBuffers.containsKey(id)) {
             throw new IllegalArgumentException("BuiltBuffer is not uploaded");
         }
-        this.renderBuffers.remove(id);
+        final IntList slots = this.bufferSlots.remove(id);
+        if (slots == null) {
+            return;
+        }
+        final int[] sortedSlots = slots.toIntArray();
+        IntArrays.quickSort(sortedSlots);
+        // Remove the highest slot first, so that the last slot never belongs to the removed buffer unless it is the slot being removed
+        for (int i = sortedSlots.length - 1; i >= 0; i--) {
+            final int slot = sortedSlots[i];
+            final int lastSlot = this.drawCommands.size() - 1;
+            if (slot != lastSlot) {
+                final int movedId = this.slotIds.getInt(lastSlot);
+                final IntList movedSlots = this.bufferSlots.get(movedId);
+                movedSlots.set(movedSlots.indexOf(lastSlot), slot);
+                this.drawCommands.set(slot, this.drawCommands.get(lastSlot).withBaseInstance(slot));
+                this.slotIds.set(slot, movedId);
+                this.markDirty(slot);
+            }
+            this.drawCommands.remove(lastSlot);
+            this.slotIds.removeInt(lastSlot);
+            this.dirtySlots.remove(lastSlot);
+        }
     }
 
     public void clearRenderList() {
-        this.renderBuffers.clear();
+        this.drawCommands.clear();
+        this.slotIds.clear();
+        this.bufferSlots.clear();
+        this.dirtySlots.clear();
+        this.fullRebuild = true;
+    }
+
+    /**
+     * Incrementally compacts the vertex and index arenas by moving the highest allocations into free gaps further down.<br>
+     * Shrinks the backing buffers afterward if the used range fell well below their size.<br>
+     * Intended to be called once per frame with a small budget so the copies never cause a frame time spike.
+     *
+     * @param maxBytesMoved The maximum amount of bytes which may be copied on the GPU
+     * @return The amount of bytes which were copied
+     */
+    public long defragment(final long maxBytesMoved) {
+        final int vertexSize = this.drawBatch.vertexDataLayout().getSize();
+        final IntSet movedIds = new IntOpenHashSet();
+        long bytesMoved = this.compactArena(this.vertexAllocator, this.vertexBuffer, this.storedVertexBuffers, this.vertexBufferIds, vertexSize, maxBytesMoved, (id, offset) -> {
+            this.bufferDrawCommands.get(id).replaceAll(drawCommand -> drawCommand.withVertexOffset(offset));
+            movedIds.add(id);
+        });
+        if (this.indexAllocator != null) {
+            bytesMoved += this.compactArena(this.indexAllocator, this.indexBuffer, this.storedIndexBuffers, this.indexBufferIds, Integer.BYTES, maxBytesMoved - bytesMoved, (id, offset) -> {
+                this.bufferDrawCommands.get(id).replaceAll(drawCommand -> ((DrawElementsCommand) drawCommand).withIndexOffset(offset));
+                movedIds.add(id);
+            });
+        }
+        if (bytesMoved != 0) {
+            GL42C.glMemoryBarrier(GL42C.GL_BUFFER_UPDATE_BARRIER_BIT);
+        }
+
+        final long vertexShrinkSize = this.getShrinkSize(this.vertexAllocator, this.vertexBuffer);
+        if (vertexShrinkSize != -1 && vertexShrinkSize <= maxBytesMoved - bytesMoved) {
+            this.vertexBuffer = BufferUtil.shrink(this.vertexBuffer, vertexShrinkSize);
+            this.vertexArray.setVertexBuffer(0, this.vertexBuffer, 0, vertexSize);
+            bytesMoved += vertexShrinkSize;
+        }
+        if (this.indexAllocator != null) {
+            final long indexShrinkSize = this.getShrinkSize(this.indexAllocator, this.indexBuffer);
+            if (indexShrinkSize != -1 && indexShrinkSize <= maxBytesMoved - bytesMoved) {
+                this.indexBuffer = BufferUtil.shrink(this.indexBuffer, indexShrinkSize);
+                this.vertexArray.setIndexBuffer(GL11C.GL_UNSIGNED_INT, this.indexBuffer);
+                bytesMoved += indexShrinkSize;
+            }
+        }
+
+        boolean renderListChanged = false;
+        for (int id : movedIds) {
+            final IntList slots = this.bufferSlots.get(id);
+            if (slots != null) {
+                final List<DrawCommand> bufferDrawCommands = this.bufferDrawCommands.get(id);
+                for (int i = 0; i < slots.size(); i++) {
+                    final int slot = slots.getInt(i);
+                    this.drawCommands.set(slot, bufferDrawCommands.get(i).withBaseInstance(slot));
+                    this.markDirty(slot);
+                }
+                renderListChanged = true;
+            }
+        }
+        if (renderListChanged) {
+            this.rebuildCommandBuffer();
+        }
+        return bytesMoved;
     }
 
+    /**
+     * Uploads the pending render list changes into the command buffer.<br>
+     * Only the slots which were touched since the last call are re-uploaded. Removing a buffer from the render list swaps the last draw commands into its slots.<br>
+     * The built buffers are patched in place and only recreated if the command buffer had to be reallocated.
+     */
     public void rebuildCommandBuffer() {
-        final List<DrawCommand> drawCommands = new ArrayList<>(this.renderBuffers.size());
-        for (int id : this.renderBuffers) {
-            drawCommands.addAll(this.bufferDrawCommands.get(id));
+        final long requiredCommandBufferSize = (long) this.drawCommands.size() * this.commandSize;
+        if (this.commandBuffer.getSize() < requiredCommandBufferSize) {
+            this.commandBuffer = BufferUtil.resize(this.commandBuffer, Math.max(requiredCommandBufferSize, this.commandBuffer.getSize() * 2));
         }
-        final BufferBuilder commandBufferBuilder = ThinGL.bufferBuilderPool().borrowBufferBuilder();
-        commandBufferBuilder.ensureHasEnoughSpace(drawCommands.size() * DrawCommand.BYTES);
-        for (DrawCommand drawCommand : drawCommands) {
-            drawCommand.write(commandBufferBuilder);
+        if (this.culledCommandBuffer.getSize() < this.commandBuffer.getSize()) {
+            this.culledCommandBuffer.setSize(this.commandBuffer.getSize());
+        }
+        final long requiredBoundsBufferSize = (long) this.drawCommands.size() * BOUNDS_SIZE;
+        if (this.boundsBuffer.getSize() < requiredBoundsBufferSize) {
+            this.boundsBuffer = BufferUtil.resize(this.boundsBuffer, Math.max(requiredBoundsBufferSize, this.boundsBuffer.getSize() * 2));
+        }
+
+        while (this.uploadedDrawCommands.size() > this.drawCommands.size()) {
+            this.uploadedDrawCommands.remove(this.uploadedDrawCommands.size() - 1);
+        }
+        while (this.uploadedDrawCommands.size() < this.drawCommands.size()) { // New slots are always dirty and filled in below
+            this.uploadedDrawCommands.add(null);
+        }
+        if (this.fullRebuild) {
+            this.uploadSlots(0, this.drawCommands.size());
+            this.rebuiltCommandCount += this.drawCommands.size();
+            this.fullRebuild = false;
+        } else if (!this.dirtySlots.isEmpty()) {
+            final int[] slots = this.dirtySlots.toIntArray();
+            IntArrays.quickSort(slots);
+            int runStart = 0;
+            for (int i = 1; i <= slots.length; i++) {
+                if (i == slots.length || slots[i] != slots[i - 1] + 1) {
+                    this.uploadSlots(slots[runStart], slots[i - 1] + 1);
+                    runStart = i;
+                }
+            }
+            this.patchedCommandCount += slots.length;
         }
-        final ByteBuffer commandData = commandBufferBuilder.finish();
-        if (this.commandBuffer.getSize() < commandData.remaining()) {
-            this.commandBuffer.setSize(commandData.remaining());
+        this.dirtySlots.clear();
+
+        if (this.builtBuffer == null || this.builtBuffer.commandBuffer() != this.commandBuffer) {
+            final List<DrawCommand> drawCommands = Collections.unmodifiableList(this.uploadedDrawCommands);
+            this.builtBuffer = new BuiltBuffer(this.drawBatch, this.vertexArray, this.builtBuffer != null ? this.builtBuffer.shaderDataBuffers() : new HashMap<>(), this.commandBuffer, drawCommands);
+            this.culledBuiltBuffer = new BuiltBuffer(this.drawBatch, this.vertexArray, this.builtBuffer.shaderDataBuffers(), this.culledCommandBuffer, drawCommands);
         }
-        this.commandBuffer.upload(0, commandData);
-        ThinGL.bufferBuilderPool().returnBufferBuilder(commandBufferBuilder);
-        this.builtBuffer = new BuiltBuffer(this.drawBatch, this.vertexArray, new HashMap<>(), this.commandBuffer, drawCommands);
+    }
+
+    /**
+     * Culls the draw commands of the current render list against the view frustum and a minimum screen size on the GPU.<br>
+     * The surviving commands are written into the command buffer of {@link #getCulledBuiltBuffer()}.<br>
+     * If ARB_indirect_parameters is supported, the surviving commands are compacted and their count is written into the returned parameter buffer.
+     * Otherwise, culled commands are kept in place with an instance count of zero and null is returned.
+     *
+     * @param modelMatrix The model matrix the buffers will be rendered with
+     * @param drawDataBuffer The draw data buffer containing the per command position offsets, or null if there is none
+     * @param minScreenSize The minimum size in pixels a command has to cover on screen, or 0 to disable the screen size test
+     * @return The parameter buffer containing the draw count, or null if the commands were not compacted
+     */
+    public AbstractBuffer cull(final Matrix4f modelMatrix, final AbstractBuffer drawDataBuffer, final float minScreenSize) {
+        final int commandCount = this.builtBuffer.drawCommands().size();
+        final boolean compact = ThinGL.capabilities().supportsARBIndirectParameters();
+        if (compact) {
+            GL45C.glClearNamedBufferData(this.parameterBuffer.getGlId(), GL30C.GL_R32UI, GL30C.GL_RED_INTEGER, GL11C.GL_UNSIGNED_INT, (ByteBuffer) null);
+        }
+        if (commandCount == 0) {
+            return compact ? this.parameterBuffer : null;
+        }
+
+        final Framebuffer currentFramebuffer = ThinGL.applicationInterface().getCurrentFramebuffer();
+        final Matrix4f modelViewProjectionMatrix = new Matrix4f(ThinGL.applicationInterface().getProjectionMatrix()).mul(ThinGL.applicationInterface().getViewMatrix()).mul(modelMatrix);
+        final Program program = ThinGL.programs().getMultidrawCulling();
+        program.bind();
+        program.setUniformMatrix4f("u_ModelViewProjectionMatrix", modelViewProjectionMatrix);
+        program.setUniformVector2f("u_Viewport", currentFramebuffer.getWidth(), currentFramebuffer.getHeight());
+        program.setUniformFloat("u_MinScreenSize", minScreenSize);
+        program.setUniformInt("u_CommandCount", commandCount);
+        program.setUniformInt("u_CommandSize", this.commandSize / Integer.BYTES);
+        program.setUniformBoolean("u_Compact", compact);
+        program.setUniformBoolean("u_HasDrawData", drawDataBuffer != null);
+        program.setShaderStorageBuffer("ssbo_Commands", this.commandBuffer);
+        program.setShaderStorageBuffer("ssbo_Bounds", this.boundsBuffer);
+        program.setShaderStorageBuffer("ssbo_DrawData", drawDataBuffer != null ? drawDataBuffer : this.boundsBuffer);
+        program.setShaderStorageBuffer("ssbo_CulledCommands", this.culledCommandBuffer);
+        program.setShaderStorageBuffer("ssbo_DrawCount", this.parameterBuffer);
+        GL43C.glDispatchCompute((commandCount + 63) / 64, 1, 1);
+        program.unbind();
+        GL42C.glMemoryBarrier(GL42C.GL_COMMAND_BARRIER_BIT | GL42C.GL_SHADER_STORAGE_BARRIER_BIT);
+        return compact ? this.parameterBuffer : null;
     }
 
     public void free() {
         this.builtBuffer.free();
+        this.boundsBuffer.free();
+        this.culledCommandBuffer.free();
+        this.parameterBuffer.free();
+    }
+
+    private void uploadSlots(final int startSlot, final int endSlot) {
+        if (startSlot == endSlot) {
+            return;
+        }
+        final BufferBuilder bufferBuilder = ThinGL.bufferBuilderPool().borrowBufferBuilder();
+        bufferBuilder.ensureHasEnoughSpace((endSlot - startSlot) * this.commandSize);
+        for (int slot = startSlot; slot < endSlot; slot++) {
+            final DrawCommand drawCommand = this.drawCommands.get(slot);
+            drawCommand.write(bufferBuilder);
+            this.uploadedDrawCommands.set(slot, drawCommand);
+        }
+        this.commandBuffer.upload((long) startSlot * this.commandSize, bufferBuilder.finish());
+
+        bufferBuilder.reset();
+        bufferBuilder.ensureHasEnoughSpace((endSlot - startSlot) * BOUNDS_SIZE);
+        for (int slot = startSlot; slot < endSlot; slot++) {
+            final AABBf bounds = this.bufferBounds.get(this.slotIds.getInt(slot));
+            if (bounds != null) {
+                bufferBuilder.putVector3f(bounds.minX, bounds.minY, bounds.minZ).putFloat(1F);
+                bufferBuilder.putVector3f(bounds.maxX, bounds.maxY, bounds.maxZ).putFloat(0F);
+            } else {
+                bufferBuilder.putVector3f(0F, 0F, 0F).putFloat(0F);
+                bufferBuilder.putVector3f(0F, 0F, 0F).putFloat(0F);
+            }
+        }
+        this.boundsBuffer.upload((long) startSlot * BOUNDS_SIZE, bufferBuilder.finish());
+        ThinGL.bufferBuilderPool().returnBufferBuilder(bufferBuilder);
+    }
+
+    private void markDirty(final int slot) {
+        if (!this.fullRebuild) {
+            this.dirtySlots.add(slot);
+        }
+    }
+
+    private long compactArena(final ArenaMemoryAllocator allocator, final AbstractBuffer buffer, final Int2LongMap storedBuffers, final Long2IntSortedMap bufferIds, final int elementSize, final long maxBytesMoved, final MoveCallback moveCallback) {
+        if (maxBytesMoved <= 0 || allocator.getFreeBlockCount() <= 1) { // The only free block is the one at the end of the arena
+            return 0;
+        }
+
+        final LongSet movedAddresses = new LongOpenHashSet();
+        long usedAbove = 0; // Size of the allocations above the current one
+        long bytesMoved = 0;
+        long cursor = Long.MAX_VALUE;
+        while (bytesMoved < maxBytesMoved && allocator.getFreeBlockCount() > 1) {
+            final Long2IntSortedMap lowerBufferIds = bufferIds.headMap(cursor);
+            if (lowerBufferIds.isEmpty()) {
+                break;
+            }
+            final long oldAddress = lowerBufferIds.lastLongKey();
+            final long size = allocator.getAllocationSize(oldAddress);
+            cursor = oldAddress;
+            final long freeBelow = oldAddress - allocator.getAddress() - (allocator.getUsedMemory() - usedAbove - size);
+            if (freeBelow <= 0) { // Everything further down is already tightly packed
+                break;
+            }
+            usedAbove += size;
+            if (movedAddresses.contains(oldAddress) || size > freeBelow || size > maxBytesMoved - bytesMoved) {
+                continue;
+            }
+
+            final long newAddress = allocator.alloc(size);
+            if (newAddress == -1) {
+                continue;
+            }
+            if (newAddress > oldAddress) { // No gap below the current address which is large enough
+                allocator.free(newAddress);
+                continue;
+            }
+
+            GL45C.glCopyNamedBufferSubData(buffer.getGlId(), buffer.getGlId(), oldAddress, newAddress, size);
+            allocator.free(oldAddress);
+            final int id = bufferIds.remove(oldAddress);
+            bufferIds.put(newAddress, id);
+            storedBuffers.put(id, newAddress);
+            movedAddresses.add(newAddress);
+            usedAbove -= size;
+            moveCallback.onMove(id, (int) ((newAddress - oldAddress) / elementSize));
+            bytesMoved += size;
+        }
+        return bytesMoved;
+    }
+
+    private long getShrinkSize(final ArenaMemoryAllocator allocator, final AbstractBuffer buffer) {
+        // Only shrink if less than half of the buffer is in use to avoid repeatedly growing and shrinking the buffer
+        final long requiredSize = Math.max(MathUtil.align(allocator.getUsedEnd(), MIN_RESIZE_AMOUNT), BufferUtil.DEFAULT_BUFFER_SIZE);
+        if (requiredSize * 2 <= buffer.getSize()) {
+            return requiredSize;
+        }
+        return -1;
     }
 
     public ArenaMemoryAllocator getVertexAllocator() {
@@ -231,4 +539,38 @@ public class MultiDrawBuilder {
         return this.builtBuffer;
     }
 
+    public BuiltBuffer getCulledBuiltBuffer() {
+        return this.culledBuiltBuffer;
+    }
+
+    /**
+     * @param id The id of the uploaded buffer
+     * @return The command buffer slots of the buffer (Used as index into per command shader data), or null if the buffer is not in the render list
+     */
+    public IntList getRenderListSlots(final int id) {
+        final IntList slots = this.bufferSlots.get(id);
+        return slots != null ? IntLists.unmodifiable(slots) : null;
+    }
+
+    /**
+     * @return The amount of draw commands which were re-uploaded individually because their slot changed
+     */
+    public long getPatchedCommandCount() {
+        return this.patchedCommandCount;
+    }
+
+    /**
+     * @return The amount of draw commands which were re-uploaded as part of a full command buffer rebuild
+     */
+    public long getRebuiltCommandCount() {
+        return this.rebuiltCommandCount;
+    }
+
+    @FunctionalInterface
+    private interface MoveCallback {
+
+        void onMove(final int id, final int offset);
+
+    }
+
 }
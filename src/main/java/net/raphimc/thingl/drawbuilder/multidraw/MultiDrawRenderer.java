@@ -20,6 +20,7 @@ package net.raphimc.thingl.drawbuilder.multidraw;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
@@ -44,6 +45,8 @@ public class MultiDrawRenderer {
     private final Reference2ObjectMap<DrawBatch, MultiDrawBuilder> drawBatches = new Reference2ObjectLinkedOpenHashMap<>();
     private final AtomicInteger idGenerator = new AtomicInteger();
     private final Int2ObjectMap<Reference2IntMap<DrawBatch>> drawBatchBuffers = new Int2ObjectOpenHashMap<>();
+    private boolean cullingEnabled;
+    private float cullingMinScreenSize;
 
     public MultiDrawRenderer() {
         this(DrawBatch.EMPTY_ARRAY, DrawBatch.EMPTY_ARRAY);
@@ -59,7 +62,7 @@ public class MultiDrawRenderer {
         final Reference2IntMap<DrawBatch> multiDrawIds = new Reference2IntOpenHashMap<>();
         for (Map.Entry<DrawBatch, BuiltBuffer> entry : multiDrawBatchDataHolder.getBuiltDrawBatches().entrySet()) {
             final MultiDrawBuilder multiDrawBuilder = this.drawBatches.computeIfAbsent(entry.getKey(), drawBatch -> new MultiDrawBuilder((DrawBatch) drawBatch));
-            multiDrawIds.put(entry.getKey(), multiDrawBuilder.uploadBuffer(entry.getValue()));
+            multiDrawIds.put(entry.getKey(), multiDrawBuilder.uploadBuffer(entry.getValue(), multiDrawBatchDataHolder.getBounds(entry.getKey())));
         }
         this.drawBatchBuffers.put(id, multiDrawIds);
         return id;
@@ -112,12 +115,48 @@ public class MultiDrawRenderer {
         }
     }
 
+    /**
+     * Removing buffers from the render list moves the draw commands of other buffers into the freed slots.<br>
+     * The per command entries of a draw data buffer have to be written at the slots returned by this method after every render list change.
+     *
+     * @param id The id of the uploaded draw batch buffers
+     * @param drawBatch The draw batch
+     * @return The command buffer slots of the buffers for the given draw batch (Used as index into the draw data buffer), or null if they are not in the render list
+     */
+    public IntList getRenderListSlots(final int id, final DrawBatch drawBatch) {
+        final Reference2IntMap<DrawBatch> multiDrawIds = this.drawBatchBuffers.get(id);
+        if (multiDrawIds == null) {
+            throw new IllegalArgumentException("DrawBatch is not uploaded");
+        }
+        if (!multiDrawIds.containsKey(drawBatch)) {
+            return null;
+        }
+        return this.drawBatches.get(drawBatch).getRenderListSlots(multiDrawIds.getInt(drawBatch));
+    }
+
     public void rebuildCommandBuffer() {
         for (MultiDrawBuilder multiDrawBuilder : this.drawBatches.values()) {
             multiDrawBuilder.rebuildCommandBuffer();
         }
     }
 
+    /**
+     * Incrementally defragments the memory of all draw batches. See {@link MultiDrawBuilder#defragment(long)}.
+     *
+     * @param maxBytesMoved The maximum amount of bytes which may be copied on the GPU in this call
+     * @return The amount of bytes which were copied
+     */
+    public long defragment(final long maxBytesMoved) {
+        long bytesMoved = 0;
+        for (MultiDrawBuilder multiDrawBuilder : this.drawBatches.values()) {
+            if (bytesMoved >= maxBytesMoved) {
+                break;
+            }
+            bytesMoved += multiDrawBuilder.defragment(maxBytesMoved - bytesMoved);
+        }
+        return bytesMoved;
+    }
+
     public void draw() {
         this.draw(RenderMathUtil.getIdentityMatrix());
     }
@@ -138,6 +177,14 @@ public class MultiDrawRenderer {
         }
     }
 
+    /**
+     * Draws the render list with a per command draw data buffer bound as ssbo_DrawData.<br>
+     * Shaders index the draw data with gl_BaseInstanceARB, which holds the render list slot of the draw command and not its position in the order buffers were added.
+     * The slots of a buffer can be queried with {@link #getRenderListSlots(int, DrawBatch)}.
+     *
+     * @param modelMatrix The model matrix
+     * @param drawDataBuffer The draw data buffer
+     */
     public void draw(final Matrix4f modelMatrix, final AbstractBuffer drawDataBuffer) {
         if (this.hasDrawBatches()) {
             for (DrawBatch drawBatch : this.firstOrderedDrawBatches) {
@@ -161,9 +208,16 @@ public class MultiDrawRenderer {
     public void draw(final DrawBatch drawBatch, final Matrix4f modelMatrix, final AbstractBuffer drawDataBuffer) {
         final MultiDrawBuilder multiDrawBuilder = this.drawBatches.get(drawBatch);
         if (multiDrawBuilder != null) {
-            multiDrawBuilder.getBuiltBuffer().shaderDataBuffers().put("ssbo_DrawData", drawDataBuffer);
-            BufferRenderer.render(multiDrawBuilder.getBuiltBuffer(), modelMatrix);
-            multiDrawBuilder.getBuiltBuffer().shaderDataBuffers().remove("ssbo_DrawData");
+            if (this.cullingEnabled && multiDrawBuilder.getBuiltBuffer().drawCommands().size() > 1 && !de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+                final AbstractBuffer parameterBuffer = multiDrawBuilder.cull(modelMatrix, drawDataBuffer, this.cullingMinScreenSize);
+                multiDrawBuilder.getCulledBuiltBuffer().shaderDataBuffers().put("ssbo_DrawData", drawDataBuffer);
+                BufferRenderer.render(multiDrawBuilder.getCulledBuiltBuffer(), modelMatrix, parameterBuffer);
+                multiDrawBuilder.getCulledBuiltBuffer().shaderDataBuffers().remove("ssbo_DrawData");
+            } else {
+                multiDrawBuilder.getBuiltBuffer().shaderDataBuffers().put("ssbo_DrawData", drawDataBuffer);
+                BufferRenderer.render(multiDrawBuilder.getBuiltBuffer(), modelMatrix);
+                multiDrawBuilder.getBuiltBuffer().shaderDataBuffers().remove("ssbo_DrawData");
+            }
         }
     }
 
@@ -172,11 +226,64 @@ public class MultiDrawRenderer {
         long indexUsedMemory = 0;
         for (MultiDrawBuilder multiDrawBuilder : this.drawBatches.values()) {
             vertexUsedMemory += multiDrawBuilder.getVertexAllocator().getUsedMemory();
-            indexUsedMemory += multiDrawBuilder.getIndexAllocator().getUsedMemory();
+            if (multiDrawBuilder.getIndexAllocator() != null) {
+                indexUsedMemory += multiDrawBuilder.getIndexAllocator().getUsedMemory();
+            }
         }
         return "V Mem: " + MathUtils.formatBytes(vertexUsedMemory) + ", I Mem: " + MathUtils.formatBytes(indexUsedMemory);
     }
 
+    public String getCommandUpdateString() {
+        long patchedCommandCount = 0;
+        long rebuiltCommandCount = 0;
+        for (MultiDrawBuilder multiDrawBuilder : this.drawBatches.values()) {
+            patchedCommandCount += multiDrawBuilder.getPatchedCommandCount();
+            rebuiltCommandCount += multiDrawBuilder.getRebuiltCommandCount();
+        }
+        return "Cmds patched: " + patchedCommandCount + ", Cmds rebuilt: " + rebuiltCommandCount;
+    }
+
+    public String getMemoryFragmentationString() {
+        long vertexLargestFreeBlock = 0;
+        int vertexFreeBlockCount = 0;
+        long indexLargestFreeBlock = 0;
+        int indexFreeBlockCount = 0;
+        for (MultiDrawBuilder multiDrawBuilder : this.drawBatches.values()) {
+            vertexLargestFreeBlock = Math.max(vertexLargestFreeBlock, multiDrawBuilder.getVertexAllocator().getLargestFreeBlock());
+            vertexFreeBlockCount += multiDrawBuilder.getVertexAllocator().getFreeBlockCount();
+            if (multiDrawBuilder.getIndexAllocator() != null) {
+                indexLargestFreeBlock = Math.max(indexLargestFreeBlock, multiDrawBuilder.getIndexAllocator().getLargestFreeBlock());
+                indexFreeBlockCount += multiDrawBuilder.getIndexAllocator().getFreeBlockCount();
+            }
+        }
+        return "V Free: " + vertexFreeBlockCount + " blocks (largest " + MathUtils.formatBytes(vertexLargestFreeBlock) + "), I Free: " + indexFreeBlockCount + " blocks (largest " + MathUtils.formatBytes(indexLargestFreeBlock) + ")";
+    }
+
+    public boolean isCullingEnabled() {
+        return this.cullingEnabled;
+    }
+
+    /**
+     * Enables GPU frustum culling of the uploaded buffers. Only buffers built from vertex data starting with a float position are culled.<br>
+     * If ARB_indirect_parameters is supported, the draw order of the visible buffers is not preserved.
+     *
+     * @param cullingEnabled Whether culling should be enabled
+     */
+    public void setCullingEnabled(final boolean cullingEnabled) {
+        this.cullingEnabled = cullingEnabled;
+    }
+
+    public float getCullingMinScreenSize() {
+        return this.cullingMinScreenSize;
+    }
+
+    /**
+     * @param cullingMinScreenSize The minimum size in pixels a buffer has to cover on screen to not be culled, or 0 to disable the screen size test
+     */
+    public void setCullingMinScreenSize(final float cullingMinScreenSize) {
+        this.cullingMinScreenSize = cullingMinScreenSize;
+    }
+
     public void free() {
         this.drawBatches.values().forEach(MultiDrawBuilder::free);
         this.drawBatches.clear();
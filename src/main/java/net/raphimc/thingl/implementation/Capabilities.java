@@ -18,6 +18,7 @@
 package net.raphimc.thingl.implementation;
 
 import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.texture.AbstractTexture;
 import org.jetbrains.annotations.ApiStatus;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11C;
@@ -38,6 +39,14 @@ public class Capabilities {
     private final int maxArrayTextureLayers;
     private final boolean supportsNVFramebufferMixedSamples;
     private final int nvFramebufferMixedSamplesMaxRasterSamples;
+    private final boolean supportsARBIndirectParameters;
+    private final boolean supportsARBBindlessTexture;
+    private final boolean supportsKHRParallelShaderCompile;
+    private final boolean supportsS3TCTextureCompression;
+    private final boolean supportsRGTCTextureCompression;
+    private final boolean supportsBPTCTextureCompression;
+    private final boolean supportsETC2TextureCompression;
+    private final boolean supportsASTCTextureCompression;
 
     @ApiStatus.Internal
     public Capabilities(final ThinGL thinGL) {
@@ -57,6 +66,22 @@ public class Capabilities {
         } else {
             this.nvFramebufferMixedSamplesMaxRasterSamples = 0;
         }
+        this.supportsARBIndirectParameters = GL.getCapabilities().GL_ARB_indirect_parameters;
+        this.supportsARBBindlessTexture = GL.getCapabilities().GL_ARB_bindless_texture;
+        this.supportsKHRParallelShaderCompile = GL.getCapabilities().GL_KHR_parallel_shader_compile;
+        if (!de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            this.supportsS3TCTextureCompression = GL.getCapabilities().GL_EXT_texture_compression_s3tc;
+            this.supportsRGTCTextureCompression = GL.getCapabilities().OpenGL30 || GL.getCapabilities().GL_ARB_texture_compression_rgtc;
+            this.supportsBPTCTextureCompression = GL.getCapabilities().OpenGL42 || GL.getCapabilities().GL_ARB_texture_compression_bptc;
+            this.supportsETC2TextureCompression = GL.getCapabilities().OpenGL43 || GL.getCapabilities().GL_ARB_ES3_compatibility;
+            this.supportsASTCTextureCompression = GL.getCapabilities().GL_KHR_texture_compression_astc_ldr;
+        } else { // FlorianMichael - add macOS support
+            this.supportsS3TCTextureCompression = false; // FlorianMichael - add macOS support
+            this.supportsRGTCTextureCompression = false; // FlorianMichael - add macOS support
+            this.supportsBPTCTextureCompression = false; // FlorianMichael - add macOS support
+            this.supportsETC2TextureCompression = false; // FlorianMichael - add macOS support
+            this.supportsASTCTextureCompression = false; // FlorianMichael - add macOS support
+        } // FlorianMichael - add macOS support
     }
 
     public void ensureFreeTypePresent() {
@@ -149,6 +174,55 @@ public class Capabilities {
         return this.nvFramebufferMixedSamplesMaxRasterSamples;
     }
 
+    public boolean supportsARBIndirectParameters() {
+        return this.supportsARBIndirectParameters;
+    }
+
+    public boolean supportsARBBindlessTexture() {
+        return this.supportsARBBindlessTexture;
+    }
+
+    public boolean supportsKHRParallelShaderCompile() {
+        return this.supportsKHRParallelShaderCompile;
+    }
+
+    public boolean supportsS3TCTextureCompression() {
+        return this.supportsS3TCTextureCompression;
+    }
+
+    public boolean supportsRGTCTextureCompression() {
+        return this.supportsRGTCTextureCompression;
+    }
+
+    public boolean supportsBPTCTextureCompression() {
+        return this.supportsBPTCTextureCompression;
+    }
+
+    public boolean supportsETC2TextureCompression() {
+        return this.supportsETC2TextureCompression;
+    }
+
+    public boolean supportsASTCTextureCompression() {
+        return this.supportsASTCTextureCompression;
+    }
+
+    /**
+     * @param internalFormat The internal format
+     * @return Whether textures with the given internal format can be created and uploaded to
+     */
+    public boolean supportsInternalFormat(final AbstractTexture.InternalFormat internalFormat) {
+        if (!internalFormat.isCompressed()) {
+            return true;
+        }
+        return switch (internalFormat.getCompression()) {
+            case S3TC -> this.supportsS3TCTextureCompression;
+            case RGTC -> this.supportsRGTCTextureCompression;
+            case BPTC -> this.supportsBPTCTextureCompression;
+            case ETC2 -> this.supportsETC2TextureCompression;
+            case ASTC -> this.supportsASTCTextureCompression;
+        };
+    }
+
     private static boolean isClassPresent(final String className) {
         try {
             Class.forName(className, false, Capabilities.class.getClassLoader());
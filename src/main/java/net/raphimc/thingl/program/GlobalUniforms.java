@@ -0,0 +1,121 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.raphimc.thingl.program;
+
+import net.lenni0451.commons.color.Color;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.drawbuilder.builder.BufferBuilder;
+import net.raphimc.thingl.drawbuilder.builder.BufferRenderer;
+import net.raphimc.thingl.drawbuilder.databuilder.holder.ShaderDataHolder;
+import net.raphimc.thingl.drawbuilder.databuilder.holder.Std140ShaderDataHolder;
+import net.raphimc.thingl.resource.buffer.Buffer;
+import net.raphimc.thingl.resource.framebuffer.Framebuffer;
+import net.raphimc.thingl.resource.program.Program;
+import org.jetbrains.annotations.ApiStatus;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL31C;
+
+/**
+ * Uniform buffer which holds the uniforms shared by all regular programs (Projection matrix, view matrix, color modifier and viewport).<br>
+ * The buffer is only updated if one of the values changed and is bound to a fixed binding point, so binding a program doesn't upload these uniforms separately.<br>
+ * Shaders declare the block with {@code #include "globals.glsl"}, which has to match the layout written by {@link #update()}.
+ */
+public class GlobalUniforms {
+
+    public static final String BLOCK_NAME = "ubo_Globals";
+    /**
+     * The highest uniform buffer binding point guaranteed by OpenGL 3.3. This avoids conflicts with {@link Program#setUniformBuffer}, which allocates binding points starting from 0.
+     */
+    public static final int BINDING_POINT = 35;
+    private static final int SIZE = Float.BYTES * (16 + 16 + 4 + 4);
+
+    private final BufferBuilder bufferBuilder = new BufferBuilder(SIZE);
+    private final ShaderDataHolder shaderDataHolder = new Std140ShaderDataHolder(this.bufferBuilder);
+    private final Buffer buffer = new Buffer(SIZE, GL15C.GL_DYNAMIC_DRAW);
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    private final Matrix4f viewMatrix = new Matrix4f();
+    private int colorModifier;
+    private int viewportWidth;
+    private int viewportHeight;
+    private boolean initialized;
+    private long updateCount;
+
+    @ApiStatus.Internal
+    public GlobalUniforms() {
+        this.buffer.setDebugName("Global Uniforms");
+    }
+
+    /**
+     * Uploads the current global uniform values if they changed and binds the uniform buffer to the given program.
+     *
+     * @param program The program to bind the uniform buffer to
+     */
+    public void bind(final Program program) {
+        this.update();
+        program.setUniformBlockBinding(BLOCK_NAME, BINDING_POINT);
+        ThinGL.glStateManager().bindBufferBase(GL31C.GL_UNIFORM_BUFFER, BINDING_POINT, this.buffer.getGlId());
+    }
+
+    /**
+     * Uploads the current global uniform values if they changed since the last update.
+     */
+    public void update() {
+        final Matrix4f projectionMatrix = ThinGL.applicationInterface().getProjectionMatrix();
+        final Matrix4f viewMatrix = ThinGL.applicationInterface().getViewMatrix();
+        final Framebuffer currentFramebuffer = ThinGL.applicationInterface().getCurrentFramebuffer();
+        final Color colorModifier = BufferRenderer.COLOR_MODIFIER != null ? BufferRenderer.COLOR_MODIFIER : Color.WHITE;
+        final int colorModifierABGR = colorModifier.toABGR();
+        if (this.initialized && this.projectionMatrix.equals(projectionMatrix) && this.viewMatrix.equals(viewMatrix) && this.colorModifier == colorModifierABGR && this.viewportWidth == currentFramebuffer.getWidth() && this.viewportHeight == currentFramebuffer.getHeight()) {
+            return;
+        }
+
+        this.projectionMatrix.set(projectionMatrix);
+        this.viewMatrix.set(viewMatrix);
+        this.colorModifier = colorModifierABGR;
+        this.viewportWidth = currentFramebuffer.getWidth();
+        this.viewportHeight = currentFramebuffer.getHeight();
+        this.initialized = true;
+        this.updateCount++;
+
+        this.shaderDataHolder.putMatrix4f(this.projectionMatrix);
+        this.shaderDataHolder.putMatrix4f(this.viewMatrix);
+        this.shaderDataHolder.putVector4f(colorModifier.getRed() / 255F, colorModifier.getGreen() / 255F, colorModifier.getBlue() / 255F, colorModifier.getAlpha() / 255F);
+        this.shaderDataHolder.putVector2f(this.viewportWidth, this.viewportHeight);
+        this.buffer.upload(0, this.bufferBuilder.finish());
+    }
+
+    /**
+     * @return The number of times the uniform buffer has been updated
+     */
+    public long getUpdateCount() {
+        return this.updateCount;
+    }
+
+    public Buffer getBuffer() {
+        return this.buffer;
+    }
+
+    @ApiStatus.Internal
+    public void free() {
+        this.buffer.free();
+        this.bufferBuilder.free();
+    }
+
+}
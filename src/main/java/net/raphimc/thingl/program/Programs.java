@@ -20,10 +20,13 @@ package net.raphimc.thingl.program;
 import net.lenni0451.commons.lazy.Lazy;
 import net.raphimc.thingl.ThinGL;
 import net.raphimc.thingl.program.post.impl.*;
+import net.raphimc.thingl.resource.program.AsyncProgramCompilation;
 import net.raphimc.thingl.resource.program.Program;
+import net.raphimc.thingl.resource.program.ProgramBinaryCache;
 import net.raphimc.thingl.resource.shader.Shader;
 import net.raphimc.thingl.util.GlSlPreprocessor;
 import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.opengl.KHRParallelShaderCompile;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -37,6 +40,9 @@ import static net.raphimc.thingl.resource.shader.Shader.Type.*;
 public class Programs {
 
     private final Map<String, Shader> shaders = new HashMap<>();
+    private ProgramBinaryCache programBinaryCache;
+    private AsyncProgramCompilation activeAsyncCompilation;
+    private GlobalUniforms globalUniforms;
 
     private final Lazy<RegularProgram> positionColor = Lazy.of(() -> {
         final RegularProgram program = new RegularProgram(this.getShader("regular/position_color", VERTEX), this.getShader("regular/position_color", FRAGMENT));
@@ -68,6 +74,30 @@ public class Programs {
         return program;
     });
 
+    private final Lazy<RegularProgram> batchedPositionTexture = Lazy.of(() -> {
+        final RegularProgram program = new RegularProgram(this.getShader("batched/position_texture", VERTEX), this.getShader("batched/position_texture", FRAGMENT));
+        program.setDebugName("batched_position_texture");
+        return program;
+    });
+
+    private final Lazy<RegularProgram> batchedPositionTextureArray = Lazy.of(() -> {
+        final RegularProgram program = new RegularProgram(this.getShader("batched/position_texture_array", VERTEX), this.getShader("batched/position_texture_array", FRAGMENT));
+        program.setDebugName("batched_position_texture_array");
+        return program;
+    });
+
+    private final Lazy<RegularProgram> batchedPositionColorTexture = Lazy.of(() -> {
+        final RegularProgram program = new RegularProgram(this.getShader("batched/position_color_texture", VERTEX), this.getShader("batched/position_color_texture", FRAGMENT));
+        program.setDebugName("batched_position_color_texture");
+        return program;
+    });
+
+    private final Lazy<RegularProgram> batchedColorizedTexture = Lazy.of(() -> {
+        final RegularProgram program = new RegularProgram(this.getShader("batched/position_color_texture", VERTEX), this.getShader("batched/colorized_texture", FRAGMENT));
+        program.setDebugName("batched_colorized_texture");
+        return program;
+    });
+
     private final Lazy<RegularProgram> line = Lazy.of(() -> {
         final RegularProgram program = new RegularProgram(this.getShader("geometry/line", VERTEX), this.getShader("geometry/line", GEOMETRY), this.getShader("geometry/line", FRAGMENT));
         program.setDebugName("line");
@@ -97,6 +127,12 @@ public class Programs {
         return program;
     });
 
+    private final Lazy<DualFilterBlurProgram> dualFilterBlur = Lazy.of(() -> {
+        final DualFilterBlurProgram program = new DualFilterBlurProgram(this.getShader("post/post_processing", Shader.Type.VERTEX), this.getShader("post/dual_filter_blur", Shader.Type.FRAGMENT));
+        program.setDebugName("dual_filter_blur");
+        return program;
+    });
+
     private final Lazy<ColorTweakProgram> colorTweak = Lazy.of(() -> {
         final ColorTweakProgram program = new ColorTweakProgram(this.getShader("post/post_processing", Shader.Type.VERTEX), this.getShader("post/color_tweak", Shader.Type.FRAGMENT));
         program.setDebugName("color_tweak");
@@ -143,6 +179,11 @@ public class Programs {
         program.setDebugName("multidraw_line");
         return program;
     });
+    private final Lazy<Program> multidrawCulling = Lazy.of(() -> {
+        final Program program = new Program(this.getShader("multidraw/culling", COMPUTE));
+        program.setDebugName("multidraw_culling");
+        return program;
+    });
 
     @ApiStatus.Internal
     public Programs(final ThinGL thinGL) {
@@ -168,6 +209,22 @@ public class Programs {
         return this.colorizedTexture.get();
     }
 
+    public RegularProgram getBatchedPositionTexture() {
+        return this.batchedPositionTexture.get();
+    }
+
+    public RegularProgram getBatchedPositionTextureArray() {
+        return this.batchedPositionTextureArray.get();
+    }
+
+    public RegularProgram getBatchedPositionColorTexture() {
+        return this.batchedPositionColorTexture.get();
+    }
+
+    public RegularProgram getBatchedColorizedTexture() {
+        return this.batchedColorizedTexture.get();
+    }
+
     public RegularProgram getLine() {
         return this.line.get();
     }
@@ -188,6 +245,10 @@ public class Programs {
         return this.kawaseBlur.get();
     }
 
+    public DualFilterBlurProgram getDualFilterBlur() {
+        return this.dualFilterBlur.get();
+    }
+
     public ColorTweakProgram getColorTweak() {
         return this.colorTweak.get();
     }
@@ -220,6 +281,88 @@ public class Programs {
         return this.multidrawLine.get();
     }
 
+    public Program getMultidrawCulling() {
+        return this.multidrawCulling.get();
+    }
+
+    /**
+     * Sets the cache which is used to store the binaries of linked programs on disk, so that they don't have to be compiled from source on the next start.<br>
+     * Should be set before any program is used, as programs which have already been created are not affected.
+     *
+     * @param programBinaryCache The program binary cache or null to disable caching
+     */
+    public void setProgramBinaryCache(final ProgramBinaryCache programBinaryCache) {
+        if (programBinaryCache != null && !programBinaryCache.isSupported()) {
+            ThinGL.LOGGER.warn("The driver does not support any program binary formats. Program binary caching is disabled.");
+            this.programBinaryCache = null;
+        } else {
+            this.programBinaryCache = programBinaryCache;
+        }
+    }
+
+    public ProgramBinaryCache getProgramBinaryCache() {
+        return this.programBinaryCache;
+    }
+
+    public GlobalUniforms getGlobalUniforms() {
+        if (this.globalUniforms == null) {
+            this.globalUniforms = new GlobalUniforms();
+        }
+        return this.globalUniforms;
+    }
+
+    /**
+     * Submits all programs which haven't been created yet for compilation without waiting for the results.<br>
+     * If KHR_parallel_shader_compile is supported the driver compiles them on background threads, so this can be called early (For example while showing a loading screen) to avoid stutters when the programs are first used.
+     * The returned handle can be polled with {@link AsyncProgramCompilation#isDone()} and {@link AsyncProgramCompilation#finish()} has to be called before the programs are used.
+     * Programs which can't be created on the current context are skipped and will fail again when they are first used.
+     *
+     * @return The handle of the submitted compilation
+     */
+    public AsyncProgramCompilation prewarm() {
+        ThinGL.get().assertOnRenderThread();
+        if (this.activeAsyncCompilation != null) {
+            throw new IllegalStateException("Programs are already being prewarmed");
+        }
+        if (ThinGL.capabilities().supportsKHRParallelShaderCompile()) {
+            KHRParallelShaderCompile.glMaxShaderCompilerThreadsKHR(0xFFFFFFFF); // Let the driver choose the number of threads
+        }
+
+        final AsyncProgramCompilation asyncCompilation = new AsyncProgramCompilation();
+        this.activeAsyncCompilation = asyncCompilation;
+        try {
+            Class<?> clazz = this.getClass();
+            while (clazz != null) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (field.getType() == Lazy.class) {
+                        final Lazy<? extends Program> lazy;
+                        try {
+                            lazy = (Lazy<? extends Program>) field.get(this);
+                        } catch (IllegalAccessException e) {
+                            throw new RuntimeException("Failed to prewarm program", e);
+                        }
+                        if (!lazy.isInitialized()) {
+                            try {
+                                lazy.get();
+                            } catch (Throwable e) {
+                                ThinGL.LOGGER.warn("Skipped prewarming program " + field.getName() + ": " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+                clazz = clazz.getSuperclass();
+            }
+        } finally {
+            this.activeAsyncCompilation = null;
+        }
+        return asyncCompilation;
+    }
+
+    @ApiStatus.Internal
+    public AsyncProgramCompilation getActiveAsyncCompilation() {
+        return this.activeAsyncCompilation;
+    }
+
     protected Shader getShader(final String name, final Shader.Type type) {
         return this.getShader(name, type, Map.of());
     }
@@ -232,8 +375,9 @@ public class Programs {
                     throw new IOException("Shader " + name + " not found");
                 }
                 String source = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                source = GlSlPreprocessor.resolveIncludes(source, this::loadShaderInclude);
                 source = GlSlPreprocessor.addDefines(source, defines);
-                final Shader shader = new Shader(type, source);
+                final Shader shader = new Shader(type, source, this.programBinaryCache == null && this.activeAsyncCompilation == null); // Shaders are compiled on demand if the program binary might be cached or if they should be compiled asynchronously
                 shader.setDebugName(name);
                 return shader;
             } catch (Throwable e) {
@@ -242,6 +386,17 @@ public class Programs {
         });
     }
 
+    protected String loadShaderInclude(final String name) {
+        try (final InputStream stream = this.getClass().getClassLoader().getResourceAsStream("thingl/shaders/include/" + name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("Shader include " + name + " not found");
+            }
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load shader include " + name, e);
+        }
+    }
+
     @ApiStatus.Internal
     public void free() {
         Class<?> clazz = this.getClass();
@@ -260,6 +415,9 @@ public class Programs {
             }
             clazz = clazz.getSuperclass();
         }
+        if (this.globalUniforms != null) {
+            this.globalUniforms.free();
+        }
     }
 
 }
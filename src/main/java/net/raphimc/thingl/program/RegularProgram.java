@@ -18,9 +18,7 @@
 
 package net.raphimc.thingl.program;
 
-import net.lenni0451.commons.color.Color;
 import net.raphimc.thingl.ThinGL;
-import net.raphimc.thingl.resource.framebuffer.Framebuffer;
 import net.raphimc.thingl.resource.program.Program;
 import net.raphimc.thingl.resource.shader.Shader;
 import net.raphimc.thingl.util.RenderMathUtil;
@@ -40,12 +38,8 @@ public class RegularProgram extends Program {
     @Override
     public void bind() {
         super.bind();
-        final Framebuffer currentFramebuffer = ThinGL.applicationInterface().getCurrentFramebuffer();
-        this.setUniformMatrix4f("u_ProjectionMatrix", ThinGL.applicationInterface().getProjectionMatrix());
-        this.setUniformMatrix4f("u_ViewMatrix", ThinGL.applicationInterface().getViewMatrix());
+        ThinGL.programs().getGlobalUniforms().bind(this);
         this.setUniformMatrix4f("u_ModelMatrix", RenderMathUtil.getIdentityMatrix());
-        this.setUniformVector2f("u_Viewport", currentFramebuffer.getWidth(), currentFramebuffer.getHeight());
-        this.setUniformVector4f("u_ColorModifier", Color.WHITE);
     }
 
 }
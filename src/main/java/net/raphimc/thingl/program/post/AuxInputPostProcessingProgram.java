@@ -21,6 +21,7 @@ package net.raphimc.thingl.program.post;
 import net.raphimc.thingl.ThinGL;
 import net.raphimc.thingl.framebuffer.impl.TextureFramebuffer;
 import net.raphimc.thingl.program.PostProcessingProgram;
+import net.raphimc.thingl.resource.framebuffer.Framebuffer;
 import net.raphimc.thingl.resource.shader.Shader;
 import net.raphimc.thingl.util.RenderMathUtil;
 import net.raphimc.thingl.wrapper.Blending;
@@ -30,6 +31,8 @@ import org.lwjgl.opengl.GL11C;
 public abstract class AuxInputPostProcessingProgram extends PostProcessingProgram {
 
     protected TextureFramebuffer inputFramebuffer;
+    private boolean externalInputFramebuffer;
+    private Framebuffer sourceFramebuffer;
 
     public AuxInputPostProcessingProgram(final Shader vertexShader, final Shader fragmentShader) {
         super(vertexShader, fragmentShader);
@@ -65,10 +68,43 @@ public abstract class AuxInputPostProcessingProgram extends PostProcessingProgra
         ThinGL.glStateStack().popBlendFunc();
     }
 
+    /**
+     * Uses the given framebuffer as input instead of borrowing one from the framebuffer pool.<br>
+     * The framebuffer is not returned to the pool when calling {@link #clearInput()}.
+     *
+     * @param inputFramebuffer The input framebuffer
+     */
+    public void setInput(final TextureFramebuffer inputFramebuffer) {
+        this.clearInput();
+        this.inputFramebuffer = inputFramebuffer;
+        this.externalInputFramebuffer = true;
+    }
+
     public void clearInput() {
         if (this.inputFramebuffer != null) {
-            ThinGL.framebufferPool().returnFramebuffer(this.inputFramebuffer);
+            if (!this.externalInputFramebuffer) {
+                ThinGL.framebufferPool().returnFramebuffer(this.inputFramebuffer);
+            }
             this.inputFramebuffer = null;
+            this.externalInputFramebuffer = false;
+        }
+    }
+
+    /**
+     * Sets the framebuffer which is read by programs which blur or otherwise sample the framebuffer they render into.<br>
+     * If it differs from the current framebuffer no temporary copy of the current framebuffer has to be made.
+     *
+     * @param sourceFramebuffer The source framebuffer or null to read from the current framebuffer
+     */
+    public void setSourceFramebuffer(final Framebuffer sourceFramebuffer) {
+        this.sourceFramebuffer = sourceFramebuffer;
+    }
+
+    protected Framebuffer getSourceFramebuffer() {
+        if (this.sourceFramebuffer != null) {
+            return this.sourceFramebuffer;
+        } else {
+            return ThinGL.applicationInterface().getCurrentFramebuffer();
         }
     }
 
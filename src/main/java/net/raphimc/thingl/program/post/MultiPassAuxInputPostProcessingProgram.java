@@ -49,12 +49,18 @@ public abstract class MultiPassAuxInputPostProcessingProgram extends AuxInputPos
 
     @Override
     protected void renderQuad0(final float x1, final float y1, final float x2, final float y2) {
-        final Framebuffer sourceFramebuffer = ThinGL.applicationInterface().getCurrentFramebuffer();
+        final Framebuffer targetFramebuffer = ThinGL.applicationInterface().getCurrentFramebuffer();
+        final Framebuffer sourceFramebuffer = this.getSourceFramebuffer();
+        final boolean canReadSourceFramebuffer = sourceFramebuffer != targetFramebuffer && sourceFramebuffer.getColorAttachment(0) instanceof Texture2D;
         if (this.passes == 1) { // Special case for single pass with source framebuffer read support
-            final TextureFramebuffer sourceFramebufferCopy = ThinGL.framebufferPool().borrowFramebuffer(GL11C.GL_LINEAR);
-            sourceFramebuffer.blitTo(sourceFramebufferCopy, true, false, false);
-            this.renderPass(0, sourceFramebufferCopy, sourceFramebuffer, x1, y1, x2, y2);
-            ThinGL.framebufferPool().returnFramebuffer(sourceFramebufferCopy);
+            if (canReadSourceFramebuffer) {
+                this.renderPass(0, sourceFramebuffer, targetFramebuffer, x1, y1, x2, y2);
+            } else {
+                final TextureFramebuffer sourceFramebufferCopy = ThinGL.framebufferPool().borrowFramebuffer(GL11C.GL_LINEAR);
+                sourceFramebuffer.blitTo(sourceFramebufferCopy, true, false, false);
+                this.renderPass(0, sourceFramebufferCopy, targetFramebuffer, x1, y1, x2, y2);
+                ThinGL.framebufferPool().returnFramebuffer(sourceFramebufferCopy);
+            }
         } else {
             final TextureFramebuffer[] framebuffers = new TextureFramebuffer[this.passes - 1];
             for (int i = 0; i < framebuffers.length; i++) {
@@ -81,7 +87,7 @@ public abstract class MultiPassAuxInputPostProcessingProgram extends AuxInputPos
                 this.renderPass(i, framebuffers[i - 1], framebuffers[i], x1, y1, x2, y2);
             }
             ThinGL.glStateStack().pop();
-            this.renderPass(this.passes - 1, framebuffers[framebuffers.length - 1], sourceFramebuffer, x1, y1, x2, y2);
+            this.renderPass(this.passes - 1, framebuffers[framebuffers.length - 1], targetFramebuffer, x1, y1, x2, y2);
 
             for (TextureFramebuffer framebuffer : framebuffers) {
                 ThinGL.framebufferPool().returnFramebuffer(framebuffer);
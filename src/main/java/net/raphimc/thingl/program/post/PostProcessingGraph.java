@@ -0,0 +1,552 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.program.post;
+
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceSet;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.framebuffer.impl.TextureFramebuffer;
+import net.raphimc.thingl.resource.framebuffer.Framebuffer;
+import net.raphimc.thingl.resource.query.Query;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL33C;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Executes a list of post processing passes which declare the framebuffers they read and write.<br>
+ * When compiled the graph culls passes whose results are never used and assigns transient framebuffers with non overlapping lifetimes to the same pooled framebuffer.
+ * Pooled framebuffers are only borrowed while they are needed, so the multi pass programs executed in between can reuse them as well.<br>
+ * Passes are executed in the order they were added. The graph can be executed every frame without having to be rebuilt.
+ */
+public class PostProcessingGraph {
+
+    private final List<Resource> resources = new ArrayList<>();
+    private final List<Pass> passes = new ArrayList<>();
+    private final ReferenceSet<Resource> outputs = new ReferenceOpenHashSet<>();
+    private final List<Slot> slots = new ArrayList<>();
+    private boolean compiled;
+    private boolean profiling;
+
+    /**
+     * Creates a transient window sized framebuffer with a depth/stencil attachment.
+     *
+     * @param name The name of the framebuffer
+     * @return The resource
+     */
+    public Resource createFramebuffer(final String name) {
+        return this.createFramebuffer(name, GL11C.GL_LINEAR);
+    }
+
+    public Resource createFramebuffer(final String name, final int textureFilter) {
+        return this.addResource(new Resource(name, null, textureFilter, -1, -1));
+    }
+
+    /**
+     * Creates a transient fixed size framebuffer which only has a color attachment.
+     *
+     * @param name The name of the framebuffer
+     * @param textureFilter The texture filter of the color attachment
+     * @param width The width of the framebuffer
+     * @param height The height of the framebuffer
+     * @return The resource
+     */
+    public Resource createFramebuffer(final String name, final int textureFilter, final int width, final int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Framebuffer size must be positive");
+        }
+        return this.addResource(new Resource(name, null, textureFilter, width, height));
+    }
+
+    /**
+     * Imports a framebuffer which is managed outside of the graph. Imported framebuffers are never aliased and writes to them are always kept.
+     *
+     * @param name The name of the framebuffer
+     * @param framebuffer The framebuffer
+     * @return The resource
+     */
+    public Resource importFramebuffer(final String name, final Framebuffer framebuffer) {
+        return this.addResource(new Resource(name, framebuffer, 0, -1, -1));
+    }
+
+    /**
+     * Marks a transient framebuffer as output of the graph. The passes writing it are not culled.
+     *
+     * @param resource The resource
+     */
+    public void markOutput(final Resource resource) {
+        this.checkResource(resource);
+        this.outputs.add(resource);
+        this.compiled = false;
+    }
+
+    /**
+     * Adds a pass to the graph. The pass has to declare the resources it reads and writes. Passes which don't write any used resource are culled.
+     *
+     * @param name The name of the pass
+     * @param executor The code executed by the pass
+     * @return The pass
+     */
+    public Pass addPass(final String name, final Runnable executor) {
+        final Pass pass = new Pass(name, executor);
+        this.passes.add(pass);
+        this.compiled = false;
+        return pass;
+    }
+
+    public Pass addPostProcessingPass(final String name, final AuxInputPostProcessingProgram program, final Resource input, final Resource target) {
+        return this.addPostProcessingPass(name, program, input, target, target);
+    }
+
+    /**
+     * Adds a pass which renders the given program over the whole target framebuffer.<br>
+     * If the source differs from the target, programs which sample the framebuffer they render into read the source directly instead of making a temporary copy of the target.
+     *
+     * @param name The name of the pass
+     * @param program The program
+     * @param input The window sized framebuffer used as aux input of the program
+     * @param source The framebuffer sampled by the program
+     * @param target The framebuffer the program renders into
+     * @return The pass
+     */
+    public Pass addPostProcessingPass(final String name, final AuxInputPostProcessingProgram program, final Resource input, final Resource source, final Resource target) {
+        if (!input.isImported() && !input.isWindowSized()) {
+            throw new IllegalArgumentException("Post processing input must be a window sized framebuffer");
+        }
+        return this.addPass(name, () -> {
+            if (!(input.getFramebuffer() instanceof TextureFramebuffer inputFramebuffer)) {
+                throw new IllegalStateException("Post processing input must be a " + TextureFramebuffer.class.getSimpleName());
+            }
+            program.setInput(inputFramebuffer);
+            program.setSourceFramebuffer(source.getFramebuffer());
+            ThinGL.glStateStack().pushFramebuffer();
+            ThinGL.glStateStack().pushViewport();
+            target.getFramebuffer().bind(true);
+            program.renderFullscreenQuad();
+            ThinGL.glStateStack().popViewport();
+            ThinGL.glStateStack().popFramebuffer();
+            program.setSourceFramebuffer(null);
+            program.clearInput();
+        }).reads(input, source).writes(target);
+    }
+
+    /**
+     * Culls unused passes and computes the lifetimes and framebuffer assignments of the transient resources.<br>
+     * This is done automatically by {@link #execute()} if the graph has changed.
+     */
+    public void compile() {
+        final ReferenceSet<Resource> usedResources = new ReferenceOpenHashSet<>(this.outputs);
+        for (Resource resource : this.resources) {
+            if (resource.isImported()) {
+                usedResources.add(resource);
+            }
+        }
+        for (int i = this.passes.size() - 1; i >= 0; i--) {
+            final Pass pass = this.passes.get(i);
+            pass.culled = true;
+            for (Resource resource : pass.writes) {
+                if (usedResources.contains(resource)) {
+                    pass.culled = false;
+                    break;
+                }
+            }
+            if (!pass.culled) {
+                usedResources.addAll(pass.reads);
+            }
+        }
+
+        for (Resource resource : this.resources) {
+            resource.firstUse = -1;
+            resource.lastUse = -1;
+            resource.slot = null;
+        }
+        final ReferenceSet<Resource> writtenResources = new ReferenceOpenHashSet<>();
+        for (int i = 0; i < this.passes.size(); i++) {
+            final Pass pass = this.passes.get(i);
+            if (pass.culled) continue;
+
+            for (Resource resource : pass.reads) {
+                if (!resource.isImported() && !writtenResources.contains(resource)) {
+                    throw new IllegalStateException("Pass '" + pass.name + "' reads '" + resource.name + "' before it is written");
+                }
+            }
+            for (Resource resource : pass.getResources()) {
+                if (resource.firstUse == -1) {
+                    resource.firstUse = i;
+                }
+                resource.lastUse = i;
+            }
+            writtenResources.addAll(pass.writes);
+        }
+
+        this.slots.clear();
+        final List<Slot> freeSlots = new ArrayList<>();
+        for (int i = 0; i < this.passes.size(); i++) {
+            final Pass pass = this.passes.get(i);
+            if (pass.culled) continue;
+
+            for (Resource resource : pass.getResources()) {
+                if (resource.isImported() || resource.firstUse != i || resource.slot != null) continue;
+
+                for (int j = 0; j < freeSlots.size(); j++) {
+                    final Slot slot = freeSlots.get(j);
+                    if (slot.textureFilter == resource.textureFilter && slot.width == resource.width && slot.height == resource.height) {
+                        resource.slot = freeSlots.remove(j);
+                        break;
+                    }
+                }
+                if (resource.slot == null) {
+                    resource.slot = new Slot(resource.textureFilter, resource.width, resource.height);
+                    this.slots.add(resource.slot);
+                }
+            }
+            for (Resource resource : pass.getResources()) {
+                if (resource.slot != null && resource.lastUse == i && !freeSlots.contains(resource.slot)) {
+                    resource.slot.lastUse = i;
+                    freeSlots.add(resource.slot);
+                }
+            }
+        }
+        this.compiled = true;
+    }
+
+    public void execute() {
+        ThinGL.get().assertOnRenderThread();
+        if (!this.compiled) {
+            this.compile();
+        }
+        this.collectQueryResults();
+
+        try {
+            for (int i = 0; i < this.passes.size(); i++) {
+                final Pass pass = this.passes.get(i);
+                if (pass.culled) continue;
+
+                for (Resource resource : pass.getResources()) {
+                    if (resource.slot == null || resource.firstUse != i) continue;
+
+                    if (resource.slot.framebuffer == null) {
+                        if (resource.isWindowSized()) {
+                            resource.slot.framebuffer = ThinGL.framebufferPool().borrowFramebuffer(resource.textureFilter);
+                        } else {
+                            resource.slot.framebuffer = ThinGL.framebufferPool().borrowFramebuffer(resource.textureFilter, resource.width, resource.height);
+                        }
+                    } else { // Aliased framebuffer still contains the contents of the previous resource
+                        resource.slot.framebuffer.clear();
+                    }
+                }
+
+                final boolean timeGpu = this.profiling && !pass.queryPending && !de.florianmichael.thingl.GlCommands.isApple(); // FlorianMichael - add macOS support
+                if (timeGpu) {
+                    if (pass.query == null) {
+                        pass.query = new Query(GL33C.GL_TIME_ELAPSED);
+                        pass.query.setDebugName("Post Processing Pass " + pass.name);
+                    }
+                    pass.query.begin();
+                }
+                final long start = System.nanoTime();
+                pass.executor.run();
+                if (this.profiling) {
+                    pass.cpuTime = System.nanoTime() - start;
+                }
+                if (timeGpu) {
+                    pass.query.end();
+                    pass.queryPending = true;
+                }
+
+                for (Slot slot : this.slots) {
+                    if (slot.lastUse == i) {
+                        ThinGL.framebufferPool().returnFramebuffer(slot.framebuffer);
+                        slot.framebuffer = null;
+                    }
+                }
+            }
+        } finally {
+            for (Slot slot : this.slots) {
+                if (slot.framebuffer != null) {
+                    ThinGL.framebufferPool().returnFramebuffer(slot.framebuffer);
+                    slot.framebuffer = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param profiling Whether the CPU and GPU time of each pass should be measured. The GPU time is measured with timer queries which can't be nested into other timer queries.
+     */
+    public void setProfiling(final boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    public boolean isProfiling() {
+        return this.profiling;
+    }
+
+    /**
+     * @return The timings of the last profiled execution of each pass. GPU timings are delayed by a few frames.
+     */
+    public List<PassTiming> getPassTimings() {
+        this.collectQueryResults();
+        final List<PassTiming> passTimings = new ArrayList<>(this.passes.size());
+        for (Pass pass : this.passes) {
+            passTimings.add(new PassTiming(pass.name, pass.culled, pass.cpuTime, pass.gpuTime));
+        }
+        return passTimings;
+    }
+
+    public MemoryReport getMemoryReport() {
+        if (!this.compiled) {
+            this.compile();
+        }
+        int resourceCount = 0;
+        long unaliasedSize = 0;
+        for (Resource resource : this.resources) {
+            if (resource.slot != null) {
+                resourceCount++;
+                unaliasedSize += getEstimatedSize(resource.width, resource.height);
+            }
+        }
+        long size = 0;
+        for (Slot slot : this.slots) {
+            size += getEstimatedSize(slot.width, slot.height);
+        }
+        return new MemoryReport(resourceCount, this.slots.size(), size, unaliasedSize);
+    }
+
+    /**
+     * @return A human readable report of the pass timings and framebuffer memory usage
+     */
+    public String createReport() {
+        final StringBuilder report = new StringBuilder();
+        for (PassTiming passTiming : this.getPassTimings()) {
+            report.append(passTiming.name()).append(": ");
+            if (passTiming.culled()) {
+                report.append("culled");
+            } else {
+                report.append(String.format("CPU %.3f ms", passTiming.cpuTime() / 1_000_000D));
+                if (passTiming.gpuTime() >= 0) {
+                    report.append(String.format(", GPU %.3f ms", passTiming.gpuTime() / 1_000_000D));
+                }
+            }
+            report.append('\n');
+        }
+        final MemoryReport memoryReport = this.getMemoryReport();
+        report.append(memoryReport.resourceCount()).append(" transient framebuffer(s) aliased onto ").append(memoryReport.framebufferCount()).append(" framebuffer(s): ");
+        report.append(memoryReport.size() / 1024).append(" KiB (").append(memoryReport.unaliasedSize() / 1024).append(" KiB without aliasing)");
+        return report.toString();
+    }
+
+    public List<Resource> getResources() {
+        return Collections.unmodifiableList(this.resources);
+    }
+
+    public List<Pass> getPasses() {
+        return Collections.unmodifiableList(this.passes);
+    }
+
+    public void free() {
+        for (Pass pass : this.passes) {
+            if (pass.query != null) {
+                pass.query.free();
+                pass.query = null;
+                pass.queryPending = false;
+            }
+        }
+    }
+
+    private Resource addResource(final Resource resource) {
+        this.resources.add(resource);
+        this.compiled = false;
+        return resource;
+    }
+
+    private void checkResource(final Resource resource) {
+        if (resource.getGraph() != this) {
+            throw new IllegalArgumentException("Resource '" + resource.name + "' is not part of this graph");
+        }
+    }
+
+    private void collectQueryResults() {
+        for (Pass pass : this.passes) {
+            if (pass.queryPending && pass.query.isResultAvailable()) {
+                pass.gpuTime = pass.query.getResultLong();
+                pass.queryPending = false;
+            }
+        }
+    }
+
+    private static long getEstimatedSize(final int width, final int height) {
+        if (width == -1 && height == -1) { // RGBA8 color and DEPTH32F_STENCIL8 depth/stencil attachment (Usually padded to 8 bytes)
+            return (long) ThinGL.windowInterface().getFramebufferWidth() * ThinGL.windowInterface().getFramebufferHeight() * (4 + 8);
+        } else { // RGBA8 color attachment
+            return (long) width * height * 4;
+        }
+    }
+
+    public class Resource {
+
+        private final String name;
+        private final Framebuffer importedFramebuffer;
+        private final int textureFilter;
+        private final int width;
+        private final int height;
+        private int firstUse = -1;
+        private int lastUse = -1;
+        private Slot slot;
+
+        private Resource(final String name, final Framebuffer importedFramebuffer, final int textureFilter, final int width, final int height) {
+            this.name = name;
+            this.importedFramebuffer = importedFramebuffer;
+            this.textureFilter = textureFilter;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * @return The framebuffer backing this resource. Transient framebuffers are only available while a pass using them is executed.
+         */
+        public Framebuffer getFramebuffer() {
+            if (this.importedFramebuffer != null) {
+                return this.importedFramebuffer;
+            } else if (this.slot != null && this.slot.framebuffer != null) {
+                return this.slot.framebuffer;
+            } else {
+                throw new IllegalStateException("Framebuffer '" + this.name + "' is not available outside of the passes using it");
+            }
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isImported() {
+            return this.importedFramebuffer != null;
+        }
+
+        public boolean isWindowSized() {
+            return this.importedFramebuffer == null && this.width == -1 && this.height == -1;
+        }
+
+        private PostProcessingGraph getGraph() {
+            return PostProcessingGraph.this;
+        }
+
+    }
+
+    public class Pass {
+
+        private final String name;
+        private final Runnable executor;
+        private final ReferenceList<Resource> reads = new ReferenceArrayList<>();
+        private final ReferenceList<Resource> writes = new ReferenceArrayList<>();
+        private boolean culled;
+        private Query query;
+        private boolean queryPending;
+        private long cpuTime = -1;
+        private long gpuTime = -1;
+
+        private Pass(final String name, final Runnable executor) {
+            this.name = name;
+            this.executor = executor;
+        }
+
+        public Pass reads(final Resource... resources) {
+            for (Resource resource : resources) {
+                PostProcessingGraph.this.checkResource(resource);
+                if (!this.reads.contains(resource)) {
+                    this.reads.add(resource);
+                }
+            }
+            PostProcessingGraph.this.compiled = false;
+            return this;
+        }
+
+        public Pass writes(final Resource... resources) {
+            for (Resource resource : resources) {
+                PostProcessingGraph.this.checkResource(resource);
+                if (!this.writes.contains(resource)) {
+                    this.writes.add(resource);
+                }
+            }
+            PostProcessingGraph.this.compiled = false;
+            return this;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return Whether the pass was culled during the last compilation
+         */
+        public boolean isCulled() {
+            return this.culled;
+        }
+
+        private List<Resource> getResources() {
+            final List<Resource> resources = new ArrayList<>(this.reads.size() + this.writes.size());
+            resources.addAll(this.reads);
+            for (Resource resource : this.writes) {
+                if (!this.reads.contains(resource)) {
+                    resources.add(resource);
+                }
+            }
+            return resources;
+        }
+
+    }
+
+    private static class Slot {
+
+        private final int textureFilter;
+        private final int width;
+        private final int height;
+        private int lastUse;
+        private Framebuffer framebuffer;
+
+        private Slot(final int textureFilter, final int width, final int height) {
+            this.textureFilter = textureFilter;
+            this.width = width;
+            this.height = height;
+        }
+
+    }
+
+    /**
+     * @param name The name of the pass
+     * @param culled Whether the pass was culled
+     * @param cpuTime The CPU time in nanoseconds or -1 if not measured yet
+     * @param gpuTime The GPU time in nanoseconds or -1 if not measured yet
+     */
+    public record PassTiming(String name, boolean culled, long cpuTime, long gpuTime) {
+    }
+
+    /**
+     * @param resourceCount The number of transient framebuffers used by the graph
+     * @param framebufferCount The number of pooled framebuffers the transient framebuffers were assigned to
+     * @param size The estimated size of the pooled framebuffers in bytes
+     * @param unaliasedSize The estimated size in bytes if every transient framebuffer was backed by its own pooled framebuffer
+     */
+    public record MemoryReport(int resourceCount, int framebufferCount, long size, long unaliasedSize) {
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.program.post.impl;
+
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.framebuffer.impl.TextureFramebuffer;
+import net.raphimc.thingl.program.post.AuxInputPostProcessingProgram;
+import net.raphimc.thingl.resource.framebuffer.Framebuffer;
+import net.raphimc.thingl.resource.shader.Shader;
+import net.raphimc.thingl.resource.texture.Texture2D;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL11C;
+
+/**
+ * Blur which repeatedly downsamples the source into a pyramid of half sized framebuffers and upsamples it back up again.<br>
+ * Most of the work happens at reduced resolution, which makes it considerably cheaper than {@link KawaseBlurProgram} for large blur radii.
+ */
+public class DualFilterBlurProgram extends AuxInputPostProcessingProgram {
+
+    private static final int PASS_FIRST_DOWNSAMPLE = 0;
+    private static final int PASS_DOWNSAMPLE = 1;
+    private static final int PASS_UPSAMPLE = 2;
+    private static final int PASS_FINAL_UPSAMPLE = 3;
+
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    private int iterations = 4;
+    private float offset = 1F;
+
+    public DualFilterBlurProgram(final Shader vertexShader, final Shader fragmentShader) {
+        super(vertexShader, fragmentShader);
+    }
+
+    public void configureParameters() {
+        this.configureParameters(4);
+    }
+
+    public void configureParameters(final int iterations) {
+        this.configureParameters(iterations, 1F);
+    }
+
+    /**
+     * @param iterations The number of downsample steps. Each additional iteration roughly doubles the blur radius.
+     * @param offset The sample offset in texels of the respective pyramid level
+     */
+    public void configureParameters(final int iterations, final float offset) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iteration count must be at least 1");
+        }
+        this.iterations = iterations;
+        this.offset = offset;
+        this.setUniformFloat("u_Offset", offset);
+    }
+
+    @Override
+    protected void renderQuad0(final float x1, final float y1, final float x2, final float y2) {
+        final Framebuffer targetFramebuffer = ThinGL.applicationInterface().getCurrentFramebuffer();
+        final int width = targetFramebuffer.getWidth();
+        final int height = targetFramebuffer.getHeight();
+        int levelCount = 0;
+        while (levelCount < this.iterations && (width >> (levelCount + 1)) > 0 && (height >> (levelCount + 1)) > 0) {
+            levelCount++;
+        }
+        if (levelCount == 0) {
+            return;
+        }
+
+        final Framebuffer[] levels = new Framebuffer[levelCount];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = ThinGL.framebufferPool().borrowFramebuffer(GL11C.GL_LINEAR, width >> (i + 1), height >> (i + 1));
+        }
+
+        ThinGL.glStateStack().push();
+        ThinGL.glStateStack().disable(GL11C.GL_BLEND);
+        ThinGL.glStateStack().disable(GL11C.GL_DEPTH_TEST);
+        ThinGL.glStateStack().disable(GL11C.GL_STENCIL_TEST);
+        ThinGL.glStateStack().disable(GL11C.GL_SCISSOR_TEST);
+        ThinGL.glStateStack().pushViewport();
+        final Framebuffer sourceFramebuffer = this.getSourceFramebuffer();
+        if (sourceFramebuffer.getColorAttachment(0) instanceof Texture2D) {
+            this.renderPass(PASS_FIRST_DOWNSAMPLE, sourceFramebuffer, levels[0], width, height, x1, y1, x2, y2);
+        } else { // Temp copy to ensure the source framebuffer color attachment is a Texture2D
+            final TextureFramebuffer sourceFramebufferCopy = ThinGL.framebufferPool().borrowFramebuffer(GL11C.GL_LINEAR);
+            sourceFramebuffer.blitTo(sourceFramebufferCopy, true, false, false);
+            this.renderPass(PASS_FIRST_DOWNSAMPLE, sourceFramebufferCopy, levels[0], width, height, x1, y1, x2, y2);
+            ThinGL.framebufferPool().returnFramebuffer(sourceFramebufferCopy);
+        }
+        for (int i = 1; i < levels.length; i++) {
+            this.renderPass(PASS_DOWNSAMPLE, levels[i - 1], levels[i], width, height, x1, y1, x2, y2);
+        }
+        for (int i = levels.length - 1; i > 0; i--) {
+            this.renderPass(PASS_UPSAMPLE, levels[i], levels[i - 1], width, height, x1, y1, x2, y2);
+        }
+        ThinGL.glStateStack().popViewport();
+        ThinGL.glStateStack().pop();
+        this.renderPass(PASS_FINAL_UPSAMPLE, levels[0], targetFramebuffer, width, height, x1, y1, x2, y2);
+
+        for (Framebuffer level : levels) {
+            ThinGL.framebufferPool().returnFramebuffer(level);
+        }
+    }
+
+    private void renderPass(final int pass, final Framebuffer sourceFramebuffer, final Framebuffer targetFramebuffer, final int width, final int height, final float x1, final float y1, final float x2, final float y2) {
+        final int targetWidth = targetFramebuffer.getWidth();
+        final int targetHeight = targetFramebuffer.getHeight();
+        this.setUniformInt("u_Pass", pass);
+        this.setUniformSampler("u_Source", sourceFramebuffer);
+        this.setUniformVector2f("u_SourcePixelSize", 1F / sourceFramebuffer.getWidth(), 1F / sourceFramebuffer.getHeight());
+        this.setUniformMatrix4f("u_ProjectionMatrix", this.projectionMatrix.setOrtho(0F, targetWidth, targetHeight, 0F, -1000F, 1000F));
+        this.setUniformVector2f("u_Viewport", targetWidth, targetHeight);
+        if (pass == PASS_FINAL_UPSAMPLE) {
+            targetFramebuffer.bind();
+            super.renderQuad0(x1, y1, x2, y2);
+        } else { // Render a slightly larger region so the samples taken by the next level around the edges are valid
+            final float scaleX = (float) targetWidth / width;
+            final float scaleY = (float) targetHeight / height;
+            final float padding = 2F + (float) Math.ceil(Math.abs(this.offset));
+            targetFramebuffer.bind(true);
+            super.renderQuad0(
+                    Math.max(0F, (float) Math.floor(x1 * scaleX) - padding),
+                    Math.max(0F, (float) Math.floor(y1 * scaleY) - padding),
+                    Math.min(targetWidth, (float) Math.ceil(x2 * scaleX) + padding),
+                    Math.min(targetHeight, (float) Math.ceil(y2 * scaleY) + padding)
+            );
+        }
+    }
+
+}
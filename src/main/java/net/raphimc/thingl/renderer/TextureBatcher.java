@@ -0,0 +1,127 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.raphimc.thingl.renderer;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.drawbuilder.DrawBatch;
+import net.raphimc.thingl.drawbuilder.DrawMode;
+import net.raphimc.thingl.drawbuilder.vertex.VertexDataLayout;
+import net.raphimc.thingl.resource.program.Program;
+import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.opengl.ARBBindlessTexture;
+import org.lwjgl.opengl.GL11C;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets quads which reference different textures share a single draw batch by passing ARB_bindless_texture handles to the shader directly.<br>
+ * The handles are only resident while the draw batch is drawn, so buffers built with texture batching have to be drawn in the frame they were built in.<br>
+ * The texture handle returned by {@link #prepareTexture(int)} has to be written into a uvec2 vertex attribute (Lower 32 bits first).<br>
+ * Creating a texture handle makes the sampling parameters of the texture immutable until the texture is deleted, so they have to be set up before the texture is batched for the first time.
+ */
+public class TextureBatcher {
+
+    private static final IntSet HANDLE_TEXTURE_IDS = new IntOpenHashSet();
+
+    private final DrawBatch drawBatch;
+    private final Int2LongMap textureHandles = new Int2LongOpenHashMap();
+    private final LongList residentTextureHandles = new LongArrayList();
+    private long textureHandlesFrame = -1;
+
+    public TextureBatcher(final Supplier<Program> program, final VertexDataLayout vertexDataLayout) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Texture batching requires ARB_bindless_texture");
+        }
+
+        this.drawBatch = new DrawBatch(program, DrawMode.QUADS, vertexDataLayout, () -> {
+            ThinGL.glStateStack().push();
+            ThinGL.glStateStack().enable(GL11C.GL_BLEND);
+            this.makeTextureHandlesResident();
+        }, () -> {
+            this.makeTextureHandlesNonResident();
+            ThinGL.glStateStack().pop();
+        });
+    }
+
+    public static boolean isSupported() {
+        return ThinGL.capabilities().supportsARBBindlessTexture();
+    }
+
+    /**
+     * @param textureId The texture id
+     * @return Whether a texture handle has been created for the texture, which makes its sampling parameters immutable
+     */
+    public static boolean hasTextureHandle(final int textureId) {
+        return HANDLE_TEXTURE_IDS.contains(textureId);
+    }
+
+    @ApiStatus.Internal
+    public static void onTextureDeleted(final int textureId) {
+        HANDLE_TEXTURE_IDS.remove(textureId);
+    }
+
+    /**
+     * Prepares the texture for being referenced by the next quad. The quad has to be added to the draw batch returned by {@link #getDrawBatch()} afterwards.<br>
+     * This creates a texture handle, which makes the sampling parameters of the texture immutable until it is deleted.
+     *
+     * @param textureId The texture id
+     * @return The texture handle to write into the vertex data
+     */
+    public long prepareTexture(final int textureId) {
+        final long frameCount = ThinGL.get().getFrameCount();
+        if (this.textureHandlesFrame != frameCount) { // Texture ids might have been reused by now
+            this.textureHandles.clear();
+            this.textureHandlesFrame = frameCount;
+        }
+        long textureHandle = this.textureHandles.get(textureId);
+        if (textureHandle == 0L) {
+            textureHandle = ARBBindlessTexture.glGetTextureHandleARB(textureId);
+            this.textureHandles.put(textureId, textureHandle);
+            HANDLE_TEXTURE_IDS.add(textureId);
+        }
+        return textureHandle;
+    }
+
+    public DrawBatch getDrawBatch() {
+        return this.drawBatch;
+    }
+
+    private void makeTextureHandlesResident() {
+        for (long textureHandle : this.textureHandles.values()) {
+            if (!ARBBindlessTexture.glIsTextureHandleResidentARB(textureHandle)) { // Handles made resident by someone else are left alone
+                ARBBindlessTexture.glMakeTextureHandleResidentARB(textureHandle);
+                this.residentTextureHandles.add(textureHandle);
+            }
+        }
+    }
+
+    private void makeTextureHandlesNonResident() {
+        for (int i = 0; i < this.residentTextureHandles.size(); i++) {
+            ARBBindlessTexture.glMakeTextureHandleNonResidentARB(this.residentTextureHandles.getLong(i));
+        }
+        this.residentTextureHandles.clear();
+    }
+
+}
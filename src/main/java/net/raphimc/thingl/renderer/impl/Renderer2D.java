@@ -32,6 +32,7 @@ import net.raphimc.thingl.drawbuilder.databuilder.holder.IndexDataHolder;
 import net.raphimc.thingl.drawbuilder.databuilder.holder.VertexDataHolder;
 import net.raphimc.thingl.renderer.Primitives;
 import net.raphimc.thingl.renderer.Renderer;
+import net.raphimc.thingl.renderer.TextureBatcher;
 import net.raphimc.thingl.util.CacheUtil;
 import org.joml.Matrix4f;
 import org.joml.Vector2d;
@@ -75,6 +76,37 @@ public class Renderer2D extends Renderer {
         ThinGL.programs().getPositionTextureArray().setUniformSampler("u_Texture", textureId);
     }, () -> ThinGL.glStateStack().pop()));
 
+    protected TextureBatcher batchedTexturedQuad;
+    protected TextureBatcher batchedColoredTexturedQuad;
+    protected TextureBatcher batchedColorizedTexturedQuad;
+    protected TextureBatcher batchedArrayTexturedQuad;
+    private boolean textureBatching;
+    private long textureReference;
+
+    /**
+     * Enables or disables texture batching. When enabled, textured quads which reference different textures share a single draw batch, which
+     * reduces the number of draw calls while buffering. See {@link TextureBatcher} for details.<br>
+     * Texture batching requires ARB_bindless_texture. If it is not supported, textured quads keep using one draw batch per texture.
+     *
+     * @param textureBatching Whether textured quads should be batched
+     */
+    public void setTextureBatching(final boolean textureBatching) {
+        if (textureBatching && !TextureBatcher.isSupported()) {
+            return;
+        }
+        if (textureBatching && this.batchedTexturedQuad == null) {
+            this.batchedTexturedQuad = new TextureBatcher(() -> ThinGL.programs().getBatchedPositionTexture(), BuiltinDrawBatches.BATCHED_POSITION_TEXTURE_LAYOUT);
+            this.batchedColoredTexturedQuad = new TextureBatcher(() -> ThinGL.programs().getBatchedPositionColorTexture(), BuiltinDrawBatches.BATCHED_POSITION_COLOR_TEXTURE_LAYOUT);
+            this.batchedColorizedTexturedQuad = new TextureBatcher(() -> ThinGL.programs().getBatchedColorizedTexture(), BuiltinDrawBatches.BATCHED_POSITION_COLOR_TEXTURE_LAYOUT);
+            this.batchedArrayTexturedQuad = new TextureBatcher(() -> ThinGL.programs().getBatchedPositionTextureArray(), BuiltinDrawBatches.BATCHED_POSITION_TEXTURE_ARRAY_LAYOUT);
+        }
+        this.textureBatching = textureBatching;
+    }
+
+    public boolean isTextureBatching() {
+        return this.textureBatching;
+    }
+
     public void filledRectangle(final Matrix4f positionMatrix, final Rectangled rectangle, final Color color) {
         this.filledRectangle(positionMatrix, rectangle, color, color, color, color);
     }
@@ -563,96 +595,112 @@ public class Renderer2D extends Renderer {
     }
 
     public void texture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.texturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.texturedQuad, this.batchedTexturedQuad, id);
         this.texture(positionMatrix, vertexDataHolder, x, y, width, height, 0F, 0F, 1F, 1F);
         this.drawIfNotBuffering();
     }
 
     public void texture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final float u, final float v, final float texWidth, final float texHeight) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.texturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.texturedQuad, this.batchedTexturedQuad, id);
         this.texture(positionMatrix, vertexDataHolder, x, y, width, height, u / texWidth, v / texHeight, width / texWidth, height / texHeight);
         this.drawIfNotBuffering();
     }
 
     public void texture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight, final float texWidth, final float texHeight) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.texturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.texturedQuad, this.batchedTexturedQuad, id);
         this.texture(positionMatrix, vertexDataHolder, x, y, width, height, u / texWidth, v / texHeight, uWidth / texWidth, vHeight / texHeight);
         this.drawIfNotBuffering();
     }
 
     private void texture(final Matrix4f positionMatrix, final VertexDataHolder vertexDataHolder, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight) {
-        vertexDataHolder.putVector3f(positionMatrix, x, y + height, 0F).putTextureCoord(u, v + vHeight).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x + width, y + height, 0F).putTextureCoord(u + uWidth, v + vHeight).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x + width, y, 0F).putTextureCoord(u + uWidth, v).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x, y, 0F).putTextureCoord(u, v).endVertex();
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x, y + height, 0F).putTextureCoord(u, v + vHeight));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x + width, y + height, 0F).putTextureCoord(u + uWidth, v + vHeight));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x + width, y, 0F).putTextureCoord(u + uWidth, v));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x, y, 0F).putTextureCoord(u, v));
     }
 
     public void textureArrayLayer(final Matrix4f positionMatrix, final int id, final int layer, final float x, final float y, final float width, final float height) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.arrayTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.arrayTexturedQuad, this.batchedArrayTexturedQuad, id);
         this.textureArrayLayer(positionMatrix, vertexDataHolder, layer, x, y, width, height, 0F, 0F, 1F, 1F);
         this.drawIfNotBuffering();
     }
 
     public void textureArrayLayer(final Matrix4f positionMatrix, final int id, final int layer, final float x, final float y, final float width, final float height, final float u, final float v, final float texWidth, final float texHeight) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.arrayTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.arrayTexturedQuad, this.batchedArrayTexturedQuad, id);
         this.textureArrayLayer(positionMatrix, vertexDataHolder, layer, x, y, width, height, u / texWidth, v / texHeight, width / texWidth, height / texHeight);
         this.drawIfNotBuffering();
     }
 
     public void textureArrayLayer(final Matrix4f positionMatrix, final int id, final int layer, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight, final float texWidth, final float texHeight) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.arrayTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.arrayTexturedQuad, this.batchedArrayTexturedQuad, id);
         this.textureArrayLayer(positionMatrix, vertexDataHolder, layer, x, y, width, height, u / texWidth, v / texHeight, uWidth / texWidth, vHeight / texHeight);
         this.drawIfNotBuffering();
     }
 
     private void textureArrayLayer(final Matrix4f positionMatrix, final VertexDataHolder vertexDataHolder, final int layer, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight) {
-        vertexDataHolder.putVector3f(positionMatrix, x, y + height, 0F).putTextureCoord(u, v + vHeight).putShort((short) layer).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x + width, y + height, 0F).putTextureCoord(u + uWidth, v + vHeight).putShort((short) layer).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x + width, y, 0F).putTextureCoord(u + uWidth, v).putShort((short) layer).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x, y, 0F).putTextureCoord(u, v).putShort((short) layer).endVertex();
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x, y + height, 0F).putTextureCoord(u, v + vHeight).putShort((short) layer));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x + width, y + height, 0F).putTextureCoord(u + uWidth, v + vHeight).putShort((short) layer));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x + width, y, 0F).putTextureCoord(u + uWidth, v).putShort((short) layer));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x, y, 0F).putTextureCoord(u, v).putShort((short) layer));
     }
 
     public void coloredTexture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final Color color) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.coloredTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.coloredTexturedQuad, this.batchedColoredTexturedQuad, id);
         this.coloredTexture(positionMatrix, vertexDataHolder, x, y, width, height, 0F, 0F, 1F, 1F, color);
         this.drawIfNotBuffering();
     }
 
     public void coloredTexture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final float u, final float v, final float texWidth, final float texHeight, final Color color) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.coloredTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.coloredTexturedQuad, this.batchedColoredTexturedQuad, id);
         this.coloredTexture(positionMatrix, vertexDataHolder, x, y, width, height, u / texWidth, v / texHeight, width / texWidth, height / texHeight, color);
         this.drawIfNotBuffering();
     }
 
     public void coloredTexture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight, final float texWidth, final float texHeight, final Color color) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.coloredTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.coloredTexturedQuad, this.batchedColoredTexturedQuad, id);
         this.coloredTexture(positionMatrix, vertexDataHolder, x, y, width, height, u / texWidth, v / texHeight, uWidth / texWidth, vHeight / texHeight, color);
         this.drawIfNotBuffering();
     }
 
     private void coloredTexture(final Matrix4f positionMatrix, final VertexDataHolder vertexDataHolder, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight, final Color color) {
-        vertexDataHolder.putVector3f(positionMatrix, x, y + height, 0F).putColor(color).putTextureCoord(u, v + vHeight).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x + width, y + height, 0F).putColor(color).putTextureCoord(u + uWidth, v + vHeight).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x + width, y, 0F).putColor(color).putTextureCoord(u + uWidth, v).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x, y, 0F).putColor(color).putTextureCoord(u, v).endVertex();
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x, y + height, 0F).putColor(color).putTextureCoord(u, v + vHeight));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x + width, y + height, 0F).putColor(color).putTextureCoord(u + uWidth, v + vHeight));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x + width, y, 0F).putColor(color).putTextureCoord(u + uWidth, v));
+        this.endTexturedVertex(vertexDataHolder.putVector3f(positionMatrix, x, y, 0F).putColor(color).putTextureCoord(u, v));
     }
 
     public void colorizedTexture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final Color color) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.colorizedTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.colorizedTexturedQuad, this.batchedColorizedTexturedQuad, id);
         this.coloredTexture(positionMatrix, vertexDataHolder, x, y, width, height, 0F, 0F, 1F, 1F, color);
         this.drawIfNotBuffering();
     }
 
     public void colorizedTexture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final float u, final float v, final float texWidth, final float texHeight, final Color color) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.colorizedTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.colorizedTexturedQuad, this.batchedColorizedTexturedQuad, id);
         this.coloredTexture(positionMatrix, vertexDataHolder, x, y, width, height, u / texWidth, v / texHeight, width / texWidth, height / texHeight, color);
         this.drawIfNotBuffering();
     }
 
     public void colorizedTexture(final Matrix4f positionMatrix, final int id, final float x, final float y, final float width, final float height, final float u, final float v, final float uWidth, final float vHeight, final float texWidth, final float texHeight, final Color color) {
-        final VertexDataHolder vertexDataHolder = this.targetMultiDrawBatchDataHolder.getVertexDataHolder(this.colorizedTexturedQuad.apply(id));
+        final VertexDataHolder vertexDataHolder = this.getTexturedQuadVertexDataHolder(this.colorizedTexturedQuad, this.batchedColorizedTexturedQuad, id);
         this.coloredTexture(positionMatrix, vertexDataHolder, x, y, width, height, u / texWidth, v / texHeight, uWidth / texWidth, vHeight / texHeight, color);
         this.drawIfNotBuffering();
     }
 
+    private VertexDataHolder getTexturedQuadVertexDataHolder(final IntFunction<DrawBatch> drawBatch, final TextureBatcher textureBatcher, final int textureId) {
+        if (this.textureBatching) {
+            this.textureReference = textureBatcher.prepareTexture(textureId);
+            return this.targetMultiDrawBatchDataHolder.getVertexDataHolder(textureBatcher.getDrawBatch());
+        } else {
+            return this.targetMultiDrawBatchDataHolder.getVertexDataHolder(drawBatch.apply(textureId));
+        }
+    }
+
+    private void endTexturedVertex(final VertexDataHolder vertexDataHolder) {
+        if (this.textureBatching) {
+            vertexDataHolder.putVector2i((int) this.textureReference, (int) (this.textureReference >>> 32));
+        }
+        vertexDataHolder.endVertex();
+    }
+
 }
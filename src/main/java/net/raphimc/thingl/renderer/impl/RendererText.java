@@ -37,15 +37,15 @@ public class RendererText extends Renderer {
     }
 
     public void textBuffer(final Matrix4f positionMatrix, final TextBuffer textBuffer, final float x, final float y) {
-        this.textBuffer(positionMatrix, textBuffer.shape(), x, y);
+        this.textBuffer(positionMatrix, textBuffer.shapeCached(), x, y);
     }
 
     public void textBuffer(final Matrix4f positionMatrix, final TextBuffer textBuffer, final float x, final float y, final float z) {
-        this.textBuffer(positionMatrix, textBuffer.shape(), x, y, z);
+        this.textBuffer(positionMatrix, textBuffer.shapeCached(), x, y, z);
     }
 
     public void textBuffer(final Matrix4f positionMatrix, final TextBuffer textBuffer, final float x, final float y, final float z, final int flags) {
-        this.textBuffer(positionMatrix, textBuffer.shape(), x, y, z, flags);
+        this.textBuffer(positionMatrix, textBuffer.shapeCached(), x, y, z, flags);
     }
 
     public void textBuffer(final Matrix4f positionMatrix, final ShapedTextBuffer textBuffer, final float x, final float y) {
@@ -62,15 +62,15 @@ public class RendererText extends Renderer {
     }
 
     public void textRun(final Matrix4f positionMatrix, final TextRun textRun, final float x, final float y) {
-        this.textRun(positionMatrix, textRun.shape(), x, y);
+        this.textRun(positionMatrix, textRun.shapeCached(), x, y);
     }
 
     public void textRun(final Matrix4f positionMatrix, final TextRun textRun, final float x, final float y, final float z) {
-        this.textRun(positionMatrix, textRun.shape(), x, y, z);
+        this.textRun(positionMatrix, textRun.shapeCached(), x, y, z);
     }
 
     public void textRun(final Matrix4f positionMatrix, final TextRun textRun, final float x, final float y, final float z, final int flags) {
-        this.textRun(positionMatrix, textRun.shape(), x, y, z, flags);
+        this.textRun(positionMatrix, textRun.shapeCached(), x, y, z, flags);
     }
 
     public void textRun(final Matrix4f positionMatrix, final ShapedTextRun textRun, final float x, final float y) {
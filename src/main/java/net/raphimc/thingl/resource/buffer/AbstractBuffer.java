@@ -18,6 +18,7 @@
 
 package net.raphimc.thingl.resource.buffer;
 
+import net.raphimc.thingl.ThinGL;
 import net.raphimc.thingl.resource.GLObject;
 import org.lwjgl.opengl.GL11C;
 import org.lwjgl.opengl.GL15C;
@@ -90,6 +91,9 @@ public abstract class AbstractBuffer extends GLObject {
     @Override
     protected void free0() {
         GL15C.glDeleteBuffers(this.getGlId());
+        if (ThinGL.isInitialized()) {
+            ThinGL.glStateManager().onBufferDeleted(this.getGlId());
+        }
     }
 
     @Override
@@ -23,12 +23,16 @@ import net.raphimc.thingl.framebuffer.impl.WindowFramebuffer;
 import net.raphimc.thingl.resource.GLContainerObject;
 import net.raphimc.thingl.resource.renderbuffer.AbstractRenderBuffer;
 import net.raphimc.thingl.resource.texture.AbstractTexture;
+import net.raphimc.thingl.resource.texture.AbstractTexture.PixelFormat;
 import org.lwjgl.opengl.GL11C;
 import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL32C;
 import org.lwjgl.opengl.GL45C;
+import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class Framebuffer extends GLContainerObject {
 
@@ -171,6 +175,43 @@ public class Framebuffer extends GLContainerObject {
         de.florianmichael.thingl.GlCommands.get().glBlitNamedFramebuffer(this.getGlId(), target.getGlId(), 0, 0, this.getWidth(), this.getHeight(), 0, 0, target.getWidth(), target.getHeight(), mask, GL11C.GL_NEAREST); // FlorianMichael - add macOS support
     }
 
+    /**
+     * Reads the pixels of the first color attachment into a pooled pixel pack buffer without waiting for the GPU to finish rendering.
+     *
+     * @param callback The callback which receives the pixels (Bottom row first) on the render thread in a later frame. The pixel buffer is only valid during the callback.
+     */
+    public void readPixelsAsync(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final Consumer<ByteBuffer> callback) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.getWidth() || y + height > this.getHeight()) {
+            throw new IllegalArgumentException("Specified dimensions are out of bounds");
+        }
+
+        if (de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            final ByteBuffer pixelBuffer = MemoryUtil.memAlloc(width * height * pixelFormat.getChannelCount());
+            try {
+                this.readPixels(x, y, width, height, pixelFormat, MemoryUtil.memAddress(pixelBuffer));
+                callback.accept(pixelBuffer);
+            } finally {
+                MemoryUtil.memFree(pixelBuffer);
+            }
+            return;
+        }
+
+        ThinGL.pixelBufferPool().download(width * height * pixelFormat.getChannelCount(), offset -> this.readPixels(x, y, width, height, pixelFormat, offset), callback);
+    }
+
+    private void readPixels(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final long pixels) {
+        ThinGL.glStateStack().pushFramebuffer();
+        this.bind();
+        ThinGL.glStateStack().pushPixelStore();
+        ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_ALIGNMENT, pixelFormat.getAlignment());
+        ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_SKIP_PIXELS, 0);
+        ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_SKIP_ROWS, 0);
+        ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_ROW_LENGTH, 0);
+        GL11C.glReadPixels(x, y, width, height, pixelFormat.getGlFormat(), GL11C.GL_UNSIGNED_BYTE, pixels);
+        ThinGL.glStateStack().popPixelStore();
+        ThinGL.glStateStack().popFramebuffer();
+    }
+
     @Override
     protected void free0() {
         GL30C.glDeleteFramebuffers(this.getGlId());
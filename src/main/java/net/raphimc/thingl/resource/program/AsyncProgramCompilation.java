@@ -0,0 +1,106 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.raphimc.thingl.resource.program;
+
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.shader.Shader;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks programs which were submitted for compilation without waiting for the result.<br>
+ * If KHR_parallel_shader_compile is supported the driver compiles and links them in the background and {@link #isDone()} can be polled without blocking.
+ * Otherwise the driver is free to compile them synchronously and {@link #isDone()} always returns true.
+ */
+public class AsyncProgramCompilation {
+
+    private final List<Shader> shaders = new ArrayList<>();
+    private final List<PendingProgram> programs = new ArrayList<>();
+    private boolean finished;
+
+    @ApiStatus.Internal
+    public AsyncProgramCompilation() {
+    }
+
+    @ApiStatus.Internal
+    public void addShader(final Shader shader) {
+        this.shaders.add(shader);
+    }
+
+    @ApiStatus.Internal
+    public void addProgram(final Program program, final Shader[] shaders, final long startTime) {
+        this.programs.add(new PendingProgram(program, shaders.clone(), startTime));
+    }
+
+    /**
+     * @return Whether all programs have been compiled and linked and {@link #finish()} won't block
+     */
+    public boolean isDone() {
+        return this.finished || this.getCompletedProgramCount() == this.programs.size();
+    }
+
+    public int getProgramCount() {
+        return this.programs.size();
+    }
+
+    public int getCompletedProgramCount() {
+        if (this.finished) {
+            return this.programs.size();
+        }
+
+        int count = 0;
+        for (PendingProgram pendingProgram : this.programs) {
+            if (pendingProgram.program.isLinkComplete()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Waits for all programs to be compiled and linked and checks their results.<br>
+     * Must be called on the render thread before the programs are used.
+     *
+     * @throws IllegalStateException If a shader failed to compile or a program failed to link
+     */
+    public void finish() {
+        ThinGL.get().assertOnRenderThread();
+        if (this.finished) {
+            return;
+        }
+        this.finished = true;
+
+        for (Shader shader : this.shaders) {
+            shader.finishCompile();
+        }
+        final ProgramBinaryCache programBinaryCache = ThinGL.programs().getProgramBinaryCache();
+        for (PendingProgram pendingProgram : this.programs) {
+            pendingProgram.program.finishLink();
+            if (programBinaryCache != null) {
+                programBinaryCache.save(pendingProgram.program, pendingProgram.shaders, System.nanoTime() - pendingProgram.startTime);
+            }
+        }
+    }
+
+    private record PendingProgram(Program program, Shader[] shaders, long startTime) {
+    }
+
+}
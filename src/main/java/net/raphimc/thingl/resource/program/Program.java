@@ -18,6 +18,10 @@
 
 package net.raphimc.thingl.resource.program;
 
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.lenni0451.commons.color.Color;
@@ -32,6 +36,7 @@ import org.joml.Matrix4f;
 import org.lwjgl.opengl.*;
 import org.lwjgl.system.MemoryStack;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -42,19 +47,49 @@ public class Program extends GLContainerObject {
     private final Object2IntMap<String> uniformLocationCache = new Object2IntOpenHashMap<>();
     private final Object2IntMap<String> uniformBlockIndexCache = new Object2IntOpenHashMap<>();
     private final Object2IntMap<String> shaderStorageBlockIndexCache = new Object2IntOpenHashMap<>();
+    private final Int2ObjectMap<int[]> uniformValueCache = new Int2ObjectOpenHashMap<>();
+    private final Int2IntMap uniformBlockBindingCache = new Int2IntOpenHashMap();
+    private final int[] uniformValueScratch = new int[4 * 4];
 
     private int currentTextureUnit;
     private int currentImageUnit;
     private int currentUniformBlockIndex;
     private int currentShaderStorageBufferIndex;
+    private boolean linkPending;
+    private long issuedUniformUpdateCount;
+    private long skippedUniformUpdateCount;
 
     public Program(final Shader... shaders) {
         super(GL20C.glCreateProgram());
+        this.uniformBlockBindingCache.defaultReturnValue(-1);
         try {
+            final ProgramBinaryCache programBinaryCache = getProgramBinaryCache();
+            if (programBinaryCache != null && programBinaryCache.load(this, shaders)) {
+                Collections.addAll(this.shaders, shaders); // Kept for freeing, but never compiled or attached
+                return;
+            }
+
+            final AsyncProgramCompilation asyncCompilation = getAsyncProgramCompilation();
+            final long startTime = System.nanoTime();
             for (Shader shader : shaders) {
+                if (asyncCompilation != null && !shader.isCompiled() && !shader.isCompilePending()) {
+                    shader.compileAsync();
+                    asyncCompilation.addShader(shader);
+                }
                 this.attachShader(shader);
             }
+            if (programBinaryCache != null) {
+                GL41C.glProgramParameteri(this.getGlId(), GL41C.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11C.GL_TRUE);
+            }
+            if (asyncCompilation != null) {
+                this.linkAsync();
+                asyncCompilation.addProgram(this, shaders, startTime);
+                return;
+            }
             this.linkAndValidate();
+            if (programBinaryCache != null) {
+                programBinaryCache.save(this, shaders, System.nanoTime() - startTime);
+            }
         } catch (Throwable e) {
             this.free();
             throw e;
@@ -63,6 +98,7 @@ public class Program extends GLContainerObject {
 
     protected Program(final int glId) {
         super(glId);
+        this.uniformBlockBindingCache.defaultReturnValue(-1);
         this.refreshCachedData();
     }
 
@@ -85,10 +121,49 @@ public class Program extends GLContainerObject {
         this.uniformLocationCache.clear();
         this.uniformBlockIndexCache.clear();
         this.shaderStorageBlockIndexCache.clear();
+        this.uniformValueCache.clear();
+        this.uniformBlockBindingCache.clear();
     }
 
     public void linkAndValidate() {
+        this.linkAsync();
+        this.finishLink();
+    }
+
+    /**
+     * Submits the program for linking without checking the result.<br>
+     * If KHR_parallel_shader_compile is supported the driver may link the program in the background. {@link #finishLink()} has to be called before the program is used.
+     */
+    public void linkAsync() {
         GL20C.glLinkProgram(this.getGlId());
+        this.linkPending = true;
+        this.uniformValueCache.clear(); // Linking resets all uniforms and uniform block bindings to their default values
+        this.uniformBlockBindingCache.clear();
+    }
+
+    /**
+     * @return Whether the pending link has completed and {@link #finishLink()} won't block
+     */
+    public boolean isLinkComplete() {
+        if (!this.linkPending || !ThinGL.capabilities().supportsKHRParallelShaderCompile()) {
+            return true;
+        }
+        return GL20C.glGetProgrami(this.getGlId(), KHRParallelShaderCompile.GL_COMPLETION_STATUS_KHR) == GL11C.GL_TRUE;
+    }
+
+    public boolean isLinkPending() {
+        return this.linkPending;
+    }
+
+    /**
+     * Waits for the pending link to complete, checks its result and validates the program.
+     */
+    public void finishLink() {
+        if (!this.linkPending) {
+            return;
+        }
+        this.linkPending = false;
+
         final String linkLog = GL20C.glGetProgramInfoLog(this.getGlId());
         if (GL20C.glGetProgrami(this.getGlId(), GL20C.GL_LINK_STATUS) == GL11C.GL_FALSE) {
             throw new IllegalStateException("Error linking program: " + linkLog);
@@ -107,31 +182,58 @@ public class Program extends GLContainerObject {
     }
 
     public void setUniformBoolean(final String name, final boolean v) {
-        GL41C.glProgramUniform1i(this.getGlId(), this.getUniformLocation(name), v ? GL11C.GL_TRUE : GL11C.GL_FALSE);
+        this.setUniformInt(name, v ? GL11C.GL_TRUE : GL11C.GL_FALSE);
     }
 
     public void setUniformInt(final String name, final int v) {
-        GL41C.glProgramUniform1i(this.getGlId(), this.getUniformLocation(name), v);
+        final int location = this.getUniformLocation(name);
+        if (this.updateUniformValueCache(location, v)) {
+            GL41C.glProgramUniform1i(this.getGlId(), location, v);
+        }
     }
 
     public void setUniformIntArray(final String name, final int... v) {
-        GL41C.glProgramUniform1iv(this.getGlId(), this.getUniformLocation(name), v);
+        final int location = this.getUniformLocation(name);
+        if (this.updateUniformValueCache(location, v, v.length)) {
+            GL41C.glProgramUniform1iv(this.getGlId(), location, v);
+        }
     }
 
     public void setUniformFloat(final String name, final float v) {
-        GL41C.glProgramUniform1f(this.getGlId(), this.getUniformLocation(name), v);
+        final int location = this.getUniformLocation(name);
+        if (this.updateUniformValueCache(location, Float.floatToRawIntBits(v))) {
+            GL41C.glProgramUniform1f(this.getGlId(), location, v);
+        }
     }
 
     public void setUniformVector2f(final String name, final float v1, final float v2) {
-        GL41C.glProgramUniform2f(this.getGlId(), this.getUniformLocation(name), v1, v2);
+        final int location = this.getUniformLocation(name);
+        this.uniformValueScratch[0] = Float.floatToRawIntBits(v1);
+        this.uniformValueScratch[1] = Float.floatToRawIntBits(v2);
+        if (this.updateUniformValueCache(location, this.uniformValueScratch, 2)) {
+            GL41C.glProgramUniform2f(this.getGlId(), location, v1, v2);
+        }
     }
 
     public void setUniformVector3f(final String name, final float v1, final float v2, final float v3) {
-        GL41C.glProgramUniform3f(this.getGlId(), this.getUniformLocation(name), v1, v2, v3);
+        final int location = this.getUniformLocation(name);
+        this.uniformValueScratch[0] = Float.floatToRawIntBits(v1);
+        this.uniformValueScratch[1] = Float.floatToRawIntBits(v2);
+        this.uniformValueScratch[2] = Float.floatToRawIntBits(v3);
+        if (this.updateUniformValueCache(location, this.uniformValueScratch, 3)) {
+            GL41C.glProgramUniform3f(this.getGlId(), location, v1, v2, v3);
+        }
     }
 
     public void setUniformVector4f(final String name, final float v1, final float v2, final float v3, final float v4) {
-        GL41C.glProgramUniform4f(this.getGlId(), this.getUniformLocation(name), v1, v2, v3, v4);
+        final int location = this.getUniformLocation(name);
+        this.uniformValueScratch[0] = Float.floatToRawIntBits(v1);
+        this.uniformValueScratch[1] = Float.floatToRawIntBits(v2);
+        this.uniformValueScratch[2] = Float.floatToRawIntBits(v3);
+        this.uniformValueScratch[3] = Float.floatToRawIntBits(v4);
+        if (this.updateUniformValueCache(location, this.uniformValueScratch, 4)) {
+            GL41C.glProgramUniform4f(this.getGlId(), location, v1, v2, v3, v4);
+        }
     }
 
     public void setUniformVector4f(final String name, final Color color) {
@@ -139,25 +241,62 @@ public class Program extends GLContainerObject {
     }
 
     public void setUniformMatrix3f(final String name, final Matrix3f matrix) {
+        final int location = this.getUniformLocation(name);
+        final int[] values = this.uniformValueScratch;
+        values[0] = Float.floatToRawIntBits(matrix.m00());
+        values[1] = Float.floatToRawIntBits(matrix.m01());
+        values[2] = Float.floatToRawIntBits(matrix.m02());
+        values[3] = Float.floatToRawIntBits(matrix.m10());
+        values[4] = Float.floatToRawIntBits(matrix.m11());
+        values[5] = Float.floatToRawIntBits(matrix.m12());
+        values[6] = Float.floatToRawIntBits(matrix.m20());
+        values[7] = Float.floatToRawIntBits(matrix.m21());
+        values[8] = Float.floatToRawIntBits(matrix.m22());
+        if (!this.updateUniformValueCache(location, values, 3 * 3)) {
+            return;
+        }
+
         try (MemoryStack memoryStack = MemoryStack.stackPush()) {
             final long address = memoryStack.nmalloc(Float.BYTES * 3 * 3);
             matrix.getToAddress(address);
-            GL41C.nglProgramUniformMatrix3fv(this.getGlId(), this.getUniformLocation(name), 1, false, address);
+            GL41C.nglProgramUniformMatrix3fv(this.getGlId(), location, 1, false, address);
         }
     }
 
     public void setUniformMatrix4f(final String name, final Matrix4f matrix) {
+        final int location = this.getUniformLocation(name);
+        final int[] values = this.uniformValueScratch;
+        values[0] = Float.floatToRawIntBits(matrix.m00());
+        values[1] = Float.floatToRawIntBits(matrix.m01());
+        values[2] = Float.floatToRawIntBits(matrix.m02());
+        values[3] = Float.floatToRawIntBits(matrix.m03());
+        values[4] = Float.floatToRawIntBits(matrix.m10());
+        values[5] = Float.floatToRawIntBits(matrix.m11());
+        values[6] = Float.floatToRawIntBits(matrix.m12());
+        values[7] = Float.floatToRawIntBits(matrix.m13());
+        values[8] = Float.floatToRawIntBits(matrix.m20());
+        values[9] = Float.floatToRawIntBits(matrix.m21());
+        values[10] = Float.floatToRawIntBits(matrix.m22());
+        values[11] = Float.floatToRawIntBits(matrix.m23());
+        values[12] = Float.floatToRawIntBits(matrix.m30());
+        values[13] = Float.floatToRawIntBits(matrix.m31());
+        values[14] = Float.floatToRawIntBits(matrix.m32());
+        values[15] = Float.floatToRawIntBits(matrix.m33());
+        if (!this.updateUniformValueCache(location, values, 4 * 4)) {
+            return;
+        }
+
         // FlorianMichael - add macOS support
         final de.florianmichael.thingl.encoder.AppleCommandEncoder appleCommandEncoder = de.florianmichael.thingl.GlCommands.getAppleOrNull();
         if (appleCommandEncoder != null) {
-            appleCommandEncoder.setUniformMatrix4f(this.getGlId(), this.getUniformLocation(name), matrix);
+            appleCommandEncoder.setUniformMatrix4f(this.getGlId(), location, matrix);
             return;
         }
         // FlorianMichael - add macOS support
         try (MemoryStack memoryStack = MemoryStack.stackPush()) {
             final long address = memoryStack.nmalloc(Float.BYTES * 4 * 4);
             matrix.getToAddress(address);
-            GL41C.nglProgramUniformMatrix4fv(this.getGlId(), this.getUniformLocation(name), 1, false, address);
+            GL41C.nglProgramUniformMatrix4fv(this.getGlId(), location, 1, false, address);
         }
     }
 
@@ -182,12 +321,12 @@ public class Program extends GLContainerObject {
     }
 
     public void setUniformSampler(final String name, final int textureId) {
-        de.florianmichael.thingl.GlCommands.get().glBindTextureUnit(this.currentTextureUnit, textureId); // FlorianMichael - add macOS support
+        ThinGL.glStateManager().bindTextureUnit(this.currentTextureUnit, textureId);
         this.setUniformInt(name, this.currentTextureUnit++);
     }
 
     public void setUniformSamplerArray(final String name, final int... textureIds) {
-        de.florianmichael.thingl.GlCommands.get().glBindTextures(this.currentTextureUnit, textureIds); // FlorianMichael - add macOS support
+        ThinGL.glStateManager().bindTextures(this.currentTextureUnit, textureIds);
         final int[] textureUnits = new int[textureIds.length];
         for (int i = 0; i < textureIds.length; i++) {
             textureUnits[i] = this.currentTextureUnit + i;
@@ -214,24 +353,35 @@ public class Program extends GLContainerObject {
     }
 
     public void setUniformBuffer(final String name, final AbstractBuffer buffer) {
-        GL31C.glUniformBlockBinding(this.getGlId(), this.getUniformBlockIndex(name), this.currentUniformBlockIndex);
+        this.setUniformBlockBinding(name, this.currentUniformBlockIndex);
         if (buffer != null) {
-            GL30C.glBindBufferBase(GL31C.GL_UNIFORM_BUFFER, this.currentUniformBlockIndex++, buffer.getGlId());
+            ThinGL.glStateManager().bindBufferBase(GL31C.GL_UNIFORM_BUFFER, this.currentUniformBlockIndex++, buffer.getGlId());
         } else {
-            GL30C.glBindBufferBase(GL31C.GL_UNIFORM_BUFFER, this.currentUniformBlockIndex++, 0);
+            ThinGL.glStateManager().bindBufferBase(GL31C.GL_UNIFORM_BUFFER, this.currentUniformBlockIndex++, 0);
+        }
+    }
+
+    public void setUniformBlockBinding(final String name, final int binding) {
+        final int blockIndex = this.getUniformBlockIndex(name);
+        if (this.uniformBlockBindingCache.get(blockIndex) != binding) {
+            GL31C.glUniformBlockBinding(this.getGlId(), blockIndex, binding);
+            this.uniformBlockBindingCache.put(blockIndex, binding);
         }
     }
 
     public void setShaderStorageBuffer(final String name, final AbstractBuffer buffer) {
         GL43C.glShaderStorageBlockBinding(this.getGlId(), this.getShaderStorageBlockIndex(name), this.currentShaderStorageBufferIndex);
         if (buffer != null) {
-            GL30C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, this.currentShaderStorageBufferIndex++, buffer.getGlId());
+            ThinGL.glStateManager().bindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, this.currentShaderStorageBufferIndex++, buffer.getGlId());
         } else {
-            GL30C.glBindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, this.currentShaderStorageBufferIndex++, 0);
+            ThinGL.glStateManager().bindBufferBase(GL43C.GL_SHADER_STORAGE_BUFFER, this.currentShaderStorageBufferIndex++, 0);
         }
     }
 
     public void bind() {
+        if (this.linkPending) {
+            this.finishLink();
+        }
         this.currentTextureUnit = 0;
         this.currentImageUnit = 0;
         this.currentUniformBlockIndex = 0;
@@ -285,6 +435,9 @@ public class Program extends GLContainerObject {
     }
 
     public void attachShader(final Shader shader) {
+        if (!shader.isCompiled() && !shader.isCompilePending()) {
+            shader.compile();
+        }
         GL20C.glAttachShader(this.getGlId(), shader.getGlId());
         this.shaders.add(shader);
     }
@@ -294,6 +447,78 @@ public class Program extends GLContainerObject {
         this.shaders.remove(shader);
     }
 
+    /**
+     * Clears the cached uniform values. Has to be called if the uniforms of this program have been modified without using the setUniform methods.
+     */
+    public void invalidateUniformValueCache() {
+        this.uniformValueCache.clear();
+    }
+
+    /**
+     * @return The number of uniform updates which have been sent to the driver
+     */
+    public long getIssuedUniformUpdateCount() {
+        return this.issuedUniformUpdateCount;
+    }
+
+    /**
+     * @return The number of uniform updates which have been skipped, because the uniform already had the same value
+     */
+    public long getSkippedUniformUpdateCount() {
+        return this.skippedUniformUpdateCount;
+    }
+
+    public void resetUniformUpdateCounts() {
+        this.issuedUniformUpdateCount = 0;
+        this.skippedUniformUpdateCount = 0;
+    }
+
+    private boolean updateUniformValueCache(final int location, final int value) {
+        int[] cachedValue = this.uniformValueCache.get(location);
+        if (cachedValue != null && cachedValue.length == 1 && cachedValue[0] == value) {
+            this.skippedUniformUpdateCount++;
+            return false;
+        }
+        if (cachedValue == null || cachedValue.length != 1) {
+            cachedValue = new int[1];
+            this.uniformValueCache.put(location, cachedValue);
+        }
+        cachedValue[0] = value;
+        this.issuedUniformUpdateCount++;
+        return true;
+    }
+
+    private boolean updateUniformValueCache(final int location, final int[] values, final int count) {
+        int[] cachedValue = this.uniformValueCache.get(location);
+        if (cachedValue != null && Arrays.equals(cachedValue, 0, cachedValue.length, values, 0, count)) {
+            this.skippedUniformUpdateCount++;
+            return false;
+        }
+        if (cachedValue == null || cachedValue.length != count) {
+            cachedValue = new int[count];
+            this.uniformValueCache.put(location, cachedValue);
+        }
+        System.arraycopy(values, 0, cachedValue, 0, count);
+        this.issuedUniformUpdateCount++;
+        return true;
+    }
+
+    private static ProgramBinaryCache getProgramBinaryCache() {
+        if (ThinGL.isInitialized() && ThinGL.get().getPrograms() != null) {
+            return ThinGL.programs().getProgramBinaryCache();
+        } else {
+            return null;
+        }
+    }
+
+    private static AsyncProgramCompilation getAsyncProgramCompilation() {
+        if (ThinGL.isInitialized() && ThinGL.get().getPrograms() != null) {
+            return ThinGL.programs().getActiveAsyncCompilation();
+        } else {
+            return null;
+        }
+    }
+
     private int getUniformLocation(final String name) {
         return this.uniformLocationCache.computeIfAbsent(name, this::queryUniformLocation);
     }
@@ -307,7 +532,7 @@ public class Program extends GLContainerObject {
     }
 
     private int queryUniformBlockIndex(final String name) {
-        return GL43C.glGetProgramResourceIndex(this.getGlId(), GL43C.GL_UNIFORM_BLOCK, name);
+        return GL31C.glGetUniformBlockIndex(this.getGlId(), name);
     }
 
     public int getShaderStorageBlockIndex(final String name) {
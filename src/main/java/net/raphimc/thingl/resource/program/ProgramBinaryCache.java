@@ -0,0 +1,209 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.resource.program;
+
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.shader.Shader;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL20C;
+import org.lwjgl.opengl.GL41C;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stores the binaries of linked programs on disk, so that programs don't have to be compiled from source on the next start.<br>
+ * Binaries are keyed by a hash of the shader sources (Including the preprocessor defines) and the GL vendor, renderer and version string.
+ * A binary which is rejected by the driver (For example after a driver update) is deleted and the program is compiled from source again.
+ */
+public class ProgramBinaryCache {
+
+    private static final int MAGIC = 0x42504754; // "TGPB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 3;
+
+    private final Path directory;
+    private final String contextIdentifier;
+    private final boolean supported;
+    private int hitCount;
+    private int missCount;
+    private long loadTime;
+    private long compileTime;
+
+    public ProgramBinaryCache(final Path directory) {
+        this.directory = directory;
+        this.contextIdentifier = GL11C.glGetString(GL11C.GL_VENDOR) + '\0' + GL11C.glGetString(GL11C.GL_RENDERER) + '\0' + GL11C.glGetString(GL11C.GL_VERSION);
+        this.supported = GL11C.glGetInteger(GL41C.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    /**
+     * Tries to load the cached binary of a program.
+     *
+     * @param program The freshly created program
+     * @param shaders The shaders of the program
+     * @return Whether the program was loaded from the cache and is linked
+     */
+    public boolean load(final Program program, final Shader... shaders) {
+        final Path file = this.getFile(shaders);
+        if (!Files.isRegularFile(file)) {
+            this.missCount++;
+            return false;
+        }
+
+        final long startTime = System.nanoTime();
+        ByteBuffer data = null;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (fileChannel.size() < HEADER_SIZE || fileChannel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid file size");
+            }
+            data = MemoryUtil.memAlloc((int) fileChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (data.hasRemaining()) {
+                if (fileChannel.read(data) == -1) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            data.flip();
+            if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+                throw new IOException("Invalid header");
+            }
+            final int binaryFormat = data.getInt();
+            GL41C.glProgramBinary(program.getGlId(), binaryFormat, data);
+            if (GL20C.glGetProgrami(program.getGlId(), GL20C.GL_LINK_STATUS) == GL11C.GL_FALSE) {
+                throw new IOException("Program binary was rejected by the driver");
+            }
+            this.hitCount++;
+            this.loadTime += System.nanoTime() - startTime;
+            return true;
+        } catch (IOException e) {
+            ThinGL.LOGGER.warn("Failed to load cached program binary " + file.getFileName() + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            this.missCount++;
+            return false;
+        } finally {
+            if (data != null) {
+                MemoryUtil.memFree(data);
+            }
+        }
+    }
+
+    /**
+     * Stores the binary of a program which was compiled from source.
+     *
+     * @param program The linked program
+     * @param shaders The shaders of the program
+     * @param compileTime The time it took to compile and link the program in nanoseconds
+     */
+    public void save(final Program program, final Shader[] shaders, final long compileTime) {
+        this.compileTime += compileTime;
+        final int binaryLength = GL20C.glGetProgrami(program.getGlId(), GL41C.GL_PROGRAM_BINARY_LENGTH);
+        if (binaryLength <= 0) {
+            return;
+        }
+
+        final ByteBuffer data = MemoryUtil.memAlloc(HEADER_SIZE + binaryLength).order(ByteOrder.LITTLE_ENDIAN);
+        try (MemoryStack memoryStack = MemoryStack.stackPush()) {
+            final IntBuffer length = memoryStack.mallocInt(1);
+            final IntBuffer binaryFormat = memoryStack.mallocInt(1);
+            GL41C.glGetProgramBinary(program.getGlId(), length, binaryFormat, data.position(HEADER_SIZE));
+            data.position(0).limit(HEADER_SIZE + length.get(0));
+            data.putInt(MAGIC).putInt(VERSION).putInt(binaryFormat.get(0)).position(0);
+
+            Files.createDirectories(this.directory);
+            final Path file = this.getFile(shaders);
+            final Path tempFile = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel fileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    fileChannel.write(data);
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            ThinGL.LOGGER.warn("Failed to save program binary", e);
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public boolean isSupported() {
+        return this.supported;
+    }
+
+    public int getHitCount() {
+        return this.hitCount;
+    }
+
+    public int getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * @return The total time spent loading cached program binaries in nanoseconds
+     */
+    public long getLoadTime() {
+        return this.loadTime;
+    }
+
+    /**
+     * @return The total time spent compiling and linking programs from source in nanoseconds
+     */
+    public long getCompileTime() {
+        return this.compileTime;
+    }
+
+    public String getStatisticsString() {
+        return "Program binary cache: " + this.hitCount + " hits (" + String.format("%.2f", this.loadTime / 1_000_000D) + " ms), " + this.missCount + " misses (" + String.format("%.2f", this.compileTime / 1_000_000D) + " ms compiling)";
+    }
+
+    private Path getFile(final Shader[] shaders) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(this.contextIdentifier.getBytes(StandardCharsets.UTF_8));
+            for (Shader shader : shaders) {
+                messageDigest.update((byte) 0);
+                messageDigest.update(Integer.toString(shader.getType()).getBytes(StandardCharsets.UTF_8));
+                messageDigest.update((byte) 0);
+                messageDigest.update(shader.getSource().getBytes(StandardCharsets.UTF_8));
+            }
+            return this.directory.resolve(HexFormat.of().formatHex(messageDigest.digest()) + ".bin");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -26,13 +26,26 @@ public class Shader extends GLObject {
 
     private final int type;
     private String source;
+    private boolean compiled;
+    private boolean compilePending;
 
     public Shader(final Type type, final String source) {
+        this(type, source, true);
+    }
+
+    /**
+     * @param type The shader type
+     * @param source The shader source
+     * @param compile Whether to compile the shader immediately. Otherwise it gets compiled when it is attached to a program.
+     */
+    public Shader(final Type type, final String source, final boolean compile) {
         super(GL20C.glCreateShader(type.getGlType()));
         this.type = type.getGlType();
         try {
             this.setSource(source);
-            this.compile();
+            if (compile) {
+                this.compile();
+            }
         } catch (Throwable e) {
             this.free();
             throw e;
@@ -55,16 +68,50 @@ public class Shader extends GLObject {
     @Override
     public void refreshCachedData() {
         this.source = GL20C.glGetShaderSource(this.getGlId());
+        this.compiled = GL20C.glGetShaderi(this.getGlId(), GL20C.GL_COMPILE_STATUS) == GL11C.GL_TRUE;
     }
 
     public void compile() {
+        this.compileAsync();
+        this.finishCompile();
+    }
+
+    /**
+     * Submits the shader for compilation without checking the result.<br>
+     * If KHR_parallel_shader_compile is supported the driver may compile the shader in the background. {@link #finishCompile()} has to be called before the shader is used.
+     */
+    public void compileAsync() {
         GL20C.glCompileShader(this.getGlId());
+        this.compiled = false;
+        this.compilePending = true;
+    }
+
+    /**
+     * @return Whether the pending compilation has completed and {@link #finishCompile()} won't block
+     */
+    public boolean isCompileComplete() {
+        if (!this.compilePending || !ThinGL.capabilities().supportsKHRParallelShaderCompile()) {
+            return true;
+        }
+        return GL20C.glGetShaderi(this.getGlId(), KHRParallelShaderCompile.GL_COMPLETION_STATUS_KHR) == GL11C.GL_TRUE;
+    }
+
+    /**
+     * Waits for the pending compilation to complete and checks its result.
+     */
+    public void finishCompile() {
+        if (!this.compilePending) {
+            return;
+        }
+        this.compilePending = false;
+
         final String compileLog = GL20C.glGetShaderInfoLog(this.getGlId());
         if (GL20C.glGetShaderi(this.getGlId(), GL20C.GL_COMPILE_STATUS) == GL11C.GL_FALSE) {
             throw new IllegalStateException("Error compiling shader: " + compileLog);
         } else if (!compileLog.isBlank()) {
             ThinGL.LOGGER.warn("Shader compileLog: " + compileLog);
         }
+        this.compiled = true;
     }
 
     @Override
@@ -91,9 +138,19 @@ public class Shader extends GLObject {
 
     public void setSource(final String source) {
         this.source = source;
+        this.compiled = false;
+        this.compilePending = false;
         GL20C.glShaderSource(this.getGlId(), source);
     }
 
+    public boolean isCompiled() {
+        return this.compiled;
+    }
+
+    public boolean isCompilePending() {
+        return this.compilePending;
+    }
+
     public enum Type {
 
         VERTEX(GL20C.GL_VERTEX_SHADER, "Vertex Shader", "vert"),
@@ -19,6 +19,7 @@
 package net.raphimc.thingl.resource.texture;
 
 import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.renderer.TextureBatcher;
 import net.raphimc.thingl.resource.GLObject;
 import net.raphimc.thingl.resource.framebuffer.FramebufferAttachment;
 import org.lwjgl.opengl.*;
@@ -64,6 +65,16 @@ public abstract class AbstractTexture extends GLObject implements FramebufferAtt
     @Override
     protected void free0() {
         de.florianmichael.thingl.GlCommands.get().glDeleteTextures(this.getGlId()); // FlorianMichael - add macOS support
+        if (ThinGL.isInitialized()) {
+            ThinGL.glStateManager().onTextureDeleted(this.getGlId());
+        }
+        TextureBatcher.onTextureDeleted(this.getGlId());
+    }
+
+    protected void ensureSamplingParametersMutable() {
+        if (TextureBatcher.hasTextureHandle(this.getGlId())) {
+            throw new IllegalStateException("Sampling parameters of a texture cannot be changed after it has been used with texture batching");
+        }
     }
 
     @Override
@@ -135,6 +146,25 @@ public abstract class AbstractTexture extends GLObject implements FramebufferAtt
         DEPTH32F_STENCIL8(GL30C.GL_DEPTH32F_STENCIL8, "32-Bit Depth (Float), 8-Bit Stencil", 5),
         DEPTH24_STENCIL8(GL30C.GL_DEPTH24_STENCIL8, "24-Bit Depth, 8-Bit Stencil", 4),
         RGBA_UNSIZED(GL11C.GL_RGBA, "RGBA", 4),
+        BC1_RGB(EXTTextureCompressionS3TC.GL_COMPRESSED_RGB_S3TC_DXT1_EXT, "BC1 RGB (DXT1)", 3, Compression.S3TC, 4, 4, 8),
+        BC1_RGBA(EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT, "BC1 RGBA (DXT1)", 4, Compression.S3TC, 4, 4, 8),
+        BC2(EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT3_EXT, "BC2 (DXT3)", 4, Compression.S3TC, 4, 4, 16),
+        BC3(EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT, "BC3 (DXT5)", 4, Compression.S3TC, 4, 4, 16),
+        BC4(GL30C.GL_COMPRESSED_RED_RGTC1, "BC4 (RGTC1)", 1, Compression.RGTC, 4, 4, 8),
+        BC5(GL30C.GL_COMPRESSED_RG_RGTC2, "BC5 (RGTC2)", 2, Compression.RGTC, 4, 4, 16),
+        BC6H(GL42C.GL_COMPRESSED_RGB_BPTC_UNSIGNED_FLOAT, "BC6H (BPTC Unsigned Float)", 3, Compression.BPTC, 4, 4, 16),
+        BC7(GL42C.GL_COMPRESSED_RGBA_BPTC_UNORM, "BC7 (BPTC)", 4, Compression.BPTC, 4, 4, 16),
+        ETC2_RGB8(GL43C.GL_COMPRESSED_RGB8_ETC2, "ETC2 RGB8", 3, Compression.ETC2, 4, 4, 8),
+        ETC2_RGB8_A1(GL43C.GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2, "ETC2 RGB8 Punchthrough Alpha", 4, Compression.ETC2, 4, 4, 8),
+        ETC2_RGBA8(GL43C.GL_COMPRESSED_RGBA8_ETC2_EAC, "ETC2 RGBA8", 4, Compression.ETC2, 4, 4, 16),
+        EAC_R11(GL43C.GL_COMPRESSED_R11_EAC, "EAC R11", 1, Compression.ETC2, 4, 4, 8),
+        EAC_RG11(GL43C.GL_COMPRESSED_RG11_EAC, "EAC RG11", 2, Compression.ETC2, 4, 4, 16),
+        ASTC_4x4(KHRTextureCompressionASTCLDR.GL_COMPRESSED_RGBA_ASTC_4x4_KHR, "ASTC 4x4", 4, Compression.ASTC, 4, 4, 16),
+        ASTC_5x5(KHRTextureCompressionASTCLDR.GL_COMPRESSED_RGBA_ASTC_5x5_KHR, "ASTC 5x5", 4, Compression.ASTC, 5, 5, 16),
+        ASTC_6x6(KHRTextureCompressionASTCLDR.GL_COMPRESSED_RGBA_ASTC_6x6_KHR, "ASTC 6x6", 4, Compression.ASTC, 6, 6, 16),
+        ASTC_8x8(KHRTextureCompressionASTCLDR.GL_COMPRESSED_RGBA_ASTC_8x8_KHR, "ASTC 8x8", 4, Compression.ASTC, 8, 8, 16),
+        ASTC_10x10(KHRTextureCompressionASTCLDR.GL_COMPRESSED_RGBA_ASTC_10x10_KHR, "ASTC 10x10", 4, Compression.ASTC, 10, 10, 16),
+        ASTC_12x12(KHRTextureCompressionASTCLDR.GL_COMPRESSED_RGBA_ASTC_12x12_KHR, "ASTC 12x12", 4, Compression.ASTC, 12, 12, 16),
         ;
 
         public static InternalFormat fromGlFormat(final int glFormat) {
@@ -150,11 +180,23 @@ public abstract class AbstractTexture extends GLObject implements FramebufferAtt
         private final int glFormat;
         private final String displayName;
         private final int channelCount;
+        private final Compression compression;
+        private final int blockWidth;
+        private final int blockHeight;
+        private final int blockSize;
 
         InternalFormat(final int glFormat, final String displayName, final int channelCount) {
+            this(glFormat, displayName, channelCount, null, 1, 1, 0);
+        }
+
+        InternalFormat(final int glFormat, final String displayName, final int channelCount, final Compression compression, final int blockWidth, final int blockHeight, final int blockSize) {
             this.glFormat = glFormat;
             this.displayName = displayName;
             this.channelCount = channelCount;
+            this.compression = compression;
+            this.blockWidth = blockWidth;
+            this.blockHeight = blockHeight;
+            this.blockSize = blockSize;
         }
 
         public int getGlFormat() {
@@ -169,6 +211,52 @@ public abstract class AbstractTexture extends GLObject implements FramebufferAtt
             return this.channelCount;
         }
 
+        public boolean isCompressed() {
+            return this.compression != null;
+        }
+
+        /**
+         * @return The compression family of the format or null if the format is uncompressed
+         */
+        public Compression getCompression() {
+            return this.compression;
+        }
+
+        public int getBlockWidth() {
+            return this.blockWidth;
+        }
+
+        public int getBlockHeight() {
+            return this.blockHeight;
+        }
+
+        /**
+         * @return The size of a compressed block in bytes
+         */
+        public int getBlockSize() {
+            return this.blockSize;
+        }
+
+        /**
+         * @return The size of a compressed image with the given dimensions in bytes
+         */
+        public int getCompressedSize(final int width, final int height) {
+            if (!this.isCompressed()) {
+                throw new IllegalStateException("Format is not compressed");
+            }
+            return ((width + this.blockWidth - 1) / this.blockWidth) * ((height + this.blockHeight - 1) / this.blockHeight) * this.blockSize;
+        }
+
+        public enum Compression {
+
+            S3TC,
+            RGTC,
+            BPTC,
+            ETC2,
+            ASTC,
+
+        }
+
     }
 
     public enum PixelFormat {
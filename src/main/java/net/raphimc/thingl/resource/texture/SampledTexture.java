@@ -53,6 +53,7 @@ public abstract class SampledTexture extends AbstractTexture {
     }
 
     public void setMinificationFilter(final int minificationFilter) {
+        this.ensureSamplingParametersMutable();
         this.minificationFilter = minificationFilter;
         de.florianmichael.thingl.GlCommands.get().glTextureParameteri(this.getGlId(), GL11C.GL_TEXTURE_MIN_FILTER, minificationFilter); // FlorianMichael - add macOS support
     }
@@ -62,6 +63,7 @@ public abstract class SampledTexture extends AbstractTexture {
     }
 
     public void setMagnificationFilter(final int magnificationFilter) {
+        this.ensureSamplingParametersMutable();
         this.magnificationFilter = magnificationFilter;
         de.florianmichael.thingl.GlCommands.get().glTextureParameteri(this.getGlId(), GL11C.GL_TEXTURE_MAG_FILTER, magnificationFilter); // FlorianMichael - add macOS support
     }
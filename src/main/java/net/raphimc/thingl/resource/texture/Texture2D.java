@@ -31,6 +31,8 @@ import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class Texture2D extends SampledTexture {
 
@@ -162,7 +164,14 @@ public class Texture2D extends SampledTexture {
     }
 
     public void uploadPixels(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final ByteBuffer pixelBuffer) {
-        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+        this.uploadMipMapPixels(0, x, y, width, height, pixelFormat, pixelBuffer);
+    }
+
+    public void uploadMipMapPixels(final int level, final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final ByteBuffer pixelBuffer) {
+        if (level < 0 || level >= this.getMipMapLevels()) {
+            throw new IllegalArgumentException("Specified mip map level is out of bounds");
+        }
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.getWidth(level) || y + height > this.getHeight(level)) {
             throw new IllegalArgumentException("Specified dimensions are out of bounds");
         }
         if (pixelBuffer.remaining() != width * height * pixelFormat.getChannelCount()) {
@@ -174,25 +183,112 @@ public class Texture2D extends SampledTexture {
         ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_SKIP_PIXELS, 0);
         ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_SKIP_ROWS, 0);
         ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_ROW_LENGTH, 0);
-        de.florianmichael.thingl.GlCommands.get().glTextureSubImage2D(this.getGlId(), 0, x, y, width, height, pixelFormat.getGlFormat(), GL11C.GL_UNSIGNED_BYTE, pixelBuffer); // FlorianMichael - add macOS support
+        de.florianmichael.thingl.GlCommands.get().glTextureSubImage2D(this.getGlId(), level, x, y, width, height, pixelFormat.getGlFormat(), GL11C.GL_UNSIGNED_BYTE, pixelBuffer); // FlorianMichael - add macOS support
         ThinGL.glStateStack().popPixelStore();
     }
 
+    /**
+     * Uploads already compressed blocks. The texture has to use a compressed internal format.
+     *
+     * @param level The mip map level
+     * @param x The x offset. Has to be a multiple of the block width.
+     * @param y The y offset. Has to be a multiple of the block height.
+     * @param width The width of the region in pixels
+     * @param height The height of the region in pixels
+     * @param blockBuffer The compressed blocks
+     */
+    public void uploadCompressedPixels(final int level, final int x, final int y, final int width, final int height, final ByteBuffer blockBuffer) {
+        final InternalFormat internalFormat = this.getInternalFormatEnum();
+        if (!internalFormat.isCompressed()) {
+            throw new IllegalStateException("Texture does not use a compressed internal format");
+        }
+        if (level < 0 || level >= this.getMipMapLevels()) {
+            throw new IllegalArgumentException("Specified mip map level is out of bounds");
+        }
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.getWidth(level) || y + height > this.getHeight(level)) {
+            throw new IllegalArgumentException("Specified dimensions are out of bounds");
+        }
+        if (x % internalFormat.getBlockWidth() != 0 || y % internalFormat.getBlockHeight() != 0) {
+            throw new IllegalArgumentException("Specified offset is not aligned to the block size");
+        }
+        if (blockBuffer.remaining() != internalFormat.getCompressedSize(width, height)) {
+            throw new IllegalArgumentException("Block buffer size does not match the specified dimensions");
+        }
+        if (de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            throw new UnsupportedOperationException("Compressed texture uploads are not supported on macOS"); // FlorianMichael - add macOS support
+        } // FlorianMichael - add macOS support
+
+        GL45C.glCompressedTextureSubImage2D(this.getGlId(), level, x, y, width, height, internalFormat.getGlFormat(), blockBuffer);
+    }
+
+    /**
+     * Decodes the image and uploads it through a pooled pixel unpack buffer without waiting for the driver to transfer the pixels.
+     *
+     * @return A future which is completed once the GPU has finished the upload
+     * @see #uploadPixelsAsync(int, int, int, int, PixelFormat, ByteBuffer)
+     */
+    public CompletableFuture<Void> uploadImageAsync(final int x, final int y, final PixelFormat pixelFormat, final ByteBuffer imageBuffer) {
+        final int[] imgWidth = new int[1];
+        final int[] imgHeight = new int[1];
+        final ByteBuffer pixelBuffer = STBImage.stbi_load_from_memory(imageBuffer, imgWidth, imgHeight, new int[1], pixelFormat.getChannelCount());
+        if (pixelBuffer == null) {
+            throw new IllegalArgumentException("Failed to read image: " + STBImage.stbi_failure_reason());
+        }
+        try {
+            return this.uploadPixelsAsync(x, y, imgWidth[0], imgHeight[0], pixelFormat, pixelBuffer);
+        } finally {
+            STBImage.stbi_image_free(pixelBuffer);
+        }
+    }
+
+    /**
+     * Copies the pixels into a pooled pixel unpack buffer and issues the upload from there.<br>
+     * Unlike {@link #uploadPixels(int, int, int, int, PixelFormat, ByteBuffer)} this doesn't block until the driver has copied the pixels. The pixel buffer can be freed once this method returns.
+     *
+     * @return A future which is completed once the GPU has finished the upload
+     */
+    public CompletableFuture<Void> uploadPixelsAsync(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final ByteBuffer pixelBuffer) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Specified dimensions are out of bounds");
+        }
+        if (pixelBuffer.remaining() != width * height * pixelFormat.getChannelCount()) {
+            throw new IllegalArgumentException("Pixel buffer size does not match the specified dimensions");
+        }
+        if (de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            this.uploadPixels(x, y, width, height, pixelFormat, pixelBuffer);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return ThinGL.pixelBufferPool().upload(pixelBuffer, offset -> {
+            ThinGL.glStateStack().pushPixelStore();
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_ALIGNMENT, pixelFormat.getAlignment());
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_SKIP_PIXELS, 0);
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_SKIP_ROWS, 0);
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_ROW_LENGTH, 0);
+            GL45C.glTextureSubImage2D(this.getGlId(), 0, x, y, width, height, pixelFormat.getGlFormat(), GL11C.GL_UNSIGNED_BYTE, offset);
+            ThinGL.glStateStack().popPixelStore();
+        });
+    }
+
     public byte[] downloadPngImageData(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat) {
         final ByteBuffer pixelBuffer = this.downloadPixelBuffer(x, y, width, height, pixelFormat);
-
-        final BufferedSTBWriteCallback writeCallback = new BufferedSTBWriteCallback();
         try {
-            if (!STBImageWrite.stbi_write_png_to_func(writeCallback, 0, width, height, pixelFormat.getChannelCount(), pixelBuffer, 0)) {
-                throw new RuntimeException("Failed to write image: " + STBImage.stbi_failure_reason());
-            }
-            return writeCallback.getImageData();
+            return encodePngImageData(width, height, pixelFormat, pixelBuffer);
         } finally {
-            writeCallback.free();
             BufferUtil.memFree(pixelBuffer);
         }
     }
 
+    /**
+     * Downloads the pixels without waiting for the GPU and encodes them as PNG image once they are available.
+     *
+     * @param callback The callback which receives the PNG image data on the render thread in a later frame
+     * @see #downloadPixelBufferAsync(int, int, int, int, PixelFormat, Consumer)
+     */
+    public void downloadPngImageDataAsync(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final Consumer<byte[]> callback) {
+        this.downloadPixelBufferAsync(x, y, width, height, pixelFormat, pixelBuffer -> callback.accept(encodePngImageData(width, height, pixelFormat, pixelBuffer)));
+    }
+
     public byte[] downloadPixelData(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat) {
         final ByteBuffer pixelBuffer = this.downloadPixelBuffer(x, y, width, height, pixelFormat);
         try {
@@ -204,6 +300,38 @@ public class Texture2D extends SampledTexture {
         }
     }
 
+    /**
+     * Downloads the pixels into a pooled pixel pack buffer without waiting for the GPU to finish rendering into the texture.<br>
+     * Unlike {@link #downloadPixelBuffer(int, int, int, int, PixelFormat)} this doesn't stall the pipeline.
+     *
+     * @param callback The callback which receives the pixels on the render thread in a later frame. The pixel buffer is only valid during the callback.
+     */
+    public void downloadPixelBufferAsync(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat, final Consumer<ByteBuffer> callback) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Specified dimensions are out of bounds");
+        }
+        if (de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            final ByteBuffer pixelBuffer = this.downloadPixelBuffer(x, y, width, height, pixelFormat);
+            try {
+                callback.accept(pixelBuffer);
+            } finally {
+                BufferUtil.memFree(pixelBuffer);
+            }
+            return;
+        }
+
+        final int size = width * height * pixelFormat.getChannelCount();
+        ThinGL.pixelBufferPool().download(size, offset -> {
+            ThinGL.glStateStack().pushPixelStore();
+            ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_ALIGNMENT, pixelFormat.getAlignment());
+            ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_SKIP_PIXELS, 0);
+            ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_SKIP_ROWS, 0);
+            ThinGL.glStateStack().pixelStore(GL11C.GL_PACK_ROW_LENGTH, 0);
+            GL45C.glGetTextureSubImage(this.getGlId(), 0, x, y, 0, width, height, 1, pixelFormat.getGlFormat(), GL11C.GL_UNSIGNED_BYTE, size, offset);
+            ThinGL.glStateStack().popPixelStore();
+        }, callback);
+    }
+
     public ByteBuffer downloadPixelBuffer(final int x, final int y, final int width, final int height, final PixelFormat pixelFormat) {
         if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
             throw new IllegalArgumentException("Specified dimensions are out of bounds");
@@ -220,19 +348,40 @@ public class Texture2D extends SampledTexture {
         return pixelBuffer;
     }
 
+    public static byte[] encodePngImageData(final int width, final int height, final PixelFormat pixelFormat, final ByteBuffer pixelBuffer) {
+        final BufferedSTBWriteCallback writeCallback = new BufferedSTBWriteCallback();
+        try {
+            if (!STBImageWrite.stbi_write_png_to_func(writeCallback, 0, width, height, pixelFormat.getChannelCount(), pixelBuffer, 0)) {
+                throw new RuntimeException("Failed to write image: " + STBImage.stbi_failure_reason());
+            }
+            return writeCallback.getImageData();
+        } finally {
+            writeCallback.free();
+        }
+    }
+
     public int getWidth() {
         return this.width;
     }
 
+    public int getWidth(final int level) {
+        return Math.max(1, this.width >> level);
+    }
+
     public int getHeight() {
         return this.height;
     }
 
+    public int getHeight(final int level) {
+        return Math.max(1, this.height >> level);
+    }
+
     public int getWrapS() {
         return this.wrapS;
     }
 
     public void setWrapS(final int wrapS) {
+        this.ensureSamplingParametersMutable();
         this.wrapS = wrapS;
         de.florianmichael.thingl.GlCommands.get().glTextureParameteri(this.getGlId(), GL11C.GL_TEXTURE_WRAP_S, wrapS); // FlorianMichael - add macOS support
     }
@@ -242,6 +391,7 @@ public class Texture2D extends SampledTexture {
     }
 
     public void setWrapT(final int wrapT) {
+        this.ensureSamplingParametersMutable();
         this.wrapT = wrapT;
         de.florianmichael.thingl.GlCommands.get().glTextureParameteri(this.getGlId(), GL11C.GL_TEXTURE_WRAP_T, wrapT); // FlorianMichael - add macOS support
     }
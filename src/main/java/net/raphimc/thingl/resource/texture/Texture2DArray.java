@@ -27,6 +27,7 @@ import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.concurrent.CompletableFuture;
 
 public class Texture2DArray extends SampledTexture {
 
@@ -128,6 +129,79 @@ public class Texture2DArray extends SampledTexture {
         ThinGL.glStateStack().popPixelStore();
     }
 
+    /**
+     * Uploads already compressed blocks into a layer. The texture has to use a compressed internal format.
+     *
+     * @see Texture2D#uploadCompressedPixels(int, int, int, int, int, ByteBuffer)
+     */
+    public void uploadCompressedPixels(final int level, final int x, final int y, final int layer, final int width, final int height, final ByteBuffer blockBuffer) {
+        final InternalFormat internalFormat = this.getInternalFormatEnum();
+        if (!internalFormat.isCompressed()) {
+            throw new IllegalStateException("Texture does not use a compressed internal format");
+        }
+        if (level < 0 || level >= this.getMipMapLevels()) {
+            throw new IllegalArgumentException("Specified mip map level is out of bounds");
+        }
+        final int levelWidth = Math.max(1, this.width >> level);
+        final int levelHeight = Math.max(1, this.height >> level);
+        if (x < 0 || y < 0 || layer < 0 || width < 0 || height < 0 || x + width > levelWidth || y + height > levelHeight || layer >= this.layers) {
+            throw new IllegalArgumentException("Specified dimensions are out of bounds");
+        }
+        if (x % internalFormat.getBlockWidth() != 0 || y % internalFormat.getBlockHeight() != 0) {
+            throw new IllegalArgumentException("Specified offset is not aligned to the block size");
+        }
+        if (blockBuffer.remaining() != internalFormat.getCompressedSize(width, height)) {
+            throw new IllegalArgumentException("Block buffer size does not match the specified dimensions");
+        }
+
+        GL45C.glCompressedTextureSubImage3D(this.getGlId(), level, x, y, layer, width, height, 1, internalFormat.getGlFormat(), blockBuffer);
+    }
+
+    /**
+     * Decodes the image and uploads it through a pooled pixel unpack buffer without waiting for the driver to transfer the pixels.
+     *
+     * @return A future which is completed once the GPU has finished the upload
+     * @see #uploadPixelsAsync(int, int, int, int, int, PixelFormat, ByteBuffer)
+     */
+    public CompletableFuture<Void> uploadImageAsync(final int x, final int y, final int layer, final PixelFormat pixelFormat, final ByteBuffer imageBuffer) {
+        final int[] imgWidth = new int[1];
+        final int[] imgHeight = new int[1];
+        final ByteBuffer pixelBuffer = STBImage.stbi_load_from_memory(imageBuffer, imgWidth, imgHeight, new int[1], pixelFormat.getChannelCount());
+        if (pixelBuffer == null) {
+            throw new IllegalArgumentException("Failed to read image: " + STBImage.stbi_failure_reason());
+        }
+        try {
+            return this.uploadPixelsAsync(x, y, layer, imgWidth[0], imgHeight[0], pixelFormat, pixelBuffer);
+        } finally {
+            STBImage.stbi_image_free(pixelBuffer);
+        }
+    }
+
+    /**
+     * Copies the pixels into a pooled pixel unpack buffer and issues the upload from there.<br>
+     * Unlike {@link #uploadPixels(int, int, int, int, int, PixelFormat, ByteBuffer)} this doesn't block until the driver has copied the pixels. The pixel buffer can be freed once this method returns.
+     *
+     * @return A future which is completed once the GPU has finished the upload
+     */
+    public CompletableFuture<Void> uploadPixelsAsync(final int x, final int y, final int layer, final int width, final int height, final PixelFormat pixelFormat, final ByteBuffer pixelBuffer) {
+        if (x < 0 || y < 0 || layer < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height || layer >= this.layers) {
+            throw new IllegalArgumentException("Specified dimensions are out of bounds");
+        }
+        if (pixelBuffer.remaining() != width * height * pixelFormat.getChannelCount()) {
+            throw new IllegalArgumentException("Pixel buffer size does not match the specified dimensions");
+        }
+
+        return ThinGL.pixelBufferPool().upload(pixelBuffer, offset -> {
+            ThinGL.glStateStack().pushPixelStore();
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_ALIGNMENT, pixelFormat.getAlignment());
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_SKIP_PIXELS, 0);
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_SKIP_ROWS, 0);
+            ThinGL.glStateStack().pixelStore(GL11C.GL_UNPACK_ROW_LENGTH, 0);
+            GL45C.glTextureSubImage3D(this.getGlId(), 0, x, y, layer, width, height, 1, pixelFormat.getGlFormat(), GL11C.GL_UNSIGNED_BYTE, offset);
+            ThinGL.glStateStack().popPixelStore();
+        });
+    }
+
     public int getWidth() {
         return this.width;
     }
@@ -145,6 +219,7 @@ public class Texture2DArray extends SampledTexture {
     }
 
     public void setWrapS(final int wrapS) {
+        this.ensureSamplingParametersMutable();
         this.wrapS = wrapS;
         GL45C.glTextureParameteri(this.getGlId(), GL11C.GL_TEXTURE_WRAP_S, wrapS);
     }
@@ -154,6 +229,7 @@ public class Texture2DArray extends SampledTexture {
     }
 
     public void setWrapT(final int wrapT) {
+        this.ensureSamplingParametersMutable();
         this.wrapT = wrapT;
         GL45C.glTextureParameteri(this.getGlId(), GL11C.GL_TEXTURE_WRAP_T, wrapT);
     }
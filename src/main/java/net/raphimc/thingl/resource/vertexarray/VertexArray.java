@@ -113,14 +113,14 @@ public class VertexArray extends GLContainerObject {
 
     public void drawArraysIndirect(final DrawMode drawMode, final AbstractBuffer indirectCommandBuffer, final long offset, final int count) {
         this.bind();
-        final int prevIndirectCommandBuffer = GL11C.glGetInteger(GL40C.GL_DRAW_INDIRECT_BUFFER_BINDING);
-        GL15C.glBindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, indirectCommandBuffer.getGlId());
+        final int prevIndirectCommandBuffer = ThinGL.glStateManager().getBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, indirectCommandBuffer.getGlId());
         if (count == 1) {
             GL40C.glDrawArraysIndirect(drawMode.getGlMode(), offset);
         } else {
             GL43C.glMultiDrawArraysIndirect(drawMode.getGlMode(), offset, count, 0);
         }
-        GL15C.glBindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, prevIndirectCommandBuffer);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, prevIndirectCommandBuffer);
         this.unbind();
     }
 
@@ -138,14 +138,38 @@ public class VertexArray extends GLContainerObject {
 
     public void drawElementsIndirect(final DrawMode drawMode, final AbstractBuffer indirectCommandBuffer, final long offset, final int count) {
         this.bind();
-        final int prevIndirectCommandBuffer = GL11C.glGetInteger(GL40C.GL_DRAW_INDIRECT_BUFFER_BINDING);
-        GL15C.glBindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, indirectCommandBuffer.getGlId());
+        final int prevIndirectCommandBuffer = ThinGL.glStateManager().getBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, indirectCommandBuffer.getGlId());
         if (count == 1) {
             GL40C.glDrawElementsIndirect(drawMode.getGlMode(), this.indexType, offset);
         } else {
             GL43C.glMultiDrawElementsIndirect(drawMode.getGlMode(), this.indexType, offset, count, 0);
         }
-        GL15C.glBindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, prevIndirectCommandBuffer);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, prevIndirectCommandBuffer);
+        this.unbind();
+    }
+
+    public void drawArraysIndirectCount(final DrawMode drawMode, final AbstractBuffer indirectCommandBuffer, final long offset, final AbstractBuffer parameterBuffer, final long parameterOffset, final int maxCount) {
+        this.bind();
+        final int prevIndirectCommandBuffer = ThinGL.glStateManager().getBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER);
+        final int prevParameterBuffer = ThinGL.glStateManager().getBuffer(ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, indirectCommandBuffer.getGlId());
+        ThinGL.glStateManager().bindBuffer(ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB, parameterBuffer.getGlId());
+        ARBIndirectParameters.glMultiDrawArraysIndirectCountARB(drawMode.getGlMode(), offset, parameterOffset, maxCount, 0);
+        ThinGL.glStateManager().bindBuffer(ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB, prevParameterBuffer);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, prevIndirectCommandBuffer);
+        this.unbind();
+    }
+
+    public void drawElementsIndirectCount(final DrawMode drawMode, final AbstractBuffer indirectCommandBuffer, final long offset, final AbstractBuffer parameterBuffer, final long parameterOffset, final int maxCount) {
+        this.bind();
+        final int prevIndirectCommandBuffer = ThinGL.glStateManager().getBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER);
+        final int prevParameterBuffer = ThinGL.glStateManager().getBuffer(ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, indirectCommandBuffer.getGlId());
+        ThinGL.glStateManager().bindBuffer(ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB, parameterBuffer.getGlId());
+        ARBIndirectParameters.glMultiDrawElementsIndirectCountARB(drawMode.getGlMode(), this.indexType, offset, parameterOffset, maxCount, 0);
+        ThinGL.glStateManager().bindBuffer(ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB, prevParameterBuffer);
+        ThinGL.glStateManager().bindBuffer(GL40C.GL_DRAW_INDIRECT_BUFFER, prevIndirectCommandBuffer);
         this.unbind();
     }
 
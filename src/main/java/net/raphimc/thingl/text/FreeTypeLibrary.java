@@ -47,16 +47,16 @@ public class FreeTypeLibrary {
     @ApiStatus.Internal
     public FreeTypeLibrary(final ThinGL thinGL) {
         thinGL.getCapabilities().ensureFreeTypePresent();
-        try (MemoryStack memoryStack = MemoryStack.stackPush()) {
-            final PointerBuffer instanceBuffer = memoryStack.mallocPointer(1);
-            checkError(FreeType.FT_Init_FreeType(instanceBuffer), "Failed to initialize FreeType library");
-            this.pointer = instanceBuffer.get();
+        this.pointer = initLibrary();
+    }
 
-            final ByteBuffer propertyBuffer = memoryStack.malloc(Integer.BYTES);
-            propertyBuffer.putInt(0, SDFTextRenderer.DF_PX_RANGE);
-            checkError(FreeType.FT_Property_Set(this.pointer, "sdf", "spread", propertyBuffer), "Failed to set SDF spread property");
-            checkError(FreeType.FT_Property_Set(this.pointer, "bsdf", "spread", propertyBuffer), "Failed to set BSDF spread property");
-        }
+    /**
+     * Creates a FreeType library which is not bound to a ThinGL instance.<br>
+     * Only intended for tooling which needs to load fonts without an OpenGL context (e.g. benchmarks).
+     */
+    @ApiStatus.Internal
+    public FreeTypeLibrary() {
+        this.pointer = initLibrary();
     }
 
     public long getPointer() {
@@ -68,4 +68,18 @@ public class FreeTypeLibrary {
         checkError(FreeType.FT_Done_FreeType(this.pointer), "Failed to free FreeType library");
     }
 
+    private static long initLibrary() {
+        try (MemoryStack memoryStack = MemoryStack.stackPush()) {
+            final PointerBuffer instanceBuffer = memoryStack.mallocPointer(1);
+            checkError(FreeType.FT_Init_FreeType(instanceBuffer), "Failed to initialize FreeType library");
+            final long pointer = instanceBuffer.get();
+
+            final ByteBuffer propertyBuffer = memoryStack.malloc(Integer.BYTES);
+            propertyBuffer.putInt(0, SDFTextRenderer.DF_PX_RANGE);
+            checkError(FreeType.FT_Property_Set(pointer, "sdf", "spread", propertyBuffer), "Failed to set SDF spread property");
+            checkError(FreeType.FT_Property_Set(pointer, "bsdf", "spread", propertyBuffer), "Failed to set BSDF spread property");
+            return pointer;
+        }
+    }
+
 }
@@ -99,4 +99,12 @@ public record TextBuffer(List<TextRun> runs) {
         return shaper.shape(this);
     }
 
+    public ShapedTextBuffer shapeCached() {
+        return BasicTextShaper.INSTANCE.shapeCached(this);
+    }
+
+    public ShapedTextBuffer shapeCached(final TextShaper shaper) {
+        return shaper.shapeCached(this);
+    }
+
 }
@@ -70,4 +70,12 @@ public record TextRun(Font font, List<TextSegment> segments, float xOffset, floa
         return shaper.shape(this);
     }
 
+    public ShapedTextRun shapeCached() {
+        return BasicTextShaper.INSTANCE.shapeCached(this);
+    }
+
+    public ShapedTextRun shapeCached(final TextShaper shaper) {
+        return shaper.shapeCached(this);
+    }
+
 }
@@ -31,12 +31,21 @@ import org.lwjgl.util.freetype.*;
 import org.lwjgl.util.harfbuzz.HarfBuzz;
 
 import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 public class Font {
 
+    private final FreeTypeLibrary freeTypeLibrary;
     private final ByteBuffer fontDataBuffer;
-    private final FT_Face fontFace;
+    private final FT_Face fontFace; // Guarded by itself, as glyph lookups and the HarfBuzz font load glyphs into it
+    private FT_Face bitmapFace;
     private final int size;
+    private final Vector2f shift;
     private final float ascent;
     private final float descent;
     private final float height;
@@ -51,24 +60,30 @@ public class Font {
     private final Int2ObjectMap<Glyph> codePointToGlyph = new Int2ObjectOpenHashMap<>();
     private final Glyph[] asciiCodePointToGlyph = new Glyph[256];
     private long harfBuzzInstance = 0L;
+    private final List<FT_Face> faceClones = new ArrayList<>();
+    private final Deque<FT_Face> idleFaceClones = new ArrayDeque<>();
+    private int borrowedFaceClones;
+    private boolean freed;
+    private byte[] fontDataHash;
 
     public Font(final byte[] fontData, final int size) {
         this(fontData, size, new Vector2f());
     }
 
     public Font(final byte[] fontData, final int size, final Vector2f shift) {
-        ThinGL.capabilities().ensureFreeTypePresent();
+        this(getGlobalFreeTypeLibrary(), fontData, size, shift);
+    }
+
+    public Font(final FreeTypeLibrary freeTypeLibrary, final byte[] fontData, final int size, final Vector2f shift) {
+        if (freeTypeLibrary == null) {
+            throw new IllegalArgumentException("FreeType library cannot be null");
+        }
+        this.freeTypeLibrary = freeTypeLibrary;
+        this.size = size;
+        this.shift = new Vector2f(shift);
         this.fontDataBuffer = MemoryUtil.memAlloc(fontData.length).put(fontData).flip();
         try {
-            try (MemoryStack memoryStack = MemoryStack.stackPush()) {
-                final PointerBuffer fontFaceBuffer = memoryStack.mallocPointer(1);
-                FreeTypeLibrary.checkError(FreeType.FT_New_Memory_Face(ThinGL.freeTypeLibrary().getPointer(), this.fontDataBuffer, 0L, fontFaceBuffer), "Failed to load font face");
-                this.fontFace = FT_Face.create(fontFaceBuffer.get());
-
-                FreeTypeLibrary.checkError(FreeType.FT_Set_Pixel_Sizes(this.fontFace, 0, size), "Failed to set font size");
-                FreeType.FT_Set_Transform(this.fontFace, null, FT_Vector.malloc(memoryStack).set(Math.round(shift.x * 64F), Math.round(-shift.y * 64F)));
-            }
-            this.size = size;
+            this.fontFace = this.createFace();
 
             final long yScale = this.fontFace.size().metrics().y_scale();
             this.ascent = FreeType.FT_MulFix(this.fontFace.ascender(), yScale) / 64F;
@@ -95,7 +110,9 @@ public class Font {
     }
 
     public Glyph getGlyphByIndex(final int glyphIndex) {
-        return this.indexToGlyph.computeIfAbsent(glyphIndex, this::loadGlyphByIndex);
+        synchronized (this.fontFace) {
+            return this.indexToGlyph.computeIfAbsent(glyphIndex, this::loadGlyphByIndex);
+        }
     }
 
     public Glyph getGlyphByCodePoint(final int codePoint) {
@@ -103,43 +120,91 @@ public class Font {
             final Glyph glyph = this.asciiCodePointToGlyph[codePoint];
             if (glyph != null) {
                 return glyph;
-            } else {
+            }
+            synchronized (this.fontFace) {
                 return this.asciiCodePointToGlyph[codePoint] = this.loadGlyphByCodePoint(codePoint);
             }
         } else {
-            return this.codePointToGlyph.computeIfAbsent(codePoint, this::loadGlyphByCodePoint);
+            synchronized (this.fontFace) {
+                return this.codePointToGlyph.computeIfAbsent(codePoint, this::loadGlyphByCodePoint);
+            }
         }
     }
 
+    /**
+     * Loads the bitmap of a glyph. Should only be called from a single thread.<br>
+     * The returned pixels are owned by the font and are only valid until the next call.
+     *
+     * @param glyphIndex The glyph index
+     * @param normal Whether to render the glyph in normal mode
+     * @param sdf Whether to render the glyph in SDF mode
+     * @return The glyph bitmap
+     */
     public GlyphBitmap loadGlyphBitmap(final int glyphIndex, final boolean normal, final boolean sdf) {
-        FreeTypeLibrary.checkError(FreeType.FT_Load_Glyph(this.fontFace, glyphIndex, FreeType.FT_LOAD_DEFAULT), "Failed to load glyph");
-        final FT_GlyphSlot glyphSlot = this.fontFace.glyph();
-
-        if (normal) {
-            FreeTypeLibrary.checkError(FreeType.FT_Render_Glyph(glyphSlot, FreeType.FT_RENDER_MODE_NORMAL), "Failed to render glyph");
-        }
-        if (sdf) {
-            FreeTypeLibrary.checkError(FreeType.FT_Render_Glyph(glyphSlot, FreeType.FT_RENDER_MODE_SDF), "Failed to render glyph");
-        }
-        final FT_Bitmap bitmap = glyphSlot.bitmap();
-        if (bitmap.pixel_mode() != FreeType.FT_PIXEL_MODE_NONE && bitmap.pixel_mode() != FreeType.FT_PIXEL_MODE_GRAY) {
-            throw new IllegalStateException("Unsupported pixel mode: " + bitmap.pixel_mode());
+        if (this.bitmapFace == null) { // Separate face, so that glyph lookups of shaping threads can't overwrite the returned pixels
+            this.bitmapFace = this.createFace();
         }
+        return loadGlyphBitmap(this.bitmapFace, glyphIndex, normal, sdf);
+    }
 
-        final int width = bitmap.width();
-        final int height = bitmap.rows();
-        final int xOffset = glyphSlot.bitmap_left();
-        final int yOffset = -glyphSlot.bitmap_top();
-        final ByteBuffer pixels = bitmap.buffer(width * height);
-        return new GlyphBitmap(pixels, width, height, xOffset, yOffset);
+    /**
+     * Loads the bitmap of a glyph using a clone of the font face, so it can be called from any thread.<br>
+     * Unlike {@link #loadGlyphBitmap(int, boolean, boolean)}, the returned pixels are a copy and have to be freed with {@link MemoryUtil#memFree(java.nio.Buffer)} by the caller.
+     *
+     * @param glyphIndex The glyph index
+     * @param normal Whether to render the glyph in normal mode
+     * @param sdf Whether to render the glyph in SDF mode
+     * @return The glyph bitmap
+     */
+    public GlyphBitmap loadGlyphBitmapConcurrently(final int glyphIndex, final boolean normal, final boolean sdf) {
+        final FT_Face faceClone = this.borrowFaceClone();
+        try {
+            final GlyphBitmap glyphBitmap = loadGlyphBitmap(faceClone, glyphIndex, normal, sdf);
+            if (glyphBitmap.pixels() == null) {
+                return glyphBitmap;
+            }
+            final ByteBuffer pixels = MemoryUtil.memAlloc(glyphBitmap.pixels().remaining());
+            MemoryUtil.memCopy(glyphBitmap.pixels(), pixels);
+            return new GlyphBitmap(pixels, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
+        } finally {
+            this.returnFaceClone(faceClone);
+        }
     }
 
     public void free() {
+        if (ThinGL.isInitialized()) {
+            ThinGL.shapingCache().invalidate(this);
+        }
+        synchronized (this.faceClones) {
+            this.freed = true;
+            while (this.borrowedFaceClones > 0) { // Wait for concurrent glyph loads to finish
+                try {
+                    this.faceClones.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for glyph loads to finish", e);
+                }
+            }
+            synchronized (this.freeTypeLibrary) {
+                for (FT_Face faceClone : this.faceClones) {
+                    FreeTypeLibrary.checkError(FreeType.FT_Done_Face(faceClone), "Failed to free font face");
+                }
+            }
+            this.faceClones.clear();
+            this.idleFaceClones.clear();
+        }
         if (this.harfBuzzInstance != 0L) {
             HarfBuzz.hb_font_destroy(this.harfBuzzInstance);
         }
+        if (this.bitmapFace != null) {
+            synchronized (this.freeTypeLibrary) {
+                FreeTypeLibrary.checkError(FreeType.FT_Done_Face(this.bitmapFace), "Failed to free font face");
+            }
+        }
         if (this.fontFace != null) {
-            FreeTypeLibrary.checkError(FreeType.FT_Done_Face(this.fontFace), "Failed to free font face");
+            synchronized (this.freeTypeLibrary) {
+                FreeTypeLibrary.checkError(FreeType.FT_Done_Face(this.fontFace), "Failed to free font face");
+            }
         }
         BufferUtil.memFree(this.fontDataBuffer);
     }
@@ -152,6 +217,26 @@ public class Font {
         return this.fontFace;
     }
 
+    public Vector2f getShift() {
+        return this.shift;
+    }
+
+    /**
+     * @return The SHA-256 hash of the font data
+     */
+    public byte[] getFontDataHash() {
+        if (this.fontDataHash == null) {
+            try {
+                final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+                messageDigest.update(this.fontDataBuffer.duplicate());
+                this.fontDataHash = messageDigest.digest();
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("Failed to hash font data", e);
+            }
+        }
+        return this.fontDataHash;
+    }
+
     public float getAscent() {
         return this.ascent;
     }
@@ -193,12 +278,79 @@ public class Font {
     }
 
     public long getHarfBuzzInstance() {
-        if (this.harfBuzzInstance == 0L) {
-            ThinGL.capabilities().ensureHarfBuzzPresent();
-            this.harfBuzzInstance = HarfBuzz.hb_ft_font_create_referenced(this.fontFace.address());
-            HarfBuzz.hb_ft_font_set_load_flags(this.harfBuzzInstance, FreeType.FT_LOAD_DEFAULT | FreeType.FT_LOAD_NO_BITMAP);
+        synchronized (this.fontFace) {
+            if (this.harfBuzzInstance == 0L) {
+                ThinGL.capabilities().ensureHarfBuzzPresent();
+                this.harfBuzzInstance = HarfBuzz.hb_ft_font_create_referenced(this.fontFace.address());
+                HarfBuzz.hb_ft_font_set_load_flags(this.harfBuzzInstance, FreeType.FT_LOAD_DEFAULT | FreeType.FT_LOAD_NO_BITMAP);
+            }
+            return this.harfBuzzInstance;
+        }
+    }
+
+    private FT_Face createFace() {
+        try (MemoryStack memoryStack = MemoryStack.stackPush()) {
+            final PointerBuffer fontFaceBuffer = memoryStack.mallocPointer(1);
+            synchronized (this.freeTypeLibrary) { // Creating and freeing faces isn't thread safe
+                FreeTypeLibrary.checkError(FreeType.FT_New_Memory_Face(this.freeTypeLibrary.getPointer(), this.fontDataBuffer, 0L, fontFaceBuffer), "Failed to load font face");
+            }
+            final FT_Face fontFace = FT_Face.create(fontFaceBuffer.get());
+
+            FreeTypeLibrary.checkError(FreeType.FT_Set_Pixel_Sizes(fontFace, 0, this.size), "Failed to set font size");
+            FreeType.FT_Set_Transform(fontFace, null, FT_Vector.malloc(memoryStack).set(Math.round(this.shift.x * 64F), Math.round(-this.shift.y * 64F)));
+            return fontFace;
+        }
+    }
+
+    private FT_Face borrowFaceClone() {
+        synchronized (this.faceClones) {
+            if (this.freed) {
+                throw new IllegalStateException("Font has been freed");
+            }
+            FT_Face faceClone = this.idleFaceClones.poll();
+            if (faceClone == null) {
+                faceClone = this.createFace();
+                this.faceClones.add(faceClone);
+            }
+            this.borrowedFaceClones++;
+            return faceClone;
+        }
+    }
+
+    private void returnFaceClone(final FT_Face faceClone) {
+        synchronized (this.faceClones) {
+            this.idleFaceClones.push(faceClone);
+            this.borrowedFaceClones--;
+            this.faceClones.notifyAll();
+        }
+    }
+
+    private static FreeTypeLibrary getGlobalFreeTypeLibrary() {
+        ThinGL.capabilities().ensureFreeTypePresent();
+        return ThinGL.freeTypeLibrary();
+    }
+
+    private static GlyphBitmap loadGlyphBitmap(final FT_Face fontFace, final int glyphIndex, final boolean normal, final boolean sdf) {
+        FreeTypeLibrary.checkError(FreeType.FT_Load_Glyph(fontFace, glyphIndex, FreeType.FT_LOAD_DEFAULT), "Failed to load glyph");
+        final FT_GlyphSlot glyphSlot = fontFace.glyph();
+
+        if (normal) {
+            FreeTypeLibrary.checkError(FreeType.FT_Render_Glyph(glyphSlot, FreeType.FT_RENDER_MODE_NORMAL), "Failed to render glyph");
+        }
+        if (sdf) {
+            FreeTypeLibrary.checkError(FreeType.FT_Render_Glyph(glyphSlot, FreeType.FT_RENDER_MODE_SDF), "Failed to render glyph");
+        }
+        final FT_Bitmap bitmap = glyphSlot.bitmap();
+        if (bitmap.pixel_mode() != FreeType.FT_PIXEL_MODE_NONE && bitmap.pixel_mode() != FreeType.FT_PIXEL_MODE_GRAY) {
+            throw new IllegalStateException("Unsupported pixel mode: " + bitmap.pixel_mode());
         }
-        return this.harfBuzzInstance;
+
+        final int width = bitmap.width();
+        final int height = bitmap.rows();
+        final int xOffset = glyphSlot.bitmap_left();
+        final int yOffset = -glyphSlot.bitmap_top();
+        final ByteBuffer pixels = bitmap.buffer(width * height);
+        return new GlyphBitmap(pixels, width, height, xOffset, yOffset);
     }
 
     private Glyph loadGlyphByIndex(final int glyphIndex) {
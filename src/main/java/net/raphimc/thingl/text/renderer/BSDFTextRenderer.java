@@ -27,4 +27,14 @@ public class BSDFTextRenderer extends SDFTextRenderer {
         return fontGlyph.font().loadGlyphBitmap(fontGlyph.glyphIndex(), true, true);
     }
 
+    @Override
+    protected Font.GlyphBitmap createGlyphBitmapConcurrently(final Font.Glyph fontGlyph) {
+        return fontGlyph.font().loadGlyphBitmapConcurrently(fontGlyph.glyphIndex(), true, true);
+    }
+
+    @Override
+    protected String getGlyphCacheRenderMode() {
+        return "bsdf";
+    }
+
 }
@@ -70,4 +70,14 @@ public class BitmapTextRenderer extends TextRenderer {
         return fontGlyph.font().loadGlyphBitmap(fontGlyph.glyphIndex(), true, false);
     }
 
+    @Override
+    protected Font.GlyphBitmap createGlyphBitmapConcurrently(final Font.Glyph fontGlyph) {
+        return fontGlyph.font().loadGlyphBitmapConcurrently(fontGlyph.glyphIndex(), true, false);
+    }
+
+    @Override
+    protected boolean supportsConcurrentGlyphRasterization() {
+        return true;
+    }
+
 }
@@ -0,0 +1,212 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.text.renderer;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.text.font.Font;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+
+/**
+ * Persists rasterized glyph bitmaps in a directory, so they don't have to be rasterized again on the next launch.<br>
+ * Each font, size, shift and render mode combination is stored in its own file. Files with a mismatching header or checksum are ignored.
+ */
+public class GlyphBitmapCache {
+
+    private static final int MAGIC = 0x43474C54; // "TLGC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + 32 + Integer.BYTES + Float.BYTES * 2 + Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+    private static final int GLYPH_HEADER_SIZE = Integer.BYTES * 5 + 1;
+
+    private final Path directory;
+
+    public GlyphBitmapCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the cached glyph bitmaps of a font.
+     *
+     * @param key The cache key
+     * @return A map of glyph index to glyph bitmap. The pixels are owned by the caller and have to be freed with {@link MemoryUtil#memFree(java.nio.Buffer)}.
+     */
+    public Int2ObjectMap<Font.GlyphBitmap> load(final Key key) {
+        final Int2ObjectMap<Font.GlyphBitmap> glyphBitmaps = new Int2ObjectOpenHashMap<>();
+        final Path file = this.getFile(key);
+        if (!Files.isRegularFile(file)) {
+            return glyphBitmaps;
+        }
+
+        ByteBuffer data = null;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (fileChannel.size() < HEADER_SIZE || fileChannel.size() > Integer.MAX_VALUE) {
+                return glyphBitmaps;
+            }
+            // Read instead of mapped, because a mapping keeps the file locked on Windows until it is garbage collected, which makes replacing it in save fail
+            data = MemoryUtil.memAlloc((int) fileChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (data.hasRemaining()) {
+                if (fileChannel.read(data) == -1) {
+                    return glyphBitmaps;
+                }
+            }
+            data.flip();
+            if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+                return glyphBitmaps;
+            }
+            final byte[] fontHash = new byte[32];
+            data.get(fontHash);
+            if (!Arrays.equals(fontHash, key.fontHash()) || data.getInt() != key.size() || data.getFloat() != key.shiftX() || data.getFloat() != key.shiftY() || data.getInt() != key.renderMode().hashCode() || data.getInt() != key.spread()) {
+                return glyphBitmaps;
+            }
+            final long checksum = data.getLong();
+            final int glyphCount = data.getInt();
+            final CRC32 crc32 = new CRC32();
+            crc32.update(data.duplicate());
+            if (crc32.getValue() != checksum) {
+                ThinGL.LOGGER.warn("Ignoring corrupted glyph cache file " + file);
+                return glyphBitmaps;
+            }
+
+            for (int i = 0; i < glyphCount; i++) {
+                final int glyphIndex = data.getInt();
+                final int width = data.getInt();
+                final int height = data.getInt();
+                final int xOffset = data.getInt();
+                final int yOffset = data.getInt();
+                ByteBuffer pixels = null;
+                if (data.get() != 0) {
+                    final ByteBuffer cachedPixels = data.slice(data.position(), width * height);
+                    pixels = MemoryUtil.memAlloc(cachedPixels.remaining());
+                    MemoryUtil.memCopy(cachedPixels, pixels);
+                    data.position(data.position() + width * height);
+                }
+                glyphBitmaps.put(glyphIndex, new Font.GlyphBitmap(pixels, width, height, xOffset, yOffset));
+            }
+        } catch (Throwable e) {
+            ThinGL.LOGGER.warn("Failed to load glyph cache file " + file, e);
+            freeGlyphBitmaps(glyphBitmaps);
+            glyphBitmaps.clear();
+        } finally {
+            if (data != null) {
+                MemoryUtil.memFree(data);
+            }
+        }
+        return glyphBitmaps;
+    }
+
+    /**
+     * Writes the glyph bitmaps of a font into the cache. Existing entries for the key are replaced.
+     *
+     * @param key The cache key
+     * @param glyphBitmaps A map of glyph index to glyph bitmap
+     */
+    public void save(final Key key, final Int2ObjectMap<Font.GlyphBitmap> glyphBitmaps) {
+        long dataSize = HEADER_SIZE;
+        for (Font.GlyphBitmap glyphBitmap : glyphBitmaps.values()) {
+            dataSize += GLYPH_HEADER_SIZE + (glyphBitmap.pixels() != null ? glyphBitmap.pixels().remaining() : 0);
+        }
+        if (dataSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many glyphs to cache");
+        }
+
+        final ByteBuffer data = MemoryUtil.memAlloc((int) dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            data.position(HEADER_SIZE);
+            for (Int2ObjectMap.Entry<Font.GlyphBitmap> entry : glyphBitmaps.int2ObjectEntrySet()) {
+                final Font.GlyphBitmap glyphBitmap = entry.getValue();
+                data.putInt(entry.getIntKey()).putInt(glyphBitmap.width()).putInt(glyphBitmap.height()).putInt(glyphBitmap.xOffset()).putInt(glyphBitmap.yOffset());
+                data.put((byte) (glyphBitmap.pixels() != null ? 1 : 0));
+                if (glyphBitmap.pixels() != null) {
+                    data.put(glyphBitmap.pixels().duplicate());
+                }
+            }
+            data.flip();
+            final CRC32 crc32 = new CRC32();
+            crc32.update(data.duplicate().position(HEADER_SIZE));
+            data.putInt(MAGIC).putInt(VERSION).put(key.fontHash()).putInt(key.size()).putFloat(key.shiftX()).putFloat(key.shiftY()).putInt(key.renderMode().hashCode()).putInt(key.spread());
+            data.putLong(crc32.getValue()).putInt(glyphBitmaps.size());
+            data.position(0);
+
+            Files.createDirectories(this.directory);
+            final Path file = this.getFile(key);
+            final Path tempFile = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel fileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    fileChannel.write(data);
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            ThinGL.LOGGER.warn("Failed to save glyph cache for " + key, e);
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public static void freeGlyphBitmaps(final Int2ObjectMap<Font.GlyphBitmap> glyphBitmaps) {
+        for (Font.GlyphBitmap glyphBitmap : glyphBitmaps.values()) {
+            if (glyphBitmap.pixels() != null) {
+                MemoryUtil.memFree(glyphBitmap.pixels());
+            }
+        }
+    }
+
+    private Path getFile(final Key key) {
+        String fileName = HexFormat.of().formatHex(key.fontHash(), 0, 8) + "_" + key.size() + "_" + key.renderMode();
+        if (key.shiftX() != 0F || key.shiftY() != 0F) {
+            fileName += "_" + Integer.toHexString(Float.hashCode(key.shiftX()) * 31 + Float.hashCode(key.shiftY()));
+        }
+        return this.directory.resolve(fileName + ".bin");
+    }
+
+    public record Key(byte[] fontHash, int size, float shiftX, float shiftY, String renderMode, int spread) {
+
+        public static Key of(final Font font, final String renderMode) {
+            return new Key(font.getFontDataHash(), font.getSize(), font.getShift().x, font.getShift().y, renderMode, SDFTextRenderer.DF_PX_RANGE);
+        }
+
+        @Override
+        public String toString() {
+            return HexFormat.of().formatHex(this.fontHash, 0, 8) + " (size " + this.size + ", " + this.renderMode + ")";
+        }
+
+    }
+
+}
@@ -47,4 +47,19 @@ public class SDFTextRenderer extends TextRenderer {
         return fontGlyph.font().loadGlyphBitmap(fontGlyph.glyphIndex(), false, true);
     }
 
+    @Override
+    protected Font.GlyphBitmap createGlyphBitmapConcurrently(final Font.Glyph fontGlyph) {
+        return fontGlyph.font().loadGlyphBitmapConcurrently(fontGlyph.glyphIndex(), false, true);
+    }
+
+    @Override
+    protected boolean supportsConcurrentGlyphRasterization() {
+        return true;
+    }
+
+    @Override
+    protected String getGlyphCacheRenderMode() {
+        return "sdf";
+    }
+
 }
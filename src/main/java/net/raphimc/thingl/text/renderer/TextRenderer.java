@@ -18,6 +18,10 @@
 
 package net.raphimc.thingl.text.renderer;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.lenni0451.commons.color.Color;
@@ -39,13 +43,15 @@ import net.raphimc.thingl.text.shaper.ShapedTextBuffer;
 import net.raphimc.thingl.text.shaper.ShapedTextRun;
 import net.raphimc.thingl.text.shaper.ShapedTextSegment;
 import net.raphimc.thingl.text.shaper.TextShaper;
-import net.raphimc.thingl.texture.StaticAtlasTexture;
+import net.raphimc.thingl.texture.DynamicAtlasTextureArray;
 import net.raphimc.thingl.util.rectpack.Slot;
 import org.joml.Matrix4f;
 import org.lwjgl.opengl.GL11C;
+import org.lwjgl.system.MemoryUtil;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 public abstract class TextRenderer {
@@ -56,22 +62,27 @@ public abstract class TextRenderer {
     public static final float SHADOW_OFFSET_FACTOR = 0.075F;
     public static final float BOLD_OFFSET_DIVIDER = 64F;
 
+    public static final int MAX_GLYPH_ATLAS_COUNT = 256;
     private static final int ATLAS_SIZE = 1024;
+    private static final int ATLAS_LAYER_SHIFT = 24;
 
     private final DrawBatch textDrawBatch;
-    private final List<StaticAtlasTexture> glyphAtlases = new ArrayList<>();
-    private final Reference2ObjectMap<Font.Glyph, AtlasGlyph> atlasGlyphs = new Reference2ObjectOpenHashMap<>();
+    private final DynamicAtlasTextureArray glyphAtlas = new DynamicAtlasTextureArray(AbstractTexture.InternalFormat.R8, ATLAS_SIZE, ATLAS_SIZE);
+    private final Reference2ObjectLinkedOpenHashMap<Font.Glyph, AtlasGlyph> atlasGlyphs = new Reference2ObjectLinkedOpenHashMap<>(); // Ordered from least to most recently used
+    private final BlockingQueue<RasterizedGlyph> rasterizedGlyphs = new LinkedBlockingQueue<>();
+    private final AtomicInteger pendingGlyphCount = new AtomicInteger();
+    private ExecutorService glyphRasterizationExecutor;
+    private GlyphBitmapCache glyphBitmapCache;
+    private final Reference2ObjectMap<Font, CachedFont> cachedFonts = new Reference2ObjectOpenHashMap<>();
+    private int maxGlyphAtlasCount = MAX_GLYPH_ATLAS_COUNT;
+    private long evictedGlyphCount;
     private float globalScale = 1F;
 
     public TextRenderer(final Supplier<Program> program) {
         this.textDrawBatch = new DrawBatch(program, DrawMode.QUADS, BuiltinDrawBatches.POSITION_TEXTURE_LAYOUT, () -> {
             ThinGL.glStateStack().push();
             ThinGL.glStateStack().enable(GL11C.GL_BLEND);
-            final int[] textureIds = new int[this.glyphAtlases.size()];
-            for (int i = 0; i < this.glyphAtlases.size(); i++) {
-                textureIds[i] = this.glyphAtlases.get(i).getGlId();
-            }
-            program.get().setUniformSamplerArray("u_Textures", textureIds);
+            program.get().setUniformSampler("u_Texture", this.glyphAtlas.getTexture());
         }, () -> ThinGL.glStateStack().pop());
     }
 
@@ -95,8 +106,145 @@ public abstract class TextRenderer {
         this.renderTextRun(positionMatrix, multiDrawBatchDataHolder, textRun, x, y, z, textRun.font());
     }
 
+    /**
+     * Enables or disables rasterizing new glyphs on worker threads.<br>
+     * While a glyph is being rasterized it is left out of the rendered text. It shows up in text rendered after the bitmap was uploaded, which usually is the next frame.
+     * Text which is built into persistent buffers should call {@link #finishPendingGlyphs()} beforehand.
+     *
+     * @param asyncGlyphRasterization Whether glyphs should be rasterized asynchronously
+     */
+    public void setAsyncGlyphRasterization(final boolean asyncGlyphRasterization) {
+        if (asyncGlyphRasterization && !this.supportsConcurrentGlyphRasterization()) {
+            throw new UnsupportedOperationException(this.getClass().getSimpleName() + " does not support asynchronous glyph rasterization");
+        }
+        if (asyncGlyphRasterization && this.glyphRasterizationExecutor == null) {
+            final AtomicInteger threadId = new AtomicInteger();
+            this.glyphRasterizationExecutor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                final Thread thread = new Thread(runnable, "ThinGL Glyph Rasterizer #" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (!asyncGlyphRasterization && this.glyphRasterizationExecutor != null) {
+            this.finishPendingGlyphs();
+            this.glyphRasterizationExecutor.shutdown();
+            this.glyphRasterizationExecutor = null;
+        }
+    }
+
+    public boolean isAsyncGlyphRasterization() {
+        return this.glyphRasterizationExecutor != null;
+    }
+
+    /**
+     * Uploads all glyphs which finished rasterizing on the worker threads.
+     */
+    public void uploadRasterizedGlyphs() {
+        RasterizedGlyph rasterizedGlyph;
+        while ((rasterizedGlyph = this.rasterizedGlyphs.poll()) != null) {
+            this.uploadRasterizedGlyph(rasterizedGlyph);
+        }
+    }
+
+    /**
+     * Waits for all glyphs which are currently being rasterized and uploads them.
+     */
+    public void finishPendingGlyphs() {
+        this.uploadRasterizedGlyphs();
+        try {
+            while (this.pendingGlyphCount.get() > 0) {
+                this.uploadRasterizedGlyph(this.rasterizedGlyphs.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for glyphs to be rasterized", e);
+        }
+    }
+
+    public int getPendingGlyphCount() {
+        return this.pendingGlyphCount.get();
+    }
+
+    /**
+     * Sets the cache used to persist rasterized glyph bitmaps across launches.<br>
+     * The cached glyphs of a font are loaded into the atlases the first time the font is rendered.
+     *
+     * @param glyphBitmapCache The glyph bitmap cache or null to disable caching
+     */
+    public void setGlyphBitmapCache(final GlyphBitmapCache glyphBitmapCache) {
+        if (glyphBitmapCache != null && this.getGlyphCacheRenderMode() == null) {
+            throw new UnsupportedOperationException(this.getClass().getSimpleName() + " does not support glyph caching");
+        }
+        this.saveGlyphBitmapCache();
+        this.freeCachedFonts();
+        this.glyphBitmapCache = glyphBitmapCache;
+    }
+
+    public GlyphBitmapCache getGlyphBitmapCache() {
+        return this.glyphBitmapCache;
+    }
+
+    /**
+     * Writes all glyphs which were rasterized since the last save into the glyph bitmap cache.
+     */
+    public void saveGlyphBitmapCache() {
+        if (this.glyphBitmapCache == null) {
+            return;
+        }
+        for (CachedFont cachedFont : this.cachedFonts.values()) {
+            if (cachedFont.dirty) {
+                this.glyphBitmapCache.save(cachedFont.key, cachedFont.glyphBitmaps);
+                cachedFont.dirty = false;
+            }
+        }
+    }
+
+    /**
+     * Sets the number of glyph atlas layers after which the least recently used glyphs are evicted to make space for new glyphs.<br>
+     * Only glyphs which were not used in the current frame are evicted. Text which was built into persistent buffers before will render wrong glyphs if one of its glyphs got evicted.
+     *
+     * @param maxGlyphAtlasCount The maximum number of glyph atlas layers
+     */
+    public void setMaxGlyphAtlasCount(final int maxGlyphAtlasCount) {
+        if (maxGlyphAtlasCount < 1 || maxGlyphAtlasCount > MAX_GLYPH_ATLAS_COUNT) {
+            throw new IllegalArgumentException("Max glyph atlas count must be between 1 and " + MAX_GLYPH_ATLAS_COUNT);
+        }
+        this.maxGlyphAtlasCount = maxGlyphAtlasCount;
+    }
+
+    public int getMaxGlyphAtlasCount() {
+        return this.maxGlyphAtlasCount;
+    }
+
+    public int getGlyphAtlasCount() {
+        return this.glyphAtlas.getLayerCount();
+    }
+
+    public long getEvictedGlyphCount() {
+        return this.evictedGlyphCount;
+    }
+
     public void free() {
-        this.glyphAtlases.forEach(StaticAtlasTexture::free);
+        if (this.glyphRasterizationExecutor != null) {
+            this.glyphRasterizationExecutor.shutdownNow();
+            try {
+                if (!this.glyphRasterizationExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    ThinGL.LOGGER.warn("Glyph rasterization threads did not terminate in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.glyphRasterizationExecutor = null;
+        }
+        RasterizedGlyph rasterizedGlyph;
+        while ((rasterizedGlyph = this.rasterizedGlyphs.poll()) != null) {
+            if (rasterizedGlyph.glyphBitmap() != null && rasterizedGlyph.glyphBitmap().pixels() != null) {
+                MemoryUtil.memFree(rasterizedGlyph.glyphBitmap().pixels());
+            }
+        }
+        this.pendingGlyphCount.set(0); // Tasks which never ran are dropped by the executor shutdown
+        this.saveGlyphBitmapCache();
+        this.freeCachedFonts();
+        this.glyphAtlas.free();
     }
 
     public DrawBatch getTextDrawBatch() {
@@ -112,6 +260,9 @@ public abstract class TextRenderer {
     }
 
     protected void renderTextBuffer(final Matrix4f positionMatrix, final MultiDrawBatchDataHolder multiDrawBatchDataHolder, final ShapedTextBuffer textBuffer, float x, float y, final float z) {
+        if (this.pendingGlyphCount.get() > 0) {
+            this.uploadRasterizedGlyphs();
+        }
         for (ShapedTextRun textRun : textBuffer.runs()) {
             x += textRun.xOffset() * this.globalScale;
             y += textRun.yOffset() * this.globalScale;
@@ -122,6 +273,9 @@ public abstract class TextRenderer {
     }
 
     protected void renderTextRun(final Matrix4f positionMatrix, final MultiDrawBatchDataHolder multiDrawBatchDataHolder, final ShapedTextRun textRun, final float x, final float y, final float z, final Font decorationFont) {
+        if (this.pendingGlyphCount.get() > 0) {
+            this.uploadRasterizedGlyphs();
+        }
         for (ShapedTextSegment textSegment : textRun.segments()) {
             if (textSegment.glyphs().isEmpty()) {
                 continue;
@@ -158,7 +312,7 @@ public abstract class TextRenderer {
         for (TextShaper.Glyph shapedGlyph : textSegment.glyphs()) {
             final Font.Glyph fontGlyph = shapedGlyph.fontGlyph();
             final AtlasGlyph atlasGlyph = this.getAtlasGlyph(fontGlyph);
-            if (atlasGlyph.atlasIndex() != -1) {
+            if (atlasGlyph.atlasIndex != -1) {
                 final float glyphX = shapedGlyph.x() * this.globalScale;
                 final float glyphY = shapedGlyph.y() * this.globalScale;
                 this.renderGlyph(positionMatrix, vertexDataHolder, glyphDataHolder, atlasGlyph, x + glyphX, y + glyphY, z, textSegment.styleFlags(), textDataIndex);
@@ -190,10 +344,10 @@ public abstract class TextRenderer {
     }
 
     private void renderGlyph(final Matrix4f positionMatrix, final VertexDataHolder vertexDataHolder, final ShaderDataHolder glyphDataHolder, final AtlasGlyph glyph, final float x, final float y, final float z, final int styleFlags, final int textDataIndex) {
-        final float x1 = x + glyph.xOffset() * this.globalScale;
-        final float x2 = x1 + glyph.width() * this.globalScale;
-        final float y1 = y + glyph.yOffset() * this.globalScale;
-        final float y2 = y1 + glyph.height() * this.globalScale;
+        final float x1 = x + glyph.xOffset * this.globalScale;
+        final float x2 = x1 + glyph.width * this.globalScale;
+        final float y1 = y + glyph.yOffset * this.globalScale;
+        final float y2 = y1 + glyph.height * this.globalScale;
 
         float topOffset = 0F;
         float bottomOffset = 0F;
@@ -202,51 +356,311 @@ public abstract class TextRenderer {
             bottomOffset = ITALIC_SHEAR_FACTOR * (y2 - y);
         }
 
-        glyphDataHolder.ensureInTopLevelArray().beginStruct(Integer.BYTES).putInt((glyph.atlasIndex() << 27) | textDataIndex).endStruct();
+        glyphDataHolder.ensureInTopLevelArray().beginStruct(Integer.BYTES).putInt((glyph.atlasIndex << ATLAS_LAYER_SHIFT) | textDataIndex).endStruct();
 
-        vertexDataHolder.putVector3f(positionMatrix, x1 - bottomOffset, y2, z).putTextureCoord(glyph.u1(), glyph.v2()).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x2 - bottomOffset, y2, z).putTextureCoord(glyph.u2(), glyph.v2()).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x2 + topOffset, y1, z).putTextureCoord(glyph.u2(), glyph.v1()).endVertex();
-        vertexDataHolder.putVector3f(positionMatrix, x1 + topOffset, y1, z).putTextureCoord(glyph.u1(), glyph.v1()).endVertex();
+        vertexDataHolder.putVector3f(positionMatrix, x1 - bottomOffset, y2, z).putTextureCoord(glyph.slot.u1(), glyph.slot.v2()).endVertex();
+        vertexDataHolder.putVector3f(positionMatrix, x2 - bottomOffset, y2, z).putTextureCoord(glyph.slot.u2(), glyph.slot.v2()).endVertex();
+        vertexDataHolder.putVector3f(positionMatrix, x2 + topOffset, y1, z).putTextureCoord(glyph.slot.u2(), glyph.slot.v1()).endVertex();
+        vertexDataHolder.putVector3f(positionMatrix, x1 + topOffset, y1, z).putTextureCoord(glyph.slot.u1(), glyph.slot.v1()).endVertex();
     }
 
     private AtlasGlyph getAtlasGlyph(final Font.Glyph fontGlyph) {
-        return this.atlasGlyphs.computeIfAbsent(fontGlyph, this::createAtlasGlyph);
+        final long frameCount = ThinGL.get().getFrameCount();
+        AtlasGlyph atlasGlyph = this.atlasGlyphs.get(fontGlyph);
+        if (atlasGlyph == null) {
+            atlasGlyph = this.loadAtlasGlyph(fontGlyph);
+        }
+        if (atlasGlyph != AtlasGlyph.EMPTY && atlasGlyph.lastUsedFrame != frameCount) {
+            atlasGlyph.lastUsedFrame = frameCount;
+            this.atlasGlyphs.getAndMoveToLast(fontGlyph);
+        }
+        return atlasGlyph;
     }
 
-    private AtlasGlyph createAtlasGlyph(final Font.Glyph fontGlyph) {
+    private AtlasGlyph loadAtlasGlyph(final Font.Glyph fontGlyph) {
+        if (this.glyphBitmapCache != null) {
+            final CachedFont cachedFont = this.cachedFonts.get(fontGlyph.font());
+            if (cachedFont == null) {
+                this.loadCachedGlyphs(fontGlyph.font());
+                final AtlasGlyph cachedAtlasGlyph = this.atlasGlyphs.get(fontGlyph);
+                if (cachedAtlasGlyph != null) {
+                    return cachedAtlasGlyph;
+                }
+            } else {
+                final Font.GlyphBitmap cachedGlyphBitmap = cachedFont.glyphBitmaps.get(fontGlyph.glyphIndex());
+                if (cachedGlyphBitmap != null) { // Evicted before or didn't fit into the atlases when the cache was loaded
+                    final AtlasGlyph cachedAtlasGlyph = this.createAtlasGlyph(cachedGlyphBitmap);
+                    this.atlasGlyphs.put(fontGlyph, cachedAtlasGlyph);
+                    return cachedAtlasGlyph;
+                }
+            }
+        }
+
+        if (this.glyphRasterizationExecutor != null) {
+            this.atlasGlyphs.put(fontGlyph, AtlasGlyph.EMPTY); // Skipped until the bitmap has been uploaded
+            this.pendingGlyphCount.incrementAndGet();
+            try {
+                this.glyphRasterizationExecutor.execute(() -> {
+                    Font.GlyphBitmap glyphBitmap = null;
+                    try {
+                        glyphBitmap = this.createGlyphBitmapConcurrently(fontGlyph);
+                    } catch (Throwable e) {
+                        ThinGL.LOGGER.warn("Failed to rasterize glyph " + fontGlyph.glyphIndex() + " of font " + fontGlyph.font().getPostscriptName() + " asynchronously, retrying on the render thread", e);
+                    }
+                    this.rasterizedGlyphs.add(new RasterizedGlyph(fontGlyph, glyphBitmap));
+                });
+            } catch (RejectedExecutionException e) {
+                this.pendingGlyphCount.decrementAndGet();
+                this.atlasGlyphs.remove(fontGlyph);
+                throw e;
+            }
+            return AtlasGlyph.EMPTY;
+        }
+
         final Font.GlyphBitmap glyphBitmap = this.createGlyphBitmap(fontGlyph);
+        final AtlasGlyph newAtlasGlyph = this.createAtlasGlyph(glyphBitmap);
+        this.atlasGlyphs.put(fontGlyph, newAtlasGlyph);
+        this.addToGlyphBitmapCache(fontGlyph, glyphBitmap);
+        return newAtlasGlyph;
+    }
 
-        if (glyphBitmap.pixels() == null) {
-            return new AtlasGlyph(-1, 0F, 0F, 0F, 0F, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
+    private void uploadRasterizedGlyph(final RasterizedGlyph rasterizedGlyph) {
+        try {
+            final Font.GlyphBitmap glyphBitmap = rasterizedGlyph.glyphBitmap();
+            if (glyphBitmap != null) {
+                try {
+                    this.atlasGlyphs.put(rasterizedGlyph.fontGlyph(), this.createAtlasGlyph(glyphBitmap));
+                    this.addToGlyphBitmapCache(rasterizedGlyph.fontGlyph(), glyphBitmap);
+                } finally {
+                    if (glyphBitmap.pixels() != null) {
+                        MemoryUtil.memFree(glyphBitmap.pixels());
+                    }
+                }
+            } else { // Rasterization failed on the worker thread
+                this.atlasGlyphs.remove(rasterizedGlyph.fontGlyph());
+                final Font.GlyphBitmap syncGlyphBitmap = this.createGlyphBitmap(rasterizedGlyph.fontGlyph());
+                this.atlasGlyphs.put(rasterizedGlyph.fontGlyph(), this.createAtlasGlyph(syncGlyphBitmap));
+                this.addToGlyphBitmapCache(rasterizedGlyph.fontGlyph(), syncGlyphBitmap);
+            }
+        } finally {
+            this.pendingGlyphCount.decrementAndGet();
         }
+    }
 
-        Slot atlasSlot = null;
-        StaticAtlasTexture atlas = null;
-        for (int i = 0; i <= this.glyphAtlases.size(); i++) {
-            if (i == this.glyphAtlases.size()) {
-                atlas = new StaticAtlasTexture(AbstractTexture.InternalFormat.R8, ATLAS_SIZE, ATLAS_SIZE);
-            } else {
-                atlas = this.glyphAtlases.get(i);
+    private void loadCachedGlyphs(final Font font) {
+        final GlyphBitmapCache.Key key = GlyphBitmapCache.Key.of(font, this.getGlyphCacheRenderMode());
+        final CachedFont cachedFont = new CachedFont(key, this.glyphBitmapCache.load(key));
+        this.cachedFonts.put(font, cachedFont);
+
+        // Tall glyphs first to pack them more tightly
+        final int[] glyphIndices = cachedFont.glyphBitmaps.keySet().toIntArray();
+        IntArrays.quickSort(glyphIndices, (a, b) -> Integer.compare(cachedFont.glyphBitmaps.get(b).height(), cachedFont.glyphBitmaps.get(a).height()));
+        int layer = -1;
+        ByteBuffer atlasPixels = null;
+        try {
+            for (int glyphIndex : glyphIndices) {
+                final Font.GlyphBitmap glyphBitmap = cachedFont.glyphBitmaps.get(glyphIndex);
+                final Font.Glyph fontGlyph = font.getGlyphByIndex(glyphIndex);
+                if (this.atlasGlyphs.containsKey(fontGlyph)) {
+                    continue;
+                }
+                if (glyphBitmap.pixels() == null) {
+                    this.atlasGlyphs.put(fontGlyph, new AtlasGlyph(-1, null, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset()));
+                    continue;
+                }
+
+                Slot atlasSlot = layer != -1 ? this.glyphAtlas.reserveSlot(layer, glyphBitmap.width(), glyphBitmap.height()) : null;
+                if (atlasSlot == null) {
+                    if (this.glyphAtlas.getLayerCount() >= this.getEffectiveMaxGlyphAtlasCount()) { // The remaining glyphs are loaded from the cache on demand
+                        break;
+                    }
+                    if (layer != -1) {
+                        this.glyphAtlas.uploadLayer(layer, AbstractTexture.PixelFormat.R, atlasPixels.clear());
+                    } else {
+                        atlasPixels = MemoryUtil.memAlloc(ATLAS_SIZE * ATLAS_SIZE);
+                    }
+                    MemoryUtil.memSet(atlasPixels, 0);
+                    layer = this.glyphAtlas.addLayer();
+                    atlasSlot = this.glyphAtlas.reserveSlot(layer, glyphBitmap.width(), glyphBitmap.height());
+                    if (atlasSlot == null) { // Too large for an atlas
+                        continue;
+                    }
+                }
+                for (int row = 0; row < glyphBitmap.height(); row++) {
+                    final long srcAddress = MemoryUtil.memAddress(glyphBitmap.pixels()) + (long) row * glyphBitmap.width();
+                    final long dstAddress = MemoryUtil.memAddress(atlasPixels) + (long) (atlasSlot.y() + row) * ATLAS_SIZE + atlasSlot.x();
+                    MemoryUtil.memCopy(srcAddress, dstAddress, glyphBitmap.width());
+                }
+                this.atlasGlyphs.put(fontGlyph, new AtlasGlyph(layer, atlasSlot, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset()));
             }
-            atlasSlot = atlas.addSlot(glyphBitmap.width(), glyphBitmap.height(), AbstractTexture.PixelFormat.R, glyphBitmap.pixels());
+            if (layer != -1) {
+                this.glyphAtlas.uploadLayer(layer, AbstractTexture.PixelFormat.R, atlasPixels.clear());
+            }
+        } finally {
+            if (atlasPixels != null) {
+                MemoryUtil.memFree(atlasPixels);
+            }
+        }
+    }
+
+    private void addToGlyphBitmapCache(final Font.Glyph fontGlyph, final Font.GlyphBitmap glyphBitmap) {
+        if (this.glyphBitmapCache == null) {
+            return;
+        }
+        final CachedFont cachedFont = this.cachedFonts.get(fontGlyph.font());
+        if (cachedFont == null || cachedFont.glyphBitmaps.containsKey(fontGlyph.glyphIndex())) {
+            return;
+        }
+
+        ByteBuffer pixels = null;
+        if (glyphBitmap.pixels() != null) {
+            pixels = MemoryUtil.memAlloc(glyphBitmap.pixels().remaining());
+            MemoryUtil.memCopy(glyphBitmap.pixels(), pixels);
+        }
+        cachedFont.glyphBitmaps.put(fontGlyph.glyphIndex(), new Font.GlyphBitmap(pixels, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset()));
+        cachedFont.dirty = true;
+    }
+
+    private void freeCachedFonts() {
+        for (CachedFont cachedFont : this.cachedFonts.values()) {
+            GlyphBitmapCache.freeGlyphBitmaps(cachedFont.glyphBitmaps);
+        }
+        this.cachedFonts.clear();
+    }
+
+    private AtlasGlyph createAtlasGlyph(final Font.GlyphBitmap glyphBitmap) {
+        if (glyphBitmap.pixels() == null) {
+            return new AtlasGlyph(-1, null, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
+        }
+
+        for (int layer = 0; layer < this.glyphAtlas.getLayerCount(); layer++) {
+            final Slot atlasSlot = this.glyphAtlas.addSlot(layer, glyphBitmap.width(), glyphBitmap.height(), AbstractTexture.PixelFormat.R, glyphBitmap.pixels());
             if (atlasSlot != null) {
-                break;
+                return new AtlasGlyph(layer, atlasSlot, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
             }
         }
-        if (atlasSlot == null) { // Should never happen
-            throw new IllegalStateException("Failed to find a free slot for glyph in atlas");
+        if (this.glyphAtlas.getLayerCount() < this.getEffectiveMaxGlyphAtlasCount()) {
+            final int layer = this.glyphAtlas.addLayer();
+            final Slot atlasSlot = this.glyphAtlas.addSlot(layer, glyphBitmap.width(), glyphBitmap.height(), AbstractTexture.PixelFormat.R, glyphBitmap.pixels());
+            if (atlasSlot == null) {
+                throw new IllegalStateException("Glyph is too large for the atlas (" + glyphBitmap.width() + "x" + glyphBitmap.height() + ")");
+            }
+            return new AtlasGlyph(layer, atlasSlot, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
+        }
+
+        // Evict the least recently used glyphs of a single layer until the new glyph fits into the space which got freed.
+        // Layers with the most evictable space are tried first, as their freed slots are the most likely to merge into a large enough rectangle.
+        final long frameCount = ThinGL.get().getFrameCount();
+        final long[] evictableAreas = new long[this.glyphAtlas.getLayerCount()];
+        for (AtlasGlyph atlasGlyph : this.atlasGlyphs.values()) {
+            if (atlasGlyph.slot != null && atlasGlyph.lastUsedFrame < frameCount) {
+                evictableAreas[atlasGlyph.atlasIndex] += (long) (atlasGlyph.slot.width() + 1) * (atlasGlyph.slot.height() + 1);
+            }
         }
-        if (!this.glyphAtlases.contains(atlas)) {
-            this.glyphAtlases.add(atlas);
+        final long requiredArea = (long) (glyphBitmap.width() + 1) * (glyphBitmap.height() + 1);
+        final long layerArea = (long) this.glyphAtlas.getWidth() * this.glyphAtlas.getHeight();
+        while (true) {
+            int targetLayer = -1;
+            for (int layer = 0; layer < evictableAreas.length; layer++) {
+                final long freeArea = (long) ((1F - this.glyphAtlas.getOccupancy(layer)) * layerArea);
+                if (evictableAreas[layer] > 0 && evictableAreas[layer] + freeArea >= requiredArea && (targetLayer == -1 || evictableAreas[layer] > evictableAreas[targetLayer])) {
+                    targetLayer = layer;
+                }
+            }
+            if (targetLayer == -1) {
+                break;
+            }
+
+            final ObjectIterator<Reference2ObjectMap.Entry<Font.Glyph, AtlasGlyph>> iterator = this.atlasGlyphs.reference2ObjectEntrySet().fastIterator();
+            while (iterator.hasNext()) {
+                final AtlasGlyph evictedGlyph = iterator.next().getValue();
+                if (evictedGlyph.lastUsedFrame >= frameCount) {
+                    break;
+                }
+                if (evictedGlyph.slot == null || evictedGlyph.atlasIndex != targetLayer) {
+                    continue;
+                }
+
+                iterator.remove();
+                this.evictedGlyphCount++;
+                this.glyphAtlas.removeSlot(targetLayer, evictedGlyph.slot);
+                final Slot atlasSlot = this.glyphAtlas.addSlot(targetLayer, glyphBitmap.width(), glyphBitmap.height(), AbstractTexture.PixelFormat.R, glyphBitmap.pixels());
+                if (atlasSlot != null) {
+                    return new AtlasGlyph(targetLayer, atlasSlot, glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
+                }
+            }
+            evictableAreas[targetLayer] = 0; // Only glyphs used in the current frame are left in this layer
         }
+        throw new IllegalStateException("All glyph atlases are full with glyphs used in the current frame");
+    }
 
-        return new AtlasGlyph(this.glyphAtlases.indexOf(atlas), atlasSlot.u1(), atlasSlot.v1(), atlasSlot.u2(), atlasSlot.v2(), glyphBitmap.width(), glyphBitmap.height(), glyphBitmap.xOffset(), glyphBitmap.yOffset());
+    private int getEffectiveMaxGlyphAtlasCount() {
+        return Math.min(this.maxGlyphAtlasCount, ThinGL.capabilities().getMaxArrayTextureLayers());
     }
 
     protected abstract Font.GlyphBitmap createGlyphBitmap(final Font.Glyph fontGlyph);
 
-    private record AtlasGlyph(int atlasIndex, float u1, float v1, float u2, float v2, float width, float height, float xOffset, float yOffset) {
+    /**
+     * Creates the bitmap of a glyph on a worker thread. See {@link Font#loadGlyphBitmapConcurrently(int, boolean, boolean)}.
+     *
+     * @param fontGlyph The glyph
+     * @return The glyph bitmap with pixels owned by the caller
+     */
+    protected Font.GlyphBitmap createGlyphBitmapConcurrently(final Font.Glyph fontGlyph) {
+        throw new UnsupportedOperationException(this.getClass().getSimpleName() + " does not support asynchronous glyph rasterization");
+    }
+
+    /**
+     * @return Whether this renderer overrides {@link #createGlyphBitmapConcurrently(Font.Glyph)}
+     */
+    protected boolean supportsConcurrentGlyphRasterization() {
+        return false;
+    }
+
+    /**
+     * @return A unique name for the kind of glyph bitmaps this renderer creates, or null if the bitmaps should not be cached on disk
+     */
+    protected String getGlyphCacheRenderMode() {
+        return null;
+    }
+
+    private static class AtlasGlyph {
+
+        private static final AtlasGlyph EMPTY = new AtlasGlyph(-1, null, 0F, 0F, 0F, 0F);
+
+        private final int atlasIndex;
+        private final Slot slot;
+        private final float width;
+        private final float height;
+        private final float xOffset;
+        private final float yOffset;
+        private long lastUsedFrame;
+
+        private AtlasGlyph(final int atlasIndex, final Slot slot, final float width, final float height, final float xOffset, final float yOffset) {
+            this.atlasIndex = atlasIndex;
+            this.slot = slot;
+            this.width = width;
+            this.height = height;
+            this.xOffset = xOffset;
+            this.yOffset = yOffset;
+        }
+
+    }
+
+    private record RasterizedGlyph(Font.Glyph fontGlyph, Font.GlyphBitmap glyphBitmap) {
+    }
+
+    private static class CachedFont {
+
+        private final GlyphBitmapCache.Key key;
+        private final Int2ObjectMap<Font.GlyphBitmap> glyphBitmaps;
+        private boolean dirty;
+
+        private CachedFont(final GlyphBitmapCache.Key key, final Int2ObjectMap<Font.GlyphBitmap> glyphBitmaps) {
+            this.key = key;
+            this.glyphBitmaps = glyphBitmaps;
+        }
+
     }
 
 }
@@ -0,0 +1,215 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.text.shaper;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import net.raphimc.thingl.text.TextBuffer;
+import net.raphimc.thingl.text.TextRun;
+import net.raphimc.thingl.text.TextSegment;
+import net.raphimc.thingl.text.font.Font;
+import org.joml.primitives.Rectanglef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A bounded LRU cache for shaped text runs.<br>
+ * Entries are keyed on the shaper, font, text and style flags of a text run. Colors are not part of the key and are applied to the cached result on a hit.<br>
+ * The returned shaped text runs share their (unmodifiable) glyph lists with the cache entry. Their bounds are copies and can be modified freely.
+ */
+public class ShapingCache {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 4 * 1024 * 1024;
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int GLYPH_SIZE = OBJECT_OVERHEAD + REFERENCE_SIZE + Float.BYTES * 2 + REFERENCE_SIZE; // Glyph object + list slot
+    private static final int SEGMENT_SIZE = OBJECT_OVERHEAD * 4 + REFERENCE_SIZE * 6 + Float.BYTES * 10 + Integer.BYTES; // ShapedTextSegment + glyph list + bounds
+    private static final int RUN_SIZE = OBJECT_OVERHEAD * 4 + REFERENCE_SIZE * 4 + Float.BYTES * 8; // ShapedTextRun + segment list + bounds + key
+
+    private final Object2ObjectLinkedOpenHashMap<Key, Entry> entries = new Object2ObjectLinkedOpenHashMap<>();
+    private long memoryBudget;
+    private long usedMemory;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public ShapingCache() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    public ShapingCache(final long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public ShapedTextBuffer shape(final TextShaper textShaper, final TextBuffer textBuffer) {
+        final List<ShapedTextRun> shapedTextRuns = new ArrayList<>(textBuffer.runs().size());
+        for (TextRun textRun : textBuffer.runs()) {
+            shapedTextRuns.add(this.shape(textShaper, textRun));
+        }
+        return new ShapedTextBuffer(shapedTextRuns);
+    }
+
+    public ShapedTextRun shape(final TextShaper textShaper, final TextRun textRun) {
+        final Key key = Key.of(textShaper, textRun);
+        synchronized (this) {
+            final Entry entry = this.entries.getAndMoveToLast(key);
+            if (entry != null) {
+                this.hitCount++;
+                return copyOf(entry.shapedTextRun(), textRun);
+            }
+            this.missCount++;
+        }
+
+        final ShapedTextRun shapedTextRun = freeze(textShaper.shape(textRun));
+        final long size = estimateSize(shapedTextRun, textRun);
+        synchronized (this) {
+            if (size <= this.memoryBudget) {
+                final Entry previousEntry = this.entries.putAndMoveToLast(key, new Entry(shapedTextRun, size));
+                if (previousEntry != null) { // Another thread shaped the same text run concurrently
+                    this.usedMemory -= previousEntry.size();
+                }
+                this.usedMemory += size;
+                this.evict();
+            }
+        }
+        return copyOf(shapedTextRun, textRun);
+    }
+
+    /**
+     * Removes all entries which reference the given font.
+     *
+     * @param font The font
+     */
+    public synchronized void invalidate(final Font font) {
+        this.entries.object2ObjectEntrySet().removeIf(entry -> {
+            if (entry.getKey().font() == font) {
+                this.usedMemory -= entry.getValue().size();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.usedMemory = 0;
+    }
+
+    public synchronized void resetStatistics() {
+        this.hitCount = 0;
+        this.missCount = 0;
+        this.evictionCount = 0;
+    }
+
+    public synchronized long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    public synchronized void setMemoryBudget(final long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        this.evict();
+    }
+
+    public synchronized long getUsedMemory() {
+        return this.usedMemory;
+    }
+
+    public synchronized int getEntryCount() {
+        return this.entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    private void evict() {
+        while (this.usedMemory > this.memoryBudget && !this.entries.isEmpty()) {
+            this.usedMemory -= this.entries.removeFirst().size();
+            this.evictionCount++;
+        }
+    }
+
+    private static ShapedTextRun freeze(final ShapedTextRun shapedTextRun) {
+        final List<ShapedTextSegment> shapedTextSegments = new ArrayList<>(shapedTextRun.segments().size());
+        for (ShapedTextSegment shapedTextSegment : shapedTextRun.segments()) {
+            shapedTextSegments.add(new ShapedTextSegment(Collections.unmodifiableList(shapedTextSegment.glyphs()), shapedTextSegment.color(), shapedTextSegment.styleFlags(), shapedTextSegment.outlineColor(), shapedTextSegment.xVisualOffset(), shapedTextSegment.yVisualOffset(), shapedTextSegment.bounds(), shapedTextSegment.extendedBounds()));
+        }
+        return new ShapedTextRun(shapedTextRun.font(), shapedTextSegments, shapedTextRun.bounds(), shapedTextRun.xOffset(), shapedTextRun.yOffset(), shapedTextRun.nextRunX(), shapedTextRun.nextRunY());
+    }
+
+    private static ShapedTextRun copyOf(final ShapedTextRun shapedTextRun, final TextRun textRun) {
+        final boolean applyColors = shapedTextRun.segments().size() == textRun.segments().size();
+        final List<ShapedTextSegment> shapedTextSegments = new ArrayList<>(shapedTextRun.segments().size());
+        for (int i = 0; i < shapedTextRun.segments().size(); i++) {
+            final ShapedTextSegment shapedTextSegment = shapedTextRun.segments().get(i);
+            final TextSegment textSegment = applyColors ? textRun.segments().get(i) : null;
+            shapedTextSegments.add(new ShapedTextSegment(
+                    shapedTextSegment.glyphs(),
+                    textSegment != null ? textSegment.color() : shapedTextSegment.color(),
+                    shapedTextSegment.styleFlags(),
+                    textSegment != null ? textSegment.outlineColor() : shapedTextSegment.outlineColor(),
+                    shapedTextSegment.xVisualOffset(),
+                    shapedTextSegment.yVisualOffset(),
+                    new Rectanglef(shapedTextSegment.bounds()),
+                    new Rectanglef(shapedTextSegment.extendedBounds())
+            ));
+        }
+        return new ShapedTextRun(shapedTextRun.font(), shapedTextSegments, new Rectanglef(shapedTextRun.bounds()), shapedTextRun.xOffset(), shapedTextRun.yOffset(), shapedTextRun.nextRunX(), shapedTextRun.nextRunY());
+    }
+
+    private static long estimateSize(final ShapedTextRun shapedTextRun, final TextRun textRun) {
+        long size = RUN_SIZE;
+        for (ShapedTextSegment shapedTextSegment : shapedTextRun.segments()) {
+            size += SEGMENT_SIZE + (long) shapedTextSegment.glyphs().size() * GLYPH_SIZE;
+        }
+        for (TextSegment textSegment : textRun.segments()) {
+            size += OBJECT_OVERHEAD * 2 + (long) textSegment.text().length() * Character.BYTES; // Segment key + text
+        }
+        return size;
+    }
+
+    private record Key(TextShaper textShaper, Font font, float xOffset, float yOffset, List<SegmentKey> segments) {
+
+        private static Key of(final TextShaper textShaper, final TextRun textRun) {
+            final List<SegmentKey> segments = new ArrayList<>(textRun.segments().size());
+            for (TextSegment textSegment : textRun.segments()) {
+                // The outline color only influences the bounds through its visibility
+                segments.add(new SegmentKey(textSegment.text(), textSegment.styleFlags(), textSegment.outlineColor().getAlpha() > 0, textSegment.xVisualOffset(), textSegment.yVisualOffset()));
+            }
+            return new Key(textShaper, textRun.font(), textRun.xOffset(), textRun.yOffset(), segments);
+        }
+
+    }
+
+    private record SegmentKey(String text, int styleFlags, boolean outlined, float xVisualOffset, float yVisualOffset) {
+    }
+
+    private record Entry(ShapedTextRun shapedTextRun, long size) {
+    }
+
+}
@@ -17,6 +17,7 @@
  */
 package net.raphimc.thingl.text.shaper;
 
+import net.raphimc.thingl.ThinGL;
 import net.raphimc.thingl.text.TextBuffer;
 import net.raphimc.thingl.text.TextRun;
 import net.raphimc.thingl.text.font.Font;
@@ -36,6 +37,14 @@ public abstract class TextShaper {
 
     public abstract ShapedTextRun shape(final TextRun textRun);
 
+    public ShapedTextBuffer shapeCached(final TextBuffer textBuffer) {
+        return ThinGL.shapingCache().shape(this, textBuffer);
+    }
+
+    public ShapedTextRun shapeCached(final TextRun textRun) {
+        return ThinGL.shapingCache().shape(this, textRun);
+    }
+
     public record Glyph(Font.Glyph fontGlyph, float x, float y) {
     }
 
@@ -24,44 +24,77 @@ import net.raphimc.thingl.text.font.Font;
 import net.raphimc.thingl.text.shaper.ShapedTextRun;
 import net.raphimc.thingl.text.shaper.ShapedTextSegment;
 import net.raphimc.thingl.text.shaper.TextShaper;
+import org.lwjgl.system.MemoryUtil;
 import org.lwjgl.util.harfbuzz.HarfBuzz;
 import org.lwjgl.util.harfbuzz.hb_glyph_info_t;
 import org.lwjgl.util.harfbuzz.hb_glyph_position_t;
 
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 public class HarfBuzzTextShaper extends TextShaper {
 
     public static final HarfBuzzTextShaper INSTANCE = new HarfBuzzTextShaper();
 
+    private final Deque<ShapingState> idleShapingStates = new ArrayDeque<>();
+
     @Override
     public ShapedTextRun shape(final TextRun textRun) {
         ThinGL.capabilities().ensureHarfBuzzPresent();
-        final long hbBuffer = HarfBuzz.hb_buffer_create();
-        if (!HarfBuzz.hb_buffer_allocation_successful(hbBuffer)) {
-            throw new IllegalStateException("Failed to allocate buffer");
+        final ShapingState state = this.borrowShapingState();
+        try {
+            return this.shape(textRun, state);
+        } finally {
+            this.returnShapingState(state);
+        }
+    }
+
+    /**
+     * Frees the native buffers of all idle shaping states. Shaping text afterward allocates new ones.
+     */
+    public void free() {
+        synchronized (this.idleShapingStates) {
+            for (ShapingState state : this.idleShapingStates) {
+                state.free();
+            }
+            this.idleShapingStates.clear();
         }
-        HarfBuzz.hb_buffer_reset(hbBuffer);
-        HarfBuzz.hb_buffer_set_cluster_level(hbBuffer, HarfBuzz.HB_BUFFER_CLUSTER_LEVEL_CHARACTERS);
+    }
+
+    private ShapedTextRun shape(final TextRun textRun, final ShapingState state) {
+        final long hbBuffer = state.hbBuffer;
+        HarfBuzz.hb_buffer_clear_contents(hbBuffer);
 
-        for (int segmentIdx = 0; segmentIdx < textRun.segments().size(); segmentIdx++) {
-            final TextSegment textSegment = textRun.segments().get(segmentIdx);
-            final String text = textSegment.text();
+        final List<TextSegment> textSegments = textRun.segments();
+        final int[] segmentStarts = state.ensureSegmentCapacity(textSegments.size());
+        int codePointCount = 0;
+        for (int segmentIdx = 0; segmentIdx < textSegments.size(); segmentIdx++) {
+            segmentStarts[segmentIdx] = codePointCount;
+            final String text = textSegments.get(segmentIdx).text();
+            final IntBuffer codePoints = state.ensureCodePointCapacity(codePointCount + text.length());
             for (int i = 0; i < text.length(); i++) {
                 final int codePoint = text.codePointAt(i);
                 if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
                     i++;
                 }
-                HarfBuzz.hb_buffer_add(hbBuffer, codePoint, segmentIdx);
+                codePoints.put(codePointCount++, codePoint);
             }
         }
+        // The cluster of each glyph is the index of its first code point, which is mapped back to the segment below
+        HarfBuzz.hb_buffer_add_codepoints(hbBuffer, state.codePoints.limit(codePointCount), 0, codePointCount);
+        state.codePoints.clear();
 
         HarfBuzz.hb_buffer_guess_segment_properties(hbBuffer);
         // HarfBuzz.hb_buffer_set_direction(hbBuffer, HarfBuzz.HB_DIRECTION_LTR);
         // HarfBuzz.hb_buffer_set_script(hbBuffer, HarfBuzz.HB_SCRIPT_LATIN);
         // HarfBuzz.hb_buffer_set_language(hbBuffer, HarfBuzz.hb_language_from_string("en"));
-        HarfBuzz.hb_shape(textRun.font().getHarfBuzzInstance(), hbBuffer, null);
+        synchronized (textRun.font().getFontFace()) { // The HarfBuzz font loads glyphs into the shared font face
+            HarfBuzz.hb_shape(textRun.font().getHarfBuzzInstance(), hbBuffer, null);
+        }
 
         final hb_glyph_info_t.Buffer infos = HarfBuzz.hb_buffer_get_glyph_infos(hbBuffer);
         final hb_glyph_position_t.Buffer positions = HarfBuzz.hb_buffer_get_glyph_positions(hbBuffer);
@@ -69,26 +102,126 @@ public class HarfBuzzTextShaper extends TextShaper {
         if (length != positions.remaining()) {
             throw new IllegalStateException("Glyph info and position buffers have different lengths");
         }
-        final List<ShapedTextSegment> shapedTextSegments = new ArrayList<>(textRun.segments().size());
-        for (TextSegment textSegment : textRun.segments()) {
-            shapedTextSegments.add(new ShapedTextSegment(new ArrayList<>(textSegment.text().length()), textSegment.color(), textSegment.styleFlags(), textSegment.outlineColor(), textSegment.xVisualOffset(), textSegment.yVisualOffset()));
+        state.ensureGlyphCapacity(length);
+        final int[] glyphIndices = state.glyphIndices;
+        final int[] glyphSegments = state.glyphSegments;
+        final int[] glyphPositions = state.glyphPositions;
+        final int[] segmentGlyphCounts = state.segmentGlyphCounts;
+        Arrays.fill(segmentGlyphCounts, 0, textSegments.size(), 0);
+        final long infosAddress = infos.address();
+        final long positionsAddress = positions.address();
+        for (int i = 0; i < length; i++) {
+            final long infoAddress = infosAddress + (long) i * hb_glyph_info_t.SIZEOF;
+            final long positionAddress = positionsAddress + (long) i * hb_glyph_position_t.SIZEOF;
+            glyphIndices[i] = MemoryUtil.memGetInt(infoAddress + hb_glyph_info_t.CODEPOINT);
+            final int segmentIdx = findSegment(segmentStarts, textSegments.size(), MemoryUtil.memGetInt(infoAddress + hb_glyph_info_t.CLUSTER));
+            glyphSegments[i] = segmentIdx;
+            segmentGlyphCounts[segmentIdx]++;
+            glyphPositions[i * 4] = MemoryUtil.memGetInt(positionAddress + hb_glyph_position_t.X_ADVANCE);
+            glyphPositions[i * 4 + 1] = MemoryUtil.memGetInt(positionAddress + hb_glyph_position_t.Y_ADVANCE);
+            glyphPositions[i * 4 + 2] = MemoryUtil.memGetInt(positionAddress + hb_glyph_position_t.X_OFFSET);
+            glyphPositions[i * 4 + 3] = MemoryUtil.memGetInt(positionAddress + hb_glyph_position_t.Y_OFFSET);
+        }
+
+        final List<List<Glyph>> segmentGlyphs = new ArrayList<>(textSegments.size());
+        for (int segmentIdx = 0; segmentIdx < textSegments.size(); segmentIdx++) {
+            segmentGlyphs.add(new ArrayList<>(segmentGlyphCounts[segmentIdx]));
         }
         float x = 0F;
         float y = 0F;
         for (int i = 0; i < length; i++) {
-            final hb_glyph_info_t info = infos.get(i);
-            final hb_glyph_position_t position = positions.get(i);
-            final Font.Glyph fontGlyph = textRun.font().getGlyphByIndex(info.codepoint());
-            shapedTextSegments.get(info.cluster()).glyphs().add(new Glyph(fontGlyph, x + position.x_offset() / 64F, y + position.y_offset() / 64F));
-            x += position.x_advance() / 64F;
-            y += position.y_advance() / 64F;
+            final Font.Glyph fontGlyph = textRun.font().getGlyphByIndex(glyphIndices[i]);
+            segmentGlyphs.get(glyphSegments[i]).add(new Glyph(fontGlyph, x + glyphPositions[i * 4 + 2] / 64F, y + glyphPositions[i * 4 + 3] / 64F));
+            x += glyphPositions[i * 4] / 64F;
+            y += glyphPositions[i * 4 + 1] / 64F;
         }
-        for (ShapedTextSegment shapedTextSegment : shapedTextSegments) {
-            shapedTextSegment.calculateBounds();
+        final List<ShapedTextSegment> shapedTextSegments = new ArrayList<>(textSegments.size());
+        for (int segmentIdx = 0; segmentIdx < textSegments.size(); segmentIdx++) {
+            final TextSegment textSegment = textSegments.get(segmentIdx);
+            shapedTextSegments.add(new ShapedTextSegment(segmentGlyphs.get(segmentIdx), textSegment.color(), textSegment.styleFlags(), textSegment.outlineColor(), textSegment.xVisualOffset(), textSegment.yVisualOffset()));
         }
 
-        HarfBuzz.hb_buffer_destroy(hbBuffer);
         return new ShapedTextRun(textRun.font(), shapedTextSegments, textRun.xOffset(), textRun.yOffset(), x, y);
     }
 
+    private ShapingState borrowShapingState() {
+        synchronized (this.idleShapingStates) {
+            final ShapingState state = this.idleShapingStates.poll();
+            if (state != null) {
+                return state;
+            }
+        }
+        return new ShapingState();
+    }
+
+    private void returnShapingState(final ShapingState state) {
+        synchronized (this.idleShapingStates) {
+            this.idleShapingStates.push(state);
+        }
+    }
+
+    private static int findSegment(final int[] segmentStarts, final int segmentCount, final int cluster) {
+        final int index = Arrays.binarySearch(segmentStarts, 0, segmentCount, cluster);
+        if (index >= 0) {
+            // Empty segments share their start with the following segment
+            int segmentIdx = index;
+            while (segmentIdx + 1 < segmentCount && segmentStarts[segmentIdx + 1] == cluster) {
+                segmentIdx++;
+            }
+            return segmentIdx;
+        }
+        return -index - 2;
+    }
+
+    private static class ShapingState {
+
+        private final long hbBuffer;
+        private IntBuffer codePoints = MemoryUtil.memAllocInt(256);
+        private int[] segmentStarts = new int[8];
+        private int[] segmentGlyphCounts = new int[8];
+        private int[] glyphIndices = new int[256];
+        private int[] glyphSegments = new int[256];
+        private int[] glyphPositions = new int[256 * 4]; // x advance, y advance, x offset, y offset
+
+        private ShapingState() {
+            this.hbBuffer = HarfBuzz.hb_buffer_create();
+            if (!HarfBuzz.hb_buffer_allocation_successful(this.hbBuffer)) {
+                HarfBuzz.hb_buffer_destroy(this.hbBuffer);
+                MemoryUtil.memFree(this.codePoints);
+                throw new IllegalStateException("Failed to allocate buffer");
+            }
+            HarfBuzz.hb_buffer_set_cluster_level(this.hbBuffer, HarfBuzz.HB_BUFFER_CLUSTER_LEVEL_CHARACTERS);
+        }
+
+        private IntBuffer ensureCodePointCapacity(final int capacity) {
+            if (this.codePoints.capacity() < capacity) {
+                this.codePoints = MemoryUtil.memRealloc(this.codePoints, Math.max(capacity, this.codePoints.capacity() * 2));
+            }
+            return this.codePoints;
+        }
+
+        private int[] ensureSegmentCapacity(final int capacity) {
+            if (this.segmentStarts.length < capacity) {
+                this.segmentStarts = new int[Math.max(capacity, this.segmentStarts.length * 2)];
+                this.segmentGlyphCounts = new int[this.segmentStarts.length];
+            }
+            return this.segmentStarts;
+        }
+
+        private void ensureGlyphCapacity(final int capacity) {
+            if (this.glyphIndices.length < capacity) {
+                final int newCapacity = Math.max(capacity, this.glyphIndices.length * 2);
+                this.glyphIndices = new int[newCapacity];
+                this.glyphSegments = new int[newCapacity];
+                this.glyphPositions = new int[newCapacity * 4];
+            }
+        }
+
+        private void free() {
+            HarfBuzz.hb_buffer_destroy(this.hbBuffer);
+            MemoryUtil.memFree(this.codePoints);
+        }
+
+    }
+
 }
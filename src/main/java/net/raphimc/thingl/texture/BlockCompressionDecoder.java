@@ -0,0 +1,374 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.texture;
+
+import net.raphimc.thingl.resource.texture.AbstractTexture;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * CPU decoder for block compressed textures. Used as fallback when the driver doesn't support a compressed format.<br>
+ * Supports S3TC (BC1-BC3), RGTC (BC4-BC5) and ETC2/EAC. BPTC and ASTC are not supported.
+ */
+public class BlockCompressionDecoder {
+
+    private static final int[][] ETC1_MODIFIERS = {
+            {2, 8}, {5, 17}, {9, 29}, {13, 42}, {18, 60}, {24, 80}, {33, 106}, {47, 183}
+    };
+    private static final int[] ETC2_DISTANCES = {3, 6, 11, 16, 23, 32, 41, 64};
+    private static final int[][] EAC_MODIFIERS = {
+            {-3, -6, -9, -15, 2, 5, 8, 14},
+            {-3, -7, -10, -13, 2, 6, 9, 12},
+            {-2, -5, -8, -13, 1, 4, 7, 12},
+            {-2, -4, -6, -13, 1, 3, 5, 12},
+            {-3, -6, -8, -12, 2, 5, 7, 11},
+            {-3, -7, -9, -11, 2, 6, 8, 10},
+            {-4, -7, -8, -11, 3, 6, 7, 10},
+            {-3, -5, -8, -11, 2, 4, 7, 10},
+            {-2, -6, -8, -10, 1, 5, 7, 9},
+            {-2, -5, -8, -10, 1, 4, 7, 9},
+            {-2, -4, -8, -10, 1, 3, 7, 9},
+            {-2, -5, -7, -10, 1, 4, 6, 9},
+            {-3, -4, -7, -10, 2, 3, 6, 9},
+            {-1, -2, -3, -10, 0, 1, 2, 9},
+            {-4, -6, -8, -9, 3, 5, 7, 8},
+            {-3, -5, -7, -9, 2, 4, 6, 8},
+    };
+
+    public static boolean canDecode(final AbstractTexture.InternalFormat internalFormat) {
+        return internalFormat.getCompression() == AbstractTexture.InternalFormat.Compression.S3TC || internalFormat.getCompression() == AbstractTexture.InternalFormat.Compression.RGTC || internalFormat.getCompression() == AbstractTexture.InternalFormat.Compression.ETC2;
+    }
+
+    /**
+     * @return The uncompressed internal format the given compressed format is decoded into
+     */
+    public static AbstractTexture.InternalFormat getDecodedFormat(final AbstractTexture.InternalFormat internalFormat) {
+        return switch (internalFormat.getChannelCount()) {
+            case 1 -> AbstractTexture.InternalFormat.R8;
+            case 2 -> AbstractTexture.InternalFormat.RG8;
+            default -> AbstractTexture.InternalFormat.RGBA8;
+        };
+    }
+
+    /**
+     * @return The pixel format of the data returned by {@link #decode(AbstractTexture.InternalFormat, int, int, ByteBuffer)}
+     */
+    public static AbstractTexture.PixelFormat getDecodedPixelFormat(final AbstractTexture.InternalFormat internalFormat) {
+        return switch (internalFormat.getChannelCount()) {
+            case 1 -> AbstractTexture.PixelFormat.R;
+            case 2 -> AbstractTexture.PixelFormat.RG;
+            default -> AbstractTexture.PixelFormat.RGBA;
+        };
+    }
+
+    /**
+     * Decodes the given compressed image.
+     *
+     * @param internalFormat The compressed format
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param blockBuffer The compressed blocks
+     * @return The decoded pixels in the {@link #getDecodedPixelFormat(AbstractTexture.InternalFormat)} format. Has to be freed by the caller.
+     */
+    public static ByteBuffer decode(final AbstractTexture.InternalFormat internalFormat, final int width, final int height, final ByteBuffer blockBuffer) {
+        if (!canDecode(internalFormat)) {
+            throw new UnsupportedOperationException("Decoding " + internalFormat.getDisplayName() + " textures on the CPU is not supported");
+        }
+        if (blockBuffer.remaining() < internalFormat.getCompressedSize(width, height)) {
+            throw new IllegalArgumentException("Block buffer is too small for the specified dimensions");
+        }
+
+        final int channelCount = getDecodedPixelFormat(internalFormat).getChannelCount();
+        final ByteBuffer pixelBuffer = MemoryUtil.memAlloc(width * height * channelCount);
+        final ByteBuffer blocks = blockBuffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        final int[] texels = new int[16]; // RGBA, one byte per component, R in the lowest byte
+        int blockOffset = 0;
+        for (int blockY = 0; blockY < height; blockY += 4) {
+            for (int blockX = 0; blockX < width; blockX += 4) {
+                switch (internalFormat) {
+                    case BC1_RGB -> decodeBC1(blocks, blockOffset, texels, false, false);
+                    case BC1_RGBA -> decodeBC1(blocks, blockOffset, texels, true, false);
+                    case BC2 -> {
+                        decodeBC1(blocks, blockOffset + 8, texels, false, true);
+                        final long alphaBits = blocks.getLong(blockOffset);
+                        for (int i = 0; i < 16; i++) {
+                            texels[i] = (texels[i] & 0x00FFFFFF) | (((int) (alphaBits >>> (i * 4)) & 0xF) * 17) << 24;
+                        }
+                    }
+                    case BC3 -> {
+                        decodeBC1(blocks, blockOffset + 8, texels, false, true);
+                        decodeBC4Channel(blocks, blockOffset, texels, 24);
+                    }
+                    case BC4 -> {
+                        fill(texels, 0xFF000000);
+                        decodeBC4Channel(blocks, blockOffset, texels, 0);
+                    }
+                    case BC5 -> {
+                        fill(texels, 0xFF000000);
+                        decodeBC4Channel(blocks, blockOffset, texels, 0);
+                        decodeBC4Channel(blocks, blockOffset + 8, texels, 8);
+                    }
+                    case ETC2_RGB8 -> decodeETC2(readBigEndianLong(blocks, blockOffset), texels, false);
+                    case ETC2_RGB8_A1 -> decodeETC2(readBigEndianLong(blocks, blockOffset), texels, true);
+                    case ETC2_RGBA8 -> {
+                        decodeETC2(readBigEndianLong(blocks, blockOffset + 8), texels, false);
+                        decodeEACChannel(readBigEndianLong(blocks, blockOffset), texels, 24, false);
+                    }
+                    case EAC_R11 -> {
+                        fill(texels, 0xFF000000);
+                        decodeEACChannel(readBigEndianLong(blocks, blockOffset), texels, 0, true);
+                    }
+                    case EAC_RG11 -> {
+                        fill(texels, 0xFF000000);
+                        decodeEACChannel(readBigEndianLong(blocks, blockOffset), texels, 0, true);
+                        decodeEACChannel(readBigEndianLong(blocks, blockOffset + 8), texels, 8, true);
+                    }
+                    default -> throw new IllegalStateException("Unhandled format: " + internalFormat);
+                }
+                blockOffset += internalFormat.getBlockSize();
+
+                for (int y = 0; y < 4 && blockY + y < height; y++) {
+                    for (int x = 0; x < 4 && blockX + x < width; x++) {
+                        final int texel = texels[y * 4 + x];
+                        final int pixelOffset = ((blockY + y) * width + blockX + x) * channelCount;
+                        for (int channel = 0; channel < channelCount; channel++) {
+                            pixelBuffer.put(pixelOffset + channel, (byte) (texel >>> (channel * 8)));
+                        }
+                    }
+                }
+            }
+        }
+        return pixelBuffer;
+    }
+
+    private static void decodeBC1(final ByteBuffer blocks, final int offset, final int[] texels, final boolean punchthroughAlpha, final boolean alwaysFourColors) {
+        final int color0 = blocks.getShort(offset) & 0xFFFF;
+        final int color1 = blocks.getShort(offset + 2) & 0xFFFF;
+        final int indices = blocks.getInt(offset + 4);
+        final int r0 = expand5(color0 >> 11), g0 = expand6((color0 >> 5) & 63), b0 = expand5(color0 & 31);
+        final int r1 = expand5(color1 >> 11), g1 = expand6((color1 >> 5) & 63), b1 = expand5(color1 & 31);
+        final int[] palette = new int[4];
+        palette[0] = rgba(r0, g0, b0, 255);
+        palette[1] = rgba(r1, g1, b1, 255);
+        if (color0 > color1 || alwaysFourColors) {
+            palette[2] = rgba((2 * r0 + r1) / 3, (2 * g0 + g1) / 3, (2 * b0 + b1) / 3, 255);
+            palette[3] = rgba((r0 + 2 * r1) / 3, (g0 + 2 * g1) / 3, (b0 + 2 * b1) / 3, 255);
+        } else {
+            palette[2] = rgba((r0 + r1) / 2, (g0 + g1) / 2, (b0 + b1) / 2, 255);
+            palette[3] = punchthroughAlpha ? 0 : rgba(0, 0, 0, 255);
+        }
+        for (int i = 0; i < 16; i++) {
+            texels[i] = palette[(indices >>> (i * 2)) & 3];
+        }
+    }
+
+    private static void decodeBC4Channel(final ByteBuffer blocks, final int offset, final int[] texels, final int shift) {
+        final int value0 = blocks.get(offset) & 0xFF;
+        final int value1 = blocks.get(offset + 1) & 0xFF;
+        long indices = 0;
+        for (int i = 0; i < 6; i++) {
+            indices |= (long) (blocks.get(offset + 2 + i) & 0xFF) << (i * 8);
+        }
+        final int[] palette = new int[8];
+        palette[0] = value0;
+        palette[1] = value1;
+        if (value0 > value1) {
+            for (int i = 2; i < 8; i++) {
+                palette[i] = ((8 - i) * value0 + (i - 1) * value1) / 7;
+            }
+        } else {
+            for (int i = 2; i < 6; i++) {
+                palette[i] = ((6 - i) * value0 + (i - 1) * value1) / 5;
+            }
+            palette[6] = 0;
+            palette[7] = 255;
+        }
+        for (int i = 0; i < 16; i++) {
+            texels[i] = (texels[i] & ~(0xFF << shift)) | palette[(int) (indices >>> (i * 3)) & 7] << shift;
+        }
+    }
+
+    private static void decodeETC2(final long block, final int[] texels, final boolean punchthroughAlpha) {
+        final int high = (int) (block >>> 32);
+        final int low = (int) block;
+        final boolean differential = punchthroughAlpha || ((high >>> 1) & 1) != 0;
+        final boolean opaque = !punchthroughAlpha || ((high >>> 1) & 1) != 0;
+
+        if (!differential) {
+            final int[] base1 = {expand4((high >>> 28) & 15), expand4((high >>> 20) & 15), expand4((high >>> 12) & 15)};
+            final int[] base2 = {expand4((high >>> 24) & 15), expand4((high >>> 16) & 15), expand4((high >>> 8) & 15)};
+            decodeETC1SubBlocks(high, low, base1, base2, texels, true);
+            return;
+        }
+
+        final int r = (high >>> 27) & 31, dr = signExtend3((high >>> 24) & 7);
+        final int g = (high >>> 19) & 31, dg = signExtend3((high >>> 16) & 7);
+        final int b = (high >>> 11) & 31, db = signExtend3((high >>> 8) & 7);
+        if (r + dr < 0 || r + dr > 31) { // T mode
+            final int r1 = expand4((((high >>> 27) & 3) << 2) | ((high >>> 24) & 3));
+            final int g1 = expand4((high >>> 20) & 15), b1 = expand4((high >>> 16) & 15);
+            final int r2 = expand4((high >>> 12) & 15), g2 = expand4((high >>> 8) & 15), b2 = expand4((high >>> 4) & 15);
+            final int distance = ETC2_DISTANCES[(((high >>> 2) & 3) << 1) | (high & 1)];
+            final int[] palette = {
+                    rgba(r1, g1, b1, 255),
+                    rgba(clamp(r2 + distance), clamp(g2 + distance), clamp(b2 + distance), 255),
+                    rgba(r2, g2, b2, 255),
+                    rgba(clamp(r2 - distance), clamp(g2 - distance), clamp(b2 - distance), 255)
+            };
+            decodePaletteIndices(low, palette, texels, opaque);
+        } else if (g + dg < 0 || g + dg > 31) { // H mode
+            final int r1 = (high >>> 27) & 15;
+            final int g1 = (((high >>> 24) & 7) << 1) | ((high >>> 20) & 1);
+            final int b1 = (((high >>> 19) & 1) << 3) | (((high >>> 16) & 3) << 1) | ((high >>> 15) & 1);
+            final int r2 = (high >>> 11) & 15;
+            final int g2 = (high >>> 7) & 15;
+            final int b2 = (high >>> 3) & 15;
+            final int distanceIndex = (((high >>> 2) & 1) << 2) | ((high & 1) << 1) | (((r1 << 8) | (g1 << 4) | b1) >= ((r2 << 8) | (g2 << 4) | b2) ? 1 : 0);
+            final int distance = ETC2_DISTANCES[distanceIndex];
+            final int er1 = expand4(r1), eg1 = expand4(g1), eb1 = expand4(b1);
+            final int er2 = expand4(r2), eg2 = expand4(g2), eb2 = expand4(b2);
+            final int[] palette = {
+                    rgba(clamp(er1 + distance), clamp(eg1 + distance), clamp(eb1 + distance), 255),
+                    rgba(clamp(er1 - distance), clamp(eg1 - distance), clamp(eb1 - distance), 255),
+                    rgba(clamp(er2 + distance), clamp(eg2 + distance), clamp(eb2 + distance), 255),
+                    rgba(clamp(er2 - distance), clamp(eg2 - distance), clamp(eb2 - distance), 255)
+            };
+            decodePaletteIndices(low, palette, texels, opaque);
+        } else if (b + db < 0 || b + db > 31) { // Planar mode
+            final int ro = expand6((int) (block >>> 57) & 63);
+            final int go = expand7((int) (((block >>> 56) & 1) << 6 | ((block >>> 49) & 63)));
+            final int bo = expand6((int) (((block >>> 48) & 1) << 5 | ((block >>> 43) & 3) << 3 | ((block >>> 39) & 7)));
+            final int rh = expand6((int) (((block >>> 34) & 31) << 1 | ((block >>> 32) & 1)));
+            final int gh = expand7((int) (block >>> 25) & 127);
+            final int bh = expand6((int) (block >>> 19) & 63);
+            final int rv = expand6((int) (block >>> 13) & 63);
+            final int gv = expand7((int) (block >>> 6) & 127);
+            final int bv = expand6((int) block & 63);
+            for (int y = 0; y < 4; y++) {
+                for (int x = 0; x < 4; x++) {
+                    texels[y * 4 + x] = rgba(
+                            clamp((x * (rh - ro) + y * (rv - ro) + 4 * ro + 2) >> 2),
+                            clamp((x * (gh - go) + y * (gv - go) + 4 * go + 2) >> 2),
+                            clamp((x * (bh - bo) + y * (bv - bo) + 4 * bo + 2) >> 2),
+                            255
+                    );
+                }
+            }
+        } else { // Differential mode
+            final int[] base1 = {expand5(r), expand5(g), expand5(b)};
+            final int[] base2 = {expand5(r + dr), expand5(g + dg), expand5(b + db)};
+            decodeETC1SubBlocks(high, low, base1, base2, texels, opaque);
+        }
+    }
+
+    private static void decodeETC1SubBlocks(final int high, final int low, final int[] base1, final int[] base2, final int[] texels, final boolean opaque) {
+        final boolean flip = (high & 1) != 0;
+        final int[] modifiers1 = ETC1_MODIFIERS[(high >>> 5) & 7];
+        final int[] modifiers2 = ETC1_MODIFIERS[(high >>> 2) & 7];
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                final boolean secondSubBlock = flip ? y >= 2 : x >= 2;
+                final int[] base = secondSubBlock ? base2 : base1;
+                final int[] modifiers = secondSubBlock ? modifiers2 : modifiers1;
+                final int bitIndex = x * 4 + y;
+                final int index = (((low >>> (16 + bitIndex)) & 1) << 1) | ((low >>> bitIndex) & 1);
+                if (!opaque && index == 2) {
+                    texels[y * 4 + x] = 0;
+                    continue;
+                }
+                final int modifier = switch (index) {
+                    case 0 -> opaque ? modifiers[0] : 0;
+                    case 1 -> modifiers[1];
+                    case 2 -> -modifiers[0];
+                    default -> -modifiers[1];
+                };
+                texels[y * 4 + x] = rgba(clamp(base[0] + modifier), clamp(base[1] + modifier), clamp(base[2] + modifier), 255);
+            }
+        }
+    }
+
+    private static void decodePaletteIndices(final int low, final int[] palette, final int[] texels, final boolean opaque) {
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                final int bitIndex = x * 4 + y;
+                final int index = (((low >>> (16 + bitIndex)) & 1) << 1) | ((low >>> bitIndex) & 1);
+                texels[y * 4 + x] = !opaque && index == 2 ? 0 : palette[index];
+            }
+        }
+    }
+
+    private static void decodeEACChannel(final long block, final int[] texels, final int shift, final boolean elevenBit) {
+        final int base = (int) (block >>> 56) & 0xFF;
+        final int multiplier = (int) (block >>> 52) & 15;
+        final int[] modifiers = EAC_MODIFIERS[(int) (block >>> 48) & 15];
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                final int modifier = modifiers[(int) (block >>> (45 - (x * 4 + y) * 3)) & 7];
+                final int value;
+                if (elevenBit) {
+                    final int value11 = multiplier != 0 ? base * 8 + 4 + modifier * multiplier * 8 : base * 8 + 4 + modifier;
+                    value = Math.max(0, Math.min(2047, value11)) >> 3;
+                } else {
+                    value = clamp(base + modifier * multiplier);
+                }
+                texels[y * 4 + x] = (texels[y * 4 + x] & ~(0xFF << shift)) | value << shift;
+            }
+        }
+    }
+
+    private static long readBigEndianLong(final ByteBuffer blocks, final int offset) {
+        return Long.reverseBytes(blocks.getLong(offset));
+    }
+
+    private static void fill(final int[] texels, final int value) {
+        for (int i = 0; i < texels.length; i++) {
+            texels[i] = value;
+        }
+    }
+
+    private static int rgba(final int r, final int g, final int b, final int a) {
+        return r | g << 8 | b << 16 | a << 24;
+    }
+
+    private static int clamp(final int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static int signExtend3(final int value) {
+        return (value << 29) >> 29;
+    }
+
+    private static int expand4(final int value) {
+        return (value << 4) | value;
+    }
+
+    private static int expand5(final int value) {
+        return (value << 3) | (value >> 2);
+    }
+
+    private static int expand6(final int value) {
+        return (value << 2) | (value >> 4);
+    }
+
+    private static int expand7(final int value) {
+        return (value << 1) | (value >> 6);
+    }
+
+}
@@ -0,0 +1,360 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.texture;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.texture.AbstractTexture;
+import net.raphimc.thingl.resource.texture.Texture2D;
+import net.raphimc.thingl.util.BufferUtil;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Loads textures from KTX2 and DDS containers including their precompressed mip map levels.<br>
+ * If the driver doesn't support the compressed format of a container the texture is decoded on the CPU (See {@link BlockCompressionDecoder}).
+ */
+public class CompressedTextureLoader {
+
+    private static final byte[] KTX2_IDENTIFIER = {(byte) 0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte) 0xBB, '\r', '\n', 0x1A, '\n'};
+    private static final int DDS_MAGIC = 0x20534444; // "DDS "
+    private static final int DDS_HEADER_FLAG_MIPMAPCOUNT = 0x20000;
+    private static final int DDS_PIXEL_FORMAT_FLAG_FOURCC = 0x4;
+    private static final int DDS_PIXEL_FORMAT_FLAG_RGB = 0x40;
+
+    private static final Int2ObjectMap<AbstractTexture.InternalFormat> VK_FORMATS = new Int2ObjectOpenHashMap<>();
+    private static final Int2ObjectMap<AbstractTexture.InternalFormat> DXGI_FORMATS = new Int2ObjectOpenHashMap<>();
+    private static final Int2ObjectMap<AbstractTexture.InternalFormat> DDS_FOURCC_FORMATS = new Int2ObjectOpenHashMap<>();
+
+    static {
+        VK_FORMATS.put(9, AbstractTexture.InternalFormat.R8); // VK_FORMAT_R8_UNORM
+        VK_FORMATS.put(16, AbstractTexture.InternalFormat.RG8); // VK_FORMAT_R8G8_UNORM
+        VK_FORMATS.put(23, AbstractTexture.InternalFormat.RGB8); // VK_FORMAT_R8G8B8_UNORM
+        VK_FORMATS.put(37, AbstractTexture.InternalFormat.RGBA8); // VK_FORMAT_R8G8B8A8_UNORM
+        VK_FORMATS.put(131, AbstractTexture.InternalFormat.BC1_RGB); // VK_FORMAT_BC1_RGB_UNORM_BLOCK
+        VK_FORMATS.put(133, AbstractTexture.InternalFormat.BC1_RGBA); // VK_FORMAT_BC1_RGBA_UNORM_BLOCK
+        VK_FORMATS.put(135, AbstractTexture.InternalFormat.BC2); // VK_FORMAT_BC2_UNORM_BLOCK
+        VK_FORMATS.put(137, AbstractTexture.InternalFormat.BC3); // VK_FORMAT_BC3_UNORM_BLOCK
+        VK_FORMATS.put(139, AbstractTexture.InternalFormat.BC4); // VK_FORMAT_BC4_UNORM_BLOCK
+        VK_FORMATS.put(141, AbstractTexture.InternalFormat.BC5); // VK_FORMAT_BC5_UNORM_BLOCK
+        VK_FORMATS.put(143, AbstractTexture.InternalFormat.BC6H); // VK_FORMAT_BC6H_UFLOAT_BLOCK
+        VK_FORMATS.put(145, AbstractTexture.InternalFormat.BC7); // VK_FORMAT_BC7_UNORM_BLOCK
+        VK_FORMATS.put(147, AbstractTexture.InternalFormat.ETC2_RGB8); // VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK
+        VK_FORMATS.put(149, AbstractTexture.InternalFormat.ETC2_RGB8_A1); // VK_FORMAT_ETC2_R8G8B8A1_UNORM_BLOCK
+        VK_FORMATS.put(151, AbstractTexture.InternalFormat.ETC2_RGBA8); // VK_FORMAT_ETC2_R8G8B8A8_UNORM_BLOCK
+        VK_FORMATS.put(153, AbstractTexture.InternalFormat.EAC_R11); // VK_FORMAT_EAC_R11_UNORM_BLOCK
+        VK_FORMATS.put(155, AbstractTexture.InternalFormat.EAC_RG11); // VK_FORMAT_EAC_R11G11_UNORM_BLOCK
+        VK_FORMATS.put(157, AbstractTexture.InternalFormat.ASTC_4x4); // VK_FORMAT_ASTC_4x4_UNORM_BLOCK
+        VK_FORMATS.put(161, AbstractTexture.InternalFormat.ASTC_5x5); // VK_FORMAT_ASTC_5x5_UNORM_BLOCK
+        VK_FORMATS.put(165, AbstractTexture.InternalFormat.ASTC_6x6); // VK_FORMAT_ASTC_6x6_UNORM_BLOCK
+        VK_FORMATS.put(171, AbstractTexture.InternalFormat.ASTC_8x8); // VK_FORMAT_ASTC_8x8_UNORM_BLOCK
+        VK_FORMATS.put(179, AbstractTexture.InternalFormat.ASTC_10x10); // VK_FORMAT_ASTC_10x10_UNORM_BLOCK
+        VK_FORMATS.put(183, AbstractTexture.InternalFormat.ASTC_12x12); // VK_FORMAT_ASTC_12x12_UNORM_BLOCK
+
+        DXGI_FORMATS.put(28, AbstractTexture.InternalFormat.RGBA8); // DXGI_FORMAT_R8G8B8A8_UNORM
+        DXGI_FORMATS.put(71, AbstractTexture.InternalFormat.BC1_RGBA); // DXGI_FORMAT_BC1_UNORM
+        DXGI_FORMATS.put(74, AbstractTexture.InternalFormat.BC2); // DXGI_FORMAT_BC2_UNORM
+        DXGI_FORMATS.put(77, AbstractTexture.InternalFormat.BC3); // DXGI_FORMAT_BC3_UNORM
+        DXGI_FORMATS.put(80, AbstractTexture.InternalFormat.BC4); // DXGI_FORMAT_BC4_UNORM
+        DXGI_FORMATS.put(83, AbstractTexture.InternalFormat.BC5); // DXGI_FORMAT_BC5_UNORM
+        DXGI_FORMATS.put(95, AbstractTexture.InternalFormat.BC6H); // DXGI_FORMAT_BC6H_UF16
+        DXGI_FORMATS.put(98, AbstractTexture.InternalFormat.BC7); // DXGI_FORMAT_BC7_UNORM
+
+        DDS_FOURCC_FORMATS.put(fourCC("DXT1"), AbstractTexture.InternalFormat.BC1_RGBA);
+        DDS_FOURCC_FORMATS.put(fourCC("DXT3"), AbstractTexture.InternalFormat.BC2);
+        DDS_FOURCC_FORMATS.put(fourCC("DXT5"), AbstractTexture.InternalFormat.BC3);
+        DDS_FOURCC_FORMATS.put(fourCC("ATI1"), AbstractTexture.InternalFormat.BC4);
+        DDS_FOURCC_FORMATS.put(fourCC("BC4U"), AbstractTexture.InternalFormat.BC4);
+        DDS_FOURCC_FORMATS.put(fourCC("ATI2"), AbstractTexture.InternalFormat.BC5);
+        DDS_FOURCC_FORMATS.put(fourCC("BC5U"), AbstractTexture.InternalFormat.BC5);
+    }
+
+    public static boolean isKtx2(final byte[] data) {
+        if (data.length < KTX2_IDENTIFIER.length) {
+            return false;
+        }
+        for (int i = 0; i < KTX2_IDENTIFIER.length; i++) {
+            if (data[i] != KTX2_IDENTIFIER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isDds(final byte[] data) {
+        return data.length >= 4 && (data[0] & 0xFF | (data[1] & 0xFF) << 8 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 24) == DDS_MAGIC;
+    }
+
+    /**
+     * Loads a texture from a KTX2 or DDS container.
+     *
+     * @param data The container data
+     * @return The texture
+     */
+    public static Texture2D load(final byte[] data) {
+        final ContainerImage image = read(data);
+        try {
+            return createTexture(image);
+        } finally {
+            image.free();
+        }
+    }
+
+    /**
+     * Parses a KTX2 or DDS container. Can be called from any thread.
+     *
+     * @param data The container data
+     * @return The parsed image. Has to be freed by the caller.
+     */
+    public static ContainerImage read(final byte[] data) {
+        final ByteBuffer buffer = MemoryUtil.memAlloc(data.length).put(data).flip().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (isKtx2(data)) {
+                return readKtx2(buffer);
+            } else if (isDds(data)) {
+                return readDds(buffer);
+            } else {
+                throw new IllegalArgumentException("Unknown texture container format");
+            }
+        } catch (Throwable e) {
+            BufferUtil.memFree(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a texture from the given image. If the compressed format isn't supported by the driver, the image is decoded on the CPU.
+     *
+     * @param image The image
+     * @return The texture
+     */
+    public static Texture2D createTexture(final ContainerImage image) {
+        final AbstractTexture.InternalFormat internalFormat = image.internalFormat();
+        int mipMapLevels = image.mipMapLevels().length;
+        if (de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            mipMapLevels = 1; // FlorianMichael - add macOS support
+        } // FlorianMichael - add macOS support
+
+        final Texture2D texture;
+        if (!internalFormat.isCompressed()) {
+            texture = new Texture2D(internalFormat, image.width(), image.height(), mipMapLevels);
+            try {
+                final AbstractTexture.PixelFormat pixelFormat = switch (internalFormat.getChannelCount()) {
+                    case 1 -> AbstractTexture.PixelFormat.R;
+                    case 2 -> AbstractTexture.PixelFormat.RG;
+                    case 3 -> AbstractTexture.PixelFormat.RGB;
+                    default -> AbstractTexture.PixelFormat.RGBA;
+                };
+                for (int level = 0; level < mipMapLevels; level++) {
+                    texture.uploadMipMapPixels(level, 0, 0, texture.getWidth(level), texture.getHeight(level), pixelFormat, image.mipMapLevels()[level]);
+                }
+            } catch (Throwable e) {
+                texture.free();
+                throw e;
+            }
+        } else if (ThinGL.capabilities().supportsInternalFormat(internalFormat)) {
+            texture = new Texture2D(internalFormat, image.width(), image.height(), mipMapLevels);
+            try {
+                for (int level = 0; level < mipMapLevels; level++) {
+                    texture.uploadCompressedPixels(level, 0, 0, texture.getWidth(level), texture.getHeight(level), image.mipMapLevels()[level]);
+                }
+            } catch (Throwable e) {
+                texture.free();
+                throw e;
+            }
+        } else if (BlockCompressionDecoder.canDecode(internalFormat)) {
+            ThinGL.LOGGER.warn(internalFormat.getDisplayName() + " textures are not supported by the driver. Decoding on the CPU.");
+            texture = new Texture2D(BlockCompressionDecoder.getDecodedFormat(internalFormat), image.width(), image.height(), mipMapLevels);
+            try {
+                for (int level = 0; level < mipMapLevels; level++) {
+                    final ByteBuffer pixelBuffer = BlockCompressionDecoder.decode(internalFormat, texture.getWidth(level), texture.getHeight(level), image.mipMapLevels()[level]);
+                    try {
+                        texture.uploadMipMapPixels(level, 0, 0, texture.getWidth(level), texture.getHeight(level), BlockCompressionDecoder.getDecodedPixelFormat(internalFormat), pixelBuffer);
+                    } finally {
+                        BufferUtil.memFree(pixelBuffer);
+                    }
+                }
+            } catch (Throwable e) {
+                texture.free();
+                throw e;
+            }
+        } else {
+            throw new UnsupportedOperationException(internalFormat.getDisplayName() + " textures are not supported by the driver and can't be decoded on the CPU");
+        }
+        if (mipMapLevels > 1) {
+            texture.setMinificationFilter(GL11C.GL_LINEAR_MIPMAP_LINEAR);
+        }
+        return texture;
+    }
+
+    private static ContainerImage readKtx2(final ByteBuffer buffer) {
+        if (buffer.remaining() < 80) {
+            throw new IllegalArgumentException("KTX2 header is truncated");
+        }
+        final int vkFormat = buffer.getInt(12);
+        final int width = buffer.getInt(20);
+        final int height = buffer.getInt(24);
+        final int depth = buffer.getInt(28);
+        final int layerCount = buffer.getInt(32);
+        final int faceCount = buffer.getInt(36);
+        final int levelCount = Math.max(1, buffer.getInt(40));
+        final int supercompressionScheme = buffer.getInt(44);
+        if (depth > 1 || layerCount > 1 || faceCount != 1) {
+            throw new UnsupportedOperationException("Only 2D KTX2 textures are supported");
+        }
+        if (supercompressionScheme != 0) {
+            throw new UnsupportedOperationException("Supercompressed KTX2 textures are not supported");
+        }
+        final AbstractTexture.InternalFormat internalFormat = VK_FORMATS.get(vkFormat);
+        if (internalFormat == null) {
+            throw new UnsupportedOperationException("Unsupported KTX2 format: " + vkFormat);
+        }
+        checkDimensions(width, height, levelCount, "KTX2");
+
+        final ByteBuffer[] mipMapLevels = new ByteBuffer[levelCount];
+        final int levelIndexOffset = 80;
+        if (buffer.remaining() < levelIndexOffset + levelCount * 24) {
+            throw new IllegalArgumentException("KTX2 level index is truncated");
+        }
+        for (int level = 0; level < levelCount; level++) {
+            final long byteOffset = buffer.getLong(levelIndexOffset + level * 24);
+            final long byteLength = buffer.getLong(levelIndexOffset + level * 24 + 8);
+            final int expectedLength = getLevelSize(internalFormat, Math.max(1, width >> level), Math.max(1, height >> level));
+            if (byteLength < expectedLength || byteOffset < 0 || byteOffset + expectedLength > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid KTX2 level " + level);
+            }
+            mipMapLevels[level] = buffer.slice((int) byteOffset, expectedLength);
+        }
+        return new ContainerImage(internalFormat, width, height, mipMapLevels, buffer);
+    }
+
+    private static ContainerImage readDds(final ByteBuffer buffer) {
+        if (buffer.remaining() < 128) {
+            throw new IllegalArgumentException("DDS header is truncated");
+        }
+        if (buffer.getInt(4) != 124) {
+            throw new IllegalArgumentException("Invalid DDS header");
+        }
+        final int flags = buffer.getInt(8);
+        final int height = buffer.getInt(12);
+        final int width = buffer.getInt(16);
+        final int levelCount = (flags & DDS_HEADER_FLAG_MIPMAPCOUNT) != 0 ? Math.max(1, buffer.getInt(28)) : 1;
+        final int pixelFormatFlags = buffer.getInt(80);
+        final int fourCC = buffer.getInt(84);
+        int dataOffset = 128;
+
+        final AbstractTexture.InternalFormat internalFormat;
+        boolean swizzleBgra = false;
+        if ((pixelFormatFlags & DDS_PIXEL_FORMAT_FLAG_FOURCC) != 0) {
+            if (fourCC == fourCC("DX10")) {
+                if (buffer.remaining() < 148) {
+                    throw new IllegalArgumentException("DDS DX10 header is truncated");
+                }
+                final int dxgiFormat = buffer.getInt(128);
+                final int arraySize = buffer.getInt(140);
+                if (arraySize > 1) {
+                    throw new UnsupportedOperationException("DDS texture arrays are not supported");
+                }
+                internalFormat = DXGI_FORMATS.get(dxgiFormat);
+                if (internalFormat == null) {
+                    throw new UnsupportedOperationException("Unsupported DDS DXGI format: " + dxgiFormat);
+                }
+                dataOffset += 20;
+            } else {
+                internalFormat = DDS_FOURCC_FORMATS.get(fourCC);
+                if (internalFormat == null) {
+                    throw new UnsupportedOperationException("Unsupported DDS FourCC: " + fourCC);
+                }
+            }
+        } else if ((pixelFormatFlags & DDS_PIXEL_FORMAT_FLAG_RGB) != 0 && buffer.getInt(88) == 32) {
+            final int redMask = buffer.getInt(92);
+            if (redMask == 0x000000FF) {
+                internalFormat = AbstractTexture.InternalFormat.RGBA8;
+            } else if (redMask == 0x00FF0000) {
+                internalFormat = AbstractTexture.InternalFormat.RGBA8;
+                swizzleBgra = true;
+            } else {
+                throw new UnsupportedOperationException("Unsupported DDS pixel layout");
+            }
+        } else {
+            throw new UnsupportedOperationException("Unsupported DDS pixel format");
+        }
+        checkDimensions(width, height, levelCount, "DDS");
+
+        final ByteBuffer[] mipMapLevels = new ByteBuffer[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            final int levelSize = getLevelSize(internalFormat, Math.max(1, width >> level), Math.max(1, height >> level));
+            if ((long) dataOffset + levelSize > buffer.remaining()) {
+                throw new IllegalArgumentException("DDS file is truncated");
+            }
+            mipMapLevels[level] = buffer.slice(dataOffset, levelSize);
+            if (swizzleBgra) {
+                for (int i = 0; i < levelSize; i += 4) {
+                    final byte blue = buffer.get(dataOffset + i);
+                    buffer.put(dataOffset + i, buffer.get(dataOffset + i + 2));
+                    buffer.put(dataOffset + i + 2, blue);
+                }
+            }
+            dataOffset += levelSize;
+        }
+        return new ContainerImage(internalFormat, width, height, mipMapLevels, buffer);
+    }
+
+    private static void checkDimensions(final int width, final int height, final int levelCount, final String containerName) {
+        if (width <= 0 || height <= 0 || (long) width * height * 16 > Integer.MAX_VALUE) { // 16 bytes per pixel covers every supported format including partial blocks
+            throw new IllegalArgumentException("Invalid " + containerName + " texture size: " + width + "x" + height);
+        }
+        if (levelCount > 32 - Integer.numberOfLeadingZeros(Math.max(width, height))) {
+            throw new IllegalArgumentException("Invalid " + containerName + " mip map level count: " + levelCount);
+        }
+    }
+
+    private static int getLevelSize(final AbstractTexture.InternalFormat internalFormat, final int width, final int height) {
+        if (internalFormat.isCompressed()) {
+            return internalFormat.getCompressedSize(width, height);
+        } else {
+            return width * height * internalFormat.getChannelCount();
+        }
+    }
+
+    private static int fourCC(final String fourCC) {
+        return fourCC.charAt(0) | fourCC.charAt(1) << 8 | fourCC.charAt(2) << 16 | fourCC.charAt(3) << 24;
+    }
+
+    /**
+     * A parsed texture container.
+     *
+     * @param internalFormat The format of the pixel data
+     * @param width The width of the base level
+     * @param height The height of the base level
+     * @param mipMapLevels The pixel data of each mip map level, starting with the base level
+     * @param data The buffer backing the mip map levels
+     */
+    public record ContainerImage(AbstractTexture.InternalFormat internalFormat, int width, int height, ByteBuffer[] mipMapLevels, ByteBuffer data) {
+
+        public void free() {
+            BufferUtil.memFree(this.data);
+        }
+
+    }
+
+}
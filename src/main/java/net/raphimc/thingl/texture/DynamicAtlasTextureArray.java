@@ -0,0 +1,149 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.raphimc.thingl.texture;
+
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.texture.AbstractTexture;
+import net.raphimc.thingl.resource.texture.Texture2DArray;
+import net.raphimc.thingl.util.rectpack.DynamicRectanglePacker;
+import net.raphimc.thingl.util.rectpack.Slot;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL13C;
+import org.lwjgl.opengl.GL43C;
+import org.lwjgl.opengl.GL44C;
+import org.lwjgl.opengl.GL45C;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Texture atlas backed by a single {@link Texture2DArray} which grows by copying its layers into a larger texture array.<br>
+ * The underlying texture changes when the atlas grows, so it should be queried with {@link #getTexture()} every time it gets bound.
+ */
+public class DynamicAtlasTextureArray {
+
+    private final AbstractTexture.InternalFormat internalFormat;
+    private final int width;
+    private final int height;
+    private final List<DynamicRectanglePacker> rectanglePackers = new ArrayList<>();
+    private Texture2DArray texture;
+
+    public DynamicAtlasTextureArray(final AbstractTexture.InternalFormat internalFormat, final int width, final int height) {
+        this.internalFormat = internalFormat;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Adds a new empty layer to the atlas. Grows the underlying texture array if needed.
+     *
+     * @return The index of the new layer
+     */
+    public int addLayer() {
+        final int layer = this.rectanglePackers.size();
+        if (this.texture == null || layer >= this.texture.getLayers()) {
+            final int maxLayers = ThinGL.capabilities().getMaxArrayTextureLayers();
+            if (layer >= maxLayers) {
+                throw new IllegalStateException("Atlas can't have more than " + maxLayers + " layers");
+            }
+            this.grow(Math.min(Math.max(layer * 2, 1), maxLayers));
+        }
+        this.rectanglePackers.add(new DynamicRectanglePacker(this.width, this.height));
+        return layer;
+    }
+
+    public Slot addSlot(final int layer, final int width, final int height, final AbstractTexture.PixelFormat pixelFormat, final ByteBuffer pixels) {
+        final Slot slot = this.rectanglePackers.get(layer).pack(width, height);
+        if (slot == null) {
+            return null;
+        }
+
+        this.texture.uploadPixels(slot.x(), slot.y(), layer, width, height, pixelFormat, pixels);
+        return slot;
+    }
+
+    /**
+     * Reserves a slot without uploading any pixels. Useful to fill multiple slots with a single upload.
+     *
+     * @param layer The layer to reserve the slot in
+     * @param width The width of the slot
+     * @param height The height of the slot
+     * @return The slot or null if there is no space left in the layer
+     */
+    public Slot reserveSlot(final int layer, final int width, final int height) {
+        return this.rectanglePackers.get(layer).pack(width, height);
+    }
+
+    /**
+     * Frees a slot and clears its pixels (Including the padding), so that filtering at the edges of slots packed into the freed space doesn't pick up stale pixels.
+     *
+     * @param layer The layer of the slot
+     * @param slot The slot to free
+     */
+    public void removeSlot(final int layer, final Slot slot) {
+        GL44C.glClearTexSubImage(this.texture.getGlId(), 0, slot.x(), slot.y(), layer, Math.min(slot.width() + 1, this.width - slot.x()), Math.min(slot.height() + 1, this.height - slot.y()), 1, GL11C.GL_RGBA, GL11C.GL_UNSIGNED_BYTE, (ByteBuffer) null);
+        this.rectanglePackers.get(layer).free(slot);
+    }
+
+    public void uploadLayer(final int layer, final AbstractTexture.PixelFormat pixelFormat, final ByteBuffer pixels) {
+        this.texture.uploadPixels(0, 0, layer, this.width, this.height, pixelFormat, pixels);
+    }
+
+    public Texture2DArray getTexture() {
+        return this.texture;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getLayerCount() {
+        return this.rectanglePackers.size();
+    }
+
+    public float getOccupancy(final int layer) {
+        return this.rectanglePackers.get(layer).getOccupancy();
+    }
+
+    public void free() {
+        if (this.texture != null) {
+            this.texture.free();
+            this.texture = null;
+        }
+        this.rectanglePackers.clear();
+    }
+
+    private void grow(final int layers) {
+        final Texture2DArray newTexture = new Texture2DArray(this.internalFormat, this.width, this.height, layers);
+        newTexture.setWrap(GL13C.GL_CLAMP_TO_BORDER);
+        GL45C.glTextureParameterfv(newTexture.getGlId(), GL11C.GL_TEXTURE_BORDER_COLOR, new float[4]);
+        GL44C.glClearTexImage(newTexture.getGlId(), 0, GL11C.GL_RGBA, GL11C.GL_UNSIGNED_BYTE, (ByteBuffer) null);
+        if (this.texture != null) {
+            GL43C.glCopyImageSubData(this.texture.getGlId(), this.texture.getType(), 0, 0, 0, 0, newTexture.getGlId(), newTexture.getType(), 0, 0, 0, 0, this.width, this.height, this.texture.getLayers());
+            this.texture.free();
+        }
+        this.texture = newTexture;
+    }
+
+}
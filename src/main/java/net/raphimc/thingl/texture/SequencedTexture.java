@@ -25,16 +25,15 @@ import net.raphimc.thingl.resource.texture.Texture2DArray;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 
 public class SequencedTexture extends Texture2DArray {
 
-    private final NavigableMap<Integer, Integer> frameTimes = new TreeMap<>();
+    private final int[] frameTimes;
+    private int duration;
 
     public SequencedTexture(final InternalFormat internalFormat, final int width, final int height, final int frameCount) {
         super(internalFormat, width, height, frameCount);
-        this.frameTimes.put(0, 0);
+        this.frameTimes = new int[frameCount];
     }
 
     public static SequencedTexture fromGif(final byte[] imageData) throws IOException {
@@ -50,7 +49,7 @@ public class SequencedTexture extends Texture2DArray {
                 frameCount = ThinGL.capabilities().getMaxArrayTextureLayers();
             }
             final SequencedTexture sequencedTexture = new SequencedTexture(InternalFormat.RGBA8, gifReader.getMetadata().getWidth(), gifReader.getMetadata().getHeight(), frameCount);
-            int relativeTime = 0;
+            final int[] frameDelays = new int[frameCount];
             while (gifReader.hasRemaining()) {
                 final GifFrame frame = gifReader.read();
                 final int frameIndex = frame.getIndex();
@@ -58,28 +57,68 @@ public class SequencedTexture extends Texture2DArray {
                     break;
                 }
                 sequencedTexture.uploadPixels(0, 0, frameIndex, frame.getWidth(), frame.getHeight(), PixelFormat.BGRA, frame.getData(), false);
-                sequencedTexture.getFrameTimes().put(relativeTime, frameIndex);
-                relativeTime += frame.getDelay() * 10;
+                frameDelays[frameIndex] = frame.getDelay() * 10;
             }
-            sequencedTexture.getFrameTimes().put(relativeTime, frameCount - 1);
+            sequencedTexture.setFrameDelays(frameDelays);
             return sequencedTexture;
         }
     }
 
     public int getFrame(final int time) {
-        if (this.getDuration() != 0) {
-            return this.frameTimes.floorEntry(time % this.getDuration()).getValue();
+        if (this.duration != 0) {
+            return findFrame(this.frameTimes, time % this.duration);
         } else {
             return 0;
         }
     }
 
+    /**
+     * Sets how long each frame is shown.
+     *
+     * @param frameDelays The delay of each frame in milliseconds
+     */
+    public void setFrameDelays(final int[] frameDelays) {
+        if (frameDelays.length != this.frameTimes.length) {
+            throw new IllegalArgumentException("Frame delay count does not match the frame count");
+        }
+        this.duration = computeFrameTimes(frameDelays, this.frameTimes);
+    }
+
     public int getDuration() {
-        return this.frameTimes.lastKey();
+        return this.duration;
     }
 
-    public NavigableMap<Integer, Integer> getFrameTimes() {
+    /**
+     * @return The start time of each frame in milliseconds
+     */
+    public int[] getFrameTimes() {
         return this.frameTimes;
     }
 
+    static int computeFrameTimes(final int[] frameDelays, final int[] frameTimes) {
+        int relativeTime = 0;
+        for (int i = 0; i < frameDelays.length; i++) {
+            frameTimes[i] = relativeTime;
+            relativeTime += frameDelays[i];
+        }
+        return relativeTime;
+    }
+
+    /**
+     * @return The index of the last frame which starts at or before the given time
+     */
+    static int findFrame(final int[] frameTimes, final int time) {
+        int low = 0;
+        int high = frameTimes.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (frameTimes[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
 }
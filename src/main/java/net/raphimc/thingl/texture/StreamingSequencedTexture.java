@@ -0,0 +1,201 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.texture;
+
+import net.raphimc.thingl.resource.texture.Texture2DArray;
+import net.raphimc.thingl.util.BufferUtil;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Animated texture which decodes its frames lazily into a small ring of texture layers.<br>
+ * Unlike {@link SequencedTexture} only a few frames are resident in VRAM at a time and the load time doesn't depend on the frame count.
+ * Frames are decoded on the render thread when {@link #getFrame(int)} is called, one frame is prefetched per call while the ring has free layers.
+ */
+public class StreamingSequencedTexture extends Texture2DArray {
+
+    public static final int DEFAULT_RING_SIZE = 3;
+
+    private final FrameDecoder frameDecoder;
+    private final int[] frameTimes;
+    private final int duration;
+    private final int[] layerFrames;
+    private final ByteBuffer pixelBuffer;
+    private int decodedFrame = -1;
+    private int nextLayer;
+
+    public StreamingSequencedTexture(final FrameDecoder frameDecoder) {
+        this(frameDecoder, DEFAULT_RING_SIZE);
+    }
+
+    public StreamingSequencedTexture(final FrameDecoder frameDecoder, final int ringSize) {
+        this(InternalFormat.RGBA8, frameDecoder, ringSize);
+    }
+
+    /**
+     * @param internalFormat The internal format of the texture
+     * @param frameDecoder The frame decoder. It is owned by the texture and closed when the texture is freed.
+     * @param ringSize The amount of texture layers frames are decoded into
+     */
+    public StreamingSequencedTexture(final InternalFormat internalFormat, final FrameDecoder frameDecoder, final int ringSize) {
+        super(internalFormat, frameDecoder.getWidth(), frameDecoder.getHeight(), Math.max(1, Math.min(ringSize, frameDecoder.getFrameDelays().length)));
+        try {
+            if (ringSize < 1) {
+                throw new IllegalArgumentException("Ring size must be at least 1");
+            }
+            final int[] frameDelays = frameDecoder.getFrameDelays();
+            if (frameDelays.length == 0) {
+                throw new IllegalArgumentException("Animation has no frames");
+            }
+            this.frameDecoder = frameDecoder;
+            this.frameTimes = new int[frameDelays.length];
+            this.duration = SequencedTexture.computeFrameTimes(frameDelays, this.frameTimes);
+            this.layerFrames = new int[this.getLayers()];
+            Arrays.fill(this.layerFrames, -1);
+            this.pixelBuffer = MemoryUtil.memAlloc(this.getWidth() * this.getHeight() * PixelFormat.BGRA.getChannelCount());
+        } catch (Throwable e) {
+            this.free();
+            throw e;
+        }
+    }
+
+    /**
+     * Makes sure the frame for the given time is resident and returns the layer which contains it.
+     *
+     * @param time The time in milliseconds
+     * @return The texture layer which contains the frame
+     */
+    public int getFrame(final int time) {
+        final int frame = this.duration != 0 ? SequencedTexture.findFrame(this.frameTimes, time % this.duration) : 0;
+        try {
+            int layer = this.findLayer(frame);
+            if (layer == -1) {
+                if (frame <= this.decodedFrame) {
+                    this.frameDecoder.reset();
+                    this.decodedFrame = -1;
+                }
+                while (this.decodedFrame < frame - 1) { // Skipped frames still have to be decoded to compose the following ones
+                    this.frameDecoder.decodeNextFrame();
+                    this.decodedFrame++;
+                }
+                layer = this.decodeAndUploadNextFrame();
+            } else if (this.getLayers() < this.frameTimes.length) {
+                final int framesAhead = Math.floorMod(this.decodedFrame - frame, this.frameTimes.length);
+                if (framesAhead < this.getLayers() - 1) {
+                    if (this.decodedFrame == this.frameTimes.length - 1) {
+                        this.frameDecoder.reset();
+                        this.decodedFrame = -1;
+                    }
+                    this.decodeAndUploadNextFrame();
+                }
+            } else if (this.decodedFrame < this.frameTimes.length - 1) {
+                this.decodeAndUploadNextFrame();
+            }
+            return layer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode frame " + frame, e);
+        }
+    }
+
+    public int getDuration() {
+        return this.duration;
+    }
+
+    public int getFrameCount() {
+        return this.frameTimes.length;
+    }
+
+    /**
+     * @return The start time of each frame in milliseconds
+     */
+    public int[] getFrameTimes() {
+        return this.frameTimes;
+    }
+
+    @Override
+    protected void free0() {
+        super.free0();
+        if (this.frameDecoder != null) {
+            this.frameDecoder.close();
+        }
+        if (this.pixelBuffer != null) {
+            BufferUtil.memFree(this.pixelBuffer);
+        }
+    }
+
+    private int decodeAndUploadNextFrame() throws IOException {
+        this.frameDecoder.decodeNextFrame();
+        this.decodedFrame++;
+        this.frameDecoder.getPixels(this.pixelBuffer);
+        final int layer = this.nextLayer;
+        this.nextLayer = (this.nextLayer + 1) % this.getLayers();
+        this.uploadPixelsAsync(0, 0, layer, this.getWidth(), this.getHeight(), PixelFormat.BGRA, this.pixelBuffer);
+        this.layerFrames[layer] = this.decodedFrame;
+        return layer;
+    }
+
+    private int findLayer(final int frame) {
+        for (int i = 0; i < this.layerFrames.length; i++) {
+            if (this.layerFrames[i] == frame) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the frames of an animation sequentially.
+     */
+    public interface FrameDecoder extends AutoCloseable {
+
+        int getWidth();
+
+        int getHeight();
+
+        /**
+         * @return The delay of each frame in milliseconds
+         */
+        int[] getFrameDelays();
+
+        /**
+         * Decodes the next frame and composes it onto the current image.
+         */
+        void decodeNextFrame() throws IOException;
+
+        /**
+         * Writes the current image into the given buffer as BGRA pixels (Top row first).
+         *
+         * @param pixelBuffer The pixel buffer
+         */
+        void getPixels(final ByteBuffer pixelBuffer);
+
+        /**
+         * Restarts decoding at the first frame.
+         */
+        void reset() throws IOException;
+
+        @Override
+        void close();
+
+    }
+
+}
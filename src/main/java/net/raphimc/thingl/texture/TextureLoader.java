@@ -0,0 +1,269 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.texture;
+
+import com.ibasco.image.gif.GifFrame;
+import com.ibasco.image.gif.GifImageReader;
+import com.twelvemonkeys.imageio.plugins.webp.WebPImageReaderSpi;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.texture.AbstractTexture;
+import net.raphimc.thingl.resource.texture.Texture2D;
+import net.raphimc.thingl.util.BufferUtil;
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryUtil;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decodes images on worker threads and uploads them on the render thread.<br>
+ * PNG, JPEG, GIF (First frame), BMP and TGA images are decoded using stb_image, WebP images using the TwelveMonkeys WebP reader.
+ * The returned futures complete on the render thread once the texture has been created and its upload has been submitted.
+ */
+public class TextureLoader {
+
+    private final ExecutorService decodeExecutor;
+
+    public TextureLoader() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public TextureLoader(final int threadCount) {
+        final AtomicInteger threadId = new AtomicInteger();
+        this.decodeExecutor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            final Thread thread = new Thread(runnable, "ThinGL Texture Loader #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Texture2D> loadTexture(final Path path) {
+        return this.loadTexture(AbstractTexture.InternalFormat.RGBA8, path);
+    }
+
+    public CompletableFuture<Texture2D> loadTexture(final AbstractTexture.InternalFormat internalFormat, final Path path) {
+        return this.upload(internalFormat, this.decode(() -> {
+            try {
+                return decodeImage(Files.readAllBytes(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read image file " + path, e);
+            }
+        }));
+    }
+
+    public CompletableFuture<Texture2D> loadTexture(final byte[] imageData) {
+        return this.loadTexture(AbstractTexture.InternalFormat.RGBA8, imageData);
+    }
+
+    public CompletableFuture<Texture2D> loadTexture(final AbstractTexture.InternalFormat internalFormat, final byte[] imageData) {
+        return this.upload(internalFormat, this.decode(() -> decodeImage(imageData)));
+    }
+
+    public CompletableFuture<Texture2D> loadTexture(final BufferedImage bufferedImage) {
+        return this.loadTexture(AbstractTexture.InternalFormat.RGBA8, bufferedImage);
+    }
+
+    public CompletableFuture<Texture2D> loadTexture(final AbstractTexture.InternalFormat internalFormat, final BufferedImage bufferedImage) {
+        return this.upload(internalFormat, this.decode(() -> decodeBufferedImage(bufferedImage)));
+    }
+
+    public CompletableFuture<SequencedTexture> loadSequencedTextureFromGif(final byte[] imageData) {
+        ThinGL.capabilities().ensureGifReaderPresent();
+        final int maxFrameCount = ThinGL.capabilities().getMaxArrayTextureLayers();
+        final CompletableFuture<List<GifFrame>> framesFuture = this.decode(() -> {
+            try (GifImageReader gifReader = new GifImageReader(new ByteArrayInputStream(imageData), true)) {
+                final List<GifFrame> frames = new ArrayList<>();
+                while (gifReader.hasRemaining() && frames.size() < maxFrameCount) {
+                    frames.add(gifReader.read());
+                }
+                if (gifReader.getTotalFrames() > maxFrameCount) {
+                    ThinGL.LOGGER.warn("GIF has more frames (" + gifReader.getTotalFrames() + ") than the maximum supported by the GPU (" + maxFrameCount + "). Using the maximum supported frames.");
+                }
+                if (frames.isEmpty()) {
+                    throw new IllegalArgumentException("GIF has no frames");
+                }
+                return frames;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read GIF", e);
+            }
+        });
+        return this.onRenderThread(framesFuture, frames -> {
+            final GifFrame firstFrame = frames.get(0);
+            final SequencedTexture sequencedTexture = new SequencedTexture(AbstractTexture.InternalFormat.RGBA8, firstFrame.getWidth(), firstFrame.getHeight(), frames.size());
+            try {
+                final int[] frameDelays = new int[frames.size()];
+                for (int frameIndex = 0; frameIndex < frames.size(); frameIndex++) {
+                    final GifFrame frame = frames.get(frameIndex);
+                    sequencedTexture.uploadPixels(0, 0, frameIndex, frame.getWidth(), frame.getHeight(), AbstractTexture.PixelFormat.BGRA, frame.getData(), false);
+                    frameDelays[frameIndex] = frame.getDelay() * 10;
+                }
+                sequencedTexture.setFrameDelays(frameDelays);
+                return sequencedTexture;
+            } catch (Throwable e) {
+                sequencedTexture.free();
+                throw e;
+            }
+        }, SequencedTexture::free);
+    }
+
+    /**
+     * Decodes the given image data on the calling thread.
+     *
+     * @param imageData The encoded image data
+     * @return The decoded image. Has to be freed by the caller.
+     */
+    public static DecodedImage decodeImage(final byte[] imageData) {
+        if (isWebp(imageData)) {
+            ThinGL.capabilities().ensureTwelveMonkeysWebpReaderPresent();
+            final ImageReader webpReader = new WebPImageReaderSpi().createReaderInstance();
+            try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(imageData))) {
+                webpReader.setInput(imageInputStream);
+                return decodeBufferedImage(webpReader.read(0));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read WebP image", e);
+            } finally {
+                webpReader.dispose();
+            }
+        }
+
+        final ByteBuffer imageBuffer = MemoryUtil.memAlloc(imageData.length).put(imageData).flip();
+        try {
+            final int[] width = new int[1];
+            final int[] height = new int[1];
+            final ByteBuffer pixelBuffer = STBImage.stbi_load_from_memory(imageBuffer, width, height, new int[1], AbstractTexture.PixelFormat.RGBA.getChannelCount());
+            if (pixelBuffer == null) {
+                throw new IllegalArgumentException("Failed to read image: " + STBImage.stbi_failure_reason());
+            }
+            return new DecodedImage(width[0], height[0], AbstractTexture.PixelFormat.RGBA, pixelBuffer, true);
+        } finally {
+            BufferUtil.memFree(imageBuffer);
+        }
+    }
+
+    /**
+     * Converts the given image into an off-heap pixel buffer on the calling thread.
+     *
+     * @param bufferedImage The image
+     * @return The decoded image. Has to be freed by the caller.
+     */
+    public static DecodedImage decodeBufferedImage(final BufferedImage bufferedImage) {
+        final int[] pixels = new int[bufferedImage.getWidth() * bufferedImage.getHeight()];
+        bufferedImage.getRGB(0, 0, bufferedImage.getWidth(), bufferedImage.getHeight(), pixels, 0, bufferedImage.getWidth());
+        final ByteBuffer pixelBuffer = MemoryUtil.memAlloc(pixels.length * Integer.BYTES);
+        pixelBuffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(pixels);
+        return new DecodedImage(bufferedImage.getWidth(), bufferedImage.getHeight(), AbstractTexture.PixelFormat.BGRA, pixelBuffer, false);
+    }
+
+    public void free() {
+        this.decodeExecutor.shutdownNow();
+        try {
+            if (!this.decodeExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                ThinGL.LOGGER.warn("Texture loader threads did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> decode(final Supplier<T> decoder) {
+        return CompletableFuture.supplyAsync(decoder, this.decodeExecutor);
+    }
+
+    private CompletableFuture<Texture2D> upload(final AbstractTexture.InternalFormat internalFormat, final CompletableFuture<DecodedImage> decodedImageFuture) {
+        return this.onRenderThread(decodedImageFuture, decodedImage -> {
+            try {
+                final Texture2D texture = new Texture2D(internalFormat, decodedImage.width(), decodedImage.height());
+                try {
+                    texture.uploadPixelsAsync(0, 0, decodedImage.width(), decodedImage.height(), decodedImage.pixelFormat(), decodedImage.pixelBuffer());
+                } catch (Throwable e) {
+                    texture.free();
+                    throw e;
+                }
+                return texture;
+            } finally {
+                decodedImage.free();
+            }
+        }, Texture2D::free);
+    }
+
+    private <I, O> CompletableFuture<O> onRenderThread(final CompletableFuture<I> inputFuture, final Function<I, O> action, final Consumer<O> discardAction) {
+        final CompletableFuture<O> outputFuture = new CompletableFuture<>();
+        inputFuture.whenComplete((input, throwable) -> {
+            if (throwable != null) {
+                outputFuture.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+                return;
+            }
+            ThinGL.get().runOnRenderThread(() -> {
+                if (outputFuture.isDone()) { // Cancelled
+                    if (input instanceof DecodedImage decodedImage) {
+                        decodedImage.free();
+                    }
+                    return;
+                }
+                final O output;
+                try {
+                    output = action.apply(input);
+                } catch (Throwable e) {
+                    outputFuture.completeExceptionally(e);
+                    return;
+                }
+                if (!outputFuture.complete(output)) {
+                    discardAction.accept(output);
+                }
+            });
+        });
+        return outputFuture;
+    }
+
+    private static boolean isWebp(final byte[] imageData) {
+        return imageData.length >= 12 && imageData[0] == 'R' && imageData[1] == 'I' && imageData[2] == 'F' && imageData[3] == 'F' && imageData[8] == 'W' && imageData[9] == 'E' && imageData[10] == 'B' && imageData[11] == 'P';
+    }
+
+    public record DecodedImage(int width, int height, AbstractTexture.PixelFormat pixelFormat, ByteBuffer pixelBuffer, boolean stbAllocated) {
+
+        public void free() {
+            if (this.stbAllocated) {
+                STBImage.stbi_image_free(this.pixelBuffer);
+            } else {
+                BufferUtil.memFree(this.pixelBuffer);
+            }
+        }
+
+    }
+
+}
@@ -20,13 +20,12 @@ package net.raphimc.thingl.util;
 import com.twelvemonkeys.imageio.plugins.webp.WebPImageReaderSpi;
 import net.lenni0451.commons.color.Color;
 import net.raphimc.thingl.ThinGL;
-import net.raphimc.thingl.framebuffer.FramebufferRenderer;
 import net.raphimc.thingl.resource.texture.AbstractTexture;
 import net.raphimc.thingl.resource.texture.Texture2D;
 import net.raphimc.thingl.resource.texture.Texture2DArray;
 import net.raphimc.thingl.texture.SequencedTexture;
-import org.lwjgl.opengl.GL43C;
-import org.lwjgl.opengl.GL45C;
+import net.raphimc.thingl.texture.StreamingSequencedTexture;
+import org.lwjgl.system.MemoryUtil;
 import org.w3c.dom.Node;
 
 import javax.imageio.ImageIO;
@@ -35,9 +34,13 @@ import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
@@ -75,95 +78,262 @@ public class AWTUtil {
     }
 
     public static SequencedTexture createSequencedTextureFromGif(final InputStream imageDataStream) throws IOException {
+        try (StreamingSequencedTexture.FrameDecoder frameDecoder = createGifFrameDecoder(imageDataStream)) {
+            return createSequencedTexture(frameDecoder, "GIF");
+        }
+    }
+
+    /**
+     * Creates a sequenced texture which decodes the GIF frames lazily while it is being played back.
+     *
+     * @see StreamingSequencedTexture
+     */
+    public static StreamingSequencedTexture createStreamingSequencedTextureFromGif(final byte[] imageData) throws IOException {
+        return createStreamingSequencedTextureFromGif(new ByteArrayInputStream(imageData));
+    }
+
+    public static StreamingSequencedTexture createStreamingSequencedTextureFromGif(final InputStream imageDataStream) throws IOException {
+        final StreamingSequencedTexture.FrameDecoder frameDecoder = createGifFrameDecoder(imageDataStream);
+        try {
+            return new StreamingSequencedTexture(frameDecoder);
+        } catch (Throwable e) {
+            frameDecoder.close();
+            throw e;
+        }
+    }
+
+    public static StreamingSequencedTexture.FrameDecoder createGifFrameDecoder(final InputStream imageDataStream) throws IOException {
         final Iterator<ImageReader> gifReaders = ImageIO.getImageReadersByFormatName("gif");
         if (!gifReaders.hasNext()) {
             throw new RuntimeException("No GIF reader available");
         }
-        final ImageReader gifReader = gifReaders.next();
-        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(imageDataStream)) {
-            gifReader.setInput(imageInputStream);
-            int frameCount = gifReader.getNumImages(true);
-            if (frameCount > ThinGL.capabilities().getMaxArrayTextureLayers()) {
-                ThinGL.LOGGER.warn("GIF has more frames (" + frameCount + ") than the maximum supported by the GPU (" + ThinGL.capabilities().getMaxArrayTextureLayers() + "). Using the maximum supported frames.");
-                frameCount = ThinGL.capabilities().getMaxArrayTextureLayers();
+        return new GifFrameDecoder(gifReaders.next(), imageDataStream);
+    }
+
+    public static SequencedTexture createSequencedTextureFromWebp(final byte[] imageData) throws IOException {
+        return createSequencedTextureFromWebp(new ByteArrayInputStream(imageData));
+    }
+
+    public static SequencedTexture createSequencedTextureFromWebp(final InputStream imageDataStream) throws IOException {
+        try (StreamingSequencedTexture.FrameDecoder frameDecoder = createWebpFrameDecoder(imageDataStream)) {
+            return createSequencedTexture(frameDecoder, "WebP");
+        }
+    }
+
+    /**
+     * Creates a sequenced texture which decodes the WebP frames lazily while it is being played back.
+     *
+     * @see StreamingSequencedTexture
+     */
+    public static StreamingSequencedTexture createStreamingSequencedTextureFromWebp(final byte[] imageData) throws IOException {
+        return createStreamingSequencedTextureFromWebp(new ByteArrayInputStream(imageData));
+    }
+
+    public static StreamingSequencedTexture createStreamingSequencedTextureFromWebp(final InputStream imageDataStream) throws IOException {
+        final StreamingSequencedTexture.FrameDecoder frameDecoder = createWebpFrameDecoder(imageDataStream);
+        try {
+            return new StreamingSequencedTexture(frameDecoder);
+        } catch (Throwable e) {
+            frameDecoder.close();
+            throw e;
+        }
+    }
+
+    public static StreamingSequencedTexture.FrameDecoder createWebpFrameDecoder(final InputStream imageDataStream) throws IOException {
+        ThinGL.capabilities().ensureTwelveMonkeysWebpReaderPresent();
+        return new WebpFrameDecoder(new WebPImageReaderSpi().createReaderInstance(), imageDataStream);
+    }
+
+    private static SequencedTexture createSequencedTexture(final StreamingSequencedTexture.FrameDecoder frameDecoder, final String formatName) throws IOException {
+        int frameCount = frameDecoder.getFrameDelays().length;
+        if (frameCount > ThinGL.capabilities().getMaxArrayTextureLayers()) {
+            ThinGL.LOGGER.warn(formatName + " has more frames (" + frameCount + ") than the maximum supported by the GPU (" + ThinGL.capabilities().getMaxArrayTextureLayers() + "). Using the maximum supported frames.");
+            frameCount = ThinGL.capabilities().getMaxArrayTextureLayers();
+        }
+
+        final SequencedTexture sequencedTexture = new SequencedTexture(AbstractTexture.InternalFormat.RGBA8, frameDecoder.getWidth(), frameDecoder.getHeight(), frameCount);
+        final ByteBuffer pixelBuffer = MemoryUtil.memAlloc(frameDecoder.getWidth() * frameDecoder.getHeight() * AbstractTexture.PixelFormat.BGRA.getChannelCount());
+        try {
+            for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
+                frameDecoder.decodeNextFrame();
+                frameDecoder.getPixels(pixelBuffer);
+                sequencedTexture.uploadPixels(0, 0, frameIndex, sequencedTexture.getWidth(), sequencedTexture.getHeight(), AbstractTexture.PixelFormat.BGRA, pixelBuffer);
             }
-            final int width = gifReader.getWidth(0);
-            final int height = gifReader.getHeight(0);
+            sequencedTexture.setFrameDelays(Arrays.copyOf(frameDecoder.getFrameDelays(), frameCount));
+        } catch (Throwable e) {
+            sequencedTexture.free();
+            throw e;
+        } finally {
+            BufferUtil.memFree(pixelBuffer);
+        }
+        return sequencedTexture;
+    }
 
-            final SequencedTexture sequencedTexture = new SequencedTexture(AbstractTexture.InternalFormat.RGBA8, width, height, frameCount);
-            final Texture2D partialTexture = new Texture2D(AbstractTexture.InternalFormat.RGBA8, width, height);
-            final FramebufferRenderer frameBuilder = new FramebufferRenderer(width, height, false);
-            frameBuilder.begin();
-            try {
-                int relativeTime = 0;
-                for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
-                    final BufferedImage frame = gifReader.read(frameIndex);
-                    final IIOMetadata metadata = gifReader.getImageMetadata(frameIndex);
-                    final Node metadataTree = metadata.getAsTree(metadata.getNativeMetadataFormatName());
-                    Node graphicControlExtensionNode = null;
-                    Node imageDescriptorNode = null;
-                    for (int i = 0; i < metadataTree.getChildNodes().getLength(); i++) {
-                        final Node childNode = metadataTree.getChildNodes().item(i);
-                        if (childNode.getNodeName().equals("GraphicControlExtension")) {
-                            graphicControlExtensionNode = childNode;
-                        } else if (childNode.getNodeName().equals("ImageDescriptor")) {
-                            imageDescriptorNode = childNode;
-                        }
-                    }
-                    if (graphicControlExtensionNode == null || imageDescriptorNode == null) {
-                        throw new IOException("Invalid GIF metadata");
-                    }
-                    final int delayTime = Integer.parseInt(graphicControlExtensionNode.getAttributes().getNamedItem("delayTime").getNodeValue()) * 10;
-                    final String disposalMethod = graphicControlExtensionNode.getAttributes().getNamedItem("disposalMethod").getNodeValue();
-                    final int imageLeftPosition = Integer.parseInt(imageDescriptorNode.getAttributes().getNamedItem("imageLeftPosition").getNodeValue());
-                    final int imageTopPosition = Integer.parseInt(imageDescriptorNode.getAttributes().getNamedItem("imageTopPosition").getNodeValue());
-
-                    AWTUtil.uploadBufferedImageToTexture2D(partialTexture, 0, 0, frame);
-                    ThinGL.renderer2D().texture(RenderMathUtil.getIdentityMatrix(), partialTexture.getGlId(), imageLeftPosition, imageTopPosition, frame.getWidth(), frame.getHeight(), 0, 0, frame.getWidth(), frame.getHeight(), partialTexture.getWidth(), partialTexture.getHeight());
-                    for (int y = 0; y < sequencedTexture.getHeight(); y++) { // Copy to the image while flipping it vertically
-                        GL45C.glCopyTextureSubImage3D(sequencedTexture.getGlId(), 0, 0, y, frameIndex, 0, sequencedTexture.getHeight() - 1 - y, sequencedTexture.getWidth(), 1);
-                    }
-                    switch (disposalMethod) {
-                        case "none", "doNotDispose" -> {
-                        }
-                        case "restoreToBackgroundColor" -> frameBuilder.clear();
-                        default -> throw new UnsupportedOperationException("Unsupported disposal method: " + disposalMethod);
-                    }
+    /**
+     * Composes the frames of an animation on the CPU using a canvas image.
+     */
+    private static abstract class CanvasFrameDecoder implements StreamingSequencedTexture.FrameDecoder {
 
-                    sequencedTexture.getFrameTimes().put(relativeTime, frameIndex);
-                    relativeTime += delayTime;
-                }
-                sequencedTexture.getFrameTimes().put(relativeTime, frameCount - 1);
+        protected final ImageReader imageReader;
+        protected final ImageInputStream imageInputStream;
+        protected BufferedImage canvas;
+        protected int[] frameDelays;
+        protected int nextFrame;
+        protected boolean clearCanvas;
+
+        protected CanvasFrameDecoder(final ImageReader imageReader, final InputStream imageDataStream) throws IOException {
+            this.imageReader = imageReader;
+            this.imageInputStream = ImageIO.createImageInputStream(imageDataStream);
+            if (this.imageInputStream == null) {
+                imageReader.dispose();
+                throw new IOException("Failed to create image input stream");
+            }
+            try {
+                imageReader.setInput(this.imageInputStream);
+                this.readHeader();
             } catch (Throwable e) {
-                sequencedTexture.free();
+                this.close();
                 throw e;
+            }
+        }
+
+        protected abstract void readHeader() throws IOException;
+
+        protected abstract void drawFrame(final Graphics2D graphics, final BufferedImage frame, final int frameIndex);
+
+        @Override
+        public int getWidth() {
+            return this.canvas.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return this.canvas.getHeight();
+        }
+
+        @Override
+        public int[] getFrameDelays() {
+            return this.frameDelays;
+        }
+
+        @Override
+        public void decodeNextFrame() throws IOException {
+            if (this.nextFrame >= this.frameDelays.length) {
+                throw new IllegalStateException("No frames left to decode");
+            }
+            final BufferedImage frame = this.imageReader.read(this.nextFrame);
+            final Graphics2D graphics = this.canvas.createGraphics();
+            try {
+                if (this.clearCanvas) {
+                    graphics.setComposite(AlphaComposite.Clear);
+                    graphics.fillRect(0, 0, this.canvas.getWidth(), this.canvas.getHeight());
+                    graphics.setComposite(AlphaComposite.SrcOver);
+                    this.clearCanvas = false;
+                }
+                this.drawFrame(graphics, frame, this.nextFrame);
             } finally {
-                frameBuilder.end();
-                frameBuilder.free();
-                partialTexture.free();
+                graphics.dispose();
             }
-            return sequencedTexture;
-        } finally {
-            gifReader.dispose();
+            this.nextFrame++;
+        }
+
+        @Override
+        public void getPixels(final ByteBuffer pixelBuffer) {
+            final int[] pixels = ((DataBufferInt) this.canvas.getRaster().getDataBuffer()).getData();
+            pixelBuffer.clear();
+            pixelBuffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(pixels);
+        }
+
+        @Override
+        public void reset() {
+            this.nextFrame = 0;
+            this.clearCanvas = true;
+        }
+
+        @Override
+        public void close() {
+            this.imageReader.dispose();
+            try {
+                this.imageInputStream.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        protected void createCanvas(final int width, final int height) {
+            this.canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         }
-    }
 
-    public static SequencedTexture createSequencedTextureFromWebp(final byte[] imageData) throws IOException {
-        return createSequencedTextureFromWebp(new ByteArrayInputStream(imageData));
     }
 
-    public static SequencedTexture createSequencedTextureFromWebp(final InputStream imageDataStream) throws IOException {
-        ThinGL.capabilities().ensureTwelveMonkeysWebpReaderPresent();
-        final ImageReader webpReader = new WebPImageReaderSpi().createReaderInstance();
-        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(imageDataStream)) {
-            webpReader.setInput(imageInputStream);
-            int frameCount = webpReader.getNumImages(true);
-            if (frameCount > ThinGL.capabilities().getMaxArrayTextureLayers()) {
-                ThinGL.LOGGER.warn("WebP has more frames (" + frameCount + ") than the maximum supported by the GPU (" + ThinGL.capabilities().getMaxArrayTextureLayers() + "). Using the maximum supported frames.");
-                frameCount = ThinGL.capabilities().getMaxArrayTextureLayers();
+    private static class GifFrameDecoder extends CanvasFrameDecoder {
+
+        private int[] framePositions;
+        private boolean[] clearAfterFrame;
+
+        private GifFrameDecoder(final ImageReader imageReader, final InputStream imageDataStream) throws IOException {
+            super(imageReader, imageDataStream);
+        }
+
+        @Override
+        protected void readHeader() throws IOException {
+            final int frameCount = this.imageReader.getNumImages(true);
+            this.frameDelays = new int[frameCount];
+            this.framePositions = new int[frameCount * 2];
+            this.clearAfterFrame = new boolean[frameCount];
+            for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
+                final IIOMetadata metadata = this.imageReader.getImageMetadata(frameIndex);
+                final Node metadataTree = metadata.getAsTree(metadata.getNativeMetadataFormatName());
+                Node graphicControlExtensionNode = null;
+                Node imageDescriptorNode = null;
+                for (int i = 0; i < metadataTree.getChildNodes().getLength(); i++) {
+                    final Node childNode = metadataTree.getChildNodes().item(i);
+                    if (childNode.getNodeName().equals("GraphicControlExtension")) {
+                        graphicControlExtensionNode = childNode;
+                    } else if (childNode.getNodeName().equals("ImageDescriptor")) {
+                        imageDescriptorNode = childNode;
+                    }
+                }
+                if (graphicControlExtensionNode == null || imageDescriptorNode == null) {
+                    throw new IOException("Invalid GIF metadata");
+                }
+                this.frameDelays[frameIndex] = Integer.parseInt(graphicControlExtensionNode.getAttributes().getNamedItem("delayTime").getNodeValue()) * 10;
+                final String disposalMethod = graphicControlExtensionNode.getAttributes().getNamedItem("disposalMethod").getNodeValue();
+                switch (disposalMethod) {
+                    case "none", "doNotDispose" -> {
+                    }
+                    case "restoreToBackgroundColor" -> this.clearAfterFrame[frameIndex] = true;
+                    default -> throw new UnsupportedOperationException("Unsupported disposal method: " + disposalMethod);
+                }
+                this.framePositions[frameIndex * 2] = Integer.parseInt(imageDescriptorNode.getAttributes().getNamedItem("imageLeftPosition").getNodeValue());
+                this.framePositions[frameIndex * 2 + 1] = Integer.parseInt(imageDescriptorNode.getAttributes().getNamedItem("imageTopPosition").getNodeValue());
             }
+            this.createCanvas(this.imageReader.getWidth(0), this.imageReader.getHeight(0));
+        }
+
+        @Override
+        protected void drawFrame(final Graphics2D graphics, final BufferedImage frame, final int frameIndex) {
+            graphics.drawImage(frame, this.framePositions[frameIndex * 2], this.framePositions[frameIndex * 2 + 1], null);
+            this.clearCanvas = this.clearAfterFrame[frameIndex];
+        }
+
+    }
+
+    private static class WebpFrameDecoder extends CanvasFrameDecoder {
+
+        private List<?> frames;
+        private Function<Object, Object> boundsGetter;
+        private Function<Object, Object> blendGetter;
+        private Function<Object, Object> disposeGetter;
+
+        private WebpFrameDecoder(final ImageReader imageReader, final InputStream imageDataStream) throws IOException {
+            super(imageReader, imageDataStream);
+        }
+
+        @Override
+        protected void readHeader() throws IOException {
+            final int frameCount = this.imageReader.getNumImages(true);
 
-            final Object header = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.WebPImageReader", "header").apply(webpReader);
+            final Object header = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.WebPImageReader", "header").apply(this.imageReader);
             final int width = (int) ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.VP8xChunk", "width").apply(header);
             final int height = (int) ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.VP8xChunk", "height").apply(header);
             final boolean isAnimated = (boolean) ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.VP8xChunk", "containsANIM").apply(header);
@@ -171,57 +341,29 @@ public class AWTUtil {
                 throw new UnsupportedOperationException("WebP image is not animated, cannot create sequenced texture");
             }
 
-            final List<?> frames = (List<?>) ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.WebPImageReader", "frames").apply(webpReader);
-            final Function<Object, Object> boundsGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "bounds");
+            this.frames = (List<?>) ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.WebPImageReader", "frames").apply(this.imageReader);
+            this.boundsGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "bounds");
+            this.blendGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "blend");
+            this.disposeGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "dispose");
             final Function<Object, Object> durationGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "duration");
-            final Function<Object, Object> blendGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "blend");
-            final Function<Object, Object> disposeGetter = ReflectionUtil.createGetter("com.twelvemonkeys.imageio.plugins.webp.AnimationFrame", "dispose");
-
-            final SequencedTexture sequencedTexture = new SequencedTexture(AbstractTexture.InternalFormat.RGBA8, width, height, frameCount);
-            final Texture2D partialTexture = new Texture2D(AbstractTexture.InternalFormat.RGBA8, width, height);
-            final FramebufferRenderer frameBuilder = new FramebufferRenderer(width, height, false);
-            final Texture2D frameBuilderTexture = frameBuilder.getColorAttachment();
-            frameBuilder.begin();
-            try {
-                int relativeTime = 0;
-                for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
-                    final BufferedImage frame = webpReader.read(frameIndex);
-                    final Object animationFrame = frames.get(frameIndex);
-                    final Rectangle bounds = (Rectangle) boundsGetter.apply(animationFrame);
-                    final boolean blend = (boolean) blendGetter.apply(animationFrame);
-                    final boolean dispose = (boolean) disposeGetter.apply(animationFrame);
-
-                    AWTUtil.uploadBufferedImageToTexture2D(partialTexture, 0, 0, frame);
-                    if (blend) {
-                        ThinGL.renderer2D().texture(RenderMathUtil.getIdentityMatrix(), partialTexture.getGlId(), bounds.x, bounds.y, frame.getWidth(), frame.getHeight(), 0, 0, frame.getWidth(), frame.getHeight(), partialTexture.getWidth(), partialTexture.getHeight());
-                    } else {
-                        for (int y = 0; y < frame.getHeight(); y++) { // Copy to the frame builder while flipping it vertically
-                            GL43C.glCopyImageSubData(partialTexture.getGlId(), partialTexture.getType(), 0, 0, y, 0, frameBuilderTexture.getGlId(), frameBuilderTexture.getType(), 0, bounds.x, frameBuilderTexture.getHeight() - 1 - bounds.y - y, 0, frame.getWidth(), 1, 1);
-                        }
-                    }
-                    for (int y = 0; y < sequencedTexture.getHeight(); y++) { // Copy to the image while flipping it vertically
-                        GL45C.glCopyTextureSubImage3D(sequencedTexture.getGlId(), 0, 0, y, frameIndex, 0, sequencedTexture.getHeight() - 1 - y, sequencedTexture.getWidth(), 1);
-                    }
-                    if (dispose) {
-                        frameBuilder.clear();
-                    }
+            this.frameDelays = new int[frameCount];
+            for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
+                this.frameDelays[frameIndex] = (int) durationGetter.apply(this.frames.get(frameIndex));
+            }
+            this.createCanvas(width, height);
+        }
 
-                    sequencedTexture.getFrameTimes().put(relativeTime, frameIndex);
-                    relativeTime += (int) durationGetter.apply(animationFrame);
-                }
-                sequencedTexture.getFrameTimes().put(relativeTime, frameCount - 1);
-            } catch (Throwable e) {
-                sequencedTexture.free();
-                throw e;
-            } finally {
-                frameBuilder.end();
-                frameBuilder.free();
-                partialTexture.free();
+        @Override
+        protected void drawFrame(final Graphics2D graphics, final BufferedImage frame, final int frameIndex) {
+            final Object animationFrame = this.frames.get(frameIndex);
+            final Rectangle bounds = (Rectangle) this.boundsGetter.apply(animationFrame);
+            if (!(boolean) this.blendGetter.apply(animationFrame)) {
+                graphics.setComposite(AlphaComposite.Src);
             }
-            return sequencedTexture;
-        } finally {
-            webpReader.dispose();
+            graphics.drawImage(frame, bounds.x, bounds.y, null);
+            this.clearCanvas = (boolean) this.disposeGetter.apply(animationFrame);
         }
+
     }
 
 }
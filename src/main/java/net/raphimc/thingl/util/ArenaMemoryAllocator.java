@@ -15,26 +15,39 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-
 package net.raphimc.thingl.util;
 
 import it.unimi.dsi.fastutil.longs.Long2LongMap;
 import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
 
-import java.util.Map;
-import java.util.TreeMap;
-
+/**
+ * Segregated fit allocator for managing sub-allocations inside a fixed size arena.<br>
+ * Free blocks are sorted into power of two size classes and are coalesced with their neighbours as soon as they are freed.
+ */
 public class ArenaMemoryAllocator {
 
+    private static final int BIN_COUNT = Long.SIZE;
+
     private final long address;
     private final long size;
     private final Long2LongMap allocationMap = new Long2LongOpenHashMap(); // Address -> Size
-    private final TreeMap<Long, Long> freeMap = new TreeMap<>(); // Address -> Size
+    private final Long2LongMap freeBlockStarts = new Long2LongOpenHashMap(); // Address -> Size
+    private final Long2LongMap freeBlockEnds = new Long2LongOpenHashMap(); // End address -> Address
+    private final LongLinkedOpenHashSet[] freeBins = new LongLinkedOpenHashSet[BIN_COUNT]; // Size class -> Addresses
+    private long nonEmptyBins; // Bit mask of the size classes which contain at least one free block
+    private long usedMemory;
 
     public ArenaMemoryAllocator(final long address, final long size) {
         this.address = address;
         this.size = size;
-        this.freeMap.put(address, size);
+        for (int i = 0; i < this.freeBins.length; i++) {
+            this.freeBins[i] = new LongLinkedOpenHashSet();
+        }
+        if (size > 0) {
+            this.addFreeBlock(address, size);
+        }
     }
 
     public long alloc(final long segmentSize) {
@@ -42,56 +55,113 @@ public class ArenaMemoryAllocator {
             return -1;
         }
 
-        for (Map.Entry<Long, Long> entry : this.freeMap.entrySet()) {
-            final long freeSegmentAddress = entry.getKey();
-            final long freeSegmentSize = entry.getValue();
-
-            if (freeSegmentSize >= segmentSize) {
-                this.freeMap.remove(freeSegmentAddress);
-
-                if (freeSegmentSize > segmentSize) {
-                    final long remainingSize = freeSegmentSize - segmentSize;
-                    final long remainingAddress = freeSegmentAddress + segmentSize;
-                    this.freeMap.put(remainingAddress, remainingSize);
+        final int bin = getBin(segmentSize);
+        final long largerBins = bin + 1 < BIN_COUNT ? this.nonEmptyBins & (-1L << (bin + 1)) : 0;
+        long freeBlockAddress = -1;
+        long freeBlockSize = 0;
+        if (largerBins != 0) { // Every block in a larger size class is guaranteed to fit
+            freeBlockAddress = this.freeBins[Long.numberOfTrailingZeros(largerBins)].firstLong();
+            freeBlockSize = this.freeBlockStarts.get(freeBlockAddress);
+        } else if ((this.nonEmptyBins & (1L << bin)) != 0) { // Blocks in the same size class might be too small
+            final LongIterator it = this.freeBins[bin].iterator();
+            while (it.hasNext()) {
+                final long blockAddress = it.nextLong();
+                final long blockSize = this.freeBlockStarts.get(blockAddress);
+                if (blockSize >= segmentSize) {
+                    freeBlockAddress = blockAddress;
+                    freeBlockSize = blockSize;
+                    break;
                 }
-
-                this.allocationMap.put(freeSegmentAddress, segmentSize);
-                return freeSegmentAddress;
             }
         }
+        if (freeBlockSize == 0) {
+            return -1;
+        }
 
-        return -1;
+        this.removeFreeBlock(freeBlockAddress, freeBlockSize);
+        if (freeBlockSize > segmentSize) {
+            this.addFreeBlock(freeBlockAddress + segmentSize, freeBlockSize - segmentSize);
+        }
+        this.allocationMap.put(freeBlockAddress, segmentSize);
+        this.usedMemory += segmentSize;
+        return freeBlockAddress;
     }
 
     public void free(final long ptr) {
-        long segmentSize = this.allocationMap.remove(ptr);
+        final long segmentSize = this.allocationMap.remove(ptr);
         if (segmentSize == 0) {
             return;
         }
+        this.usedMemory -= segmentSize;
 
         long start = ptr;
         long end = start + segmentSize;
-        final Long lower = this.freeMap.floorKey(start);
-        if (lower != null && lower + this.freeMap.get(lower) == start) {
-            start = lower;
-            segmentSize += this.freeMap.get(lower);
-            this.freeMap.remove(lower);
+        if (this.freeBlockEnds.containsKey(start)) {
+            final long lowerAddress = this.freeBlockEnds.get(start);
+            this.removeFreeBlock(lowerAddress, start - lowerAddress);
+            start = lowerAddress;
         }
-        final Long higher = this.freeMap.ceilingKey(end);
-        if (higher != null && higher == end) {
-            segmentSize += this.freeMap.get(higher);
-            this.freeMap.remove(higher);
+        if (this.freeBlockStarts.containsKey(end)) {
+            final long higherSize = this.freeBlockStarts.get(end);
+            this.removeFreeBlock(end, higherSize);
+            end += higherSize;
         }
+        this.addFreeBlock(start, end - start);
+    }
 
-        this.freeMap.put(start, segmentSize);
+    public long getAllocationSize(final long ptr) {
+        return this.allocationMap.get(ptr);
+    }
+
+    /**
+     * @return The end address of the highest allocation or the start address of the arena if nothing is allocated
+     */
+    public long getUsedEnd() {
+        final long arenaEnd = this.address + this.size;
+        if (this.freeBlockEnds.containsKey(arenaEnd)) {
+            return this.freeBlockEnds.get(arenaEnd);
+        }
+        return arenaEnd;
     }
 
     public long getUsedMemory() {
-        return this.allocationMap.values().longStream().sum();
+        return this.usedMemory;
     }
 
     public long getFreeMemory() {
-        return this.freeMap.values().stream().mapToLong(Long::longValue).sum();
+        return this.size - this.usedMemory;
+    }
+
+    public int getAllocationCount() {
+        return this.allocationMap.size();
+    }
+
+    public int getFreeBlockCount() {
+        return this.freeBlockStarts.size();
+    }
+
+    public long getLargestFreeBlock() {
+        if (this.nonEmptyBins == 0) {
+            return 0;
+        }
+
+        long largestFreeBlock = 0;
+        final LongIterator it = this.freeBins[BIN_COUNT - 1 - Long.numberOfLeadingZeros(this.nonEmptyBins)].iterator();
+        while (it.hasNext()) {
+            largestFreeBlock = Math.max(largestFreeBlock, this.freeBlockStarts.get(it.nextLong()));
+        }
+        return largestFreeBlock;
+    }
+
+    /**
+     * @return The fraction of free memory which is not part of the largest free block (0 = not fragmented, 1 = fully fragmented)
+     */
+    public float getFragmentation() {
+        final long freeMemory = this.getFreeMemory();
+        if (freeMemory == 0) {
+            return 0F;
+        }
+        return 1F - (float) this.getLargestFreeBlock() / freeMemory;
     }
 
     public long getAddress() {
@@ -102,4 +172,26 @@ public class ArenaMemoryAllocator {
         return this.size;
     }
 
+    private void addFreeBlock(final long blockAddress, final long blockSize) {
+        final int bin = getBin(blockSize);
+        this.freeBlockStarts.put(blockAddress, blockSize);
+        this.freeBlockEnds.put(blockAddress + blockSize, blockAddress);
+        this.freeBins[bin].add(blockAddress);
+        this.nonEmptyBins |= 1L << bin;
+    }
+
+    private void removeFreeBlock(final long blockAddress, final long blockSize) {
+        final int bin = getBin(blockSize);
+        this.freeBlockStarts.remove(blockAddress);
+        this.freeBlockEnds.remove(blockAddress + blockSize);
+        this.freeBins[bin].remove(blockAddress);
+        if (this.freeBins[bin].isEmpty()) {
+            this.nonEmptyBins &= ~(1L << bin);
+        }
+    }
+
+    private static int getBin(final long size) {
+        return BIN_COUNT - 1 - Long.numberOfLeadingZeros(size);
+    }
+
 }
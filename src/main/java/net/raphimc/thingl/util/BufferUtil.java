@@ -40,22 +40,29 @@ public class BufferUtil {
         if (abstractBuffer.getSize() >= size) {
             return abstractBuffer;
         }
+        return reallocate(abstractBuffer, size);
+    }
+
+    public static AbstractBuffer shrink(final AbstractBuffer abstractBuffer, final long size) {
+        if (abstractBuffer.getSize() <= size) {
+            return abstractBuffer;
+        }
+        return reallocate(abstractBuffer, size);
+    }
 
+    private static AbstractBuffer reallocate(final AbstractBuffer abstractBuffer, final long size) {
+        final AbstractBuffer newBuffer;
         if (abstractBuffer instanceof ImmutableBuffer buffer) {
-            final ImmutableBuffer newBuffer = new ImmutableBuffer(size, buffer.getFlags());
-            newBuffer.setDebugName(buffer.getDebugName());
-            de.florianmichael.thingl.GlCommands.get().glCopyNamedBufferSubData(buffer.getGlId(), newBuffer.getGlId(), 0, 0, buffer.getSize()); // FlorianMichael - add macOS support
-            buffer.free();
-            return newBuffer;
+            newBuffer = new ImmutableBuffer(size, buffer.getFlags());
         } else if (abstractBuffer instanceof Buffer buffer) {
-            final Buffer newBuffer = new Buffer(size, buffer.getUsage());
-            newBuffer.setDebugName(buffer.getDebugName());
-            de.florianmichael.thingl.GlCommands.get().glCopyNamedBufferSubData(buffer.getGlId(), newBuffer.getGlId(), 0, 0, buffer.getSize()); // FlorianMichael - add macOS support
-            buffer.free();
-            return newBuffer;
+            newBuffer = new Buffer(size, buffer.getUsage());
         } else {
             throw new IllegalArgumentException("Unsupported buffer type " + abstractBuffer.getClass().getSimpleName());
         }
+        newBuffer.setDebugName(abstractBuffer.getDebugName());
+        de.florianmichael.thingl.GlCommands.get().glCopyNamedBufferSubData(abstractBuffer.getGlId(), newBuffer.getGlId(), 0, 0, Math.min(abstractBuffer.getSize(), size)); // FlorianMichael - add macOS support
+        abstractBuffer.free();
+        return newBuffer;
     }
 
     private static AbstractBuffer ensureSize(final AbstractBuffer abstractBuffer, final long size) {
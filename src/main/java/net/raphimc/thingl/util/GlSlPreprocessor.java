@@ -20,9 +20,44 @@ package net.raphimc.thingl.util;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public class GlSlPreprocessor {
 
+    private static final String INCLUDE_DIRECTIVE = "#include";
+
+    /**
+     * Replaces all {@code #include "name"} lines with the code of the included file. Includes are not resolved recursively.
+     *
+     * @param code The shader code
+     * @param includeLoader The function which loads the code of an included file by its name
+     * @return The shader code with all includes resolved
+     */
+    public static String resolveIncludes(final String code, final Function<String, String> includeLoader) {
+        if (!code.contains(INCLUDE_DIRECTIVE)) {
+            return code;
+        }
+
+        final List<String> codeLines = code.lines().toList();
+        final List<String> resolvedLines = new ArrayList<>(codeLines.size());
+        for (int i = 0; i < codeLines.size(); i++) {
+            final String line = codeLines.get(i).trim();
+            if (!line.startsWith(INCLUDE_DIRECTIVE)) {
+                resolvedLines.add(codeLines.get(i));
+                continue;
+            }
+
+            final String name = line.substring(INCLUDE_DIRECTIVE.length()).trim();
+            if (name.length() < 2 || !name.startsWith("\"") || !name.endsWith("\"")) {
+                throw new IllegalArgumentException("Invalid include directive: " + line);
+            }
+            resolvedLines.add("#line 1 2");
+            resolvedLines.addAll(includeLoader.apply(name.substring(1, name.length() - 1)).lines().toList());
+            resolvedLines.add("#line " + (i + 2) + " 0");
+        }
+        return String.join("\n", resolvedLines);
+    }
+
     public static String addDefines(final String code, final Map<String, Object> defines) {
         if (defines.isEmpty()) {
             return code;
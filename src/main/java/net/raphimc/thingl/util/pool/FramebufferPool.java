@@ -24,8 +24,11 @@ import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
 import it.unimi.dsi.fastutil.objects.ReferenceList;
 import net.raphimc.thingl.ThinGL;
 import net.raphimc.thingl.framebuffer.impl.TextureFramebuffer;
+import net.raphimc.thingl.resource.framebuffer.Framebuffer;
+import net.raphimc.thingl.resource.texture.AbstractTexture;
 import net.raphimc.thingl.resource.texture.Texture2D;
 import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.opengl.GL11C;
 import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL45C;
 
@@ -33,7 +36,9 @@ public class FramebufferPool {
 
     private final ReferenceList<TextureFramebuffer> free = new ReferenceArrayList<>();
     private final ReferenceList<TextureFramebuffer> inUse = new ReferenceArrayList<>();
-    private final Reference2LongMap<TextureFramebuffer> framebufferAccessTime = new Reference2LongOpenHashMap<>();
+    private final ReferenceList<Framebuffer> freeSized = new ReferenceArrayList<>();
+    private final ReferenceList<Framebuffer> inUseSized = new ReferenceArrayList<>();
+    private final Reference2LongMap<Framebuffer> framebufferAccessTime = new Reference2LongOpenHashMap<>();
 
     @ApiStatus.Internal
     public FramebufferPool(final ThinGL thinGL) {
@@ -43,10 +48,14 @@ public class FramebufferPool {
                 this.free.addAll(this.inUse);
                 this.inUse.clear();
             }
+            if (!this.inUseSized.isEmpty()) {
+                ThinGL.LOGGER.warn(this.inUseSized.size() + " sized Framebuffer(s) were not returned to the pool. Forcibly reclaiming them.");
+                this.freeSized.addAll(this.inUseSized);
+                this.inUseSized.clear();
+            }
             this.framebufferAccessTime.reference2LongEntrySet().removeIf(entry -> {
                 if (System.nanoTime() - entry.getLongValue() > 60_000_000_000L) {
-                    if (this.free.contains(entry.getKey())) {
-                        this.free.remove(entry.getKey());
+                    if (this.free.remove(entry.getKey()) || this.freeSized.remove(entry.getKey())) {
                         entry.getKey().freeFully();
                     }
                     return true;
@@ -64,7 +73,7 @@ public class FramebufferPool {
             framebuffer.setDebugName("Framebuffer Pool Framebuffer " + this.getSize());
         } else {
             framebuffer = this.free.remove(0);
-            framebuffer.clear();
+            this.clearFramebuffer(framebuffer);
         }
         this.inUse.add(framebuffer);
         this.framebufferAccessTime.put(framebuffer, System.nanoTime());
@@ -79,17 +88,55 @@ public class FramebufferPool {
         return framebuffer;
     }
 
-    public void returnFramebuffer(final TextureFramebuffer framebuffer) {
+    /**
+     * Borrows a framebuffer with a fixed size which doesn't follow the window size. The framebuffer only has a color attachment.
+     *
+     * @param textureFilter The texture filter of the color attachment
+     * @param width The width of the framebuffer
+     * @param height The height of the framebuffer
+     * @return The framebuffer
+     */
+    public Framebuffer borrowFramebuffer(final int textureFilter, final int width, final int height) {
+        ThinGL.get().assertOnRenderThread();
+        Framebuffer framebuffer = null;
+        for (int i = 0; i < this.freeSized.size(); i++) {
+            final Framebuffer freeFramebuffer = this.freeSized.get(i);
+            if (freeFramebuffer.getWidth() == width && freeFramebuffer.getHeight() == height) {
+                framebuffer = this.freeSized.remove(i);
+                break;
+            }
+        }
+        if (framebuffer == null) {
+            final Texture2D colorAttachment = new Texture2D(AbstractTexture.InternalFormat.RGBA8, width, height);
+            colorAttachment.setFilter(textureFilter);
+            framebuffer = new Framebuffer(colorAttachment);
+            framebuffer.setDebugName("Framebuffer Pool Sized Framebuffer " + this.getSize());
+        }
+        this.clearFramebuffer(framebuffer); // Returned framebuffers were invalidated and new ones have undefined contents
+        this.inUseSized.add(framebuffer);
+        this.framebufferAccessTime.put(framebuffer, System.nanoTime());
+        final Texture2D colorAttachment = (Texture2D) framebuffer.getColorAttachment(0);
+        if (textureFilter != colorAttachment.getMinificationFilter() || colorAttachment.getMagnificationFilter() != colorAttachment.getMinificationFilter()) {
+            colorAttachment.setFilter(textureFilter);
+        }
+        return framebuffer;
+    }
+
+    public void returnFramebuffer(final Framebuffer framebuffer) {
         ThinGL.get().assertOnRenderThread();
-        if (!this.inUse.remove(framebuffer)) {
+        if (this.inUse.remove(framebuffer)) {
+            de.florianmichael.thingl.GlCommands.get().glInvalidateNamedFramebufferData(framebuffer.getGlId(), new int[]{GL30C.GL_COLOR_ATTACHMENT0, GL30C.GL_DEPTH_STENCIL_ATTACHMENT}); // FlorianMichael - add macOS support
+            this.free.add((TextureFramebuffer) framebuffer);
+        } else if (this.inUseSized.remove(framebuffer)) {
+            de.florianmichael.thingl.GlCommands.get().glInvalidateNamedFramebufferData(framebuffer.getGlId(), new int[]{GL30C.GL_COLOR_ATTACHMENT0}); // FlorianMichael - add macOS support
+            this.freeSized.add(framebuffer);
+        } else {
             throw new IllegalStateException("Framebuffer is not part of the pool");
         }
-        de.florianmichael.thingl.GlCommands.get().glInvalidateNamedFramebufferData(framebuffer.getGlId(), new int[]{GL30C.GL_COLOR_ATTACHMENT0, GL30C.GL_DEPTH_STENCIL_ATTACHMENT}); // FlorianMichael - add macOS support
-        this.free.add(framebuffer);
     }
 
     public int getSize() {
-        return this.free.size() + this.inUse.size();
+        return this.free.size() + this.inUse.size() + this.freeSized.size() + this.inUseSized.size();
     }
 
     @ApiStatus.Internal
@@ -100,6 +147,26 @@ public class FramebufferPool {
         for (TextureFramebuffer framebuffer : this.inUse) {
             framebuffer.freeFully();
         }
+        for (Framebuffer framebuffer : this.freeSized) {
+            framebuffer.freeFully();
+        }
+        for (Framebuffer framebuffer : this.inUseSized) {
+            framebuffer.freeFully();
+        }
+    }
+
+    private void clearFramebuffer(final Framebuffer framebuffer) {
+        // Clears are affected by the scissor box and the write masks of the caller
+        ThinGL.glStateStack().push();
+        ThinGL.glStateStack().disable(GL11C.GL_SCISSOR_TEST);
+        ThinGL.glStateStack().pushColorMask();
+        ThinGL.glStateManager().setColorMask(true, true, true, true);
+        ThinGL.glStateStack().pushDepthMask();
+        ThinGL.glStateManager().setDepthMask(true);
+        framebuffer.clear();
+        ThinGL.glStateStack().popDepthMask();
+        ThinGL.glStateStack().popColorMask();
+        ThinGL.glStateStack().pop();
     }
 
 }
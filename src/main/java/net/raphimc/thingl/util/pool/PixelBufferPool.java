@@ -0,0 +1,213 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.raphimc.thingl.util.pool;
+
+import it.unimi.dsi.fastutil.objects.Reference2LongMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceList;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.resource.buffer.Buffer;
+import net.raphimc.thingl.resource.sync.FenceSync;
+import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL21C;
+import org.lwjgl.opengl.GL30C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Pool of pixel buffers used for asynchronous texture transfers.<br>
+ * A buffer is only returned to the pool once the GPU has signaled the fence of the transfer which used it, so its memory can be written without synchronization.
+ */
+public class PixelBufferPool {
+
+    private static final long MIN_BUFFER_SIZE = 64 * 1024L;
+
+    private final ReferenceList<Buffer> free = new ReferenceArrayList<>();
+    private final ReferenceList<Buffer> inUse = new ReferenceArrayList<>();
+    private final Reference2LongMap<Buffer> bufferAccessTime = new Reference2LongOpenHashMap<>();
+
+    @ApiStatus.Internal
+    public PixelBufferPool(final ThinGL thinGL) {
+        thinGL.addFinishFrameCallback(() -> {
+            this.bufferAccessTime.reference2LongEntrySet().removeIf(entry -> {
+                if (System.nanoTime() - entry.getLongValue() > 60_000_000_000L) {
+                    if (this.free.contains(entry.getKey())) {
+                        this.free.remove(entry.getKey());
+                        entry.getKey().free();
+                        return true;
+                    }
+                }
+                return false;
+            });
+        });
+    }
+
+    /**
+     * Copies the given data into a pixel unpack buffer and runs the given upload action while the buffer is bound.<br>
+     * The upload action should issue the texture upload command using the given offset as pixel data pointer.
+     *
+     * @param data The pixel data
+     * @param uploadAction The upload action
+     * @return A future which is completed once the GPU has finished reading the pixel unpack buffer
+     */
+    public CompletableFuture<Void> upload(final ByteBuffer data, final LongConsumer uploadAction) {
+        ThinGL.get().assertOnRenderThread();
+        final int size = data.remaining();
+        final Buffer buffer = this.borrowBuffer(size, GL15C.GL_STREAM_DRAW);
+        try {
+            if (size > 0) {
+                // The buffer is not in use by the GPU, as it is only returned to the pool after the fence has been signaled
+                final ByteBuffer mappedBuffer = buffer.map(0, size, GL30C.GL_MAP_WRITE_BIT | GL30C.GL_MAP_INVALIDATE_RANGE_BIT | GL30C.GL_MAP_UNSYNCHRONIZED_BIT);
+                MemoryUtil.memCopy(data, mappedBuffer);
+                buffer.unmap();
+            }
+
+            final int previousBuffer = ThinGL.glStateManager().getBuffer(GL21C.GL_PIXEL_UNPACK_BUFFER);
+            ThinGL.glStateManager().bindBuffer(GL21C.GL_PIXEL_UNPACK_BUFFER, buffer.getGlId());
+            try {
+                uploadAction.accept(0L);
+            } finally {
+                ThinGL.glStateManager().bindBuffer(GL21C.GL_PIXEL_UNPACK_BUFFER, previousBuffer);
+            }
+        } catch (Throwable e) {
+            this.returnBuffer(buffer);
+            throw e;
+        }
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        this.returnBufferWhenSignaled(buffer, () -> future.complete(null));
+        return future;
+    }
+
+    /**
+     * Runs the given download action while a pixel pack buffer is bound and passes the downloaded data to the callback once the GPU has finished writing it.<br>
+     * The download action should issue the pixel download command using the given offset as pixel data pointer.
+     * The callback is run on the render thread in a later frame and the passed buffer is only valid during the callback.
+     *
+     * @param size The size of the downloaded data in bytes
+     * @param downloadAction The download action
+     * @param callback The callback which receives the downloaded data
+     */
+    public void download(final long size, final LongConsumer downloadAction, final Consumer<ByteBuffer> callback) {
+        ThinGL.get().assertOnRenderThread();
+        final Buffer buffer = this.borrowBuffer(size, GL15C.GL_STREAM_READ);
+        try {
+            final int previousBuffer = ThinGL.glStateManager().getBuffer(GL21C.GL_PIXEL_PACK_BUFFER);
+            ThinGL.glStateManager().bindBuffer(GL21C.GL_PIXEL_PACK_BUFFER, buffer.getGlId());
+            try {
+                downloadAction.accept(0L);
+            } finally {
+                ThinGL.glStateManager().bindBuffer(GL21C.GL_PIXEL_PACK_BUFFER, previousBuffer);
+            }
+        } catch (Throwable e) {
+            this.returnBuffer(buffer);
+            throw e;
+        }
+
+        ThinGL.syncManager().runWhenFenceSyncSignaled(new FenceSync(), fenceSync -> {
+            fenceSync.free();
+            try {
+                if (size > 0) {
+                    final ByteBuffer mappedBuffer = buffer.map(0, size, GL30C.GL_MAP_READ_BIT);
+                    try {
+                        callback.accept(mappedBuffer);
+                    } finally {
+                        buffer.unmap();
+                    }
+                } else {
+                    callback.accept(ByteBuffer.allocateDirect(0));
+                }
+            } finally {
+                if (this.inUse.contains(buffer)) {
+                    this.returnBuffer(buffer);
+                }
+            }
+        });
+    }
+
+    public Buffer borrowBuffer(final long size, final int usage) {
+        ThinGL.get().assertOnRenderThread();
+        Buffer buffer = null;
+        for (Buffer freeBuffer : this.free) {
+            if (freeBuffer.getUsage() == usage && freeBuffer.getSize() >= size && (buffer == null || freeBuffer.getSize() < buffer.getSize())) {
+                buffer = freeBuffer;
+            }
+        }
+        if (buffer != null) {
+            this.free.remove(buffer);
+        } else {
+            buffer = new Buffer(Math.max(MIN_BUFFER_SIZE, Long.highestOneBit(size - 1) << 1), usage);
+            buffer.setDebugName("Pixel Buffer Pool Buffer " + this.getSize());
+        }
+        this.inUse.add(buffer);
+        this.bufferAccessTime.put(buffer, System.nanoTime());
+        return buffer;
+    }
+
+    public void returnBuffer(final Buffer buffer) {
+        ThinGL.get().assertOnRenderThread();
+        if (!this.inUse.remove(buffer)) {
+            throw new IllegalStateException("Buffer is not part of the pool");
+        }
+        this.free.add(buffer);
+    }
+
+    /**
+     * Fences all previously issued commands and returns the buffer to the pool once the fence has been signaled.
+     *
+     * @param buffer The buffer
+     * @param callback The callback which is run after the buffer has been returned
+     */
+    public void returnBufferWhenSignaled(final Buffer buffer, final Runnable callback) {
+        ThinGL.syncManager().runWhenFenceSyncSignaled(new FenceSync(), fenceSync -> {
+            fenceSync.free();
+            if (this.inUse.contains(buffer)) {
+                this.returnBuffer(buffer);
+            }
+            callback.run();
+        });
+    }
+
+    public int getSize() {
+        return this.free.size() + this.inUse.size();
+    }
+
+    public int getInUseCount() {
+        return this.inUse.size();
+    }
+
+    @ApiStatus.Internal
+    public void free() {
+        for (Buffer buffer : this.free) {
+            buffer.free();
+        }
+        for (Buffer buffer : this.inUse) {
+            buffer.free();
+        }
+        this.free.clear();
+        this.inUse.clear();
+    }
+
+}
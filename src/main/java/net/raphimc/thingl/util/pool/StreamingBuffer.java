@@ -0,0 +1,301 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.util.pool;
+
+import it.unimi.dsi.fastutil.objects.Reference2LongMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.drawbuilder.vertex.VertexDataLayout;
+import net.raphimc.thingl.resource.buffer.AbstractBuffer;
+import net.raphimc.thingl.resource.buffer.ImmutableBuffer;
+import net.raphimc.thingl.resource.sync.FenceSync;
+import net.raphimc.thingl.resource.vertexarray.VertexArray;
+import net.raphimc.thingl.util.MathUtil;
+import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.opengl.GL30C;
+import org.lwjgl.opengl.GL32C;
+import org.lwjgl.opengl.GL44C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Persistently mapped ring buffer used for uploading the data of immediate mode draw calls.<br>
+ * The data written during a frame is fenced at the end of the frame and the memory is only reused once the GPU has signaled the fence.<br>
+ * Disabled by default. Call {@link #enable()} to route temporary buffer uploads through it.
+ */
+public class StreamingBuffer {
+
+    public static final long DEFAULT_SIZE = 16 * 1024 * 1024L;
+    private static final int ALIGNMENT = 16;
+    private static final long WAIT_TIMEOUT = 1_000_000_000L;
+
+    private final Deque<Region> inFlightRegions = new ArrayDeque<>();
+    private final Reference2ObjectMap<VertexDataLayout, VertexArray> vertexArrayCache = new Reference2ObjectOpenHashMap<>();
+    private final Reference2LongMap<VertexArray> vertexArrayAccessTime = new Reference2LongOpenHashMap<>();
+    private ImmutableBuffer buffer;
+    private long address;
+    private long head;
+    private long usedSize;
+    private long frameSize;
+    private long stallCount;
+    private long fallbackCount;
+
+    @ApiStatus.Internal
+    public StreamingBuffer(final ThinGL thinGL) {
+        thinGL.addFinishFrameCallback(() -> {
+            if (this.buffer == null) {
+                return;
+            }
+            this.fenceCurrentRegion();
+            this.vertexArrayAccessTime.reference2LongEntrySet().removeIf(entry -> {
+                if (System.nanoTime() - entry.getLongValue() > 60_000_000_000L) {
+                    if (this.vertexArrayCache.containsValue(entry.getKey())) {
+                        this.vertexArrayCache.values().remove(entry.getKey());
+                        entry.getKey().free();
+                    }
+                    return true;
+                }
+                return false;
+            });
+        });
+    }
+
+    public void enable() {
+        this.enable(DEFAULT_SIZE);
+    }
+
+    public void enable(final long size) {
+        ThinGL.get().assertOnRenderThread();
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        if (de.florianmichael.thingl.GlCommands.isApple()) { // FlorianMichael - add macOS support
+            ThinGL.LOGGER.warn("Persistently mapped streaming buffers are not supported on this platform. Falling back to regular buffer uploads.");
+            return;
+        }
+        if (this.buffer != null) {
+            this.disable();
+        }
+
+        final int flags = GL30C.GL_MAP_WRITE_BIT | GL44C.GL_MAP_PERSISTENT_BIT | GL44C.GL_MAP_COHERENT_BIT;
+        this.buffer = new ImmutableBuffer(size, flags);
+        this.buffer.setDebugName("Streaming Buffer");
+        this.address = MemoryUtil.memAddress(this.buffer.map(0, size, flags));
+        this.head = 0;
+        this.usedSize = 0;
+        this.frameSize = 0;
+    }
+
+    public void disable() {
+        ThinGL.get().assertOnRenderThread();
+        if (this.buffer == null) {
+            return;
+        }
+
+        // The fences are still registered in the sync manager and will be freed by their callbacks
+        this.inFlightRegions.clear();
+        for (VertexArray vertexArray : this.vertexArrayCache.values()) {
+            vertexArray.free();
+        }
+        this.vertexArrayCache.clear();
+        this.vertexArrayAccessTime.clear();
+        this.buffer.unmap();
+        this.buffer.free();
+        this.buffer = null;
+        this.address = 0;
+    }
+
+    public boolean isEnabled() {
+        return this.buffer != null;
+    }
+
+    /**
+     * Copies the data into the ring buffer.<br>
+     * If the ring buffer is full, this waits for the GPU to release the oldest in-flight frame.
+     *
+     * @param data The data to copy
+     * @return The offset of the data in the ring buffer or -1 if the data does not fit into the ring buffer
+     */
+    public long write(final ByteBuffer data) {
+        final long[] offsets = this.write(new ByteBuffer[]{data});
+        return offsets != null ? offsets[0] : -1;
+    }
+
+    /**
+     * Copies all data into a single reserved region of the ring buffer.<br>
+     * The data of one draw call has to be written with a single call, because waiting for free space in between could release the data written before.
+     *
+     * @param data The data to copy (Null entries are skipped)
+     * @return The offsets of the data in the ring buffer (-1 for null entries) or null if the data does not fit into the ring buffer
+     */
+    public long[] write(final ByteBuffer... data) {
+        long size = 0;
+        for (ByteBuffer buffer : data) {
+            if (buffer != null) {
+                size = MathUtil.align(size, ALIGNMENT) + buffer.remaining();
+            }
+        }
+        final long baseOffset = this.alloc(size);
+        if (baseOffset == -1) {
+            this.fallbackCount++;
+            return null;
+        }
+
+        final long[] offsets = new long[data.length];
+        long offset = baseOffset;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != null) {
+                offset = MathUtil.align(offset, ALIGNMENT);
+                MemoryUtil.memCopy(MemoryUtil.memAddress(data[i]), this.address + offset, data[i].remaining());
+                offsets[i] = offset;
+                offset += data[i].remaining();
+            } else {
+                offsets[i] = -1;
+            }
+        }
+        return offsets;
+    }
+
+    public VertexArray getVertexArray(final VertexDataLayout vertexDataLayout) {
+        ThinGL.get().assertOnRenderThread();
+        final VertexArray vertexArray = this.vertexArrayCache.computeIfAbsent(vertexDataLayout, this::createVertexArray);
+        this.vertexArrayAccessTime.put(vertexArray, System.nanoTime());
+        return vertexArray;
+    }
+
+    public AbstractBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    public long getSize() {
+        return this.buffer != null ? this.buffer.getSize() : 0;
+    }
+
+    public long getUsedSize() {
+        return this.usedSize;
+    }
+
+    public int getInFlightFrameCount() {
+        return this.inFlightRegions.size();
+    }
+
+    /**
+     * @return How often a write had to wait for the GPU because the ring buffer was full
+     */
+    public long getStallCount() {
+        return this.stallCount;
+    }
+
+    /**
+     * @return How often a write did not fit into the ring buffer and had to fall back to regular buffer uploads
+     */
+    public long getFallbackCount() {
+        return this.fallbackCount;
+    }
+
+    @ApiStatus.Internal
+    public void free() {
+        this.disable();
+    }
+
+    private long alloc(final long size) {
+        ThinGL.get().assertOnRenderThread();
+        final long capacity = this.buffer.getSize();
+        if (size > capacity) {
+            return -1;
+        }
+
+        while (true) {
+            if (this.usedSize == 0) {
+                this.head = 0;
+            }
+            long offset = MathUtil.align(this.head, ALIGNMENT);
+            long requiredSize;
+            if (offset + size <= capacity) {
+                requiredSize = offset + size - this.head;
+            } else { // Wrap around and skip the remaining space at the end of the buffer
+                offset = 0;
+                requiredSize = capacity - this.head + size;
+            }
+            if (this.usedSize + requiredSize <= capacity) {
+                this.head = offset + size;
+                this.usedSize += requiredSize;
+                this.frameSize += requiredSize;
+                return offset;
+            }
+
+            this.fenceCurrentRegion();
+            if (!this.waitForOldestRegion()) {
+                return -1;
+            }
+        }
+    }
+
+    private void fenceCurrentRegion() {
+        if (this.frameSize == 0) {
+            return;
+        }
+
+        final Region region = new Region(new FenceSync(), this.frameSize);
+        this.inFlightRegions.add(region);
+        this.frameSize = 0;
+        ThinGL.syncManager().runWhenFenceSyncSignaled(region.fenceSync(), fenceSync -> {
+            if (this.inFlightRegions.remove(region)) {
+                this.usedSize -= region.size();
+            }
+            fenceSync.free();
+        });
+    }
+
+    private boolean waitForOldestRegion() {
+        final Region region = this.inFlightRegions.peekFirst();
+        if (region == null) {
+            return false;
+        }
+
+        this.stallCount++;
+        while (true) {
+            final int result = region.fenceSync().clientWait(GL32C.GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT);
+            if (result == GL32C.GL_ALREADY_SIGNALED || result == GL32C.GL_CONDITION_SATISFIED) {
+                break;
+            } else if (result == GL32C.GL_WAIT_FAILED) {
+                throw new IllegalStateException("Failed to wait for streaming buffer fence");
+            }
+        }
+        // The fence itself is freed by the sync manager callback
+        this.inFlightRegions.removeFirst();
+        this.usedSize -= region.size();
+        return true;
+    }
+
+    private VertexArray createVertexArray(final VertexDataLayout vertexDataLayout) {
+        final VertexArray vertexArray = new VertexArray();
+        vertexArray.setDebugName("Streaming Vertex Array " + vertexArray.getGlId() + " (" + vertexDataLayout.getElements().length + " elements)");
+        vertexArray.configureVertexDataLayout(0, 0, vertexDataLayout, 0);
+        return vertexArray;
+    }
+
+    private record Region(FenceSync fenceSync, long size) {
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.thingl.util.rectpack;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * Guillotine rectangle packer which supports freeing previously packed rectangles.<br>
+ * Free space is tracked as a list of disjoint rectangles. Freed rectangles are merged with adjacent free rectangles to limit fragmentation.
+ */
+public class DynamicRectanglePacker {
+
+    private final int width;
+    private final int height;
+    private final IntArrayList freeRectangles = new IntArrayList(); // x, y, width, height
+    private int usedArea;
+
+    public DynamicRectanglePacker(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        this.clear();
+    }
+
+    public Slot pack(final int rectWidth, final int rectHeight) {
+        final int paddedWidth = rectWidth + 1;
+        final int paddedHeight = rectHeight + 1;
+
+        // Best short side fit
+        int bestIndex = -1;
+        int bestShortSide = Integer.MAX_VALUE;
+        int bestLongSide = Integer.MAX_VALUE;
+        for (int i = 0; i < this.freeRectangles.size(); i += 4) {
+            final int leftoverWidth = this.freeRectangles.getInt(i + 2) - paddedWidth;
+            final int leftoverHeight = this.freeRectangles.getInt(i + 3) - paddedHeight;
+            if (leftoverWidth < 0 || leftoverHeight < 0) {
+                continue;
+            }
+            final int shortSide = Math.min(leftoverWidth, leftoverHeight);
+            final int longSide = Math.max(leftoverWidth, leftoverHeight);
+            if (shortSide < bestShortSide || (shortSide == bestShortSide && longSide < bestLongSide)) {
+                bestIndex = i;
+                bestShortSide = shortSide;
+                bestLongSide = longSide;
+            }
+        }
+        if (bestIndex == -1) {
+            return null;
+        }
+
+        final int x = this.freeRectangles.getInt(bestIndex);
+        final int y = this.freeRectangles.getInt(bestIndex + 1);
+        final int freeWidth = this.freeRectangles.getInt(bestIndex + 2);
+        final int freeHeight = this.freeRectangles.getInt(bestIndex + 3);
+        this.removeFreeRectangle(bestIndex);
+
+        // Split along the shorter leftover axis to keep the larger leftover rectangle as big as possible
+        final int leftoverWidth = freeWidth - paddedWidth;
+        final int leftoverHeight = freeHeight - paddedHeight;
+        if (leftoverWidth < leftoverHeight) {
+            this.addFreeRectangle(x + paddedWidth, y, leftoverWidth, paddedHeight);
+            this.addFreeRectangle(x, y + paddedHeight, freeWidth, leftoverHeight);
+        } else {
+            this.addFreeRectangle(x + paddedWidth, y, leftoverWidth, freeHeight);
+            this.addFreeRectangle(x, y + paddedHeight, paddedWidth, leftoverHeight);
+        }
+        this.usedArea += paddedWidth * paddedHeight;
+
+        final float u1 = x / (float) this.width;
+        final float v1 = y / (float) this.height;
+        final float u2 = (x + rectWidth) / (float) this.width;
+        final float v2 = (y + rectHeight) / (float) this.height;
+        return new Slot(x, y, rectWidth, rectHeight, u1, v1, u2, v2);
+    }
+
+    public void free(final Slot slot) {
+        int x = slot.x();
+        int y = slot.y();
+        int width = slot.width() + 1;
+        int height = slot.height() + 1;
+        this.usedArea -= width * height;
+
+        boolean merged;
+        do {
+            merged = false;
+            for (int i = 0; i < this.freeRectangles.size(); i += 4) {
+                final int freeX = this.freeRectangles.getInt(i);
+                final int freeY = this.freeRectangles.getInt(i + 1);
+                final int freeWidth = this.freeRectangles.getInt(i + 2);
+                final int freeHeight = this.freeRectangles.getInt(i + 3);
+                if (freeX == x && freeWidth == width && (freeY + freeHeight == y || y + height == freeY)) {
+                    y = Math.min(y, freeY);
+                    height += freeHeight;
+                } else if (freeY == y && freeHeight == height && (freeX + freeWidth == x || x + width == freeX)) {
+                    x = Math.min(x, freeX);
+                    width += freeWidth;
+                } else {
+                    continue;
+                }
+                this.removeFreeRectangle(i);
+                merged = true;
+                break;
+            }
+        } while (merged);
+        this.addFreeRectangle(x, y, width, height);
+    }
+
+    public void clear() {
+        this.freeRectangles.clear();
+        this.freeRectangles.add(0);
+        this.freeRectangles.add(0);
+        this.freeRectangles.add(this.width);
+        this.freeRectangles.add(this.height);
+        this.usedArea = 0;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * @return The fraction of the area which is currently occupied (Including padding)
+     */
+    public float getOccupancy() {
+        return this.usedArea / (float) (this.width * this.height);
+    }
+
+    public int getFreeRectangleCount() {
+        return this.freeRectangles.size() / 4;
+    }
+
+    private void addFreeRectangle(final int x, final int y, final int width, final int height) {
+        if (width > 0 && height > 0) {
+            this.freeRectangles.add(x);
+            this.freeRectangles.add(y);
+            this.freeRectangles.add(width);
+            this.freeRectangles.add(height);
+        }
+    }
+
+    private void removeFreeRectangle(final int index) {
+        final int lastIndex = this.freeRectangles.size() - 4;
+        if (index != lastIndex) {
+            for (int i = 0; i < 4; i++) {
+                this.freeRectangles.set(index + i, this.freeRectangles.getInt(lastIndex + i));
+            }
+        }
+        this.freeRectangles.size(lastIndex);
+    }
+
+}
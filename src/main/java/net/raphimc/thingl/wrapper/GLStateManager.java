@@ -19,10 +19,7 @@ package net.raphimc.thingl.wrapper;
 
 import net.raphimc.thingl.ThinGL;
 import org.jetbrains.annotations.ApiStatus;
-import org.lwjgl.opengl.GL11C;
-import org.lwjgl.opengl.GL14C;
-import org.lwjgl.opengl.GL20C;
-import org.lwjgl.opengl.GL30C;
+import org.lwjgl.opengl.*;
 
 public class GLStateManager {
 
@@ -159,6 +156,93 @@ public class GLStateManager {
         GL30C.glBindVertexArray(vertexArray);
     }
 
+    /**
+     * Binds the given texture to the given texture unit. The texture is bound to the target it was created with.
+     *
+     * @param unit The texture unit
+     * @param texture The texture or 0 to unbind all textures from the texture unit
+     */
+    public void bindTextureUnit(final int unit, final int texture) {
+        de.florianmichael.thingl.GlCommands.get().glBindTextureUnit(unit, texture); // FlorianMichael - add macOS support
+    }
+
+    /**
+     * Binds the given textures to consecutive texture units starting at the given texture unit.
+     *
+     * @param first The first texture unit
+     * @param textures The textures
+     */
+    public void bindTextures(final int first, final int[] textures) {
+        de.florianmichael.thingl.GlCommands.get().glBindTextures(first, textures); // FlorianMichael - add macOS support
+    }
+
+    public void bindSampler(final int unit, final int sampler) {
+        GL33C.glBindSampler(unit, sampler);
+    }
+
+    public int getBuffer(final int target) {
+        return GL11C.glGetInteger(getBufferBindingQuery(target));
+    }
+
+    public void bindBuffer(final int target, final int buffer) {
+        GL15C.glBindBuffer(target, buffer);
+    }
+
+    public int getBufferBase(final int target, final int index) {
+        return GL30C.glGetIntegeri(getBufferBindingQuery(target), index);
+    }
+
+    /**
+     * Binds the given buffer to the given indexed binding point. This also binds the buffer to the generic binding point of the target.
+     *
+     * @param target The target (For example GL_UNIFORM_BUFFER or GL_SHADER_STORAGE_BUFFER)
+     * @param index The binding point index
+     * @param buffer The buffer or 0 to unbind the binding point
+     */
+    public void bindBufferBase(final int target, final int index, final int buffer) {
+        GL30C.glBindBufferBase(target, index, buffer);
+    }
+
+    /**
+     * Called at the start of every frame, as the application might have changed the OpenGL state outside of ThinGL.
+     */
+    @ApiStatus.Internal
+    public void onStartFrame() {
+    }
+
+    /**
+     * Called when a texture has been deleted, as OpenGL unbinds deleted textures from all texture units.
+     *
+     * @param texture The deleted texture
+     */
+    @ApiStatus.Internal
+    public void onTextureDeleted(final int texture) {
+    }
+
+    /**
+     * Called when a buffer has been deleted, as OpenGL unbinds deleted buffers from all binding points.
+     *
+     * @param buffer The deleted buffer
+     */
+    @ApiStatus.Internal
+    public void onBufferDeleted(final int buffer) {
+    }
+
+    protected static int getBufferBindingQuery(final int target) {
+        return switch (target) {
+            case GL15C.GL_ARRAY_BUFFER -> GL15C.GL_ARRAY_BUFFER_BINDING;
+            case GL21C.GL_PIXEL_PACK_BUFFER -> GL21C.GL_PIXEL_PACK_BUFFER_BINDING;
+            case GL21C.GL_PIXEL_UNPACK_BUFFER -> GL21C.GL_PIXEL_UNPACK_BUFFER_BINDING;
+            case GL31C.GL_COPY_READ_BUFFER, GL31C.GL_COPY_WRITE_BUFFER -> target; // The binding queries share the value of the targets
+            case GL31C.GL_UNIFORM_BUFFER -> GL31C.GL_UNIFORM_BUFFER_BINDING;
+            case GL40C.GL_DRAW_INDIRECT_BUFFER -> GL40C.GL_DRAW_INDIRECT_BUFFER_BINDING;
+            case GL43C.GL_DISPATCH_INDIRECT_BUFFER -> GL43C.GL_DISPATCH_INDIRECT_BUFFER_BINDING;
+            case GL43C.GL_SHADER_STORAGE_BUFFER -> GL43C.GL_SHADER_STORAGE_BUFFER_BINDING;
+            case ARBIndirectParameters.GL_PARAMETER_BUFFER_ARB -> ARBIndirectParameters.GL_PARAMETER_BUFFER_BINDING_ARB;
+            default -> throw new IllegalArgumentException("Unsupported buffer target: " + target);
+        };
+    }
+
     public record BlendFunc(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
     }
 
@@ -15,29 +15,53 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
+
 package net.raphimc.thingl.wrapper;
 
 import it.unimi.dsi.fastutil.ints.Int2BooleanMap;
 import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import net.raphimc.thingl.ThinGL;
 import org.jetbrains.annotations.ApiStatus;
 
+/**
+ * State manager which caches the OpenGL state to skip redundant state changes.<br>
+ * Compound states are tracked in primitive fields, so that changing them doesn't allocate. The state records are only created when the state is queried.
+ * If the OpenGL state is changed without going through the state manager, the corresponding cache has to be cleared.
+ * The texture, sampler and buffer binding caches are cleared at the start of every frame and entries of deleted objects are dropped.
+ */
 public class TrackingGLStateManager extends GLStateManager {
 
     private final Int2BooleanMap capabilities = new Int2BooleanOpenHashMap();
+    private boolean hasBlendFunc;
+    private int blendSrcRGB, blendDstRGB, blendSrcAlpha, blendDstAlpha;
     private BlendFunc blendFunc;
     private Integer depthFunc;
+    private boolean hasColorMask;
+    private boolean colorMaskRed, colorMaskGreen, colorMaskBlue, colorMaskAlpha;
     private ColorMask colorMask;
     private Boolean depthMask;
+    private boolean hasScissor;
+    private int scissorX, scissorY, scissorWidth, scissorHeight;
     private Scissor scissor;
+    private boolean hasViewport;
+    private int viewportX, viewportY, viewportWidth, viewportHeight;
     private Viewport viewport;
     private Integer logicOp;
+    private boolean hasPolygonOffset;
+    private float polygonOffsetFactor, polygonOffsetUnits;
     private PolygonOffset polygonOffset;
     private final Int2IntMap pixelStores = new Int2IntOpenHashMap();
     private Integer program;
     private Integer vertexArray;
+    private final Int2IntMap textureUnits = new Int2IntOpenHashMap();
+    private final Int2IntMap samplers = new Int2IntOpenHashMap();
+    private final Int2IntMap buffers = new Int2IntOpenHashMap();
+    private final Long2IntMap bufferBases = new Long2IntOpenHashMap();
 
     @ApiStatus.Internal
     public TrackingGLStateManager(final ThinGL thinGL) {
@@ -69,25 +93,38 @@ public class TrackingGLStateManager extends GLStateManager {
 
     @Override
     public BlendFunc getBlendFunc() {
-        if (this.blendFunc != null) {
-            return this.blendFunc;
-        } else {
-            final BlendFunc blendFunc = super.getBlendFunc();
-            this.blendFunc = blendFunc;
-            return blendFunc;
+        if (this.blendFunc == null) {
+            if (this.hasBlendFunc) {
+                this.blendFunc = new BlendFunc(this.blendSrcRGB, this.blendDstRGB, this.blendSrcAlpha, this.blendDstAlpha);
+            } else {
+                this.blendFunc = super.getBlendFunc();
+                this.blendSrcRGB = this.blendFunc.srcRGB();
+                this.blendDstRGB = this.blendFunc.dstRGB();
+                this.blendSrcAlpha = this.blendFunc.srcAlpha();
+                this.blendDstAlpha = this.blendFunc.dstAlpha();
+                this.hasBlendFunc = true;
+            }
         }
+        return this.blendFunc;
     }
 
     @Override
     public void setBlendFunc(final int srcRGB, final int dstRGB, final int srcAlpha, final int dstAlpha) {
-        final BlendFunc currentBlendFunc = this.getBlendFunc();
-        if (currentBlendFunc.srcRGB() != srcRGB || currentBlendFunc.dstRGB() != dstRGB || currentBlendFunc.srcAlpha() != srcAlpha || currentBlendFunc.dstAlpha() != dstAlpha) {
-            this.blendFunc = new BlendFunc(srcRGB, dstRGB, srcAlpha, dstAlpha);
+        if (!this.hasBlendFunc) {
+            this.getBlendFunc();
+        }
+        if (this.blendSrcRGB != srcRGB || this.blendDstRGB != dstRGB || this.blendSrcAlpha != srcAlpha || this.blendDstAlpha != dstAlpha) {
+            this.blendSrcRGB = srcRGB;
+            this.blendDstRGB = dstRGB;
+            this.blendSrcAlpha = srcAlpha;
+            this.blendDstAlpha = dstAlpha;
+            this.blendFunc = null;
             super.setBlendFunc(srcRGB, dstRGB, srcAlpha, dstAlpha);
         }
     }
 
     public void clearBlendFuncCache() {
+        this.hasBlendFunc = false;
         this.blendFunc = null;
     }
 
@@ -116,25 +153,38 @@ public class TrackingGLStateManager extends GLStateManager {
 
     @Override
     public ColorMask getColorMask() {
-        if (this.colorMask != null) {
-            return this.colorMask;
-        } else {
-            final ColorMask colorMask = super.getColorMask();
-            this.colorMask = colorMask;
-            return colorMask;
+        if (this.colorMask == null) {
+            if (this.hasColorMask) {
+                this.colorMask = new ColorMask(this.colorMaskRed, this.colorMaskGreen, this.colorMaskBlue, this.colorMaskAlpha);
+            } else {
+                this.colorMask = super.getColorMask();
+                this.colorMaskRed = this.colorMask.red();
+                this.colorMaskGreen = this.colorMask.green();
+                this.colorMaskBlue = this.colorMask.blue();
+                this.colorMaskAlpha = this.colorMask.alpha();
+                this.hasColorMask = true;
+            }
         }
+        return this.colorMask;
     }
 
     @Override
     public void setColorMask(final boolean red, final boolean green, final boolean blue, final boolean alpha) {
-        final ColorMask currentColorMask = this.getColorMask();
-        if (currentColorMask.red() != red || currentColorMask.green() != green || currentColorMask.blue() != blue || currentColorMask.alpha() != alpha) {
-            this.colorMask = new ColorMask(red, green, blue, alpha);
+        if (!this.hasColorMask) {
+            this.getColorMask();
+        }
+        if (this.colorMaskRed != red || this.colorMaskGreen != green || this.colorMaskBlue != blue || this.colorMaskAlpha != alpha) {
+            this.colorMaskRed = red;
+            this.colorMaskGreen = green;
+            this.colorMaskBlue = blue;
+            this.colorMaskAlpha = alpha;
+            this.colorMask = null;
             super.setColorMask(red, green, blue, alpha);
         }
     }
 
     public void clearColorMaskCache() {
+        this.hasColorMask = false;
         this.colorMask = null;
     }
 
@@ -163,49 +213,75 @@ public class TrackingGLStateManager extends GLStateManager {
 
     @Override
     public Scissor getScissor() {
-        if (this.scissor != null) {
-            return this.scissor;
-        } else {
-            final Scissor scissor = super.getScissor();
-            this.scissor = scissor;
-            return scissor;
+        if (this.scissor == null) {
+            if (this.hasScissor) {
+                this.scissor = new Scissor(this.scissorX, this.scissorY, this.scissorWidth, this.scissorHeight);
+            } else {
+                this.scissor = super.getScissor();
+                this.scissorX = this.scissor.x();
+                this.scissorY = this.scissor.y();
+                this.scissorWidth = this.scissor.width();
+                this.scissorHeight = this.scissor.height();
+                this.hasScissor = true;
+            }
         }
+        return this.scissor;
     }
 
     @Override
     public void setScissor(final int x, final int y, final int width, final int height) {
-        final Scissor currentScissor = this.getScissor();
-        if (currentScissor.x() != x || currentScissor.y() != y || currentScissor.width() != width || currentScissor.height() != height) {
-            this.scissor = new Scissor(x, y, width, height);
+        if (!this.hasScissor) {
+            this.getScissor();
+        }
+        if (this.scissorX != x || this.scissorY != y || this.scissorWidth != width || this.scissorHeight != height) {
+            this.scissorX = x;
+            this.scissorY = y;
+            this.scissorWidth = width;
+            this.scissorHeight = height;
+            this.scissor = null;
             super.setScissor(x, y, width, height);
         }
     }
 
     public void clearScissorCache() {
+        this.hasScissor = false;
         this.scissor = null;
     }
 
     @Override
     public Viewport getViewport() {
-        if (this.viewport != null) {
-            return this.viewport;
-        } else {
-            final Viewport viewport = super.getViewport();
-            this.viewport = viewport;
-            return viewport;
+        if (this.viewport == null) {
+            if (this.hasViewport) {
+                this.viewport = new Viewport(this.viewportX, this.viewportY, this.viewportWidth, this.viewportHeight);
+            } else {
+                this.viewport = super.getViewport();
+                this.viewportX = this.viewport.x();
+                this.viewportY = this.viewport.y();
+                this.viewportWidth = this.viewport.width();
+                this.viewportHeight = this.viewport.height();
+                this.hasViewport = true;
+            }
         }
+        return this.viewport;
     }
 
     @Override
     public void setViewport(final int x, final int y, final int width, final int height) {
-        final Viewport currentViewport = this.getViewport();
-        if (currentViewport.x() != x || currentViewport.y() != y || currentViewport.width() != width || currentViewport.height() != height) {
-            this.viewport = new Viewport(x, y, width, height);
+        if (!this.hasViewport) {
+            this.getViewport();
+        }
+        if (this.viewportX != x || this.viewportY != y || this.viewportWidth != width || this.viewportHeight != height) {
+            this.viewportX = x;
+            this.viewportY = y;
+            this.viewportWidth = width;
+            this.viewportHeight = height;
+            this.viewport = null;
             super.setViewport(x, y, width, height);
         }
     }
 
     public void clearViewportCache() {
+        this.hasViewport = false;
         this.viewport = null;
     }
 
@@ -234,25 +310,34 @@ public class TrackingGLStateManager extends GLStateManager {
 
     @Override
     public PolygonOffset getPolygonOffset() {
-        if (this.polygonOffset != null) {
-            return this.polygonOffset;
-        } else {
-            final PolygonOffset polygonOffset = super.getPolygonOffset();
-            this.polygonOffset = polygonOffset;
-            return polygonOffset;
+        if (this.polygonOffset == null) {
+            if (this.hasPolygonOffset) {
+                this.polygonOffset = new PolygonOffset(this.polygonOffsetFactor, this.polygonOffsetUnits);
+            } else {
+                this.polygonOffset = super.getPolygonOffset();
+                this.polygonOffsetFactor = this.polygonOffset.factor();
+                this.polygonOffsetUnits = this.polygonOffset.units();
+                this.hasPolygonOffset = true;
+            }
         }
+        return this.polygonOffset;
     }
 
     @Override
     public void setPolygonOffset(final float factor, final float units) {
-        final PolygonOffset currentPolygonOffset = this.getPolygonOffset();
-        if (currentPolygonOffset.factor() != factor || currentPolygonOffset.units() != units) {
-            this.polygonOffset = new PolygonOffset(factor, units);
+        if (!this.hasPolygonOffset) {
+            this.getPolygonOffset();
+        }
+        if (this.polygonOffsetFactor != factor || this.polygonOffsetUnits != units) {
+            this.polygonOffsetFactor = factor;
+            this.polygonOffsetUnits = units;
+            this.polygonOffset = null;
             super.setPolygonOffset(factor, units);
         }
     }
 
     public void clearPolygonOffsetCache() {
+        this.hasPolygonOffset = false;
         this.polygonOffset = null;
     }
 
@@ -325,4 +410,119 @@ public class TrackingGLStateManager extends GLStateManager {
         this.vertexArray = null;
     }
 
+    @Override
+    public void bindTextureUnit(final int unit, final int texture) {
+        if (!this.textureUnits.containsKey(unit) || this.textureUnits.get(unit) != texture) {
+            this.textureUnits.put(unit, texture);
+            super.bindTextureUnit(unit, texture);
+        }
+    }
+
+    @Override
+    public void bindTextures(final int first, final int[] textures) {
+        boolean changed = false;
+        for (int i = 0; i < textures.length; i++) {
+            if (!this.textureUnits.containsKey(first + i) || this.textureUnits.get(first + i) != textures[i]) {
+                this.textureUnits.put(first + i, textures[i]);
+                changed = true;
+            }
+        }
+        if (changed) {
+            super.bindTextures(first, textures);
+        }
+    }
+
+    public void clearTextureUnitsCache() {
+        this.textureUnits.clear();
+    }
+
+    @Override
+    public void bindSampler(final int unit, final int sampler) {
+        if (!this.samplers.containsKey(unit) || this.samplers.get(unit) != sampler) {
+            this.samplers.put(unit, sampler);
+            super.bindSampler(unit, sampler);
+        }
+    }
+
+    public void clearSamplersCache() {
+        this.samplers.clear();
+    }
+
+    @Override
+    public int getBuffer(final int target) {
+        if (this.buffers.containsKey(target)) {
+            return this.buffers.get(target);
+        } else {
+            final int buffer = super.getBuffer(target);
+            this.buffers.put(target, buffer);
+            return buffer;
+        }
+    }
+
+    @Override
+    public void bindBuffer(final int target, final int buffer) {
+        if (this.getBuffer(target) != buffer) {
+            this.buffers.put(target, buffer);
+            super.bindBuffer(target, buffer);
+        }
+    }
+
+    @Override
+    public int getBufferBase(final int target, final int index) {
+        final long key = getBufferBaseKey(target, index);
+        if (this.bufferBases.containsKey(key)) {
+            return this.bufferBases.get(key);
+        } else {
+            final int buffer = super.getBufferBase(target, index);
+            this.bufferBases.put(key, buffer);
+            return buffer;
+        }
+    }
+
+    @Override
+    public void bindBufferBase(final int target, final int index, final int buffer) {
+        final long key = getBufferBaseKey(target, index);
+        if (!this.bufferBases.containsKey(key) || this.bufferBases.get(key) != buffer) { // Querying the binding isn't worth it, as the binding is changed anyway if it isn't known
+            this.bufferBases.put(key, buffer);
+            this.buffers.put(target, buffer);
+            super.bindBufferBase(target, index, buffer);
+        }
+    }
+
+    public void clearBuffersCache() {
+        this.buffers.clear();
+        this.bufferBases.clear();
+    }
+
+    @Override
+    public void onStartFrame() {
+        // The application might have changed the bindings outside of ThinGL since the last frame
+        this.clearTextureUnitsCache();
+        this.clearSamplersCache();
+        this.clearBuffersCache();
+    }
+
+    @Override
+    public void onTextureDeleted(final int texture) {
+        removeBindings(this.textureUnits.values().iterator(), texture);
+    }
+
+    @Override
+    public void onBufferDeleted(final int buffer) {
+        removeBindings(this.buffers.values().iterator(), buffer);
+        removeBindings(this.bufferBases.values().iterator(), buffer);
+    }
+
+    private static void removeBindings(final IntIterator bindings, final int object) {
+        while (bindings.hasNext()) {
+            if (bindings.nextInt() == object) {
+                bindings.remove();
+            }
+        }
+    }
+
+    private static long getBufferBaseKey(final int target, final int index) {
+        return (long) target << 32 | (index & 0xFFFFFFFFL);
+    }
+
 }
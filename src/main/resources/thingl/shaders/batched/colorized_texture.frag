@@ -0,0 +1,21 @@
+#version 400 core
+#extension GL_ARB_bindless_texture : require
+#define LUMINOSITY_WEIGHTS vec3(0.2126, 0.7152, 0.0722)
+
+#include "globals.glsl"
+
+in vec4 v_Color;
+in vec2 v_TexCoord;
+flat in uvec2 v_Texture;
+out vec4 o_Color;
+
+void main() {
+    vec4 textureColor = texture(sampler2D(v_Texture), v_TexCoord);
+    vec3 greyScale = vec3(dot(textureColor.rgb, LUMINOSITY_WEIGHTS));
+    float colorAverage = (v_Color.r + v_Color.g + v_Color.b) / 3;
+    vec3 colorPow = vec3(1 + colorAverage) - v_Color.rgb;
+    o_Color = vec4(pow(greyScale, colorPow), textureColor.a * v_Color.a) * u_ColorModifier;
+    if (o_Color.a == 0) {
+        discard;
+    }
+}
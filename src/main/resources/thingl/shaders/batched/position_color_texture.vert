@@ -0,0 +1,20 @@
+#version 330 core
+
+#include "globals.glsl"
+uniform mat4 u_ModelMatrix;
+
+layout (location = 0) in vec3 i_Position;
+layout (location = 1) in vec4 i_Color;
+layout (location = 2) in vec2 i_TexCoord;
+layout (location = 3) in uvec2 i_Texture;
+out vec4 v_Color;
+out vec2 v_TexCoord;
+flat out uvec2 v_Texture;
+
+void main() {
+    gl_Position = u_ProjectionMatrix * u_ViewMatrix * u_ModelMatrix * vec4(i_Position, 1);
+
+    v_Color = i_Color;
+    v_TexCoord = i_TexCoord;
+    v_Texture = i_Texture;
+}
@@ -0,0 +1,16 @@
+#version 400 core
+#extension GL_ARB_bindless_texture : require
+
+#include "globals.glsl"
+
+in vec2 v_TexCoord;
+flat in uint v_Layer;
+flat in uvec2 v_Texture;
+out vec4 o_Color;
+
+void main() {
+    o_Color = texture(sampler2DArray(v_Texture), vec3(v_TexCoord, v_Layer)) * u_ColorModifier;
+    if (o_Color.a == 0) {
+        discard;
+    }
+}
@@ -1,6 +1,6 @@
 #version 330 core
 
-uniform vec4 u_ColorModifier;
+#include "globals.glsl"
 
 in vec4 g_Color;
 out vec4 o_Color;
@@ -1,8 +1,7 @@
 #version 430 core
 #extension GL_ARB_shader_draw_parameters: require
 
-uniform mat4 u_ProjectionMatrix;
-uniform mat4 u_ViewMatrix;
+#include "globals.glsl"
 uniform mat4 u_ModelMatrix;
 
 layout (std430) restrict readonly buffer ssbo_DrawData {
@@ -19,7 +18,7 @@ void main() {
     if (positionOffsets.length() == 0) {
         gl_Position = u_ProjectionMatrix * u_ViewMatrix * u_ModelMatrix * vec4(i_Position, 1);
     } else {
-        gl_Position = u_ProjectionMatrix * u_ViewMatrix * u_ModelMatrix * vec4(i_Position + positionOffsets[gl_DrawIDARB], 1);
+        gl_Position = u_ProjectionMatrix * u_ViewMatrix * u_ModelMatrix * vec4(i_Position + positionOffsets[gl_BaseInstanceARB], 1);
     }
 
     v_Color = i_Color;
@@ -0,0 +1,73 @@
+// Dual filtering blur as described in "Bandwidth-Efficient Rendering" (Marius Bjorge, SIGGRAPH 2015)
+#version 330 core
+
+uniform sampler2D u_Source;
+uniform sampler2D u_Input;
+uniform int u_Pass;
+uniform vec2 u_SourcePixelSize;
+uniform float u_Offset;
+
+in vec2 v_VpTexCoord;
+out vec4 o_Color;
+
+const int PASS_FIRST_DOWNSAMPLE = 0;
+const int PASS_DOWNSAMPLE = 1;
+const int PASS_UPSAMPLE = 2;
+const int PASS_FINAL_UPSAMPLE = 3;
+
+void addSample(inout vec4 colorSum, vec2 pos, float weight);
+bool shouldBlur(vec2 pos);
+
+void main() {
+    if (u_Pass == PASS_FINAL_UPSAMPLE && !shouldBlur(v_VpTexCoord)) {
+        discard;
+    }
+
+    vec2 o = u_SourcePixelSize * u_Offset;
+    vec4 colorSum = vec4(0);
+    float totalWeight;
+    if (u_Pass <= PASS_DOWNSAMPLE) {
+        vec2 h = u_SourcePixelSize * 0.5;
+        addSample(colorSum, v_VpTexCoord, 4);
+        addSample(colorSum, v_VpTexCoord + vec2(-h.x - o.x, -h.y - o.y), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(h.x + o.x, h.y + o.y), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(h.x + o.x, -h.y - o.y), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(-h.x - o.x, h.y + o.y), 1);
+        totalWeight = 8;
+    } else {
+        vec2 h = u_SourcePixelSize * 0.5;
+        addSample(colorSum, v_VpTexCoord + vec2(-h.x * 2 - o.x, 0), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(-h.x - o.x, h.y + o.y), 2);
+        addSample(colorSum, v_VpTexCoord + vec2(0, h.y * 2 + o.y), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(h.x + o.x, h.y + o.y), 2);
+        addSample(colorSum, v_VpTexCoord + vec2(h.x * 2 + o.x, 0), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(h.x + o.x, -h.y - o.y), 2);
+        addSample(colorSum, v_VpTexCoord + vec2(0, -h.y * 2 - o.y), 1);
+        addSample(colorSum, v_VpTexCoord + vec2(-h.x - o.x, -h.y - o.y), 2);
+        totalWeight = 12;
+    }
+
+    if (colorSum.a == 0) {
+        discard;
+    }
+    if (u_Pass == PASS_FINAL_UPSAMPLE) {
+        o_Color = vec4(colorSum.rgb / colorSum.a, 1);
+    } else { /* Store the blurred color together with how much of it was covered by the input */
+        o_Color = vec4(colorSum.rgb / colorSum.a, colorSum.a / totalWeight);
+    }
+}
+
+void addSample(inout vec4 colorSum, vec2 pos, float weight) {
+    vec4 color = texture(u_Source, pos);
+    float coverage;
+    if (u_Pass == PASS_FIRST_DOWNSAMPLE) {
+        coverage = shouldBlur(pos) ? 1 : 0;
+    } else {
+        coverage = color.a;
+    }
+    colorSum += vec4(color.rgb * coverage, coverage) * weight;
+}
+
+bool shouldBlur(vec2 pos) {
+    return texture(u_Input, pos).a != 0;
+}
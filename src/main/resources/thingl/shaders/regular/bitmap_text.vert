@@ -4,11 +4,10 @@ struct TextData {
     uint textColor;
 };
 struct GlyphData {
-    uint textureAndTextIndex;
+    uint layerAndTextIndex;
 };
 
-uniform mat4 u_ProjectionMatrix;
-uniform mat4 u_ViewMatrix;
+#include "globals.glsl"
 uniform mat4 u_ModelMatrix;
 
 layout (std430) restrict readonly buffer ssbo_TextData {
@@ -21,16 +20,16 @@ layout (std430) restrict readonly buffer ssbo_GlyphData {
 layout (location = 0) in vec3 i_Position;
 layout (location = 1) in vec2 i_TexCoord;
 out vec2 v_TexCoord;
-flat out uint v_TextureIndex;
+flat out uint v_Layer;
 flat out vec4 v_TextColor;
 
 void main() {
     gl_Position = u_ProjectionMatrix * u_ViewMatrix * u_ModelMatrix * vec4(i_Position, 1);
 
     GlyphData glyphData = glyphDatas[gl_VertexID / 4];
-    TextData textData = textDatas[glyphData.textureAndTextIndex & 0x7FFFFFFu];
+    TextData textData = textDatas[glyphData.layerAndTextIndex & 0xFFFFFFu];
 
     v_TexCoord = i_TexCoord;
-    v_TextureIndex = (glyphData.textureAndTextIndex >> 27) & 31u;
+    v_Layer = glyphData.layerAndTextIndex >> 24;
     v_TextColor = unpackUnorm4x8(textData.textColor);
 }
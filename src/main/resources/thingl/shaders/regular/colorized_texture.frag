@@ -1,7 +1,7 @@
 #version 330 core
 #define LUMINOSITY_WEIGHTS vec3(0.2126, 0.7152, 0.0722)
 
-uniform vec4 u_ColorModifier;
+#include "globals.glsl"
 uniform sampler2D u_Texture;
 
 in vec4 v_Color;
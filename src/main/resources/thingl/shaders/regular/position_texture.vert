@@ -1,7 +1,6 @@
 #version 330 core
 
-uniform mat4 u_ProjectionMatrix;
-uniform mat4 u_ViewMatrix;
+#include "globals.glsl"
 uniform mat4 u_ModelMatrix;
 
 layout (location = 0) in vec3 i_Position;
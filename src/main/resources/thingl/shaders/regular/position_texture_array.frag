@@ -1,6 +1,6 @@
 #version 330 core
 
-uniform vec4 u_ColorModifier;
+#include "globals.glsl"
 uniform sampler2DArray u_Texture;
 
 in vec2 v_TexCoord;
@@ -2,11 +2,11 @@
 #define DF_PX_RANGE 6
 #define STYLE_BOLD_BIT 2u
 
-uniform vec4 u_ColorModifier;
-uniform sampler2D u_Textures[32];
+#include "globals.glsl"
+uniform sampler2DArray u_Texture;
 
 in vec2 v_TexCoord;
-flat in uint v_TextureIndex;
+flat in uint v_Layer;
 flat in uint v_FontSize;
 flat in vec4 v_TextColor;
 flat in vec4 v_OutlineColor;
@@ -14,9 +14,9 @@ flat in uint v_StyleFlags;
 out vec4 o_Color;
 
 void main() {
-    float dist = texture(u_Textures[v_TextureIndex], v_TexCoord).r;
+    float dist = texture(u_Texture, vec3(v_TexCoord, v_Layer)).r;
     if ((v_StyleFlags & STYLE_BOLD_BIT) == 0 && v_OutlineColor.a == 0) { // High quality text rendering
-        vec2 unitRange = vec2(DF_PX_RANGE) / vec2(textureSize(u_Textures[v_TextureIndex], 0));
+        vec2 unitRange = vec2(DF_PX_RANGE) / vec2(textureSize(u_Texture, 0).xy);
         vec2 screenTexSize = vec2(1) / fwidth(v_TexCoord);
         float screenPxRange = max(dot(unitRange, screenTexSize), 1);
         float screenPxDistance = screenPxRange * (dist - 0.5);
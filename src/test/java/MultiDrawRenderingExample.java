@@ -0,0 +1,113 @@
+/*
+ * This file is part of ThinGL - https://github.com/RaphiMC/ThinGL
+ * Copyright (C) 2024-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.lenni0451.commons.color.Color;
+import net.raphimc.thingl.ThinGL;
+import net.raphimc.thingl.drawbuilder.BuiltinDrawBatches;
+import net.raphimc.thingl.drawbuilder.drawbatchdataholder.PersistentMultiDrawBatchDataHolder;
+import net.raphimc.thingl.drawbuilder.multidraw.MultiDrawRenderer;
+import net.raphimc.thingl.implementation.application.StandaloneApplicationRunner;
+import net.raphimc.thingl.resource.buffer.Buffer;
+import net.raphimc.thingl.util.RenderMathUtil;
+import org.joml.Matrix4fStack;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+public class MultiDrawRenderingExample extends StandaloneApplicationRunner {
+
+    private static final int GRID_SIZE = 4;
+    private static final int DRAW_DATA_STRIDE = Float.BYTES * 4; // std430 vec3 array stride
+
+    public static void main(String[] args) {
+        new MultiDrawRenderingExample().launch();
+    }
+
+    public MultiDrawRenderingExample() {
+        super(new Configuration().setWindowTitle("ThinGL Example - Multi draw rendering").setDebugMode(true));
+    }
+
+    private final MultiDrawRenderer multiDrawRenderer = new MultiDrawRenderer();
+    private final IntList ids = new IntArrayList();
+    private Buffer drawDataBuffer;
+    private boolean firstBufferVisible = true;
+
+    @Override
+    protected void init() {
+        super.init();
+        for (int i = 0; i < GRID_SIZE * GRID_SIZE; i++) {
+            final PersistentMultiDrawBatchDataHolder persistentDrawBatch = new PersistentMultiDrawBatchDataHolder();
+            ThinGL.renderer2D().beginBuffering(persistentDrawBatch);
+            ThinGL.renderer2D().filledRectangle(RenderMathUtil.getIdentityMatrix(), 0, 0, 40, 40, Color.fromRGBA(i * 15, 255 - i * 15, 128, 255));
+            ThinGL.renderer2D().endBuffering();
+            persistentDrawBatch.replaceDrawBatch(BuiltinDrawBatches.COLORED_QUAD, BuiltinDrawBatches.MULTIDRAW_COLORED_QUAD);
+            persistentDrawBatch.build();
+
+            final int id = this.multiDrawRenderer.uploadDrawBatchBuffers(persistentDrawBatch); // Copies the built buffers into the shared multi draw buffers
+            persistentDrawBatch.free();
+            this.multiDrawRenderer.addToRenderList(id);
+            this.ids.add(id);
+        }
+        this.multiDrawRenderer.rebuildCommandBuffer();
+        this.drawDataBuffer = new Buffer((long) this.ids.size() * DRAW_DATA_STRIDE, GL15C.GL_DYNAMIC_DRAW);
+        this.writeDrawData();
+    }
+
+    @Override
+    protected void render(final Matrix4fStack positionMatrix) {
+        if (ThinGL.get().getFrameCount() % 60 == 0) { // Toggle the first buffer to show how the render list slots move
+            this.firstBufferVisible = !this.firstBufferVisible;
+            if (this.firstBufferVisible) {
+                this.multiDrawRenderer.addToRenderList(this.ids.getInt(0));
+            } else {
+                this.multiDrawRenderer.removeFromRenderList(this.ids.getInt(0));
+            }
+            this.multiDrawRenderer.rebuildCommandBuffer();
+            this.writeDrawData(); // Removing a buffer moves other draw commands into its slots, so the draw data has to follow them
+        }
+
+        this.multiDrawRenderer.draw(positionMatrix, this.drawDataBuffer); // The shader reads ssbo_DrawData at the slot of each draw command
+
+        // this.multiDrawRenderer.free(); // Free up resources when done
+        // this.drawDataBuffer.free();
+    }
+
+    private void writeDrawData() {
+        final ByteBuffer drawData = MemoryUtil.memCalloc(this.ids.size() * DRAW_DATA_STRIDE);
+        try {
+            for (int i = 0; i < this.ids.size(); i++) {
+                final IntList slots = this.multiDrawRenderer.getRenderListSlots(this.ids.getInt(i), BuiltinDrawBatches.MULTIDRAW_COLORED_QUAD);
+                if (slots == null) {
+                    continue;
+                }
+                for (int j = 0; j < slots.size(); j++) {
+                    final int offset = slots.getInt(j) * DRAW_DATA_STRIDE;
+                    drawData.putFloat(offset, (i % GRID_SIZE) * 50F);
+                    drawData.putFloat(offset + Float.BYTES, (i / GRID_SIZE) * 50F);
+                }
+            }
+            this.drawDataBuffer.upload(0, drawData);
+        } finally {
+            MemoryUtil.memFree(drawData);
+        }
+    }
+
+}